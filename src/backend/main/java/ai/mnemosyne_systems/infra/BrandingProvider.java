@@ -8,165 +8,335 @@
 
 package ai.mnemosyne_systems.infra;
 
-import ai.mnemosyne_systems.model.Company;
 import ai.mnemosyne_systems.model.Installation;
+import io.quarkus.hibernate.orm.panache.Panache;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+/**
+ * Application-wide view of the installation branding. The singleton row is read once into an immutable snapshot that is
+ * replaced when the owner settings or the owner company change. Every change stamps a new branding version on the row,
+ * and a snapshot older than the check interval compares it so that other instances pick the change up too. A stored
+ * logo or background that is not an accepted image is ignored, and the logo falls back to the bundled one.
+ */
 @Named("branding")
 @ApplicationScoped
 public class BrandingProvider {
 
     private static final String DEFAULT_INSTALLATION_LOGO_PATH = "doc/logo/logo.svg";
     public static final String DEFAULT_INSTALLATION_COLOR = "#b00020";
+    public static final int DEFAULT_TICKET_AUTO_CLOSE_DAYS = 7;
     private static final Pattern HEX_COLOR_PATTERN = Pattern.compile("^#[0-9a-fA-F]{6}$");
+    private static final Pattern DATA_URI_PATTERN = Pattern.compile("^data:([^;,]+)?(;base64)?,(.*)$", Pattern.DOTALL);
+    private static final String SVG_CONTENT_TYPE = "image/svg+xml";
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+    private static final byte[] JPEG_SIGNATURE = { (byte) 0xff, (byte) 0xd8, (byte) 0xff };
+    private static final byte[] GIF87_SIGNATURE = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GIF89_SIGNATURE = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RIFF_SIGNATURE = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEBP_SIGNATURE = "WEBP".getBytes(StandardCharsets.US_ASCII);
 
-    public String installationCompanyName() {
-        Installation installation = installation();
-        if (installation != null) {
-            if (installation.name != null && !installation.name.isBlank()) {
-                return installation.name;
+    @Inject
+    Event<BrandingChanged> brandingChanged;
+
+    @ConfigProperty(name = "ticket.branding.version-check-interval", defaultValue = "5s")
+    Duration versionCheckInterval;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private volatile long checkedAt;
+    private volatile String defaultLogo;
+
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            if (System.nanoTime() - checkedAt < versionCheckInterval.toNanos()) {
+                return current;
             }
-            if (installation.company != null && installation.company.name != null
-                    && !installation.company.name.isBlank()) {
-                return installation.company.name;
+            if (storedVersion() == current.version()) {
+                checkedAt = System.nanoTime();
+                return current;
             }
         }
-        return "billetsys";
+        long loadedGeneration = generation.get();
+        Snapshot loaded = load();
+        synchronized (this) {
+            if (generation.get() == loadedGeneration) {
+                snapshot = loaded;
+                checkedAt = System.nanoTime();
+            }
+        }
+        return loaded;
     }
 
-    public String installationLogoBase64() {
-        Installation installation = installation();
-        if (installation != null && installation.logoBase64 != null && !installation.logoBase64.isBlank()) {
-            return installation.logoBase64;
+    /**
+     * Stamps a new branding version on the installation in the current transaction. The version follows the clock so
+     * that it never repeats, even after the database is recreated, and versioned image URLs stay safe to cache forever.
+     */
+    public void invalidate() {
+        Installation installation = Installation.find("singletonKey", "installation").firstResult();
+        if (installation != null) {
+            installation.brandingVersion = Math.max(System.currentTimeMillis(), version(installation) + 1);
         }
-        return defaultInstallationLogoBase64();
+        clear();
+        brandingChanged.fire(new BrandingChanged());
+    }
+
+    void onBrandingChanged(@Observes(during = TransactionPhase.AFTER_COMPLETION) BrandingChanged event) {
+        clear();
+    }
+
+    private synchronized void clear() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    public String installationCompanyName() {
+        return snapshot().companyName();
+    }
+
+    public String installationLogoBase64() {
+        return snapshot().logoBase64();
+    }
+
+    public String installationLogoUrl() {
+        Snapshot current = snapshot();
+        return current.logo() == null ? null : "/api/app/branding/logo?v=" + current.tag();
     }
 
     public String installationHeaderFooterColor() {
-        Installation installation = installation();
-        return normalizeInstallationColor(installation == null ? null : installation.headerFooterColor);
+        return snapshot().headerFooterColor();
     }
 
     public String installationHeadersColor() {
-        Installation installation = installation();
-        return normalizeInstallationColor(installation == null ? null : installation.headersColor);
+        return snapshot().headersColor();
     }
 
     public String installationButtonsColor() {
-        Installation installation = installation();
-        return normalizeInstallationColor(installation == null ? null : installation.buttonsColor);
+        return snapshot().buttonsColor();
     }
 
     public String installationBackgroundBase64() {
-        Installation installation = installation();
-        if (installation == null || installation.backgroundBase64 == null || installation.backgroundBase64.isBlank()) {
-            return null;
-        }
-        return installation.backgroundBase64;
+        return snapshot().backgroundBase64();
+    }
+
+    public String installationBackgroundUrl() {
+        Snapshot current = snapshot();
+        return current.background() == null ? null : "/api/app/branding/background?v=" + current.tag();
     }
 
     public boolean installationUse24HourClock() {
-        Installation installation = installation();
-        return installation != null && Boolean.TRUE.equals(installation.use24HourClock);
+        return snapshot().use24HourClock();
+    }
+
+    public int ticketAutoCloseDays() {
+        return snapshot().ticketAutoCloseDays();
     }
 
     public String defaultInstallationLogoBase64() {
-        try {
-            Path repoLogo = Path.of(DEFAULT_INSTALLATION_LOGO_PATH);
-            if (Files.exists(repoLogo)) {
-                return svgDataUri(Files.readAllBytes(repoLogo));
-            }
-            try (InputStream stream = BrandingProvider.class.getResourceAsStream("/branding/logo.svg")) {
-                if (stream == null) {
-                    throw new IllegalStateException("Default installation logo resource is missing");
-                }
-                return svgDataUri(stream.readAllBytes());
-            }
-        } catch (IOException e) {
-            throw new IllegalStateException("Unable to load default installation logo", e);
+        String current = defaultLogo;
+        if (current == null) {
+            current = svgDataUri(readDefaultLogo());
+            defaultLogo = current;
         }
+        return current;
     }
 
     public String installationAdminRoleIcon() {
-        Installation installation = installation();
-        return (installation != null && installation.adminRoleIcon != null && !installation.adminRoleIcon.isBlank())
-                ? installation.adminRoleIcon
-                : "shield-check";
+        return snapshot().adminRoleIcon();
     }
 
     public String installationSupportRoleIcon() {
-        Installation installation = installation();
-        return (installation != null && installation.supportRoleIcon != null && !installation.supportRoleIcon.isBlank())
-                ? installation.supportRoleIcon
-                : "headset";
+        return snapshot().supportRoleIcon();
     }
 
     public String installationSuperuserRoleIcon() {
-        Installation installation = installation();
-        return (installation != null && installation.superuserRoleIcon != null
-                && !installation.superuserRoleIcon.isBlank()) ? installation.superuserRoleIcon : "crown";
+        return snapshot().superuserRoleIcon();
     }
 
     public String installationTamRoleIcon() {
-        Installation installation = installation();
-        return (installation != null && installation.tamRoleIcon != null && !installation.tamRoleIcon.isBlank())
-                ? installation.tamRoleIcon
-                : "briefcase";
+        return snapshot().tamRoleIcon();
     }
 
     public String installationUserRoleIcon() {
-        Installation installation = installation();
-        return (installation != null && installation.userRoleIcon != null && !installation.userRoleIcon.isBlank())
-                ? installation.userRoleIcon
-                : "user";
+        return snapshot().userRoleIcon();
     }
 
     public String installationExternalRoleIcon() {
-        Installation installation = installation();
-        return (installation != null && installation.externalRoleIcon != null
-                && !installation.externalRoleIcon.isBlank()) ? installation.externalRoleIcon : "user-star";
+        return snapshot().externalRoleIcon();
     }
 
     public String installationAdminRoleColor() {
-        Installation installation = installation();
-        return normalizeRoleColor(installation == null ? null : installation.adminRoleColor);
+        return snapshot().adminRoleColor();
     }
 
     public String installationSupportRoleColor() {
-        Installation installation = installation();
-        return normalizeRoleColor(installation == null ? null : installation.supportRoleColor);
+        return snapshot().supportRoleColor();
     }
 
     public String installationSuperuserRoleColor() {
-        Installation installation = installation();
-        return normalizeRoleColor(installation == null ? null : installation.superuserRoleColor);
+        return snapshot().superuserRoleColor();
     }
 
     public String installationTamRoleColor() {
-        Installation installation = installation();
-        return normalizeRoleColor(installation == null ? null : installation.tamRoleColor);
+        return snapshot().tamRoleColor();
     }
 
     public String installationUserRoleColor() {
-        Installation installation = installation();
-        return normalizeRoleColor(installation == null ? null : installation.userRoleColor);
+        return snapshot().userRoleColor();
     }
 
     public String installationExternalRoleColor() {
-        Installation installation = installation();
-        return normalizeRoleColor(installation == null ? null : installation.externalRoleColor);
+        return snapshot().externalRoleColor();
+    }
+
+    private long storedVersion() {
+        return Panache.getEntityManager()
+                .createQuery("select i.brandingVersion from Installation i where i.singletonKey = 'installation'",
+                        Long.class)
+                .getResultStream().findFirst().map(version -> version == null ? 0L : version).orElse(0L);
+    }
+
+    private static long version(Installation installation) {
+        return installation == null || installation.brandingVersion == null ? 0L : installation.brandingVersion;
     }
 
-    private Installation installation() {
-        return Installation.find("singletonKey", "installation").firstResult();
+    private Snapshot load() {
+        Installation installation = Installation.find("singletonKey", "installation").firstResult();
+        Image logo = image(installation == null ? null : installation.logoBase64);
+        String logoBase64 = logo != null ? installation.logoBase64 : defaultInstallationLogoBase64();
+        if (logo == null) {
+            logo = new Image(SVG_CONTENT_TYPE,
+                    Base64.getDecoder().decode(logoBase64.substring(logoBase64.indexOf(',') + 1)));
+        }
+        Image background = image(installation == null ? null : installation.backgroundBase64);
+        String backgroundBase64 = background == null ? null : installation.backgroundBase64;
+        return new Snapshot(version(installation), companyName(installation), logoBase64, logo, backgroundBase64,
+                background, normalizeInstallationColor(installation == null ? null : installation.headerFooterColor),
+                normalizeInstallationColor(installation == null ? null : installation.headersColor),
+                normalizeInstallationColor(installation == null ? null : installation.buttonsColor),
+                installation != null && Boolean.TRUE.equals(installation.use24HourClock),
+                installation != null && installation.ticketAutoCloseDays != null ? installation.ticketAutoCloseDays
+                        : DEFAULT_TICKET_AUTO_CLOSE_DAYS,
+                iconOrDefault(installation == null ? null : installation.adminRoleIcon, "shield-check"),
+                iconOrDefault(installation == null ? null : installation.supportRoleIcon, "headset"),
+                iconOrDefault(installation == null ? null : installation.superuserRoleIcon, "crown"),
+                iconOrDefault(installation == null ? null : installation.tamRoleIcon, "briefcase"),
+                iconOrDefault(installation == null ? null : installation.userRoleIcon, "user"),
+                iconOrDefault(installation == null ? null : installation.externalRoleIcon, "user-star"),
+                normalizeRoleColor(installation == null ? null : installation.adminRoleColor),
+                normalizeRoleColor(installation == null ? null : installation.supportRoleColor),
+                normalizeRoleColor(installation == null ? null : installation.superuserRoleColor),
+                normalizeRoleColor(installation == null ? null : installation.tamRoleColor),
+                normalizeRoleColor(installation == null ? null : installation.userRoleColor),
+                normalizeRoleColor(installation == null ? null : installation.externalRoleColor));
+    }
+
+    private String companyName(Installation installation) {
+        if (installation != null) {
+            if (installation.name != null && !installation.name.isBlank()) {
+                return installation.name;
+            }
+            if (installation.company != null && installation.company.name != null
+                    && !installation.company.name.isBlank()) {
+                return installation.company.name;
+            }
+        }
+        return "billetsys";
+    }
+
+    private String iconOrDefault(String icon, String fallback) {
+        return icon != null && !icon.isBlank() ? icon : fallback;
+    }
+
+    /**
+     * Decodes an uploaded branding image. Only PNG, JPEG, GIF and WebP images are accepted, recognized from their bytes
+     * rather than the declared type, since the images are served without a login from the application origin.
+     */
+    static Image image(String dataUri) {
+        byte[] data = decode(dataUri);
+        String contentType = data == null ? null : imageContentType(data);
+        return contentType == null ? null : new Image(contentType, data);
+    }
+
+    public static boolean isAllowedImage(String dataUri) {
+        return image(dataUri) != null;
+    }
+
+    private static byte[] decode(String dataUri) {
+        if (dataUri == null || dataUri.isBlank()) {
+            return null;
+        }
+        var matcher = DATA_URI_PATTERN.matcher(dataUri.trim());
+        try {
+            if (matcher.matches()) {
+                return matcher.group(2) == null ? matcher.group(3).getBytes(StandardCharsets.UTF_8)
+                        : Base64.getMimeDecoder().decode(matcher.group(3));
+            }
+            return Base64.getMimeDecoder().decode(dataUri.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String imageContentType(byte[] data) {
+        if (startsWith(data, 0, PNG_SIGNATURE)) {
+            return "image/png";
+        }
+        if (startsWith(data, 0, JPEG_SIGNATURE)) {
+            return "image/jpeg";
+        }
+        if (startsWith(data, 0, GIF87_SIGNATURE) || startsWith(data, 0, GIF89_SIGNATURE)) {
+            return "image/gif";
+        }
+        if (startsWith(data, 0, RIFF_SIGNATURE) && startsWith(data, 8, WEBP_SIGNATURE)) {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, byte[] signature) {
+        if (data.length < offset + signature.length) {
+            return false;
+        }
+        for (int index = 0; index < signature.length; index++) {
+            if (data[offset + index] != signature[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] readDefaultLogo() {
+        try {
+            Path repoLogo = Path.of(DEFAULT_INSTALLATION_LOGO_PATH);
+            if (Files.exists(repoLogo)) {
+                return Files.readAllBytes(repoLogo);
+            }
+            try (InputStream stream = BrandingProvider.class.getResourceAsStream("/branding/logo.svg")) {
+                if (stream == null) {
+                    throw new IllegalStateException("Default installation logo resource is missing");
+                }
+                return stream.readAllBytes();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to load default installation logo", e);
+        }
     }
 
     public static String normalizeInstallationColor(String color) {
@@ -196,6 +366,28 @@ public class BrandingProvider {
     }
 
     private String svgDataUri(byte[] svgBytes) {
-        return "data:image/svg+xml;base64," + Base64.getEncoder().encodeToString(svgBytes);
+        return "data:" + SVG_CONTENT_TYPE + ";base64," + Base64.getEncoder().encodeToString(svgBytes);
+    }
+
+    public record Snapshot(long version, String companyName, String logoBase64, Image logo, String backgroundBase64,
+            Image background, String headerFooterColor, String headersColor, String buttonsColor,
+            boolean use24HourClock, int ticketAutoCloseDays, String adminRoleIcon, String supportRoleIcon,
+            String superuserRoleIcon, String tamRoleIcon, String userRoleIcon, String externalRoleIcon,
+            String adminRoleColor, String supportRoleColor, String superuserRoleColor, String tamRoleColor,
+            String userRoleColor, String externalRoleColor) {
+
+        public String tag() {
+            return Long.toString(version);
+        }
+
+        public String etag() {
+            return "\"" + version + "\"";
+        }
+    }
+
+    public record Image(String contentType, byte[] data) {
+    }
+
+    public record BrandingChanged() {
     }
 }
@@ -0,0 +1,159 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.infra;
+
+import ai.mnemosyne_systems.model.Article;
+import ai.mnemosyne_systems.model.Company;
+import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.model.User;
+import ai.mnemosyne_systems.service.CrossReferenceService;
+import ai.mnemosyne_systems.service.TicketActivityService;
+import ai.mnemosyne_systems.util.PrincipalCache;
+import ai.mnemosyne_systems.util.RenderedBodyCache;
+import ai.mnemosyne_systems.util.TicketCountCache;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import org.hibernate.Hibernate;
+import org.hibernate.Interceptor;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.type.Type;
+
+/**
+ * Invalidates cached principals when a user is updated or removed, or when company memberships change, and cached
+ * ticket counters when a ticket, its support or TAM assignments or company memberships change. A change of support
+ * assignments also marks the ticket activity dirty, since the assignee is kept there, and renaming a ticket or article
+ * evicts the rendered bodies linking to it.
+ */
+@PersistenceUnitExtension
+@ApplicationScoped
+public class PrincipalCacheInterceptor implements Interceptor {
+
+    private static final String COMPANY_USERS_ROLE = Company.class.getName() + ".users";
+    private static final String TICKET_ROLE_PREFIX = Ticket.class.getName() + ".";
+    private static final String TICKET_TAMS_ROLE = Ticket.class.getName() + ".tamUsers";
+    private static final String TICKET_SUPPORT_ROLE = Ticket.class.getName() + ".supportUsers";
+
+    @Override
+    public boolean onPersist(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        if (entity instanceof Ticket ticket) {
+            ticketChanged(ticket, null, null, Set.of());
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onFlushDirty(Object entity, Object id, Object[] currentState, Object[] previousState,
+            String[] propertyNames, Type[] types) {
+        if (entity instanceof User user) {
+            PrincipalCache.invalidate(user.id);
+        } else if (entity instanceof Ticket ticket) {
+            // A ticket moved to another company or requester also changes the counters of the previous ones.
+            ticketChanged(ticket, previous(previousState, propertyNames, "company"),
+                    previous(previousState, propertyNames, "requester"), Set.of());
+            if (changed(currentState, previousState, propertyNames, "name")) {
+                RenderedBodyCache.invalidateTarget(CrossReferenceService.TARGET_TYPE_TICKET, ticket.id);
+            }
+        } else if (entity instanceof Article article && changed(currentState, previousState, propertyNames, "title")) {
+            RenderedBodyCache.invalidateTarget(CrossReferenceService.TARGET_TYPE_ARTICLE, article.id);
+        }
+        return false;
+    }
+
+    @Override
+    public void onRemove(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        if (entity instanceof User user) {
+            PrincipalCache.invalidate(user.id);
+        } else if (entity instanceof Ticket ticket) {
+            ticketChanged(ticket, null, null, Set.of());
+        }
+    }
+
+    @Override
+    public void onCollectionRecreate(Object collection, Object key) {
+        membershipChanged(collection);
+    }
+
+    @Override
+    public void onCollectionRemove(Object collection, Object key) {
+        membershipChanged(collection);
+    }
+
+    @Override
+    public void onCollectionUpdate(Object collection, Object key) {
+        membershipChanged(collection);
+    }
+
+    private void membershipChanged(Object collection) {
+        if (!(collection instanceof PersistentCollection<?> persistent)) {
+            return;
+        }
+        if (COMPANY_USERS_ROLE.equals(persistent.getRole())) {
+            PrincipalCache.invalidateAll();
+            TicketCountCache.invalidateAll();
+        } else if (persistent.getRole() != null && persistent.getRole().startsWith(TICKET_ROLE_PREFIX)
+                && persistent.getOwner() instanceof Ticket ticket) {
+            // TAMs count tickets they are assigned to outside their companies, and the removed ones are not at hand.
+            ticketChanged(ticket, null, null,
+                    TICKET_TAMS_ROLE.equals(persistent.getRole()) ? Set.of(User.TYPE_TAM) : Set.of());
+            if (TICKET_SUPPORT_ROLE.equals(persistent.getRole())) {
+                TicketActivityService.markDirty(ticket.id);
+            }
+        }
+    }
+
+    private void ticketChanged(Ticket ticket, Object previousCompany, Object previousRequester, Set<String> roles) {
+        Set<Long> companyIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        addId(companyIds, ticket.company);
+        addId(companyIds, previousCompany);
+        addId(userIds, ticket.requester);
+        addId(userIds, previousRequester);
+        Set<String> affectedRoles = new HashSet<>(roles);
+        if (ticket.tamUsers != null && Hibernate.isInitialized(ticket.tamUsers)) {
+            ticket.tamUsers.forEach(tam -> addId(userIds, tam));
+        } else {
+            affectedRoles.add(User.TYPE_TAM);
+        }
+        TicketCountCache.invalidateTickets(companyIds, userIds, affectedRoles);
+    }
+
+    private Object previous(Object[] previousState, String[] propertyNames, String property) {
+        if (previousState == null) {
+            return null;
+        }
+        for (int index = 0; index < propertyNames.length; index++) {
+            if (property.equals(propertyNames[index])) {
+                return previousState[index];
+            }
+        }
+        return null;
+    }
+
+    private boolean changed(Object[] currentState, Object[] previousState, String[] propertyNames, String property) {
+        if (previousState == null) {
+            return true;
+        }
+        for (int index = 0; index < propertyNames.length; index++) {
+            if (property.equals(propertyNames[index])) {
+                return !Objects.equals(currentState[index], previousState[index]);
+            }
+        }
+        return false;
+    }
+
+    private void addId(Set<Long> ids, Object entity) {
+        if (entity instanceof Company company && company.id != null) {
+            ids.add(company.id);
+        } else if (entity instanceof User user && user.id != null) {
+            ids.add(user.id);
+        }
+    }
+}
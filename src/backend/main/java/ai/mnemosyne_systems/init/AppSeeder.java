@@ -18,6 +18,7 @@ import ai.mnemosyne_systems.model.Installation;
 import ai.mnemosyne_systems.model.CompanyEntitlement;
 import ai.mnemosyne_systems.model.Level;
 import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.model.TicketActivity;
 import ai.mnemosyne_systems.model.Timezone;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.model.Message;
@@ -521,8 +522,8 @@ public class AppSeeder {
         }
         singleton.company = company;
         singleton.name = name;
-        if (singleton.logoBase64 == null || singleton.logoBase64.isBlank()) {
-            singleton.logoBase64 = brandingProvider.defaultInstallationLogoBase64();
+        if (brandingProvider.defaultInstallationLogoBase64().equals(singleton.logoBase64)) {
+            singleton.logoBase64 = null;
         }
         String seededColor = BrandingProvider.normalizeInstallationColor(
                 firstNonBlank(singleton.headerFooterColor, singleton.headersColor, singleton.buttonsColor));
@@ -540,6 +541,7 @@ public class AppSeeder {
         }
         singleton.singletonKey = "installation";
         singleton.persist();
+        brandingProvider.invalidate();
     }
 
     private String firstNonBlank(String... values) {
@@ -872,6 +874,7 @@ public class AppSeeder {
         for (Ticket ticket : supportTickets) {
             ticket.supportUsers.removeIf(existing -> existing.id != null && existing.id.equals(user.id));
         }
+        TicketActivity.update("assignee = null where assignee = ?1", user);
         List<Ticket> tamTickets = Ticket.find("select distinct t from Ticket t join t.tamUsers u where u = ?1", user)
                 .list();
         for (Ticket ticket : tamTickets) {
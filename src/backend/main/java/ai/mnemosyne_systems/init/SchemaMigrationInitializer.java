@@ -0,0 +1,188 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.init;
+
+import ai.mnemosyne_systems.util.SchemaMigrations;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Applies the pending {@link SchemaMigrations} in the background once the application has started, recording each
+ * applied version in {@code schema_migrations}. The statements of a migration run in one transaction, which also
+ * records the version when the migration has no indexes. Indexes are built concurrently so tables stay writable while
+ * they are built, and an index left invalid by an interrupted build is dropped and built again. Instances starting
+ * together wait for each other on an advisory lock. Afterwards every declared index is checked and the missing or
+ * invalid ones are reported.
+ */
+@ApplicationScoped
+public class SchemaMigrationInitializer {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrationInitializer.class);
+    private static final long LOCK_KEY = 0x62696c6c65747379L;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    private volatile int appliedVersion;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "schema-migrations");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    void onStart(@Observes StartupEvent event) {
+        if ("postgresql".equalsIgnoreCase(dbKind)) {
+            executor.submit(this::migrate);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void migrate() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table if not exists schema_migrations (version integer primary key,"
+                        + " description varchar(255) not null, applied_at timestamp not null)");
+                statement.execute("select pg_advisory_lock(" + LOCK_KEY + ")");
+            }
+            try {
+                int current = currentVersion(connection);
+                appliedVersion = current;
+                for (SchemaMigrations.Migration migration : SchemaMigrations.migrations()) {
+                    if (migration.version() > current) {
+                        apply(connection, migration);
+                        appliedVersion = migration.version();
+                    }
+                }
+                List<String> missing = missingIndexes(connection);
+                if (!missing.isEmpty()) {
+                    LOGGER.warnf("Missing or invalid database indexes: %s", String.join(", ", missing));
+                }
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("select pg_advisory_unlock(" + LOCK_KEY + ")");
+                }
+            }
+        } catch (SQLException ex) {
+            LOGGER.warn("Applying schema migrations failed", ex);
+        }
+    }
+
+    /**
+     * Whether this instance has seen the given migration applied, either by itself or by an instance that held the
+     * migration lock before it.
+     */
+    public boolean applied(int version) {
+        return appliedVersion >= version;
+    }
+
+    public List<String> missingIndexes() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return missingIndexes(connection);
+        }
+    }
+
+    private void apply(Connection connection, SchemaMigrations.Migration migration) throws SQLException {
+        LOGGER.infof("Applying schema migration %d: %s", migration.version(), migration.description());
+        Map<String, Boolean> existing = indexes(connection);
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : migration.statements()) {
+                statement.execute(sql);
+            }
+            if (migration.indexes().isEmpty()) {
+                record(connection, migration);
+            }
+            connection.commit();
+        } catch (SQLException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        if (migration.indexes().isEmpty()) {
+            return;
+        }
+        // Concurrent index builds cannot run in a transaction; they are idempotent, so the version is recorded last.
+        try (Statement statement = connection.createStatement()) {
+            for (SchemaMigrations.SchemaIndex index : migration.indexes()) {
+                if (Boolean.FALSE.equals(existing.get(index.name()))) {
+                    statement.execute(index.dropStatement());
+                }
+                statement.execute(index.createStatement());
+            }
+        }
+        record(connection, migration);
+    }
+
+    private void record(Connection connection, SchemaMigrations.Migration migration) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into schema_migrations (version, description, applied_at) values (?, ?, now())")) {
+            insert.setInt(1, migration.version());
+            insert.setString(2, migration.description());
+            insert.executeUpdate();
+        }
+    }
+
+    private int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery("select coalesce(max(version), 0) from schema_migrations")) {
+            return result.next() ? result.getInt(1) : 0;
+        }
+    }
+
+    private List<String> missingIndexes(Connection connection) throws SQLException {
+        Map<String, Boolean> existing = indexes(connection);
+        List<String> missing = new ArrayList<>();
+        for (SchemaMigrations.SchemaIndex index : SchemaMigrations.indexes()) {
+            if (!Boolean.TRUE.equals(existing.get(index.name()))) {
+                missing.add(index.name());
+            }
+        }
+        return missing;
+    }
+
+    private Map<String, Boolean> indexes(Connection connection) throws SQLException {
+        Map<String, Boolean> indexes = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery("select c.relname, i.indisvalid from pg_index i"
+                        + " join pg_class c on c.oid = i.indexrelid join pg_namespace n on n.oid = c.relnamespace"
+                        + " where n.nspname = current_schema()")) {
+            while (result.next()) {
+                indexes.put(result.getString(1), result.getBoolean(2));
+            }
+        }
+        return indexes;
+    }
+}
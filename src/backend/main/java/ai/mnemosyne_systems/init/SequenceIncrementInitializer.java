@@ -0,0 +1,81 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.init;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.transaction.Transactional;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Raises the increment of id sequences created with a smaller allocation size to the one of their entity mapping.
+ * Hibernate keeps the database increment of a mismatching sequence for the current run, and the pooled-lo optimizer
+ * starts handing out blocks of ids from the next start. Since pooled-lo uses the value returned by the sequence as the
+ * lowest id of a block, the block following an id taken with the old increment never overlaps it. Other databases
+ * are created with the mapped increments and are left alone.
+ */
+@ApplicationScoped
+public class SequenceIncrementInitializer {
+
+    private static final Logger LOGGER = Logger.getLogger(SequenceIncrementInitializer.class);
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        if (!"postgresql".equalsIgnoreCase(dbKind)) {
+            return;
+        }
+        EntityManager entityManager = Panache.getEntityManager();
+        Map<String, Integer> allocations = new TreeMap<>();
+        for (EntityType<?> entity : entityManager.getMetamodel().getEntities()) {
+            SequenceGenerator generator = sequenceGenerator(entity.getJavaType());
+            if (generator != null && !generator.sequenceName().isBlank()) {
+                allocations.put(generator.sequenceName().toLowerCase(), generator.allocationSize());
+            }
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> sequences = entityManager
+                .createNativeQuery(
+                        "select sequencename, increment_by from pg_sequences where schemaname = current_schema()")
+                .getResultList();
+        for (Object[] sequence : sequences) {
+            String name = (String) sequence[0];
+            Integer allocation = allocations.get(name);
+            if (allocation == null || allocation == ((Number) sequence[1]).intValue()) {
+                continue;
+            }
+            entityManager.createNativeQuery("alter sequence " + name + " increment by " + allocation).executeUpdate();
+            LOGGER.infof("Sequence %s now allocates %d ids per call from the next start", name, allocation);
+        }
+    }
+
+    private static SequenceGenerator sequenceGenerator(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                SequenceGenerator generator = field.getAnnotation(SequenceGenerator.class);
+                if (generator != null) {
+                    return generator;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.init;
+
+import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.DatabaseSessionStore;
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.transaction.Transactional;
+
+@ApplicationScoped
+public class SessionStoreInitializer {
+
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        if (!DatabaseSessionStore.NAME.equals(AuthHelper.sessionStore().name())) {
+            return;
+        }
+        for (String statement : DatabaseSessionStore.schemaStatements()) {
+            Panache.getEntityManager().createNativeQuery(statement).executeUpdate();
+        }
+    }
+}
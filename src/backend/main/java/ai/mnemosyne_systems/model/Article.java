@@ -8,10 +8,12 @@
 
 package ai.mnemosyne_systems.model;
 
+import ai.mnemosyne_systems.service.RenderedBodyListener;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -23,11 +25,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(RenderedBodyListener.class)
 @Table(name = "articles", uniqueConstraints = @UniqueConstraint(name = "uk_articles_title", columnNames = "title"))
 public class Article extends PanacheEntityBase {
 
     @Id
-    @SequenceGenerator(name = "article_seq", sequenceName = "article_seq", allocationSize = 1)
+    @SequenceGenerator(name = "article_seq", sequenceName = "article_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "article_seq")
     public Long id;
 
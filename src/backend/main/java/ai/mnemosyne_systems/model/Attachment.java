@@ -9,13 +9,18 @@
 package ai.mnemosyne_systems.model;
 
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import ai.mnemosyne_systems.util.AttachmentStorage;
+import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
@@ -24,7 +29,7 @@ import jakarta.persistence.Table;
 public class Attachment extends PanacheEntityBase {
 
     @Id
-    @SequenceGenerator(name = "attachment_seq", sequenceName = "attachment_seq", allocationSize = 1)
+    @SequenceGenerator(name = "attachment_seq", sequenceName = "attachment_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attachment_seq")
     public Long id;
 
@@ -34,9 +39,22 @@ public class Attachment extends PanacheEntityBase {
     @Column(nullable = false)
     public String mimeType;
 
-    @Column(nullable = false, columnDefinition = "bytea")
+    @Basic(fetch = FetchType.LAZY)
+    @Column(columnDefinition = "bytea")
     public byte[] data;
 
+    @Column(length = 16)
+    public String storage;
+
+    @Column(name = "storage_key")
+    public String storageKey;
+
+    @Column(name = "size_bytes")
+    public Long size;
+
+    @Column(length = 64)
+    public String sha256;
+
     @ManyToOne
     @JoinColumn(name = "message_id")
     public Message message;
@@ -49,13 +67,22 @@ public class Attachment extends PanacheEntityBase {
     @JoinColumn(name = "category_id")
     public Category category;
 
-    public int sizeBytes() {
+    public long sizeBytes() {
+        if (size != null) {
+            return size;
+        }
         return data == null ? 0 : data.length;
     }
 
     public String sizeLabel() {
-        int size = sizeBytes();
-        return size == 1 ? "1 byte" : size + " bytes";
+        long bytes = sizeBytes();
+        return bytes == 1 ? "1 byte" : bytes + " bytes";
+    }
+
+    @PrePersist
+    @PreUpdate
+    void storePayload() {
+        AttachmentStorage.storePending(this);
     }
 
     public boolean isImage() {
@@ -25,7 +25,7 @@ import java.util.List;
 public class Category extends PanacheEntityBase {
 
     @Id
-    @SequenceGenerator(name = "category_seq", sequenceName = "category_seq", allocationSize = 1)
+    @SequenceGenerator(name = "category_seq", sequenceName = "category_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_seq")
     public Long id;
 
@@ -32,7 +32,7 @@ import java.util.stream.Collectors;
 public class Company extends PanacheEntityBase {
 
     @Id
-    @SequenceGenerator(name = "company_seq", sequenceName = "company_seq", allocationSize = 1)
+    @SequenceGenerator(name = "company_seq", sequenceName = "company_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "company_seq")
     public Long id;
 
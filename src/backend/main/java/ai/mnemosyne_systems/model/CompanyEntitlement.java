@@ -26,7 +26,7 @@ public class CompanyEntitlement extends PanacheEntityBase {
     public static final int DURATION_YEARLY = 2;
 
     @Id
-    @SequenceGenerator(name = "company_entitlement_seq", sequenceName = "company_entitlement_seq", allocationSize = 1)
+    @SequenceGenerator(name = "company_entitlement_seq", sequenceName = "company_entitlement_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "company_entitlement_seq")
     public Long id;
 
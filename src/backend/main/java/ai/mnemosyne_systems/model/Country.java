@@ -25,7 +25,7 @@ import java.util.List;
 public class Country extends PanacheEntityBase {
 
     @Id
-    @SequenceGenerator(name = "country_seq", sequenceName = "country_seq", allocationSize = 1)
+    @SequenceGenerator(name = "country_seq", sequenceName = "country_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "country_seq")
     public Long id;
 
@@ -27,7 +27,7 @@ import java.time.LocalDateTime;
 public class CrossReference extends PanacheEntityBase {
 
     @Id
-    @SequenceGenerator(name = "cross_reference_seq", sequenceName = "cross_reference_seq", allocationSize = 1)
+    @SequenceGenerator(name = "cross_reference_seq", sequenceName = "cross_reference_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cross_reference_seq")
     public Long id;
 
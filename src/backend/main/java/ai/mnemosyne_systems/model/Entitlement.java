@@ -27,7 +27,7 @@ import java.util.List;
 @Table(name = "entitlements")
 public class Entitlement extends PanacheEntityBase {
     @Id
-    @SequenceGenerator(name = "entitlement_seq", sequenceName = "entitlement_seq", allocationSize = 1)
+    @SequenceGenerator(name = "entitlement_seq", sequenceName = "entitlement_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entitlement_seq")
     public Long id;
 
@@ -25,7 +25,7 @@ import jakarta.persistence.UniqueConstraint;
 public class Installation extends PanacheEntityBase {
 
     @Id
-    @SequenceGenerator(name = "installation_seq", sequenceName = "installation_seq", allocationSize = 1)
+    @SequenceGenerator(name = "installation_seq", sequenceName = "installation_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "installation_seq")
     public Long id;
 
@@ -53,6 +53,9 @@ public class Installation extends PanacheEntityBase {
     @Column(name = "ticket_auto_close_days")
     public Integer ticketAutoCloseDays;
 
+    @Column(name = "branding_version")
+    public Long brandingVersion;
+
     @Column(name = "singleton_key", nullable = false, unique = true, updatable = false)
     public String singletonKey = "installation";
 
@@ -82,7 +82,7 @@ public class Level extends PanacheEntityBase {
     }
 
     @Id
-    @SequenceGenerator(name = "support_level_seq", sequenceName = "support_level_seq", allocationSize = 1)
+    @SequenceGenerator(name = "support_level_seq", sequenceName = "support_level_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "support_level_seq")
     public Long id;
 
@@ -0,0 +1,85 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Progress of an IMAP mailbox: the UIDVALIDITY the UIDs belong to, the highest UID handled, and UIDs that failed and
+ * are retried on the next poll as {@code uid:attempts} pairs.
+ */
+@Entity
+@Table(name = "mailbox_checkpoints", uniqueConstraints = @UniqueConstraint(name = "uk_mailbox_checkpoints_key", columnNames = "mailbox_key"))
+public class MailboxCheckpoint extends PanacheEntityBase {
+
+    @Id
+    @SequenceGenerator(name = "mailbox_checkpoint_seq", sequenceName = "mailbox_checkpoint_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mailbox_checkpoint_seq")
+    public Long id;
+
+    @Column(name = "mailbox_key", nullable = false, length = 1000)
+    public String mailboxKey;
+
+    @Column(name = "uid_validity", nullable = false)
+    public long uidValidity;
+
+    @Column(name = "last_uid", nullable = false)
+    public long lastUid;
+
+    @Column(name = "retry_uids", columnDefinition = "text")
+    public String retryUids;
+
+    @Column(name = "updated_at", nullable = false)
+    public LocalDateTime updatedAt;
+
+    public static MailboxCheckpoint findByMailbox(String mailboxKey) {
+        return find("mailboxKey", mailboxKey).firstResult();
+    }
+
+    public Map<Long, Integer> retries() {
+        Map<Long, Integer> retries = new LinkedHashMap<>();
+        if (retryUids == null || retryUids.isBlank()) {
+            return retries;
+        }
+        for (String entry : retryUids.split(",")) {
+            int separator = entry.indexOf(':');
+            try {
+                if (separator > 0) {
+                    retries.put(Long.parseLong(entry.substring(0, separator).trim()),
+                            Integer.parseInt(entry.substring(separator + 1).trim()));
+                }
+            } catch (NumberFormatException ignored) {
+                // A damaged entry only drops that retry.
+            }
+        }
+        return retries;
+    }
+
+    public void retries(Map<Long, Integer> retries) {
+        StringBuilder value = new StringBuilder();
+        for (Map.Entry<Long, Integer> entry : retries.entrySet()) {
+            if (!value.isEmpty()) {
+                value.append(',');
+            }
+            value.append(entry.getKey()).append(':').append(entry.getValue());
+        }
+        retryUids = value.isEmpty() ? null : value.toString();
+    }
+}
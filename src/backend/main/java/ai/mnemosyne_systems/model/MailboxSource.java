@@ -0,0 +1,95 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+/**
+ * A support address polled for incoming mail. New tickets opened from its messages get the default category and, when
+ * the sender's company holds it, the default entitlement of the source.
+ */
+@Entity
+@Table(name = "mailbox_sources", uniqueConstraints = @UniqueConstraint(name = "uk_mailbox_sources_name", columnNames = "name"))
+public class MailboxSource extends PanacheEntityBase {
+
+    @Id
+    @SequenceGenerator(name = "mailbox_source_seq", sequenceName = "mailbox_source_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mailbox_source_seq")
+    public Long id;
+
+    @Column(nullable = false)
+    public String name;
+
+    @Column(nullable = false)
+    public boolean enabled;
+
+    @Column(nullable = false)
+    public String protocol = "imap";
+
+    @Column(nullable = false)
+    public String host;
+
+    @Column(nullable = false)
+    public int port = 993;
+
+    @Column(nullable = false)
+    public String username;
+
+    @Column(nullable = false)
+    public String password;
+
+    @Column(nullable = false)
+    public String folder = "INBOX";
+
+    @Column(nullable = false)
+    public boolean ssl = true;
+
+    @Column(name = "starttls", nullable = false)
+    public boolean startTls;
+
+    @Column(name = "unread_only", nullable = false)
+    public boolean unreadOnly = true;
+
+    @Column(name = "delete_after_process", nullable = false)
+    public boolean deleteAfterProcess;
+
+    @Column(name = "poll_interval_seconds", nullable = false)
+    public int pollIntervalSeconds = 300;
+
+    @Column(nullable = false)
+    public int workers = 2;
+
+    @Column(name = "max_messages_per_poll", nullable = false)
+    public int maxMessagesPerPoll = 200;
+
+    @Column(nullable = false)
+    public boolean idle;
+
+    @ManyToOne
+    @JoinColumn(name = "default_category_id")
+    public Category defaultCategory;
+
+    @ManyToOne
+    @JoinColumn(name = "default_entitlement_id")
+    public Entitlement defaultEntitlement;
+
+    @Column(name = "updated_at", nullable = false)
+    public LocalDateTime updatedAt;
+}
@@ -8,10 +8,14 @@
 
 package ai.mnemosyne_systems.model;
 
+import ai.mnemosyne_systems.service.RenderedBodyListener;
+import ai.mnemosyne_systems.service.ReportRollupListener;
+import ai.mnemosyne_systems.service.TicketActivityListener;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -25,11 +29,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners({ ReportRollupListener.class, TicketActivityListener.class, RenderedBodyListener.class })
 @Table(name = "messages")
 public class Message extends PanacheEntityBase implements Comparable<Message> {
 
     @Id
-    @SequenceGenerator(name = "message_seq", sequenceName = "message_seq", allocationSize = 1)
+    @SequenceGenerator(name = "message_seq", sequenceName = "message_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_seq")
     public Long id;
 
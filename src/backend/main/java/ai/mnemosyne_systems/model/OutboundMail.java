@@ -0,0 +1,43 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbound_mail")
+public class OutboundMail extends PanacheEntityBase {
+
+    @Id
+    @SequenceGenerator(name = "outbound_mail_seq", sequenceName = "outbound_mail_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbound_mail_seq")
+    public Long id;
+
+    @Column(nullable = false, columnDefinition = "text")
+    public String subject;
+
+    @Column(name = "text_body", nullable = false, columnDefinition = "text")
+    public String textBody;
+
+    @Column(name = "html_body", nullable = false, columnDefinition = "text")
+    public String htmlBody;
+
+    @Column(name = "message_id")
+    public Long messageId;
+
+    @Column(name = "created_at", nullable = false)
+    public LocalDateTime createdAt;
+}
@@ -0,0 +1,60 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbound_mail_recipients")
+public class OutboundMailRecipient extends PanacheEntityBase {
+
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_SENDING = "sending";
+    public static final String STATUS_SENT = "sent";
+    public static final String STATUS_FAILED = "failed";
+
+    @Id
+    @SequenceGenerator(name = "outbound_mail_recipient_seq", sequenceName = "outbound_mail_recipient_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbound_mail_recipient_seq")
+    public Long id;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "mail_id", nullable = false)
+    public OutboundMail mail;
+
+    @Column(nullable = false)
+    public String email;
+
+    @Column(name = "email_format")
+    public String emailFormat;
+
+    @Column(nullable = false, length = 16)
+    public String status = STATUS_PENDING;
+
+    @Column(nullable = false)
+    public int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    public LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "text")
+    public String lastError;
+
+    @Column(name = "sent_at")
+    public LocalDateTime sentAt;
+}
@@ -27,7 +27,7 @@ import java.util.UUID;
 public class PasswordResetToken extends PanacheEntityBase {
 
     @Id
-    @SequenceGenerator(name = "password_reset_token_seq", sequenceName = "password_reset_token_seq", allocationSize = 1)
+    @SequenceGenerator(name = "password_reset_token_seq", sequenceName = "password_reset_token_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "password_reset_token_seq")
     public Long id;
 
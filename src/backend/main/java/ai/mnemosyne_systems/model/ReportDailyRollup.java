@@ -0,0 +1,46 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "report_daily_rollups", uniqueConstraints = @UniqueConstraint(name = "uk_report_daily_rollups_key", columnNames = {
+        "company_id", "opened_day", "category_id", "status" }))
+public class ReportDailyRollup extends PanacheEntityBase {
+
+    @Id
+    @SequenceGenerator(name = "report_daily_rollup_seq", sequenceName = "report_daily_rollup_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "report_daily_rollup_seq")
+    public Long id;
+
+    @Column(name = "opened_day")
+    public LocalDate openedDay;
+
+    @Column(name = "company_id")
+    public Long companyId;
+
+    @Column(name = "category_id")
+    public Long categoryId;
+
+    @Column(nullable = false)
+    public String status;
+
+    @Column(name = "ticket_count", nullable = false)
+    public long ticketCount;
+}
@@ -19,5 +19,8 @@ public class ReportData {
     public Map<String, Long> ticketsOverTime;
     public Map<String, Double> avgFirstResponseTime;
     public Map<String, Double> avgResolutionTime;
-    public Map<String, List<Ticket>> resolutionHistogram;
+    public Map<String, List<HistogramTicket>> resolutionHistogram;
+
+    public record HistogramTicket(Long id, String name, String status, String companyName, String categoryName) {
+    }
 }
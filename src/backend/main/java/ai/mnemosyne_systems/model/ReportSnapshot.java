@@ -0,0 +1,71 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Entity
+@Table(name = "report_snapshots", uniqueConstraints = @UniqueConstraint(name = "uk_report_snapshots_scope", columnNames = {
+        "scope_key", "period" }))
+public class ReportSnapshot extends PanacheEntityBase {
+
+    public static final String ALL_COMPANIES = "*";
+
+    @Id
+    @SequenceGenerator(name = "report_snapshot_seq", sequenceName = "report_snapshot_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "report_snapshot_seq")
+    public Long id;
+
+    @Column(name = "scope_key", nullable = false, length = 2000)
+    public String scopeKey;
+
+    @Column(nullable = false)
+    public String period;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    public String payload;
+
+    @Column(name = "generated_at", nullable = false)
+    public LocalDateTime generatedAt;
+
+    @Column(name = "invalidated_at")
+    public LocalDateTime invalidatedAt;
+
+    public boolean isStale() {
+        return invalidatedAt != null && !invalidatedAt.isBefore(generatedAt);
+    }
+
+    public static ReportSnapshot findByScope(String scopeKey, String period) {
+        return find("scopeKey = ?1 and period = ?2", scopeKey, period).firstResult();
+    }
+
+    public static int invalidate(Collection<Long> companyIds) {
+        StringBuilder query = new StringBuilder("invalidatedAt = ?1 where scopeKey = ?2");
+        for (Long companyId : companyIds) {
+            if (companyId != null) {
+                query.append(" or scopeKey like '%,").append(companyId).append(",%'");
+            }
+        }
+        return update(query.toString(), LocalDateTime.now(), ALL_COMPANIES);
+    }
+
+    public static int invalidateAll() {
+        return update("invalidatedAt = ?1", LocalDateTime.now());
+    }
+}
@@ -8,12 +8,17 @@
 
 package ai.mnemosyne_systems.model;
 
+import ai.mnemosyne_systems.service.RenderedBodyListener;
+import ai.mnemosyne_systems.service.ReportRollupListener;
+import ai.mnemosyne_systems.service.SlaDeadlineListener;
+import ai.mnemosyne_systems.service.TicketActivityListener;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -28,11 +33,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners({ SlaDeadlineListener.class, ReportRollupListener.class, TicketActivityListener.class,
+        RenderedBodyListener.class })
 @Table(name = "tickets")
 public class Ticket extends PanacheEntityBase {
 
     @Id
-    @SequenceGenerator(name = "ticket_seq", sequenceName = "ticket_seq", allocationSize = 1)
+    @SequenceGenerator(name = "ticket_seq", sequenceName = "ticket_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_seq")
     public Long id;
 
@@ -81,6 +88,15 @@ public class Ticket extends PanacheEntityBase {
     @Column(name = "resolved_at")
     public java.time.LocalDateTime resolvedAt;
 
+    @Column(name = "sla_started_at")
+    public java.time.LocalDateTime slaStartedAt;
+
+    @Column(name = "sla_deadline")
+    public java.time.LocalDateTime slaDeadline;
+
+    @Column(name = "sla_breached", nullable = false, columnDefinition = "boolean default false")
+    public boolean slaBreached;
+
     @OneToMany(mappedBy = "ticket", cascade = CascadeType.ALL, orphanRemoval = true)
     public List<Message> messages = new ArrayList<>();
 
@@ -118,22 +134,24 @@ public class Ticket extends PanacheEntityBase {
     }
 
     public static String nextName(Company company) {
-        long current = currentSequence(company);
-        long next = current + 1;
-        if (company != null) {
-            company.ticketSequence = next;
+        if (company == null || company.id == null) {
+            long next = currentSequence(company) + 1;
+            if (company != null) {
+                company.ticketSequence = next;
+            }
+            return formatName(company, next);
         }
-        return formatName(company, next);
+        return formatName(company, TicketCounter.next(company));
     }
 
     private static long currentSequence(Company company) {
         if (company == null) {
             return 0;
         }
-        if (company.ticketSequence != null) {
-            return company.ticketSequence;
+        if (company.id != null) {
+            return TicketCounter.current(company);
         }
-        return Ticket.count("company", company);
+        return company.ticketSequence == null ? 0 : company.ticketSequence;
     }
 
     public static String normalizeTitle(String title) {
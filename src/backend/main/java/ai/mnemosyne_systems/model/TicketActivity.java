@@ -0,0 +1,52 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ticket_activity")
+public class TicketActivity extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "ticket_id")
+    public Long ticketId;
+
+    @Column(name = "last_public_date")
+    public LocalDateTime lastPublicDate;
+
+    @Column(name = "last_public_from_support", nullable = false)
+    public boolean lastPublicFromSupport;
+
+    @Column(name = "last_support_tam_date")
+    public LocalDateTime lastSupportTamDate;
+
+    @Column(name = "last_support_tam_from_support", nullable = false)
+    public boolean lastSupportTamFromSupport;
+
+    @Column(name = "last_user_superuser_date")
+    public LocalDateTime lastUserSuperuserDate;
+
+    @Column(name = "last_user_superuser_from_support", nullable = false)
+    public boolean lastUserSuperuserFromSupport;
+
+    @ManyToOne
+    @JoinColumn(name = "assignee_id")
+    public User assignee;
+
+    @Column(name = "updated_at", nullable = false)
+    public LocalDateTime updatedAt;
+}
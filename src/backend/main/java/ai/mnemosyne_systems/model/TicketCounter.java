@@ -0,0 +1,108 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Table;
+import java.util.List;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * Last ticket number handed out for a company. A number is taken in a transaction of its own, so concurrent ticket
+ * creations only wait for each other on the counter row of their company and only for the length of that transaction.
+ * PostgreSQL bumps the row with one atomic statement; other databases lock the row, or insert it when the company has
+ * none yet and retry when a concurrent creation inserted it first. A ticket creation that rolls back leaves a gap in
+ * the numbering.
+ */
+@Entity
+@Table(name = "ticket_counters")
+public class TicketCounter extends PanacheEntityBase {
+
+    private static final int MAX_INSERT_ATTEMPTS = 5;
+
+    @Id
+    @Column(name = "company_id")
+    public Long companyId;
+
+    @Column(name = "last_value", nullable = false)
+    public long lastValue;
+
+    public static long next(Company company) {
+        if (!postgresql()) {
+            return nextLocked(company.id);
+        }
+        Long next = QuarkusTransaction.requiringNew().call(() -> {
+            List<?> updated = getEntityManager()
+                    .createNativeQuery("update ticket_counters set last_value = last_value + 1"
+                            + " where company_id = ?1 returning last_value")
+                    .setParameter(1, company.id).getResultList();
+            return updated.isEmpty() ? null : ((Number) updated.get(0)).longValue();
+        });
+        if (next != null) {
+            return next;
+        }
+        long seed = QuarkusTransaction.requiringNew().call(() -> seed(company.id));
+        return QuarkusTransaction.requiringNew()
+                .call(() -> ((Number) getEntityManager()
+                        .createNativeQuery("insert into ticket_counters (company_id, last_value) values (?1, ?2)"
+                                + " on conflict (company_id) do update set last_value = ticket_counters.last_value + 1"
+                                + " returning last_value")
+                        .setParameter(1, company.id).setParameter(2, seed + 1).getSingleResult()).longValue());
+    }
+
+    public static long current(Company company) {
+        List<?> values = getEntityManager()
+                .createNativeQuery("select last_value from ticket_counters where company_id = ?1")
+                .setParameter(1, company.id).getResultList();
+        return values.isEmpty() ? seed(company.id) : ((Number) values.get(0)).longValue();
+    }
+
+    private static long nextLocked(Long companyId) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return QuarkusTransaction.requiringNew().call(() -> {
+                    TicketCounter counter = getEntityManager().find(TicketCounter.class, companyId,
+                            LockModeType.PESSIMISTIC_WRITE);
+                    if (counter == null) {
+                        counter = new TicketCounter();
+                        counter.companyId = companyId;
+                        counter.lastValue = seed(companyId);
+                        counter.persist();
+                        counter.flush();
+                    }
+                    counter.lastValue++;
+                    return counter.lastValue;
+                });
+            } catch (PersistenceException ex) {
+                if (attempt >= MAX_INSERT_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private static boolean postgresql() {
+        return "postgresql".equalsIgnoreCase(
+                ConfigProvider.getConfig().getOptionalValue("quarkus.datasource.db-kind", String.class).orElse(""));
+    }
+
+    private static long seed(Long companyId) {
+        Company company = Company.findById(companyId);
+        if (company != null && company.ticketSequence != null) {
+            return company.ticketSequence;
+        }
+        return Ticket.count("company.id", companyId);
+    }
+}
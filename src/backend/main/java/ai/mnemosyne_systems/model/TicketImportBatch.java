@@ -24,12 +24,13 @@ import java.time.LocalDateTime;
 @Table(name = "ticket_import_batches")
 public class TicketImportBatch extends PanacheEntityBase {
 
+    public static final String STATUS_RUNNING = "Running";
     public static final String STATUS_COMPLETED = "Completed";
     public static final String STATUS_COMPLETED_WITH_ERRORS = "Completed with errors";
     public static final String STATUS_FAILED = "Failed";
 
     @Id
-    @SequenceGenerator(name = "ticket_import_batch_seq", sequenceName = "ticket_import_batch_seq", allocationSize = 1)
+    @SequenceGenerator(name = "ticket_import_batch_seq", sequenceName = "ticket_import_batch_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_import_batch_seq")
     public Long id;
 
@@ -55,9 +56,25 @@ public class TicketImportBatch extends PanacheEntityBase {
     @Column(name = "created_count", nullable = false)
     public int createdCount;
 
+    @Column(name = "appended_count", nullable = false, columnDefinition = "integer default 0")
+    public int appendedCount;
+
     @Column(name = "skipped_count", nullable = false)
     public int skippedCount;
 
     @Column(name = "failed_count", nullable = false)
     public int failedCount;
+
+    @Column(name = "bytes_total", nullable = false, columnDefinition = "bigint default 0")
+    public long bytesTotal;
+
+    @Column(name = "bytes_read", nullable = false, columnDefinition = "bigint default 0")
+    public long bytesRead;
+
+    @Column(name = "error_message", columnDefinition = "text")
+    public String errorMessage;
+
+    public int rowCount() {
+        return createdCount + appendedCount + skippedCount + failedCount;
+    }
 }
@@ -21,16 +21,17 @@ import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
 @Entity
-@Table(name = "ticket_import_records", uniqueConstraints = @UniqueConstraint(name = "uk_ticket_import_batch_source", columnNames = {
-        "batch_id", "source_system", "source_key" }))
+@Table(name = "ticket_import_records", uniqueConstraints = @UniqueConstraint(name = "uk_ticket_import_batch_row", columnNames = {
+        "batch_id", "row_number" }))
 public class TicketImportRecord extends PanacheEntityBase {
 
     public static final String RESULT_CREATED = "created";
+    public static final String RESULT_APPENDED = "appended";
     public static final String RESULT_SKIPPED = "skipped";
     public static final String RESULT_FAILED = "failed";
 
     @Id
-    @SequenceGenerator(name = "ticket_import_record_seq", sequenceName = "ticket_import_record_seq", allocationSize = 1)
+    @SequenceGenerator(name = "ticket_import_record_seq", sequenceName = "ticket_import_record_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_import_record_seq")
     public Long id;
 
@@ -0,0 +1,56 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ticket_report_facts")
+public class TicketReportFact extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "ticket_id")
+    public Long ticketId;
+
+    @Column(name = "company_id")
+    public Long companyId;
+
+    @Column(name = "category_id")
+    public Long categoryId;
+
+    @Column(nullable = false)
+    public String status;
+
+    @Column(name = "opened_at")
+    public LocalDateTime openedAt;
+
+    @Column(name = "opened_day")
+    public LocalDate openedDay;
+
+    @Column(name = "first_response_at")
+    public LocalDateTime firstResponseAt;
+
+    @Column(name = "last_message_at")
+    public LocalDateTime lastMessageAt;
+
+    @Column(name = "first_response_minutes")
+    public Long firstResponseMinutes;
+
+    @Column(name = "resolution_minutes")
+    public Long resolutionMinutes;
+
+    @Column(name = "updated_at", nullable = false)
+    public LocalDateTime updatedAt;
+}
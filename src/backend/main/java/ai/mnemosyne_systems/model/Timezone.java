@@ -24,7 +24,7 @@ import jakarta.persistence.Table;
 public class Timezone extends PanacheEntityBase {
 
     @Id
-    @SequenceGenerator(name = "timezone_seq", sequenceName = "timezone_seq", allocationSize = 1)
+    @SequenceGenerator(name = "timezone_seq", sequenceName = "timezone_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "timezone_seq")
     public Long id;
 
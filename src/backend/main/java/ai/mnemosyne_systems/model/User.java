@@ -36,7 +36,7 @@ public class User extends PanacheEntityBase {
     public static final String DISABLED_PASSWORD_HASH = "$2a$10$DISABLEDACCOUNTDISABLEDACCOUNTDISABLEDACCOUNTDISABLED";
 
     @Id
-    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 1)
+    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
     public Long id;
 
@@ -24,7 +24,7 @@ import java.time.LocalDate;
 @Table(name = "versions")
 public class Version extends PanacheEntityBase {
     @Id
-    @SequenceGenerator(name = "version_seq", sequenceName = "version_seq", allocationSize = 1)
+    @SequenceGenerator(name = "version_seq", sequenceName = "version_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "version_seq")
     public Long id;
 
@@ -0,0 +1,51 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.resource;
+
+import ai.mnemosyne_systems.model.Attachment;
+import ai.mnemosyne_systems.util.AttachmentStorage;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.CookieParam;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+
+@Path("/api/admin/attachments")
+@Produces(MediaType.APPLICATION_JSON)
+public class AdminAttachmentApiResource {
+
+    @GET
+    @Path("/stats")
+    @Transactional
+    public AttachmentStorageStats stats(@CookieParam("authUserIdV3") String auth) {
+        OwnerResource.requireAdmin(auth);
+        Object[] totals = Attachment.getEntityManager()
+                .createQuery("select count(a), coalesce(sum(a.size), 0) from Attachment a", Object[].class)
+                .getSingleResult();
+        Object[] stored = Attachment.getEntityManager().createQuery(
+                "select count(b.blobKey), coalesce(sum(b.blobSize), 0) from (select a.storageKey as blobKey,"
+                        + " max(a.size) as blobSize from Attachment a where a.storageKey is not null group by a.storageKey) b",
+                Object[].class).getSingleResult();
+        Object[] database = Attachment.getEntityManager()
+                .createQuery("select count(a), coalesce(sum(a.size), 0) from Attachment a where a.storageKey is null",
+                        Object[].class)
+                .getSingleResult();
+        long attachments = ((Number) totals[0]).longValue();
+        long logicalBytes = ((Number) totals[1]).longValue();
+        long blobs = ((Number) stored[0]).longValue() + ((Number) database[0]).longValue();
+        long storedBytes = ((Number) stored[1]).longValue() + ((Number) database[1]).longValue();
+        double dedupRatio = storedBytes == 0 ? 1.0 : (double) logicalBytes / storedBytes;
+        return new AttachmentStorageStats(AttachmentStorage.store().name(), attachments, blobs, logicalBytes,
+                storedBytes, dedupRatio);
+    }
+
+    public record AttachmentStorageStats(String store, long attachments, long blobs, long logicalBytes,
+            long storedBytes, double dedupRatio) {
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.resource;
+
+import ai.mnemosyne_systems.service.MailOutboxService;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.CookieParam;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+
+@Path("/api/admin/mail")
+@Produces(MediaType.APPLICATION_JSON)
+public class AdminMailApiResource {
+
+    @Inject
+    MailOutboxService mailOutboxService;
+
+    @GET
+    @Path("/outbox")
+    public MailOutboxService.OutboxStats outbox(@CookieParam("authUserIdV3") String auth) {
+        OwnerResource.requireAdmin(auth);
+        return mailOutboxService.stats();
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.resource;
+
+import ai.mnemosyne_systems.model.Category;
+import ai.mnemosyne_systems.model.Entitlement;
+import ai.mnemosyne_systems.model.MailboxSource;
+import ai.mnemosyne_systems.service.MailboxPollingService;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.CookieParam;
+import jakarta.ws.rs.FormParam;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Mailbox sources polled for incoming mail. Changes are picked up by the poller on its next dispatch.
+ */
+@Path("/api/admin/mailboxes")
+@Produces(MediaType.APPLICATION_JSON)
+public class AdminMailboxApiResource {
+
+    private static final Set<String> PROTOCOLS = Set.of("imap", "imaps", "pop3", "pop3s");
+    private static final int MIN_POLL_INTERVAL_SECONDS = 10;
+    private static final int MAX_WORKERS = 32;
+
+    @Inject
+    MailboxPollingService mailboxPollingService;
+
+    @GET
+    @Transactional
+    public MailboxListResponse list(@CookieParam("authUserIdV3") String auth) {
+        OwnerResource.requireAdmin(auth);
+        return new MailboxListResponse(
+                MailboxSource.<MailboxSource> list("order by name").stream().map(this::toResponse).toList());
+    }
+
+    @GET
+    @Path("/{id}")
+    @Transactional
+    public MailboxResponse detail(@CookieParam("authUserIdV3") String auth, @PathParam("id") Long id) {
+        OwnerResource.requireAdmin(auth);
+        return toResponse(findSource(id));
+    }
+
+    @POST
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    @Transactional
+    public Response create(@CookieParam("authUserIdV3") String auth, @FormParam("name") String name,
+            @FormParam("enabled") String enabled, @FormParam("protocol") String protocol,
+            @FormParam("host") String host, @FormParam("port") Integer port, @FormParam("username") String username,
+            @FormParam("password") String password, @FormParam("folder") String folder, @FormParam("ssl") String ssl,
+            @FormParam("starttls") String startTls, @FormParam("unreadOnly") String unreadOnly,
+            @FormParam("deleteAfterProcess") String deleteAfterProcess,
+            @FormParam("pollIntervalSeconds") Integer pollIntervalSeconds, @FormParam("workers") Integer workers,
+            @FormParam("maxMessagesPerPoll") Integer maxMessagesPerPoll, @FormParam("idle") String idle,
+            @FormParam("categoryId") Long categoryId, @FormParam("entitlementId") Long entitlementId) {
+        OwnerResource.requireAdmin(auth);
+        MailboxSource source = new MailboxSource();
+        apply(source, name, enabled, protocol, host, port, username, password, folder, ssl, startTls, unreadOnly,
+                deleteAfterProcess, pollIntervalSeconds, workers, maxMessagesPerPoll, idle, categoryId, entitlementId);
+        source.persist();
+        return Response.status(Response.Status.CREATED).entity(toResponse(source)).build();
+    }
+
+    @POST
+    @Path("/{id}")
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    @Transactional
+    public MailboxResponse update(@CookieParam("authUserIdV3") String auth, @PathParam("id") Long id,
+            @FormParam("name") String name, @FormParam("enabled") String enabled,
+            @FormParam("protocol") String protocol, @FormParam("host") String host, @FormParam("port") Integer port,
+            @FormParam("username") String username, @FormParam("password") String password,
+            @FormParam("folder") String folder, @FormParam("ssl") String ssl, @FormParam("starttls") String startTls,
+            @FormParam("unreadOnly") String unreadOnly, @FormParam("deleteAfterProcess") String deleteAfterProcess,
+            @FormParam("pollIntervalSeconds") Integer pollIntervalSeconds, @FormParam("workers") Integer workers,
+            @FormParam("maxMessagesPerPoll") Integer maxMessagesPerPoll, @FormParam("idle") String idle,
+            @FormParam("categoryId") Long categoryId, @FormParam("entitlementId") Long entitlementId) {
+        OwnerResource.requireAdmin(auth);
+        MailboxSource source = findSource(id);
+        apply(source, name, enabled, protocol, host, port, username, password, folder, ssl, startTls, unreadOnly,
+                deleteAfterProcess, pollIntervalSeconds, workers, maxMessagesPerPoll, idle, categoryId, entitlementId);
+        return toResponse(source);
+    }
+
+    @POST
+    @Path("/{id}/delete")
+    @Transactional
+    public Response delete(@CookieParam("authUserIdV3") String auth, @PathParam("id") Long id) {
+        OwnerResource.requireAdmin(auth);
+        findSource(id).delete();
+        return Response.noContent().build();
+    }
+
+    @POST
+    @Path("/{id}/poll")
+    public PollResponse poll(@CookieParam("authUserIdV3") String auth, @PathParam("id") Long id) {
+        OwnerResource.requireAdmin(auth);
+        Integer processed = mailboxPollingService.pollSource(id);
+        if (processed == null) {
+            throw new WebApplicationException("Mailbox is not enabled", Response.Status.CONFLICT);
+        }
+        return new PollResponse(processed);
+    }
+
+    private void apply(MailboxSource source, String name, String enabled, String protocol, String host, Integer port,
+            String username, String password, String folder, String ssl, String startTls, String unreadOnly,
+            String deleteAfterProcess, Integer pollIntervalSeconds, Integer workers, Integer maxMessagesPerPoll,
+            String idle, Long categoryId, Long entitlementId) {
+        String trimmedName = trimToNull(name);
+        if (trimmedName == null) {
+            throw new BadRequestException("Name is required");
+        }
+        MailboxSource sameName = MailboxSource.find("lower(name) = ?1", trimmedName.toLowerCase(Locale.ROOT))
+                .firstResult();
+        if (sameName != null && !sameName.id.equals(source.id)) {
+            throw new BadRequestException("A mailbox named " + trimmedName + " already exists");
+        }
+        String normalizedProtocol = protocol == null || protocol.isBlank() ? "imap"
+                : protocol.trim().toLowerCase(Locale.ROOT);
+        if (!PROTOCOLS.contains(normalizedProtocol)) {
+            throw new BadRequestException("Protocol must be one of imap, imaps, pop3 or pop3s");
+        }
+        if (trimToNull(host) == null) {
+            throw new BadRequestException("Host is required");
+        }
+        if (trimToNull(username) == null) {
+            throw new BadRequestException("Username is required");
+        }
+        if (port != null && (port < 1 || port > 65535)) {
+            throw new BadRequestException("Port must be between 1 and 65535");
+        }
+        if (pollIntervalSeconds != null && pollIntervalSeconds < MIN_POLL_INTERVAL_SECONDS) {
+            throw new BadRequestException("Poll interval must be at least " + MIN_POLL_INTERVAL_SECONDS + " seconds");
+        }
+        if (workers != null && (workers < 1 || workers > MAX_WORKERS)) {
+            throw new BadRequestException("Workers must be between 1 and " + MAX_WORKERS);
+        }
+        if (maxMessagesPerPoll != null && maxMessagesPerPoll < 0) {
+            throw new BadRequestException("Messages per poll cannot be negative");
+        }
+        // An empty password on edit keeps the stored one, so the form never has to echo it back.
+        if (password != null && !password.isEmpty()) {
+            source.password = password;
+        } else if (source.password == null) {
+            throw new BadRequestException("Password is required");
+        }
+        Category category = null;
+        if (categoryId != null) {
+            category = Category.findById(categoryId);
+            if (category == null) {
+                throw new BadRequestException("Category not found");
+            }
+        }
+        Entitlement entitlement = null;
+        if (entitlementId != null) {
+            entitlement = Entitlement.findById(entitlementId);
+            if (entitlement == null) {
+                throw new BadRequestException("Entitlement not found");
+            }
+        }
+        source.name = trimmedName;
+        source.enabled = flag(enabled, source.enabled);
+        source.protocol = normalizedProtocol;
+        source.host = host.trim();
+        source.port = port == null ? source.port : port;
+        source.username = username.trim();
+        source.folder = trimToNull(folder) == null ? "INBOX" : folder.trim();
+        source.ssl = flag(ssl, source.ssl);
+        source.startTls = flag(startTls, source.startTls);
+        source.unreadOnly = flag(unreadOnly, source.unreadOnly);
+        source.deleteAfterProcess = flag(deleteAfterProcess, source.deleteAfterProcess);
+        source.pollIntervalSeconds = pollIntervalSeconds == null ? source.pollIntervalSeconds : pollIntervalSeconds;
+        source.workers = workers == null ? source.workers : workers;
+        source.maxMessagesPerPoll = maxMessagesPerPoll == null ? source.maxMessagesPerPoll : maxMessagesPerPoll;
+        source.idle = flag(idle, source.idle);
+        source.defaultCategory = category;
+        source.defaultEntitlement = entitlement;
+        source.updatedAt = LocalDateTime.now();
+    }
+
+    private MailboxSource findSource(Long id) {
+        MailboxSource source = MailboxSource.findById(id);
+        if (source == null) {
+            throw new NotFoundException();
+        }
+        return source;
+    }
+
+    private MailboxResponse toResponse(MailboxSource source) {
+        MailboxPollingService.MailboxStatus status = mailboxPollingService.status(source.id);
+        return new MailboxResponse(source.id, source.name, source.enabled, source.protocol, source.host, source.port,
+                source.username, source.folder, source.ssl, source.startTls, source.unreadOnly,
+                source.deleteAfterProcess, source.pollIntervalSeconds, source.workers, source.maxMessagesPerPoll,
+                source.idle, source.defaultCategory == null ? null : source.defaultCategory.id,
+                source.defaultCategory == null ? null : source.defaultCategory.name,
+                source.defaultEntitlement == null ? null : source.defaultEntitlement.id,
+                source.defaultEntitlement == null ? null : source.defaultEntitlement.name, status.running(),
+                status.lastPolledAt(), status.lastProcessed(), status.lastError());
+    }
+
+    private boolean flag(String value, boolean fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        return "true".equalsIgnoreCase(value.trim()) || "on".equalsIgnoreCase(value.trim());
+    }
+
+    private String trimToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    public record MailboxListResponse(List<MailboxResponse> items) {
+    }
+
+    public record MailboxResponse(Long id, String name, boolean enabled, String protocol, String host, int port,
+            String username, String folder, boolean ssl, boolean startTls, boolean unreadOnly,
+            boolean deleteAfterProcess, int pollIntervalSeconds, int workers, int maxMessagesPerPoll, boolean idle,
+            Long categoryId, String categoryName, Long entitlementId, String entitlementName, boolean running,
+            Instant lastPolledAt, int lastProcessed, String lastError) {
+    }
+
+    public record PollResponse(int processed) {
+    }
+}
@@ -31,6 +31,8 @@ public class AppSessionResource {
         String installationCompanyName = brandingProvider.installationCompanyName();
         String installationLogoBase64 = brandingProvider.installationLogoBase64();
         String installationBackgroundBase64 = brandingProvider.installationBackgroundBase64();
+        String installationLogoUrl = brandingProvider.installationLogoUrl();
+        String installationBackgroundUrl = brandingProvider.installationBackgroundUrl();
         String installationHeaderFooterColor = brandingProvider.installationHeaderFooterColor();
         String installationHeadersColor = brandingProvider.installationHeadersColor();
         String installationButtonsColor = brandingProvider.installationButtonsColor();
@@ -50,25 +52,26 @@ public class AppSessionResource {
         User user = AuthHelper.findUser(auth);
         if (user == null) {
             return new SessionResponse(false, null, null, null, null, null, installationCompanyName,
-                    installationLogoBase64, installationBackgroundBase64, installationHeaderFooterColor,
-                    installationHeadersColor, installationButtonsColor, installationUse24HourClock,
-                    installationAdminRoleIcon, installationSupportRoleIcon, installationSuperuserRoleIcon,
-                    installationTamRoleIcon, installationUserRoleIcon, installationExternalRoleIcon,
-                    installationAdminRoleColor, installationSupportRoleColor, installationSuperuserRoleColor,
-                    installationTamRoleColor, installationUserRoleColor, installationExternalRoleColor,
-                    AuthHelper.INACTIVITY_TIMEOUT_SECONDS, AuthHelper.WARNING_LEAD_SECONDS, null, "/login", List.of(),
+                    installationLogoBase64, installationBackgroundBase64, installationLogoUrl,
+                    installationBackgroundUrl, installationHeaderFooterColor, installationHeadersColor,
+                    installationButtonsColor, installationUse24HourClock, installationAdminRoleIcon,
+                    installationSupportRoleIcon, installationSuperuserRoleIcon, installationTamRoleIcon,
+                    installationUserRoleIcon, installationExternalRoleIcon, installationAdminRoleColor,
+                    installationSupportRoleColor, installationSuperuserRoleColor, installationTamRoleColor,
+                    installationUserRoleColor, installationExternalRoleColor, AuthHelper.INACTIVITY_TIMEOUT_SECONDS,
+                    AuthHelper.WARNING_LEAD_SECONDS, null, "/login", List.of(),
                     List.of("The React shell now uses clean URLs for login, tickets, and admin pages.",
                             "Sign in to see role-aware navigation."));
         }
         return new SessionResponse(true, user.name, user.getDisplayName(), user.email, user.type, user.logoBase64,
-                installationCompanyName, installationLogoBase64, installationBackgroundBase64,
-                installationHeaderFooterColor, installationHeadersColor, installationButtonsColor,
-                installationUse24HourClock, installationAdminRoleIcon, installationSupportRoleIcon,
-                installationSuperuserRoleIcon, installationTamRoleIcon, installationUserRoleIcon,
-                installationExternalRoleIcon, installationAdminRoleColor, installationSupportRoleColor,
-                installationSuperuserRoleColor, installationTamRoleColor, installationUserRoleColor,
-                installationExternalRoleColor, AuthHelper.INACTIVITY_TIMEOUT_SECONDS, AuthHelper.WARNING_LEAD_SECONDS,
-                user.pageSize, homePath(user), navigation(user),
+                installationCompanyName, installationLogoBase64, installationBackgroundBase64, installationLogoUrl,
+                installationBackgroundUrl, installationHeaderFooterColor, installationHeadersColor,
+                installationButtonsColor, installationUse24HourClock, installationAdminRoleIcon,
+                installationSupportRoleIcon, installationSuperuserRoleIcon, installationTamRoleIcon,
+                installationUserRoleIcon, installationExternalRoleIcon, installationAdminRoleColor,
+                installationSupportRoleColor, installationSuperuserRoleColor, installationTamRoleColor,
+                installationUserRoleColor, installationExternalRoleColor, AuthHelper.INACTIVITY_TIMEOUT_SECONDS,
+                AuthHelper.WARNING_LEAD_SECONDS, user.pageSize, homePath(user), navigation(user),
                 List.of("The React shell now covers tickets, admin management, profile, and reports.",
                         "Legacy page routes now redirect into the React screens for the same workflows."));
     }
@@ -119,14 +122,14 @@ public class AppSessionResource {
 
     public record SessionResponse(boolean authenticated, String username, String displayName, String email, String role,
             String logoBase64, String installationCompanyName, String installationLogoBase64,
-            String installationBackgroundBase64, String installationHeaderFooterColor, String installationHeadersColor,
-            String installationButtonsColor, boolean installationUse24HourClock, String installationAdminRoleIcon,
-            String installationSupportRoleIcon, String installationSuperuserRoleIcon, String installationTamRoleIcon,
-            String installationUserRoleIcon, String installationExternalRoleIcon, String installationAdminRoleColor,
-            String installationSupportRoleColor, String installationSuperuserRoleColor, String installationTamRoleColor,
-            String installationUserRoleColor, String installationExternalRoleColor, int inactivityTimeoutSeconds,
-            int inactivityWarningSeconds, Integer defaultPageSize, String homePath, List<NavLink> navigation,
-            List<String> notices) {
+            String installationBackgroundBase64, String installationLogoUrl, String installationBackgroundUrl,
+            String installationHeaderFooterColor, String installationHeadersColor, String installationButtonsColor,
+            boolean installationUse24HourClock, String installationAdminRoleIcon, String installationSupportRoleIcon,
+            String installationSuperuserRoleIcon, String installationTamRoleIcon, String installationUserRoleIcon,
+            String installationExternalRoleIcon, String installationAdminRoleColor, String installationSupportRoleColor,
+            String installationSuperuserRoleColor, String installationTamRoleColor, String installationUserRoleColor,
+            String installationExternalRoleColor, int inactivityTimeoutSeconds, int inactivityWarningSeconds,
+            Integer defaultPageSize, String homePath, List<NavLink> navigation, List<String> notices) {
     }
 
     public record NavLink(String label, String href) {
@@ -10,8 +10,9 @@ package ai.mnemosyne_systems.resource;
 
 import ai.mnemosyne_systems.model.Article;
 import ai.mnemosyne_systems.model.Attachment;
-import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
+import ai.mnemosyne_systems.util.FullTextSearchSupport;
 import io.smallrye.common.annotation.Blocking;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.CookieParam;
@@ -34,34 +35,43 @@ import java.util.Locale;
 @Blocking
 public class ArticleApiResource {
 
+    private static final int SUGGESTION_LIMIT = 6;
+
     @GET
     @Transactional
     public ArticleListResponse list(@CookieParam(AuthHelper.AUTH_COOKIE) String auth, @QueryParam("page") Integer page,
             @QueryParam("pageSize") Integer pageSize, @QueryParam("sort") String sort, @QueryParam("dir") String dir,
-            @QueryParam("q") String q) {
-        User user = requireUser(auth);
+            @QueryParam("q") String q, @QueryParam("cursor") String cursor) {
+        AuthPrincipal principal = requireUser(auth);
         ArticleResource.ensureSampleArticle();
         String needle = q == null ? "" : q.trim().toLowerCase(Locale.ROOT);
-        List<ArticleSummary> allItems = Article.<Article> list("order by lower(title), id").stream()
-                .filter(article -> needle.isEmpty()
-                        || (article.title != null && article.title.toLowerCase(Locale.ROOT).contains(needle)))
+        PaginationSupport.PageQuery query = new PaginationSupport.PageQuery("a", "from Article a", null,
+                java.util.Map.of());
+        if (!needle.isEmpty()) {
+            String ftsQuery = FullTextSearchSupport.enabled() ? FullTextSearchSupport.prefixQuery(needle) : null;
+            query = ftsQuery == null
+                    ? query.and("lower(a.title) like :needle", java.util.Map.of("needle", "%" + needle + "%"))
+                    : query.and(
+                            "lower(a.title) like :needle or " + FullTextSearchSupport.articleMatch("a", ":ftsQuery"),
+                            java.util.Map.of("needle", "%" + needle + "%", "ftsQuery", ftsQuery));
+        }
+        java.util.Map<String, PaginationSupport.QueryColumn> sortColumns = java.util.Map.of("title",
+                PaginationSupport.queryColumn("lower(a.title)", String.class), "tags",
+                PaginationSupport.queryColumn("lower(a.tags)", String.class));
+        PaginationSupport.QueryPage<Article> result = PaginationSupport.queryAndPaginate(Article.class, query, sort,
+                dir, sortColumns, "title", page, pageSize, cursor);
+        List<ArticleSummary> pageItems = result.items().stream()
                 .map(article -> new ArticleSummary(article.id, article.title, article.tags)).toList();
-        int totalItems = allItems.size();
-        java.util.Map<String, PaginationSupport.SortColumn<ArticleSummary>> sortColumns = java.util.Map.of("title",
-                PaginationSupport.sortColumn(ArticleSummary::title, String.CASE_INSENSITIVE_ORDER), "tags",
-                PaginationSupport.sortColumn(ArticleSummary::tags, String.CASE_INSENSITIVE_ORDER));
-        List<ArticleSummary> pageItems = PaginationSupport.sortAndPaginate(allItems, sort, dir, sortColumns, page,
-                pageSize);
-        PaginationSupport.PaginationMeta meta = PaginationSupport.meta(page, pageSize, totalItems);
-        return new ArticleListResponse(ArticleResource.canEdit(user), "/articles/new", pageItems, meta.page(),
-                meta.pageSize(), meta.totalItems(), meta.totalPages());
+        return new ArticleListResponse(ArticleResource.canEdit(principal), "/articles/new", pageItems,
+                result.meta().page(), result.meta().pageSize(), result.meta().totalItems(), result.meta().totalPages(),
+                result.nextCursor());
     }
 
     @GET
     @Path("/bootstrap")
     public ArticleBootstrapResponse bootstrap(@CookieParam(AuthHelper.AUTH_COOKIE) String auth) {
-        User user = requireUser(auth);
-        return new ArticleBootstrapResponse(ArticleResource.canEdit(user), AuthHelper.isAdmin(user));
+        AuthPrincipal principal = requireUser(auth);
+        return new ArticleBootstrapResponse(ArticleResource.canEdit(principal), principal.isAdmin());
     }
 
     @GET
@@ -72,19 +82,23 @@ public class ArticleApiResource {
         requireUser(auth);
         ArticleResource.ensureSampleArticle();
         String needle = q == null ? "" : q.trim().toLowerCase(Locale.ROOT);
-        List<Article> all = Article.<Article> list("order by id desc");
-        List<ArticleSuggestion> matches = new ArrayList<>();
-        for (Article article : all) {
-            if (article.id == null) {
-                continue;
-            }
-            if (needle.isEmpty()
-                    || (article.title != null && article.title.toLowerCase(Locale.ROOT).contains(needle))) {
-                matches.add(new ArticleSuggestion(article.id, article.title, article.title, "/articles/" + article.id));
-            }
-            if (matches.size() >= 6) {
-                break;
+        List<Article> articles;
+        if (needle.isEmpty()) {
+            articles = Article.<Article> find("order by id desc").page(0, SUGGESTION_LIMIT).list();
+        } else if (FullTextSearchSupport.enabled()) {
+            List<Long> rankedIds = FullTextSearchSupport.articleIds(needle, SUGGESTION_LIMIT);
+            java.util.Map<Long, Article> byId = new java.util.HashMap<>();
+            if (!rankedIds.isEmpty()) {
+                Article.<Article> list("id in ?1", rankedIds).forEach(article -> byId.put(article.id, article));
             }
+            articles = rankedIds.stream().map(byId::get).filter(java.util.Objects::nonNull).toList();
+        } else {
+            articles = Article.<Article> find("lower(title) like ?1 order by id desc", "%" + needle + "%")
+                    .page(0, SUGGESTION_LIMIT).list();
+        }
+        List<ArticleSuggestion> matches = new ArrayList<>();
+        for (Article article : articles) {
+            matches.add(new ArticleSuggestion(article.id, article.title, article.title, "/articles/" + article.id));
         }
         return new ArticleSuggestionResponse(matches);
     }
@@ -93,7 +107,7 @@ public class ArticleApiResource {
     @Path("/{id}")
     @Transactional
     public ArticleDetailResponse detail(@CookieParam(AuthHelper.AUTH_COOKIE) String auth, @PathParam("id") Long id) {
-        User user = requireUser(auth);
+        AuthPrincipal principal = requireUser(auth);
         ArticleResource.ensureSampleArticle();
         Article article = ArticleResource.findArticleWithAttachments(id);
         if (article == null) {
@@ -101,16 +115,16 @@ public class ArticleApiResource {
         }
         List<ArticleAttachment> attachments = article.attachments.stream().map(this::toAttachmentResponse).toList();
         return new ArticleDetailResponse(article.id, article.title, article.tags, article.body,
-                ArticleResource.canEdit(user), AuthHelper.isAdmin(user),
-                ArticleResource.canEdit(user) ? "/articles/" + article.id + "/edit" : null, attachments);
+                ArticleResource.canEdit(principal), principal.isAdmin(),
+                ArticleResource.canEdit(principal) ? "/articles/" + article.id + "/edit" : null, attachments);
     }
 
-    private User requireUser(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (user == null) {
+    private AuthPrincipal requireUser(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null) {
             throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED).build());
         }
-        return user;
+        return principal;
     }
 
     private ArticleAttachment toAttachmentResponse(Attachment attachment) {
@@ -119,7 +133,7 @@ public class ArticleApiResource {
     }
 
     public record ArticleListResponse(boolean canCreate, String createPath, List<ArticleSummary> items, int page,
-            int pageSize, int totalItems, int totalPages) {
+            int pageSize, int totalItems, int totalPages, String nextCursor) {
     }
 
     public record ArticleBootstrapResponse(boolean canEdit, boolean canDelete) {
@@ -13,6 +13,7 @@ import ai.mnemosyne_systems.model.Attachment;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.util.AttachmentHelper;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import io.quarkus.hibernate.orm.panache.Panache;
 import io.smallrye.common.annotation.Blocking;
 import jakarta.transaction.Transactional;
@@ -251,4 +252,8 @@ public class ArticleResource {
                 || (user != null && User.TYPE_TAM.equalsIgnoreCase(user.type));
     }
 
+    static boolean canEdit(AuthPrincipal principal) {
+        return principal != null && (principal.isAdmin() || principal.isSupport() || principal.isTam());
+    }
+
 }
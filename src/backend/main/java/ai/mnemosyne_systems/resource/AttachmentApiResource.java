@@ -11,8 +11,9 @@ package ai.mnemosyne_systems.resource;
 import ai.mnemosyne_systems.model.Attachment;
 import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Ticket;
-import ai.mnemosyne_systems.model.User;
+import ai.mnemosyne_systems.util.AttachmentStorage;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import io.smallrye.common.annotation.Blocking;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.CookieParam;
@@ -38,8 +39,8 @@ public class AttachmentApiResource {
     @Path("/{id}")
     @Transactional
     public AttachmentResponse view(@CookieParam(AuthHelper.AUTH_COOKIE) String auth, @PathParam("id") Long id) {
-        User user = AuthHelper.findUser(auth);
-        if (user == null) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null) {
             throw new WebApplicationException(Response.seeOther(URI.create("/")).build());
         }
         Attachment attachment = Attachment.findById(id);
@@ -48,13 +49,13 @@ public class AttachmentApiResource {
         }
         Message message = attachment.message;
         Ticket ticket = message == null ? null : message.ticket;
-        if (!MessageVisibilitySupport.canAccessTicket(user, ticket)
-                || !MessageVisibilitySupport.canViewMessage(user, message)) {
+        if (!MessageVisibilitySupport.canAccessTicket(principal, ticket)
+                || !MessageVisibilitySupport.canViewMessage(principal, message)) {
             throw new NotFoundException();
         }
         return new AttachmentResponse(attachment.id, attachment.name, attachment.mimeType, attachment.sizeLabel(),
                 attachment.isImage(), "/attachments/" + attachment.id + "/data", ticket == null ? null : ticket.id,
-                ticket == null ? null : ticket.name, resolveBackPath(user, ticket), textLines(attachment),
+                ticket == null ? null : ticket.name, resolveBackPath(principal, ticket), textLines(attachment),
                 message == null ? null : message.body);
     }
 
@@ -62,7 +63,7 @@ public class AttachmentApiResource {
         if (attachment == null || attachment.isImage()) {
             return List.of();
         }
-        String text = attachment.data == null ? "" : new String(attachment.data, StandardCharsets.UTF_8);
+        String text = new String(AttachmentStorage.readAllBytes(attachment), StandardCharsets.UTF_8);
         String[] split = text.split("\\R", -1);
         List<AttachmentLine> lines = new ArrayList<>();
         for (int i = 0; i < split.length; i++) {
@@ -71,17 +72,17 @@ public class AttachmentApiResource {
         return lines;
     }
 
-    private String resolveBackPath(User user, Ticket ticket) {
+    private String resolveBackPath(AuthPrincipal principal, Ticket ticket) {
         if (ticket == null) {
             return null;
         }
-        if (AuthHelper.isSupport(user)) {
+        if (principal.isSupport()) {
             return "/support/tickets/" + ticket.id;
         }
-        if (AuthHelper.isSuperuser(user)) {
+        if (principal.isSuperuser()) {
             return "/superuser/tickets/" + ticket.id;
         }
-        if (AuthHelper.isUser(user)) {
+        if (principal.isUser()) {
             return "/user/tickets/" + ticket.id;
         }
         return null;
@@ -11,20 +11,28 @@ package ai.mnemosyne_systems.resource;
 import ai.mnemosyne_systems.model.Attachment;
 import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Ticket;
-import ai.mnemosyne_systems.model.User;
+import ai.mnemosyne_systems.util.AttachmentStorage;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import io.smallrye.common.annotation.Blocking;
 import jakarta.ws.rs.CookieParam;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import java.net.URI;
 import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 @Path("/attachments")
 @Produces(MediaType.TEXT_HTML)
@@ -34,9 +42,11 @@ public class AttachmentResource {
     @GET
     @Path("/{id}/data")
     @Produces("*/*")
-    public Response data(@CookieParam(AuthHelper.AUTH_COOKIE) String auth, @PathParam("id") Long id) {
-        User user = AuthHelper.findUser(auth);
-        if (user == null) {
+    public Response data(@CookieParam(AuthHelper.AUTH_COOKIE) String auth, @PathParam("id") Long id,
+            @HeaderParam("Range") String range, @HeaderParam("If-None-Match") String ifNoneMatch,
+            @HeaderParam("If-Range") String ifRange) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null) {
             throw new WebApplicationException(Response.seeOther(URI.create("/")).build());
         }
         Attachment attachment = Attachment.findById(id);
@@ -45,21 +55,101 @@ public class AttachmentResource {
         }
         Message message = attachment.message;
         Ticket ticket = message == null ? null : message.ticket;
-        if (!MessageVisibilitySupport.canAccessTicket(user, ticket)
-                || !MessageVisibilitySupport.canViewMessage(user, message)) {
+        if (!MessageVisibilitySupport.canAccessTicket(principal, ticket)
+                || !MessageVisibilitySupport.canViewMessage(principal, message)) {
             throw new NotFoundException();
         }
         String encoded = URLEncoder.encode(attachment.name, java.nio.charset.StandardCharsets.UTF_8).replace("+",
                 "%20");
-        return Response.ok(attachment.data, attachment.mimeType)
+        String etag = attachment.sha256 == null ? null : "\"" + attachment.sha256 + "\"";
+        if (etag != null && etag.equals(ifNoneMatch)) {
+            return Response.notModified().header("ETag", etag).build();
+        }
+        long length = attachment.sizeBytes();
+        long[] bounds = range == null || (ifRange != null && !ifRange.equals(etag)) ? null : parseRange(range, length);
+        if (bounds != null && bounds.length == 0) {
+            return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header("Content-Range", "bytes */" + length).build();
+        }
+        long start = bounds == null ? 0 : bounds[0];
+        long count = bounds == null ? length : bounds[1] - bounds[0] + 1;
+        Response.ResponseBuilder builder = bounds == null ? Response.ok()
+                : Response.status(Response.Status.PARTIAL_CONTENT).header("Content-Range",
+                        "bytes " + bounds[0] + "-" + bounds[1] + "/" + length);
+        if (etag != null) {
+            builder.header("ETag", etag);
+        }
+        return builder.entity(payload(attachment, start, count)).type(attachment.mimeType)
+                .header("Accept-Ranges", "bytes").header(HttpHeaders.CONTENT_LENGTH, count)
                 .header("Content-Disposition", "inline; filename*=UTF-8''" + encoded).build();
     }
 
+    private StreamingOutput payload(Attachment attachment, long start, long count) {
+        java.nio.file.Path path = AttachmentStorage.storeFor(attachment).path(attachment);
+        if (path != null) {
+            return output -> {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    WritableByteChannel target = Channels.newChannel(output);
+                    long position = start;
+                    long remaining = count;
+                    while (remaining > 0) {
+                        long sent = channel.transferTo(position, remaining, target);
+                        if (sent <= 0) {
+                            break;
+                        }
+                        position += sent;
+                        remaining -= sent;
+                    }
+                }
+            };
+        }
+        byte[] data = AttachmentStorage.readAllBytes(attachment);
+        return output -> output.write(data, (int) start, (int) count);
+    }
+
+    static long[] parseRange(String header, long length) {
+        String value = header.trim();
+        if (!value.startsWith("bytes=") || value.contains(",")) {
+            return null;
+        }
+        String spec = value.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end) {
+                return new long[0];
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
     @GET
     @Path("/{id}")
     public Response view(@CookieParam(AuthHelper.AUTH_COOKIE) String auth, @PathParam("id") Long id) {
-        User user = AuthHelper.findUser(auth);
-        if (user == null) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null) {
             throw new WebApplicationException(Response.seeOther(URI.create("/")).build());
         }
         Attachment attachment = Attachment.findById(id);
@@ -68,8 +158,8 @@ public class AttachmentResource {
         }
         Message message = attachment.message;
         Ticket ticket = message == null ? null : message.ticket;
-        if (!MessageVisibilitySupport.canAccessTicket(user, ticket)
-                || !MessageVisibilitySupport.canViewMessage(user, message)) {
+        if (!MessageVisibilitySupport.canAccessTicket(principal, ticket)
+                || !MessageVisibilitySupport.canViewMessage(principal, message)) {
             throw new NotFoundException();
         }
         return Response.seeOther(URI.create("/attachments/" + id)).build();
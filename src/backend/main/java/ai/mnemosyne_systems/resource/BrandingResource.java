@@ -0,0 +1,61 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.resource;
+
+import ai.mnemosyne_systems.infra.BrandingProvider;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+@Path("/api/app/branding")
+public class BrandingResource {
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, no-cache";
+    private static final String CONTENT_SECURITY_POLICY = "default-src 'none'";
+
+    @Inject
+    BrandingProvider brandingProvider;
+
+    @GET
+    @Path("/logo")
+    public Response logo(@QueryParam("v") String version, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        BrandingProvider.Snapshot snapshot = brandingProvider.snapshot();
+        return image(snapshot, snapshot.logo(), version, ifNoneMatch);
+    }
+
+    @GET
+    @Path("/background")
+    public Response background(@QueryParam("v") String version,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        BrandingProvider.Snapshot snapshot = brandingProvider.snapshot();
+        return image(snapshot, snapshot.background(), version, ifNoneMatch);
+    }
+
+    private Response image(BrandingProvider.Snapshot snapshot, BrandingProvider.Image image, String version,
+            String ifNoneMatch) {
+        if (image == null) {
+            throw new NotFoundException();
+        }
+        String cacheControl = snapshot.tag().equals(version) ? IMMUTABLE : REVALIDATE;
+        if (ifNoneMatch != null && (ifNoneMatch.contains(snapshot.etag()) || ifNoneMatch.trim().equals("*"))) {
+            return Response.notModified().header(HttpHeaders.ETAG, snapshot.etag())
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl).build();
+        }
+        return Response.ok(image.data(), image.contentType()).header(HttpHeaders.ETAG, snapshot.etag())
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl).header(HttpHeaders.CONTENT_LENGTH, image.data().length)
+                .header("X-Content-Type-Options", "nosniff").header("Content-Security-Policy", CONTENT_SECURITY_POLICY)
+                .build();
+    }
+}
@@ -10,8 +10,8 @@ package ai.mnemosyne_systems.resource;
 
 import ai.mnemosyne_systems.model.Attachment;
 import ai.mnemosyne_systems.model.Category;
-import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import io.smallrye.common.annotation.Blocking;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.CookieParam;
@@ -62,12 +62,12 @@ public class CategoryApiResource {
                 "/categories/" + category.id + "/edit", attachments);
     }
 
-    private User requireAdmin(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (!AuthHelper.isAdmin(user)) {
+    private AuthPrincipal requireAdmin(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isAdmin()) {
             throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED).build());
         }
-        return user;
+        return principal;
     }
 
     private CategoryAttachment toAttachmentResponse(Attachment attachment) {
@@ -10,9 +10,10 @@ package ai.mnemosyne_systems.resource;
 
 import ai.mnemosyne_systems.model.Category;
 import ai.mnemosyne_systems.model.Attachment;
-import ai.mnemosyne_systems.model.User;
+import ai.mnemosyne_systems.model.MailboxSource;
 import ai.mnemosyne_systems.util.AttachmentHelper;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import io.quarkus.hibernate.orm.panache.Panache;
 import io.smallrye.common.annotation.Blocking;
 import jakarta.transaction.Transactional;
@@ -162,6 +163,7 @@ public class CategoryResource {
             throw new NotFoundException();
         }
         Attachment.delete("category", category);
+        MailboxSource.update("defaultCategory = null where defaultCategory = ?1", category);
         category.delete();
         return ReactRedirectSupport.redirect(client, "/categories");
     }
@@ -202,11 +204,11 @@ public class CategoryResource {
         }
     }
 
-    private User requireAdmin(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (!AuthHelper.isAdmin(user)) {
+    private AuthPrincipal requireAdmin(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isAdmin()) {
             throw new WebApplicationException(Response.seeOther(URI.create("/")).build());
         }
-        return user;
+        return principal;
     }
 }
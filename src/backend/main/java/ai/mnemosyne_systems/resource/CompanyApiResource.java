@@ -16,6 +16,7 @@ import ai.mnemosyne_systems.model.Level;
 import ai.mnemosyne_systems.model.Timezone;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.CookieParam;
 import jakarta.ws.rs.GET;
@@ -185,12 +186,12 @@ public class CompanyApiResource {
         return LocalDate.now().isAfter(endDate);
     }
 
-    private User requireAdmin(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (!AuthHelper.isAdmin(user)) {
+    private AuthPrincipal requireAdmin(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isAdmin()) {
             throw new NotAuthorizedException(Response.status(Response.Status.UNAUTHORIZED).build());
         }
-        return user;
+        return principal;
     }
 
     public record CompanyListResponse(String createPath, List<CompanySummary> items) {
@@ -8,16 +8,21 @@
 
 package ai.mnemosyne_systems.resource;
 
+import ai.mnemosyne_systems.infra.BrandingProvider;
 import ai.mnemosyne_systems.model.Company;
 import ai.mnemosyne_systems.model.CompanyEntitlement;
 import ai.mnemosyne_systems.model.Country;
 import ai.mnemosyne_systems.model.Entitlement;
+import ai.mnemosyne_systems.model.Installation;
 import ai.mnemosyne_systems.model.Level;
 import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.model.TicketCounter;
 import ai.mnemosyne_systems.model.Timezone;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import io.smallrye.common.annotation.Blocking;
+import jakarta.inject.Inject;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.BadRequestException;
@@ -46,6 +51,9 @@ import java.util.List;
 @Blocking
 public class CompanyResource {
 
+    @Inject
+    BrandingProvider brandingProvider;
+
     @GET
     public Response listCompanies(@CookieParam(AuthHelper.AUTH_COOKIE) String auth) {
         requireAdmin(auth);
@@ -166,6 +174,9 @@ public class CompanyResource {
             }
             entry.delete();
         }
+        if (isOwnerCompany(company)) {
+            brandingProvider.invalidate();
+        }
         return ReactRedirectSupport.redirect(client, "/companies");
     }
 
@@ -180,15 +191,21 @@ public class CompanyResource {
             throw new NotFoundException();
         }
         company.delete();
+        TicketCounter.deleteById(id);
         return ReactRedirectSupport.redirect(client, "/companies");
     }
 
-    private User requireAdmin(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (!AuthHelper.isAdmin(user)) {
+    private boolean isOwnerCompany(Company company) {
+        Installation installation = Installation.find("singletonKey", "installation").firstResult();
+        return installation != null && installation.company != null && company.id.equals(installation.company.id);
+    }
+
+    private AuthPrincipal requireAdmin(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isAdmin()) {
             throw new WebApplicationException(Response.seeOther(URI.create("/")).build());
         }
-        return user;
+        return principal;
     }
 
     private java.util.List<User> resolveUsers(java.util.List<Long> userIds, java.util.List<Long> tamIds,
@@ -10,9 +10,9 @@ package ai.mnemosyne_systems.resource;
 
 import ai.mnemosyne_systems.model.Entitlement;
 import ai.mnemosyne_systems.model.Level;
-import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.model.Version;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.CookieParam;
 import jakarta.ws.rs.GET;
@@ -127,12 +127,12 @@ public class EntitlementApiResource {
         return "";
     }
 
-    private User requireAdmin(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (!AuthHelper.isAdmin(user)) {
+    private AuthPrincipal requireAdmin(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isAdmin()) {
             throw new NotAuthorizedException(Response.status(Response.Status.UNAUTHORIZED).build());
         }
-        return user;
+        return principal;
     }
 
     public record EntitlementListResponse(String createPath, List<EntitlementListItem> items) {
@@ -10,9 +10,10 @@ package ai.mnemosyne_systems.resource;
 
 import ai.mnemosyne_systems.model.Entitlement;
 import ai.mnemosyne_systems.model.Level;
-import ai.mnemosyne_systems.model.User;
+import ai.mnemosyne_systems.model.MailboxSource;
 import ai.mnemosyne_systems.model.Version;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import io.smallrye.common.annotation.Blocking;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.BadRequestException;
@@ -131,6 +132,7 @@ public class EntitlementResource {
         if (entitlement == null) {
             throw new NotFoundException();
         }
+        MailboxSource.update("defaultEntitlement = null where defaultEntitlement = ?1", entitlement);
         entitlement.delete();
         return ReactRedirectSupport.redirect(client, "/entitlements");
     }
@@ -212,11 +214,11 @@ public class EntitlementResource {
         }
     }
 
-    private User requireAdmin(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (!AuthHelper.isAdmin(user)) {
+    private AuthPrincipal requireAdmin(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isAdmin()) {
             throw new WebApplicationException(Response.seeOther(URI.create("/")).build());
         }
-        return user;
+        return principal;
     }
 }
@@ -11,8 +11,9 @@ package ai.mnemosyne_systems.resource;
 import ai.mnemosyne_systems.model.Country;
 import ai.mnemosyne_systems.model.Level;
 import ai.mnemosyne_systems.model.Timezone;
-import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
+import ai.mnemosyne_systems.util.SlaSupport;
 import io.smallrye.common.annotation.Blocking;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.BadRequestException;
@@ -163,6 +164,7 @@ public class LevelResource {
         level.country = countryId != null ? Country.findById(countryId) : Country.find("code", "US").firstResult();
         level.timezone = timezoneId != null ? Timezone.findById(timezoneId)
                 : Timezone.find("name", "America/New_York").firstResult();
+        SlaSupport.refreshLevel(level);
         return ReactRedirectSupport.redirect(client, "/levels");
     }
 
@@ -248,11 +250,11 @@ public class LevelResource {
         return null;
     }
 
-    private User requireAdmin(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (!AuthHelper.isAdmin(user)) {
+    private AuthPrincipal requireAdmin(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isAdmin()) {
             throw new WebApplicationException(Response.seeOther(URI.create("/")).build());
         }
-        return user;
+        return principal;
     }
 }
@@ -12,6 +12,7 @@ import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Ticket;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import ai.mnemosyne_systems.util.MessageAudienceSupport;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
@@ -24,6 +25,10 @@ final class MessageVisibilitySupport {
     }
 
     static List<Message> loadMessagesForViewer(Ticket ticket, User viewer) {
+        return loadMessagesForViewer(ticket, AuthHelper.principal(viewer));
+    }
+
+    static List<Message> loadMessagesForViewer(Ticket ticket, AuthPrincipal viewer) {
         if (ticket == null) {
             return List.of();
         }
@@ -34,6 +39,10 @@ final class MessageVisibilitySupport {
     }
 
     static List<Message> filterVisibleMessages(List<Message> messages, User viewer) {
+        return filterVisibleMessages(messages, AuthHelper.principal(viewer));
+    }
+
+    static List<Message> filterVisibleMessages(List<Message> messages, AuthPrincipal viewer) {
         if (messages == null || messages.isEmpty()) {
             return List.of();
         }
@@ -61,22 +70,73 @@ final class MessageVisibilitySupport {
         return audience != null && MessageAudienceSupport.belongsToAudience(viewer, audience);
     }
 
+    static boolean canViewMessage(AuthPrincipal viewer, Message message) {
+        if (viewer == null || message == null) {
+            return false;
+        }
+        if (message.isPublic) {
+            return true;
+        }
+        MessageAudienceSupport.Audience audience = MessageAudienceSupport.audienceFor(message.author);
+        return audience != null && MessageAudienceSupport.belongsToAudience(viewer, audience);
+    }
+
+    static List<String> visibleAuthorTypes(User viewer) {
+        return visibleAuthorTypes(AuthHelper.principal(viewer));
+    }
+
+    static List<String> visibleAuthorTypes(AuthPrincipal viewer) {
+        if (viewer == null) {
+            return List.of();
+        }
+        List<String> types = new ArrayList<>();
+        if (MessageAudienceSupport.belongsToAudience(viewer, MessageAudienceSupport.Audience.SUPPORT_TAM)) {
+            types.add(User.TYPE_SUPPORT);
+            types.add(User.TYPE_TAM);
+        }
+        if (MessageAudienceSupport.belongsToAudience(viewer, MessageAudienceSupport.Audience.USER_SUPERUSER)) {
+            types.add(User.TYPE_USER);
+            types.add(User.TYPE_SUPERUSER);
+        }
+        return types;
+    }
+
+    static String visibilityPredicate(String messageAlias, String authorAlias, User viewer) {
+        return visibilityPredicate(messageAlias, authorAlias, AuthHelper.principal(viewer));
+    }
+
+    static String visibilityPredicate(String messageAlias, String authorAlias, AuthPrincipal viewer) {
+        if (visibleAuthorTypes(viewer).isEmpty()) {
+            return messageAlias + ".isPublic = true";
+        }
+        return "(" + messageAlias + ".isPublic = true or lower(" + authorAlias + ".type) in :visibleAuthorTypes)";
+    }
+
+    static java.util.Map<String, Object> visibilityParams(User viewer) {
+        return visibilityParams(AuthHelper.principal(viewer));
+    }
+
+    static java.util.Map<String, Object> visibilityParams(AuthPrincipal viewer) {
+        List<String> types = visibleAuthorTypes(viewer);
+        return types.isEmpty() ? java.util.Map.of() : java.util.Map.of("visibleAuthorTypes", types);
+    }
+
     static boolean canAccessTicket(User user, Ticket ticket) {
-        if (user == null || ticket == null) {
+        return canAccessTicket(AuthHelper.principal(user), ticket);
+    }
+
+    static boolean canAccessTicket(AuthPrincipal principal, Ticket ticket) {
+        if (principal == null || ticket == null) {
             return false;
         }
-        if (AuthHelper.isSupport(user)) {
+        if (principal.isSupport()) {
             return true;
         }
-        if (AuthHelper.isTam(user) || AuthHelper.isSuperuser(user)) {
-            if (ticket.company == null || ticket.company.users == null || user.id == null) {
-                return false;
-            }
-            return ticket.company.users.stream()
-                    .anyMatch(existing -> existing.id != null && existing.id.equals(user.id));
+        if (principal.isTam() || principal.isSuperuser()) {
+            return ticket.company != null && principal.memberOf(ticket.company.id);
         }
-        return User.TYPE_USER.equalsIgnoreCase(user.type) && ticket.requester != null && ticket.requester.id != null
-                && ticket.requester.id.equals(user.id);
+        return principal.hasType(User.TYPE_USER) && ticket.requester != null && ticket.requester.id != null
+                && ticket.requester.id.equals(principal.id());
     }
 
 }
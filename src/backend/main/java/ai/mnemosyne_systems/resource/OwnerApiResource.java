@@ -15,7 +15,9 @@ import ai.mnemosyne_systems.model.Installation;
 import ai.mnemosyne_systems.model.Timezone;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import io.smallrye.common.annotation.Blocking;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.CookieParam;
 import jakarta.ws.rs.GET;
@@ -35,6 +37,9 @@ import java.util.List;
 @Blocking
 public class OwnerApiResource {
 
+    @Inject
+    BrandingProvider brandingProvider;
+
     @GET
     @Transactional
     public OwnerResponse owner(@CookieParam(AuthHelper.AUTH_COOKIE) String auth) {
@@ -51,6 +56,9 @@ public class OwnerApiResource {
         }
 
         Company company = OwnerResource.findOwnerCompany();
+        Installation installation = OwnerResource.findOrCreateInstallation(company);
+        String logoBase64 = brandingImage(request.logoBase64(), installation.logoBase64);
+        String backgroundBase64 = brandingImage(request.backgroundBase64(), installation.backgroundBase64);
         String normalizedHeaderFooterColor = OwnerResource.normalizeOwnerColor(request.headerFooterColor());
         String normalizedHeadersColor = OwnerResource.normalizeOwnerColor(request.headersColor());
         String normalizedButtonsColor = OwnerResource.normalizeOwnerColor(request.buttonsColor());
@@ -65,7 +73,6 @@ public class OwnerApiResource {
         company.phoneNumber = request.phoneNumber();
         company.users.clear();
         company.users.addAll(OwnerResource.resolveSelectedUsers(request.supportIds(), request.tamIds()));
-        Installation installation = OwnerResource.findOrCreateInstallation(company);
         installation.name = request.name();
         installation.headerFooterColor = normalizedHeaderFooterColor;
         installation.headersColor = normalizedHeadersColor;
@@ -84,17 +91,18 @@ public class OwnerApiResource {
         installation.tamRoleColor = BrandingProvider.normalizeRoleColor(request.tamRoleColor());
         installation.userRoleColor = BrandingProvider.normalizeRoleColor(request.userRoleColor());
         installation.externalRoleColor = BrandingProvider.normalizeRoleColor(request.externalRoleColor());
-        installation.logoBase64 = trimToNull(request.logoBase64());
-        installation.backgroundBase64 = trimToNull(request.backgroundBase64());
+        installation.logoBase64 = logoBase64;
+        installation.backgroundBase64 = backgroundBase64;
+        brandingProvider.invalidate();
         return toResponse(company);
     }
 
-    private User requireAdmin(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (!AuthHelper.isAdmin(user)) {
+    private AuthPrincipal requireAdmin(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isAdmin()) {
             throw new NotAuthorizedException(Response.status(Response.Status.UNAUTHORIZED).build());
         }
-        return user;
+        return principal;
     }
 
     private OwnerResponse toResponse(Company company) {
@@ -140,6 +148,25 @@ public class OwnerApiResource {
         return new UserSummary(user.id, user.name, user.getDisplayName(), user.email, "/user/" + user.id);
     }
 
+    /**
+     * Resolves a branding image from the request. A missing image keeps the stored one and an unchanged one is not
+     * checked again, so only images the owner replaced have to be PNG, JPEG, GIF or WebP.
+     */
+    private String brandingImage(String requested, String stored) {
+        if (requested == null) {
+            return stored;
+        }
+        String image = trimToNull(requested);
+        if (image == null || image.equals(stored)) {
+            return image;
+        }
+        if (!BrandingProvider.isAllowedImage(image)) {
+            throw new WebApplicationException("Logo and background must be PNG, JPEG, GIF or WebP images",
+                    Response.Status.BAD_REQUEST);
+        }
+        return image;
+    }
+
     private String trimToNull(String value) {
         if (value == null || value.isBlank()) {
             return null;
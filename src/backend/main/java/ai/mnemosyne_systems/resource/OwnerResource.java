@@ -15,7 +15,9 @@ import ai.mnemosyne_systems.model.Timezone;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.infra.BrandingProvider;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import io.smallrye.common.annotation.Blocking;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.CookieParam;
@@ -38,6 +40,9 @@ import java.util.List;
 @Blocking
 public class OwnerResource {
 
+    @Inject
+    BrandingProvider brandingProvider;
+
     @GET
     public Response viewOwner(@CookieParam(AuthHelper.AUTH_COOKIE) String auth) {
         requireAdmin(auth);
@@ -89,6 +94,7 @@ public class OwnerResource {
         installation.buttonsColor = normalizedButtonsColor;
         installation.use24HourClock = Boolean.TRUE.equals(use24HourClock);
         installation.ticketAutoCloseDays = clampAutoCloseDays(ticketAutoCloseDays);
+        brandingProvider.invalidate();
         return Response.seeOther(URI.create("/owner")).build();
     }
 
@@ -180,11 +186,11 @@ public class OwnerResource {
         return Math.max(0, Math.min(365, value));
     }
 
-    static User requireAdmin(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (!AuthHelper.isAdmin(user)) {
+    static AuthPrincipal requireAdmin(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isAdmin()) {
             throw new WebApplicationException(Response.seeOther(URI.create("/")).build());
         }
-        return user;
+        return principal;
     }
 }
@@ -8,17 +8,25 @@
 
 package ai.mnemosyne_systems.resource;
 
+import io.quarkus.hibernate.orm.panache.Panache;
+import jakarta.persistence.TypedQuery;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 
 public final class PaginationSupport {
 
     public static final int DEFAULT_PAGE_SIZE = 10;
     public static final int MAX_PAGE_SIZE = 100;
 
+    private static final String NULL_CURSOR_VALUE = "n";
+    private static final String CURSOR_VALUE_PREFIX = "v:";
+
     private PaginationSupport() {
     }
 
@@ -43,23 +51,6 @@ public final class PaginationSupport {
         return (totalItems + pageSize - 1) / pageSize;
     }
 
-    public static <T> List<T> sortAndPaginate(List<T> items, String sort, String dir,
-            Map<String, SortColumn<T>> sortColumns, Integer page, Integer pageSize) {
-        if (items == null || items.isEmpty()) {
-            return List.of();
-        }
-        List<T> sorted = new ArrayList<>(items);
-        if (sort != null && !sort.isBlank() && sortColumns.containsKey(sort)) {
-            SortColumn<T> sortColumn = sortColumns.get(sort);
-            sorted.sort(sortColumn.comparator(dir));
-        }
-        int normalizedPageSize = normalizePageSize(pageSize);
-        int normalizedPage = normalizePageForTotal(page, sorted.size(), normalizedPageSize);
-        int fromIndex = (normalizedPage - 1) * normalizedPageSize;
-        int toIndex = Math.min(fromIndex + normalizedPageSize, sorted.size());
-        return sorted.subList(fromIndex, toIndex);
-    }
-
     public record PaginationMeta(int page, int pageSize, int totalItems, int totalPages) {
     }
 
@@ -75,33 +66,158 @@ public final class PaginationSupport {
         return Math.min(normalizePage(page), totalPages);
     }
 
-    public record SortColumn<T>(Comparator<T> ascending, Comparator<T> descending) {
-        Comparator<T> comparator(String dir) {
-            return "desc".equalsIgnoreCase(dir) ? descending : ascending;
+    public record PageQuery(String alias, String from, String where, Map<String, Object> params) {
+
+        public PageQuery and(String predicate, Map<String, Object> extraParams) {
+            if (predicate == null || predicate.isBlank()) {
+                return this;
+            }
+            Map<String, Object> merged = new LinkedHashMap<>(params == null ? Map.of() : params);
+            if (extraParams != null) {
+                merged.putAll(extraParams);
+            }
+            String combined = where == null || where.isBlank() ? predicate : "(" + where + ") and (" + predicate + ")";
+            return new PageQuery(alias, from, combined, merged);
+        }
+
+        String whereClause() {
+            return where == null || where.isBlank() ? "" : " where " + where;
+        }
+    }
+
+    public record QueryColumn(String expression, Class<?> type) {
+    }
+
+    public record QueryPage<T>(List<T> items, PaginationMeta meta, String nextCursor) {
+    }
+
+    public static QueryColumn queryColumn(String expression, Class<?> type) {
+        return new QueryColumn(expression, type);
+    }
+
+    public static boolean isQuerySort(String sort, Map<String, QueryColumn> sortColumns) {
+        return sort != null && !sort.isBlank() && sortColumns.containsKey(sort);
+    }
+
+    public static int count(PageQuery query) {
+        TypedQuery<Long> countQuery = Panache.getEntityManager()
+                .createQuery("select count(" + query.alias() + ") " + query.from() + query.whereClause(), Long.class);
+        bind(countQuery, query.params());
+        Long total = countQuery.getSingleResult();
+        return total == null ? 0 : total.intValue();
+    }
+
+    public static <T> QueryPage<T> queryAndPaginate(Class<T> type, PageQuery query, String sort, String dir,
+            Map<String, QueryColumn> sortColumns, String defaultSort, Integer page, Integer pageSize, String cursor) {
+        String sortKey = isQuerySort(sort, sortColumns) ? sort : defaultSort;
+        QueryColumn column = sortColumns.get(sortKey);
+        boolean descending = "desc".equalsIgnoreCase(dir);
+        int totalItems = count(query);
+        PaginationMeta meta = meta(page, pageSize, totalItems);
+        if (totalItems == 0) {
+            return new QueryPage<>(List.of(), meta, null);
+        }
+        String idPath = query.alias() + ".id";
+        Map<String, Object> params = new LinkedHashMap<>(query.params() == null ? Map.of() : query.params());
+        String where = query.whereClause();
+        Cursor seek = decodeCursor(cursor, sortKey, descending, column);
+        if (seek != null) {
+            String seekPredicate;
+            if (seek.value() == null) {
+                // Nulls sort last, so past a null value only nulls with a higher id remain.
+                seekPredicate = "(" + column.expression() + " is null and " + idPath + " > :cursorId)";
+            } else {
+                String comparison = descending ? " < " : " > ";
+                seekPredicate = "(" + column.expression() + comparison + ":cursorValue or (" + column.expression()
+                        + " = :cursorValue and " + idPath + " > :cursorId) or " + column.expression() + " is null)";
+                params.put("cursorValue", seek.value());
+            }
+            where = where.isEmpty() ? " where " + seekPredicate : where + " and " + seekPredicate;
+            params.put("cursorId", seek.id());
+        }
+        String jpql = "select " + query.alias() + ", " + column.expression() + " " + query.from() + where + " order by "
+                + column.expression() + (descending ? " desc" : " asc") + " nulls last, " + idPath + " asc";
+        TypedQuery<Object[]> pageQuery = Panache.getEntityManager().createQuery(jpql, Object[].class);
+        bind(pageQuery, params);
+        if (seek == null) {
+            pageQuery.setFirstResult((meta.page() - 1) * meta.pageSize());
+        }
+        pageQuery.setMaxResults(meta.pageSize());
+        List<Object[]> rows = pageQuery.getResultList();
+        List<T> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            items.add(type.cast(row[0]));
+        }
+        String nextCursor = null;
+        if (rows.size() == meta.pageSize()) {
+            Object[] last = rows.get(rows.size() - 1);
+            nextCursor = encodeCursor(sortKey, descending, last[1], idOf(last[0]));
+        }
+        return new QueryPage<>(items, meta, nextCursor);
+    }
+
+    private static void bind(TypedQuery<?> query, Map<String, Object> params) {
+        if (params == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : params.entrySet()) {
+            query.setParameter(entry.getKey(), entry.getValue());
         }
     }
 
-    public static <T, U> SortColumn<T> sortColumn(Function<T, U> keyExtractor, Comparator<U> valueComparator) {
-        return new SortColumn<>(compareByValue(keyExtractor, valueComparator, false),
-                compareByValue(keyExtractor, valueComparator, true));
+    private static Long idOf(Object entity) {
+        Object id = Panache.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+        return id instanceof Long value ? value : null;
     }
 
-    private static <T, U> Comparator<T> compareByValue(Function<T, U> keyExtractor, Comparator<U> valueComparator,
-            boolean descending) {
-        return (left, right) -> {
-            U leftValue = keyExtractor.apply(left);
-            U rightValue = keyExtractor.apply(right);
-            if (leftValue == null && rightValue == null) {
-                return 0;
+    private static String encodeCursor(String sortKey, boolean descending, Object value, Long id) {
+        if (id == null) {
+            return null;
+        }
+        String encodedValue = value == null ? NULL_CURSOR_VALUE : CURSOR_VALUE_PREFIX + value;
+        String raw = sortKey + "|" + (descending ? "desc" : "asc") + "|" + id + "|" + encodedValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor, String sortKey, boolean descending, QueryColumn column) {
+        if (cursor == null || cursor.isBlank() || column == null) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4 || !parts[0].equals(sortKey) || !parts[1].equals(descending ? "desc" : "asc")) {
+                return null;
             }
-            if (leftValue == null) {
-                return 1;
+            if (NULL_CURSOR_VALUE.equals(parts[3])) {
+                return new Cursor(Long.parseLong(parts[2]), null);
             }
-            if (rightValue == null) {
-                return -1;
+            if (!parts[3].startsWith(CURSOR_VALUE_PREFIX)) {
+                return null;
             }
-            int result = valueComparator.compare(leftValue, rightValue);
-            return descending ? -result : result;
-        };
+            return new Cursor(Long.parseLong(parts[2]),
+                    parseCursorValue(parts[3].substring(CURSOR_VALUE_PREFIX.length()), column.type()));
+        } catch (IllegalArgumentException | java.time.DateTimeException ex) {
+            return null;
+        }
+    }
+
+    private static Object parseCursorValue(String value, Class<?> type) {
+        if (type == Long.class) {
+            return Long.parseLong(value);
+        }
+        if (type == Integer.class) {
+            return Integer.parseInt(value);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        }
+        return value;
+    }
+
+    private record Cursor(Long id, Object value) {
     }
 }
@@ -14,6 +14,7 @@ import ai.mnemosyne_systems.model.Ticket;
 import ai.mnemosyne_systems.model.Timezone;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.CookieParam;
 import jakarta.ws.rs.GET;
@@ -36,10 +37,10 @@ public class SuperuserDirectoryApiResource {
     @Transactional
     public UserDirectoryApiModels.DirectoryListResponse list(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @QueryParam("companyId") Long companyId) {
-        User currentUser = requireSuperuser(auth);
-        List<Company> companies = Company
-                .find("select distinct c from Company c join c.users u where u = ?1 order by c.name", currentUser)
-                .list();
+        AuthPrincipal principal = requireSuperuserPrincipal(auth);
+        List<Company> companies = Company.find(
+                "select distinct c from Company c join c.users u where u = ?1 order by c.name",
+                AuthHelper.reference(principal)).list();
         Company selectedCompany = selectCompany(companies, companyId);
         List<User> users = selectedCompany == null ? List.of()
                 : Company.<User> find("select u from Company c join c.users u where c = ?1 order by u.name",
@@ -57,10 +58,10 @@ public class SuperuserDirectoryApiResource {
     @Transactional
     public UserDirectoryApiModels.UserFormResponse bootstrap(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @QueryParam("companyId") Long companyId, @QueryParam("countryId") Long countryId) {
-        User currentUser = requireSuperuser(auth);
-        List<Company> companies = Company
-                .find("select distinct c from Company c join c.users u where u = ?1 order by c.name", currentUser)
-                .list();
+        AuthPrincipal principal = requireSuperuserPrincipal(auth);
+        List<Company> companies = Company.find(
+                "select distinct c from Company c join c.users u where u = ?1 order by c.name",
+                AuthHelper.reference(principal)).list();
         Company selectedCompany = selectCompany(companies, companyId);
         if (selectedCompany == null) {
             throw new NotFoundException();
@@ -227,6 +228,14 @@ public class SuperuserDirectoryApiResource {
         return company;
     }
 
+    private AuthPrincipal requireSuperuserPrincipal(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isSuperuser()) {
+            throw new NotAuthorizedException(Response.status(Response.Status.UNAUTHORIZED).build());
+        }
+        return principal;
+    }
+
     private User requireSuperuser(String auth) {
         User user = AuthHelper.findUser(auth);
         if (!AuthHelper.isSuperuser(user)) {
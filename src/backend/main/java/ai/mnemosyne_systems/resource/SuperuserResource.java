@@ -15,6 +15,7 @@ import ai.mnemosyne_systems.model.CompanyEntitlement;
 import ai.mnemosyne_systems.model.Country;
 import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.model.TicketActivity;
 import ai.mnemosyne_systems.model.Timezone;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.model.Version;
@@ -22,6 +23,10 @@ import ai.mnemosyne_systems.service.CrossReferenceService;
 import ai.mnemosyne_systems.service.TicketEmailService;
 import ai.mnemosyne_systems.util.AttachmentHelper;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
+import ai.mnemosyne_systems.util.SlaSupport;
+import ai.mnemosyne_systems.util.TicketActivitySupport;
+import ai.mnemosyne_systems.util.TicketCountCache;
 import io.quarkus.elytron.security.common.BcryptUtil;
 import io.smallrye.common.annotation.Blocking;
 import jakarta.inject.Inject;
@@ -41,7 +46,6 @@ import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.net.URI;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -367,20 +371,24 @@ public class SuperuserResource {
     }
 
     static SupportResource.SupportTicketCounts loadTicketCounts(User user) {
-        int assigned = 0;
-        int open = 0;
-        for (Ticket ticket : loadScopedTickets(user)) {
-            if (ticket == null || "Closed".equalsIgnoreCase(ticket.status)) {
-                continue;
-            }
-            Long hasSupport = Ticket.count("select count(u) from Ticket t join t.supportUsers u where t = ?1", ticket);
-            if (hasSupport != null && hasSupport > 0) {
-                assigned++;
-            } else {
-                open++;
-            }
-        }
-        return new SupportResource.SupportTicketCounts(assigned, open);
+        return loadTicketCounts(AuthHelper.principal(user));
+    }
+
+    static SupportResource.SupportTicketCounts loadTicketCounts(AuthPrincipal principal) {
+        if (principal == null || !principal.isSuperuser()) {
+            return new SupportResource.SupportTicketCounts(0, 0);
+        }
+        return TicketCountCache.get(User.TYPE_SUPERUSER, principal.id(), () -> {
+            Object[] counts = Ticket.getEntityManager()
+                    .createQuery("select" + " coalesce(sum(case when " + TicketListQuerySupport.HAS_SUPPORT
+                            + " then 1 else 0 end), 0)," + " coalesce(sum(case when "
+                            + TicketListQuerySupport.NO_SUPPORT + " then 1 else 0 end), 0)"
+                            + " from Ticket t join t.company c where :user member of c.users and "
+                            + TicketListQuerySupport.NOT_CLOSED, Object[].class)
+                    .setParameter("user", AuthHelper.reference(principal)).getSingleResult();
+            return new SupportResource.SupportTicketCounts(((Number) counts[0]).intValue(),
+                    ((Number) counts[1]).intValue());
+        });
     }
 
     private List<Message> loadMessages(Ticket ticket, User viewer) {
@@ -388,46 +396,39 @@ public class SuperuserResource {
     }
 
     SupportTicketData buildTicketDataForUser(User user) {
-        return buildTicketDataFor(loadScopedTickets(user), user);
-    }
-
-    private SupportTicketData buildTicketDataFor(List<Ticket> tickets, User viewer) {
-        return buildTicketDataFor(tickets, viewer, false);
+        return buildTicketDataFor(loadScopedTickets(user), AuthHelper.principal(user));
     }
 
-    private SupportTicketData buildTicketDataFor(List<Ticket> tickets, User viewer,
-            boolean keepExistingSlaForSuperuserReplies) {
+    SupportTicketData buildTicketDataFor(List<Ticket> tickets, AuthPrincipal viewer) {
         List<Ticket> scopedTickets = tickets == null ? List.of() : tickets;
         Set<Long> scopedTicketIds = scopedTickets.stream().filter(ticket -> ticket != null && ticket.id != null)
                 .map(ticket -> ticket.id).collect(java.util.stream.Collectors.toSet());
+        Map<Long, TicketActivity> activities = TicketActivitySupport.load(scopedTickets);
         Map<Long, LocalDateTime> messageDates = new HashMap<>();
         Map<Long, String> messageDateLabels = new HashMap<>();
         Map<Long, String> messageDirectionArrows = new HashMap<>();
-        List<Message> allMessages = Message.find("order by date desc").list();
-        List<Message> visibleMessages = MessageVisibilitySupport.filterVisibleMessages(allMessages, viewer);
-        for (Message message : allMessages) {
-            if (message.ticket != null && message.ticket.id != null && message.isPublic
-                    && scopedTicketIds.contains(message.ticket.id) && !messageDates.containsKey(message.ticket.id)) {
-                messageDates.put(message.ticket.id, message.date);
+        for (Ticket ticket : scopedTickets) {
+            if (ticket == null || ticket.id == null) {
+                continue;
             }
-        }
-        for (Message message : visibleMessages) {
-            if (message.ticket != null && message.ticket.id != null && scopedTicketIds.contains(message.ticket.id)
-                    && !messageDateLabels.containsKey(message.ticket.id)) {
-                if (message.date != null) {
-                    messageDateLabels.put(message.ticket.id, formatDate(message.date));
-                }
-                messageDirectionArrows.put(message.ticket.id, messageDirectionArrow(message.author));
+            TicketActivity activity = activities.get(ticket.id);
+            if (activity != null && activity.lastPublicDate != null) {
+                messageDates.put(ticket.id, activity.lastPublicDate);
+            }
+            LocalDateTime lastVisibleDate = TicketActivitySupport.lastVisibleDate(activity, viewer);
+            if (lastVisibleDate != null) {
+                messageDateLabels.put(ticket.id, formatDate(lastVisibleDate));
+                messageDirectionArrows.put(ticket.id,
+                        messageDirectionArrow(TicketActivitySupport.lastVisibleFromSupport(activity, viewer)));
             }
         }
-        Map<Long, LocalDateTime> slaDates = keepExistingSlaForSuperuserReplies ? requesterPendingSlaDates(scopedTickets)
-                : messageDates;
         for (Ticket ticket : scopedTickets) {
             if (ticket != null && ticket.id != null && !messageDateLabels.containsKey(ticket.id)) {
                 messageDateLabels.put(ticket.id, "-");
             }
         }
         Map<Long, String> slaColors = new HashMap<>();
+        Map<Long, LocalDateTime> slaDeadlines = new HashMap<>();
         LocalDateTime now = LocalDateTime.now();
         for (Ticket ticket : scopedTickets) {
             if (ticket == null || ticket.id == null) {
@@ -437,17 +438,11 @@ public class SuperuserResource {
                 slaColors.put(ticket.id, "Black");
                 continue;
             }
-            LocalDateTime messageDate = slaDates.get(ticket.id);
-            if (messageDate == null || ticket.companyEntitlement == null
-                    || ticket.companyEntitlement.supportLevel == null) {
-                continue;
+            if (ticket.slaDeadline != null) {
+                slaDeadlines.put(ticket.id, ticket.slaDeadline);
             }
-            long minutes = Duration.between(messageDate, now).toMinutes();
-            if (minutes < 0) {
-                minutes = 0;
-            }
-            String color = resolveSlaColor(ticket.companyEntitlement.supportLevel, minutes);
-            if (color != null && !color.isBlank()) {
+            String color = SlaSupport.color(ticket, now);
+            if (color != null) {
                 slaColors.put(ticket.id, color);
             }
         }
@@ -456,10 +451,9 @@ public class SuperuserResource {
         Map<Long, Long> supportAssignmentIds = new HashMap<>();
         Map<Long, User> supportAssignmentUsers = new HashMap<>();
         for (Ticket ticket : scopedTickets) {
-            User assignedSupport = User
-                    .find("select u from Ticket t join t.supportUsers u where t = ?1 order by u.id desc", ticket)
-                    .firstResult();
-            if (assignedSupport != null && ticket.id != null) {
+            TicketActivity activity = ticket == null ? null : activities.get(ticket.id);
+            User assignedSupport = activity == null ? null : activity.assignee;
+            if (assignedSupport != null) {
                 supportAssignments.put(ticket.id, assignedSupport.email);
                 supportAssignmentNames.put(ticket.id, assignedSupport.name);
                 supportAssignmentIds.put(ticket.id, assignedSupport.id);
@@ -488,9 +482,9 @@ public class SuperuserResource {
                 slaColors.put(ticket.id, "White");
             }
         }
-        sortBySla(assignedTickets, slaColors, messageDates);
-        sortBySla(openTickets, slaColors, messageDates);
-        sortBySla(closedTickets, slaColors, messageDates);
+        sortBySla(assignedTickets, slaColors, slaDeadlines, messageDates);
+        sortBySla(openTickets, slaColors, slaDeadlines, messageDates);
+        sortBySla(closedTickets, slaColors, slaDeadlines, messageDates);
         SupportTicketData data = new SupportTicketData();
         data.assignedTickets = assignedTickets;
         data.openTickets = openTickets;
@@ -506,46 +500,25 @@ public class SuperuserResource {
         return data;
     }
 
-    private Map<Long, LocalDateTime> requesterPendingSlaDates(List<Ticket> tickets) {
-        Set<Long> ticketIds = tickets.stream().filter(ticket -> ticket != null && ticket.id != null)
-                .map(ticket -> ticket.id).collect(java.util.stream.Collectors.toSet());
-        Map<Long, LocalDateTime> pendingDates = new HashMap<>();
-        List<Message> messages = Message.find("order by date asc").list();
-        for (Message message : messages) {
-            if (message.ticket == null || message.ticket.id == null || !message.isPublic
-                    || !ticketIds.contains(message.ticket.id)) {
-                continue;
-            }
-            if (resetsRequesterSla(message.author)) {
-                pendingDates.remove(message.ticket.id);
-                continue;
-            }
-            pendingDates.putIfAbsent(message.ticket.id, message.date);
-        }
-        return pendingDates;
-    }
-
-    private boolean resetsRequesterSla(User author) {
-        return AuthHelper.isSupport(author) || AuthHelper.isTam(author);
-    }
-
-    private String resolveSlaColor(ai.mnemosyne_systems.model.Level level, long minutes) {
-        if (level == null || level.level == null || level.color == null || level.color.isBlank()) {
-            return null;
-        }
-        if (minutes >= level.level.longValue()) {
-            return level.color;
-        }
-        return "White";
-    }
-
-    private void sortBySla(List<Ticket> tickets, Map<Long, String> slaColors, Map<Long, LocalDateTime> messageDates) {
+    private void sortBySla(List<Ticket> tickets, Map<Long, String> slaColors, Map<Long, LocalDateTime> slaDeadlines,
+            Map<Long, LocalDateTime> messageDates) {
         tickets.sort((left, right) -> {
             int leftRank = slaColorRank(slaColors.get(left.id));
             int rightRank = slaColorRank(slaColors.get(right.id));
             if (leftRank != rightRank) {
                 return Integer.compare(leftRank, rightRank);
             }
+            LocalDateTime leftDeadline = slaDeadlines.get(left.id);
+            LocalDateTime rightDeadline = slaDeadlines.get(right.id);
+            if (leftDeadline != null && rightDeadline != null && !leftDeadline.equals(rightDeadline)) {
+                return leftDeadline.compareTo(rightDeadline);
+            }
+            if (leftDeadline != null && rightDeadline == null) {
+                return -1;
+            }
+            if (leftDeadline == null && rightDeadline != null) {
+                return 1;
+            }
             LocalDateTime leftDate = messageDates.get(left.id);
             LocalDateTime rightDate = messageDates.get(right.id);
             if (leftDate == null && rightDate == null) {
@@ -591,11 +564,8 @@ public class SuperuserResource {
         return 3;
     }
 
-    private String messageDirectionArrow(User author) {
-        if (author != null && User.TYPE_SUPPORT.equalsIgnoreCase(author.type)) {
-            return "\u2190";
-        }
-        return "\u2192";
+    private String messageDirectionArrow(boolean fromSupport) {
+        return fromSupport ? "\u2190" : "\u2192";
     }
 
     private Ticket normalizeOpenAssigned(Ticket ticket) {
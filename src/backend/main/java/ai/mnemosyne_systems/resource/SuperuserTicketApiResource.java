@@ -18,6 +18,7 @@ import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.model.Version;
 import ai.mnemosyne_systems.service.CrossReferenceService;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.CookieParam;
@@ -52,35 +53,36 @@ public class SuperuserTicketApiResource {
     public SupportTicketApiResource.SupportTicketListResponse list(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @QueryParam("view") @DefaultValue("assigned") String view, @QueryParam("q") String q,
             @QueryParam("page") Integer page, @QueryParam("pageSize") Integer pageSize, @QueryParam("sort") String sort,
-            @QueryParam("dir") String dir) {
-        User user = requireSuperuser(auth);
-        SuperuserResource.SupportTicketData data = superuserResource.buildTicketDataForUser(user);
+            @QueryParam("dir") String dir, @QueryParam("cursor") String cursor) {
+        AuthPrincipal principal = requireSuperuserPrincipal(auth);
         String normalizedView = normalizeView(view);
-        List<Ticket> tickets = switch (normalizedView) {
-            case "open" -> data.openTickets;
-            case "closed" -> data.closedTickets;
-            default -> data.assignedTickets;
-        };
         String searchTerm = TicketSearchSupport.normalizeSearchTerm(q);
-        if (searchTerm != null) {
-            tickets = TicketSearchSupport.combineTickets(data.assignedTickets, data.openTickets, data.closedTickets);
-        }
-        tickets = TicketSearchSupport.filterTicketsBySearch(tickets, searchTerm, user);
-        int totalItems = tickets.size();
-        List<SupportTicketApiResource.SupportTicketSummary> allSummaries = tickets.stream()
-                .map(ticket -> toSummary(ticket, data)).toList();
-        List<SupportTicketApiResource.SupportTicketSummary> pageItems = PaginationSupport.sortAndPaginate(allSummaries,
-                sort, dir, SupportTicketApiResource.ticketSortColumns(), page, pageSize);
-        PaginationSupport.PaginationMeta meta = PaginationSupport.meta(page, pageSize, totalItems);
         String title = switch (normalizedView) {
             case "open" -> "Open tickets";
             case "closed" -> "Closed tickets";
             default -> "Tickets";
         };
-        return new SupportTicketApiResource.SupportTicketListResponse(normalizedView, title,
-                data.assignedTickets == null ? 0 : data.assignedTickets.size(),
-                data.openTickets == null ? 0 : data.openTickets.size(), "/superuser/tickets/new", searchTerm, pageItems,
-                meta.page(), meta.pageSize(), meta.totalItems(), meta.totalPages());
+        java.util.Map<String, Object> params = java.util.Map.of("viewer", AuthHelper.reference(principal));
+        PaginationSupport.PageQuery scope = TicketListQuerySupport.scoped(":viewer member of c.users", params);
+        PaginationSupport.PageQuery viewQuery = searchTerm != null ? scope : switch (normalizedView) {
+            case "open" -> scope
+                    .and(TicketListQuerySupport.NOT_CLOSED + " and " + TicketListQuerySupport.NO_SUPPORT, null);
+            case "closed" -> scope.and(TicketListQuerySupport.CLOSED, null);
+            default -> scope.and(TicketListQuerySupport.NOT_CLOSED + " and " + TicketListQuerySupport.HAS_SUPPORT,
+                    null);
+        };
+        PaginationSupport.QueryPage<Ticket> result = TicketListQuerySupport.page(
+                TicketListQuerySupport.withSearch(viewQuery, searchTerm, principal), sort, dir, page, pageSize, cursor);
+        SuperuserResource.SupportTicketData data = superuserResource.buildTicketDataFor(result.items(), principal);
+        java.util.Map<Long, Ticket> displayTickets = TicketListQuerySupport.displayTickets(data.assignedTickets,
+                data.openTickets, data.closedTickets);
+        List<SupportTicketApiResource.SupportTicketSummary> pageItems = result.items().stream()
+                .map(ticket -> toSummary(displayTickets.getOrDefault(ticket.id, ticket), data)).toList();
+        SupportResource.SupportTicketCounts counts = SuperuserResource.loadTicketCounts(principal);
+        return new SupportTicketApiResource.SupportTicketListResponse(normalizedView, title, counts.assignedCount,
+                counts.openCount, "/superuser/tickets/new", searchTerm, pageItems, result.meta().page(),
+                result.meta().pageSize(), result.meta().totalItems(), result.meta().totalPages(),
+                result.nextCursor());
     }
 
     @GET
@@ -89,15 +91,12 @@ public class SuperuserTicketApiResource {
     public SupportTicketApiResource.TicketSuggestionResponse suggest(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @QueryParam("view") @DefaultValue("assigned") String view, @QueryParam("q") String q,
             @QueryParam("exclude") Long exclude) {
-        User user = requireSuperuser(auth);
-        SuperuserResource.SupportTicketData data = superuserResource.buildTicketDataForUser(user);
-        List<Ticket> tickets = TicketSearchSupport.combineTickets(data.assignedTickets, data.openTickets,
-                data.closedTickets);
-        if (exclude != null) {
-            tickets = tickets.stream().filter(t -> t.id != null && !t.id.equals(exclude)).toList();
-        }
-        return new SupportTicketApiResource.TicketSuggestionResponse(TicketSearchSupport.suggestTickets(tickets, q, 6)
-                .stream().map(ticket -> new SupportTicketApiResource.TicketSuggestion(ticket.id, ticket.name,
+        AuthPrincipal principal = requireSuperuserPrincipal(auth);
+        PaginationSupport.PageQuery scope = TicketListQuerySupport.scoped(":viewer member of c.users",
+                java.util.Map.of("viewer", AuthHelper.reference(principal)));
+        List<Ticket> tickets = TicketListQuerySupport.suggest(scope, q, exclude, 6);
+        return new SupportTicketApiResource.TicketSuggestionResponse(tickets.stream()
+                .map(ticket -> new SupportTicketApiResource.TicketSuggestion(ticket.id, ticket.name,
                         ticket.displayTitle(), "/superuser/tickets/" + ticket.id))
                 .toList());
     }
@@ -108,9 +107,9 @@ public class SuperuserTicketApiResource {
     public SupportTicketApiResource.SupportTicketBootstrapResponse bootstrap(
             @CookieParam(AuthHelper.AUTH_COOKIE) String auth, @QueryParam("companyId") Long companyId,
             @QueryParam("companyEntitlementId") Long companyEntitlementId) {
-        User user = requireSuperuser(auth);
-        SuperuserResource.SupportTicketData data = superuserResource.buildTicketDataForUser(user);
-        List<Company> companies = superuserResource.userCompanies(user);
+        AuthPrincipal principal = requireSuperuserPrincipal(auth);
+        SupportResource.SupportTicketCounts counts = SuperuserResource.loadTicketCounts(principal);
+        List<Company> companies = superuserResource.userCompanies(AuthHelper.reference(principal));
         Company selectedCompany = selectCompany(companies, companyId);
         List<CompanyEntitlement> entitlements = selectedCompany == null ? List.of()
                 : uniqueEntitlements(CompanyEntitlement.find(
@@ -125,9 +124,7 @@ public class SuperuserTicketApiResource {
                         version.date == null ? null : version.date.toString()))
                 .toList();
         Category defaultCategory = Category.findDefault();
-        return new SupportTicketApiResource.SupportTicketBootstrapResponse(
-                data.assignedTickets == null ? 0 : data.assignedTickets.size(),
-                data.openTickets == null ? 0 : data.openTickets.size(),
+        return new SupportTicketApiResource.SupportTicketBootstrapResponse(counts.assignedCount, counts.openCount,
                 selectedCompany == null ? null : selectedCompany.id,
                 selectedCompany == null ? "" : Ticket.previewNextName(selectedCompany), "",
                 companies.stream().map(company -> new SupportTicketApiResource.CompanyOption(company.id, company.name))
@@ -172,8 +169,8 @@ public class SuperuserTicketApiResource {
                         "select distinct u from Company c join c.users u, Ticket t join t.userUsers tu where t = ?1 and c = ?2 and u = tu order by u.fullName",
                         ticket, ticket.company).list();
 
-        java.util.Map<Long, Ticket> ticketCache = crossReferenceService
-                .preloadReferencedTickets(messages.stream().map(m -> m.body).toList());
+        java.util.Map<Long, String> transformedBodies = crossReferenceService.transformBodies(messages,
+                "/superuser/tickets/");
         return new UserTicketApiResource.RoleTicketDetailResponse(ticket.id, ticket.name, ticket.displayTitle(),
                 normalizeDisplayStatus(ticket.status), data.assignedTickets == null ? 0 : data.assignedTickets.size(),
                 data.openTickets == null ? 0 : data.openTickets.size(),
@@ -193,7 +190,7 @@ public class SuperuserTicketApiResource {
                 Category.<Category> list("order by name").stream().map(this::toCategoryOption).toList(),
                 supportUsers.stream().map(this::toUserReference).toList(), "Superusers",
                 secondaryUsers.stream().map(this::toUserReference).toList(),
-                messages.stream().map(m -> toMessageEntry(m, ticketCache)).toList(),
+                messages.stream().map(m -> toMessageEntry(m, transformedBodies)).toList(),
                 superuserResource.isEntitlementExpired(ticket), "/superuser/tickets/" + ticket.id,
                 "/superuser/tickets/" + ticket.id + "/messages", "/tickets/export/" + ticket.id,
                 List.of("Open", "Assigned", "In Progress", "Resolved", "Closed"), false, false, false, true, true,
@@ -206,7 +203,7 @@ public class SuperuserTicketApiResource {
     @Transactional
     public CrossReferenceService.CrossReferencesResponse references(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @PathParam("id") Long id) {
-        requireSuperuser(auth);
+        requireSuperuserPrincipal(auth);
         Ticket ticket = Ticket.findById(id);
         if (ticket == null) {
             throw new NotFoundException();
@@ -250,8 +247,8 @@ public class SuperuserTicketApiResource {
     }
 
     private SupportTicketApiResource.MessageEntry toMessageEntry(Message message,
-            java.util.Map<Long, Ticket> ticketCache) {
-        String transformedBody = crossReferenceService.transformBody(message.body, "/superuser/tickets/", ticketCache);
+            java.util.Map<Long, String> transformedBodies) {
+        String transformedBody = transformedBodies.get(message.id);
         return new SupportTicketApiResource.MessageEntry(message.id, transformedBody,
                 message.date == null ? null : SupportTicketViewSupport.formatDate(message.date),
                 message.date == null ? null : message.date.toString(),
@@ -334,6 +331,14 @@ public class SuperuserTicketApiResource {
         };
     }
 
+    private AuthPrincipal requireSuperuserPrincipal(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isSuperuser()) {
+            throw new NotAuthorizedException(Response.status(Response.Status.UNAUTHORIZED).build());
+        }
+        return principal;
+    }
+
     private User requireSuperuser(String auth) {
         User user = AuthHelper.findUser(auth);
         if (!AuthHelper.isSuperuser(user)) {
@@ -546,16 +546,6 @@ public class SupportResource {
         return normalizedLeft.equalsIgnoreCase(normalizedRight);
     }
 
-    private String resolveSlaColor(ai.mnemosyne_systems.model.Level level, long minutes) {
-        if (level == null || level.level == null || level.color == null || level.color.isBlank()) {
-            return null;
-        }
-        if (minutes >= level.level.longValue()) {
-            return level.color;
-        }
-        return "White";
-    }
-
     private boolean isEntitlementExpired(Ticket ticket) {
         return SupportTicketViewSupport.isEntitlementExpired(ticket);
     }
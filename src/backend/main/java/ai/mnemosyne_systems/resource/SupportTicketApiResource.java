@@ -18,6 +18,7 @@ import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.model.Version;
 import ai.mnemosyne_systems.service.CrossReferenceService;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.CookieParam;
@@ -50,35 +51,37 @@ public class SupportTicketApiResource {
     public SupportTicketListResponse list(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @QueryParam("view") @DefaultValue("assigned") String view, @QueryParam("q") String q,
             @QueryParam("page") Integer page, @QueryParam("pageSize") Integer pageSize, @QueryParam("sort") String sort,
-            @QueryParam("dir") String dir) {
-        User user = requireSupport(auth);
-        SupportTicketViewSupport.SupportTicketData data = SupportTicketViewSupport.buildTicketData(user);
-        SupportTicketViewSupport.SupportTicketCounts counts = SupportTicketViewSupport.loadTicketCounts(user);
+            @QueryParam("dir") String dir, @QueryParam("cursor") String cursor) {
+        AuthPrincipal principal = requireSupportPrincipal(auth);
+        SupportTicketViewSupport.SupportTicketCounts counts = SupportTicketViewSupport.loadTicketCounts(principal);
         String normalizedView = normalizeView(view);
-        List<Ticket> tickets = switch (normalizedView) {
-            case "open" -> data.openTickets();
-            case "closed" -> data.closedTickets();
-            default -> data.assignedTickets();
-        };
         String searchTerm = TicketSearchSupport.normalizeSearchTerm(q);
-        if (searchTerm != null) {
-            tickets = TicketSearchSupport.combineTickets(data.assignedTickets(), data.openTickets(),
-                    data.closedTickets());
-        }
-        tickets = TicketSearchSupport.filterTicketsBySearch(tickets, searchTerm, user);
-        int totalItems = tickets.size();
-        List<SupportTicketSummary> allSummaries = tickets.stream().map(ticket -> toSummary(ticket, data)).toList();
-        List<SupportTicketSummary> pageItems = PaginationSupport.sortAndPaginate(allSummaries, sort, dir,
-                ticketSortColumns(), page, pageSize);
-        PaginationSupport.PaginationMeta meta = PaginationSupport.meta(page, pageSize, totalItems);
         String title = switch (normalizedView) {
             case "open" -> "Open tickets";
             case "closed" -> "Closed tickets";
             default -> "Tickets";
         };
+        String scope = searchTerm != null
+                ? ":viewer member of t.supportUsers or " + TicketListQuerySupport.NO_SUPPORT
+                : switch (normalizedView) {
+                    case "open" -> TicketListQuerySupport.NO_SUPPORT;
+                    case "closed" -> ":viewer member of t.supportUsers and " + TicketListQuerySupport.CLOSED;
+                    default -> ":viewer member of t.supportUsers and " + TicketListQuerySupport.NOT_CLOSED;
+                };
+        PaginationSupport.PageQuery query = TicketListQuerySupport.withSearch(
+                TicketListQuerySupport.scoped(scope, java.util.Map.of("viewer", AuthHelper.reference(principal))),
+                searchTerm, principal);
+        PaginationSupport.QueryPage<Ticket> result = TicketListQuerySupport.page(query, sort, dir, page, pageSize,
+                cursor);
+        SupportTicketViewSupport.SupportTicketData data = SupportTicketViewSupport.buildTicketData(principal,
+                result.items());
+        java.util.Map<Long, Ticket> displayTickets = TicketListQuerySupport.displayTickets(data.assignedTickets(),
+                data.openTickets(), data.closedTickets());
+        List<SupportTicketSummary> pageItems = result.items().stream()
+                .map(ticket -> toSummary(displayTickets.getOrDefault(ticket.id, ticket), data)).toList();
         return new SupportTicketListResponse(normalizedView, title, counts.assignedCount(), counts.openCount(),
-                "/support/tickets/new", searchTerm, pageItems, meta.page(), meta.pageSize(), meta.totalItems(),
-                meta.totalPages());
+                "/support/tickets/new", searchTerm, pageItems, result.meta().page(), result.meta().pageSize(),
+                result.meta().totalItems(), result.meta().totalPages(), result.nextCursor());
     }
 
     @GET
@@ -87,17 +90,14 @@ public class SupportTicketApiResource {
     public TicketSuggestionResponse suggest(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @QueryParam("view") @DefaultValue("assigned") String view, @QueryParam("q") String q,
             @QueryParam("exclude") Long exclude) {
-        User user = requireSupport(auth);
-        SupportTicketViewSupport.SupportTicketData data = SupportTicketViewSupport.buildTicketData(user);
-        String normalizedView = normalizeView(view);
-        List<Ticket> tickets = TicketSearchSupport.combineTickets(data.assignedTickets(), data.openTickets(),
-                data.closedTickets());
-        if (exclude != null) {
-            tickets = tickets.stream().filter(t -> t.id != null && !t.id.equals(exclude)).toList();
-        }
-        return new TicketSuggestionResponse(
-                TicketSearchSupport.suggestTickets(tickets, q, 6).stream().map(ticket -> new TicketSuggestion(ticket.id,
-                        ticket.name, ticket.displayTitle(), "/support/tickets/" + ticket.id)).toList());
+        AuthPrincipal principal = requireSupportPrincipal(auth);
+        PaginationSupport.PageQuery scope = TicketListQuerySupport.scoped(
+                ":viewer member of t.supportUsers or " + TicketListQuerySupport.NO_SUPPORT,
+                java.util.Map.of("viewer", AuthHelper.reference(principal)));
+        return new TicketSuggestionResponse(TicketListQuerySupport.suggest(scope, q, exclude, 6).stream()
+                .map(ticket -> new TicketSuggestion(ticket.id, ticket.name, ticket.displayTitle(),
+                        "/support/tickets/" + ticket.id))
+                .toList());
     }
 
     @GET
@@ -105,8 +105,8 @@ public class SupportTicketApiResource {
     @Transactional
     public SupportTicketBootstrapResponse bootstrap(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @QueryParam("companyId") Long companyId, @QueryParam("companyEntitlementId") Long companyEntitlementId) {
-        User user = requireSupport(auth);
-        SupportTicketViewSupport.SupportTicketCounts counts = SupportTicketViewSupport.loadTicketCounts(user);
+        AuthPrincipal principal = requireSupportPrincipal(auth);
+        SupportTicketViewSupport.SupportTicketCounts counts = SupportTicketViewSupport.loadTicketCounts(principal);
         List<Company> companies = Company.list("order by name");
         Company selectedCompany = selectCompany(companies, companyId);
         List<CompanyEntitlement> entitlements = selectedCompany == null ? List.of()
@@ -160,9 +160,9 @@ public class SupportTicketApiResource {
                         "select distinct u from Company c join c.users u, Ticket t join t.externalUsers tu where t = ?1 and c = ?2 and u = tu order by u.fullName",
                         ticket, ownerCompany).list();
         List<Message> messages = SupportTicketViewSupport.loadMessages(ticket, user);
-        java.util.Map<Long, Ticket> ticketCache = crossReferenceService
-                .preloadReferencedTickets(messages.stream().map(m -> m.body).toList());
-        List<MessageEntry> messageEntries = messages.stream().map(m -> toMessageEntry(m, ticketCache)).toList();
+        java.util.Map<Long, String> transformedBodies = crossReferenceService.transformBodies(messages,
+                "/support/tickets/");
+        List<MessageEntry> messageEntries = messages.stream().map(m -> toMessageEntry(m, transformedBodies)).toList();
         return new SupportTicketDetailResponse(ticket.id, ticket.name, ticket.displayTitle(), displayStatus,
                 counts.assignedCount(), counts.openCount(), ticket.company == null ? null : ticket.company.id,
                 ticket.company == null ? null : ticket.company.name,
@@ -195,7 +195,7 @@ public class SupportTicketApiResource {
     @Transactional
     public CrossReferenceService.CrossReferencesResponse references(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @PathParam("id") Long id) {
-        requireSupport(auth);
+        requireSupportPrincipal(auth);
         Ticket ticket = Ticket.findById(id);
         if (ticket == null) {
             throw new NotFoundException();
@@ -213,37 +213,6 @@ public class SupportTicketApiResource {
         return "assigned";
     }
 
-    static java.util.Map<String, PaginationSupport.SortColumn<SupportTicketSummary>> ticketSortColumns() {
-        return java.util.Map
-                .ofEntries(
-                        java.util.Map.entry("name",
-                                PaginationSupport.sortColumn(SupportTicketSummary::name,
-                                        String.CASE_INSENSITIVE_ORDER)),
-                        java.util.Map.entry("title",
-                                PaginationSupport.sortColumn(SupportTicketSummary::title,
-                                        String.CASE_INSENSITIVE_ORDER)),
-                        java.util.Map.entry("date",
-                                PaginationSupport.sortColumn(SupportTicketSummary::messageDateSortKey,
-                                        java.util.Comparator.naturalOrder())),
-                        java.util.Map.entry("status",
-                                PaginationSupport.sortColumn(SupportTicketSummary::status,
-                                        String.CASE_INSENSITIVE_ORDER)),
-                        java.util.Map.entry("category",
-                                PaginationSupport.sortColumn(SupportTicketSummary::categoryName,
-                                        String.CASE_INSENSITIVE_ORDER)),
-                        java.util.Map.entry("company",
-                                PaginationSupport.sortColumn(SupportTicketSummary::companyName,
-                                        String.CASE_INSENSITIVE_ORDER)),
-                        java.util.Map.entry("entitlement",
-                                PaginationSupport.sortColumn(SupportTicketSummary::entitlementName,
-                                        String.CASE_INSENSITIVE_ORDER)),
-                        java.util.Map.entry("level",
-                                PaginationSupport.sortColumn(SupportTicketSummary::levelName,
-                                        String.CASE_INSENSITIVE_ORDER)),
-                        java.util.Map.entry("affects", PaginationSupport
-                                .sortColumn(SupportTicketSummary::affectsVersionName, String.CASE_INSENSITIVE_ORDER)));
-    }
-
     private SupportTicketSummary toSummary(Ticket ticket, SupportTicketViewSupport.SupportTicketData data) {
         User assignedSupport = data.supportAssignmentUsers().get(ticket.id);
         return new SupportTicketSummary(ticket.id, ticket.name, ticket.displayTitle(), ticket.status,
@@ -277,8 +246,8 @@ public class SupportTicketApiResource {
                 user.logoBase64, userPath(user));
     }
 
-    private MessageEntry toMessageEntry(Message message, java.util.Map<Long, Ticket> ticketCache) {
-        String transformedBody = crossReferenceService.transformBody(message.body, "/support/tickets/", ticketCache);
+    private MessageEntry toMessageEntry(Message message, java.util.Map<Long, String> transformedBodies) {
+        String transformedBody = transformedBodies.get(message.id);
         return new MessageEntry(message.id, transformedBody,
                 message.date == null ? null : SupportTicketViewSupport.formatDate(message.date),
                 message.date == null ? null : message.date.toString(),
@@ -377,6 +346,14 @@ public class SupportTicketApiResource {
         };
     }
 
+    private AuthPrincipal requireSupportPrincipal(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isSupport()) {
+            throw new NotAuthorizedException(Response.status(Response.Status.UNAUTHORIZED).build());
+        }
+        return principal;
+    }
+
     private User requireSupport(String auth) {
         User user = AuthHelper.findUser(auth);
         if (!AuthHelper.isSupport(user)) {
@@ -387,7 +364,7 @@ public class SupportTicketApiResource {
 
     public record SupportTicketListResponse(String view, String title, int assignedCount, int openCount,
             String createPath, String searchTerm, List<SupportTicketSummary> items, int page, int pageSize,
-            int totalItems, int totalPages) {
+            int totalItems, int totalPages, String nextCursor) {
     }
 
     public record TicketSuggestionResponse(List<TicketSuggestion> items) {
@@ -11,9 +11,14 @@ package ai.mnemosyne_systems.resource;
 import ai.mnemosyne_systems.model.CompanyEntitlement;
 import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.model.TicketActivity;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.model.Version;
-import java.time.Duration;
+import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
+import ai.mnemosyne_systems.util.SlaSupport;
+import ai.mnemosyne_systems.util.TicketActivitySupport;
+import ai.mnemosyne_systems.util.TicketCountCache;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -80,14 +85,22 @@ final class SupportTicketViewSupport {
     }
 
     static SupportTicketCounts loadTicketCounts(User user) {
-        if (user == null) {
+        return loadTicketCounts(AuthHelper.principal(user));
+    }
+
+    static SupportTicketCounts loadTicketCounts(AuthPrincipal principal) {
+        if (principal == null) {
             return new SupportTicketCounts(0, 0);
         }
-        Long assignedCount = Ticket.count(
-                "select distinct t from Ticket t join t.supportUsers u where u = ?1 and (t.status is null or lower(t.status) <> 'closed')",
-                user);
-        Long openCount = Ticket.count("select distinct t from Ticket t where t.supportUsers is empty");
-        return new SupportTicketCounts(assignedCount.intValue(), openCount.intValue());
+        return TicketCountCache.get(User.TYPE_SUPPORT, principal.id(), () -> {
+            Object[] counts = Ticket.getEntityManager()
+                    .createQuery("select" + " coalesce(sum(case when :user member of t.supportUsers and "
+                            + TicketListQuerySupport.NOT_CLOSED + " then 1 else 0 end), 0), coalesce(sum(case when "
+                            + TicketListQuerySupport.NO_SUPPORT + " then 1 else 0 end), 0) from Ticket t",
+                            Object[].class)
+                    .setParameter("user", AuthHelper.reference(principal)).getSingleResult();
+            return new SupportTicketCounts(((Number) counts[0]).intValue(), ((Number) counts[1]).intValue());
+        });
     }
 
     static boolean isEntitlementExpired(Ticket ticket) {
@@ -106,34 +119,30 @@ final class SupportTicketViewSupport {
         return LocalDate.now().isAfter(endDate);
     }
 
-    static SupportTicketData buildTicketData(User user) {
-        List<Ticket> tickets = Ticket.listAll();
+    static SupportTicketData buildTicketData(AuthPrincipal viewer, List<Ticket> tickets) {
+        Map<Long, TicketActivity> activities = TicketActivitySupport.load(tickets);
         Map<Long, LocalDateTime> messageDates = new LinkedHashMap<>();
         Map<Long, String> messageDateLabels = new LinkedHashMap<>();
         Map<Long, String> messageDirectionArrows = new LinkedHashMap<>();
-        List<Message> allMessages = Message.find("order by date desc").list();
-        List<Message> visibleMessages = MessageVisibilitySupport.filterVisibleMessages(allMessages, user);
-        for (Message message : allMessages) {
-            if (message.ticket != null && message.isPublic && !messageDates.containsKey(message.ticket.id)) {
-                messageDates.put(message.ticket.id, message.date);
-            }
-        }
-        for (Message message : visibleMessages) {
-            if (message.ticket != null && !messageDateLabels.containsKey(message.ticket.id)) {
-                if (message.date != null) {
-                    messageDateLabels.put(message.ticket.id, formatDate(message.date));
-                }
-                messageDirectionArrows.put(message.ticket.id, messageDirectionArrow(message.author));
-            }
-        }
         for (Ticket ticket : tickets) {
-            if (!messageDateLabels.containsKey(ticket.id)) {
-                messageDateLabels.put(ticket.id, "-");
+            TicketActivity activity = activities.get(ticket.id);
+            if (activity != null && activity.lastPublicDate != null) {
+                messageDates.put(ticket.id, activity.lastPublicDate);
+            }
+            LocalDateTime lastVisibleDate = TicketActivitySupport.lastVisibleDate(activity, viewer);
+            messageDateLabels.put(ticket.id, lastVisibleDate == null ? "-" : formatDate(lastVisibleDate));
+            if (lastVisibleDate != null) {
+                messageDirectionArrows.put(ticket.id,
+                        messageDirectionArrow(TicketActivitySupport.lastVisibleFromSupport(activity, viewer)));
             }
         }
         Map<Long, String> slaColors = new LinkedHashMap<>();
+        Map<Long, LocalDateTime> slaDeadlines = new LinkedHashMap<>();
         LocalDateTime now = LocalDateTime.now();
         for (Ticket ticket : tickets) {
+            if (ticket.slaDeadline != null) {
+                slaDeadlines.put(ticket.id, ticket.slaDeadline);
+            }
             if (isEntitlementExpired(ticket)) {
                 slaColors.put(ticket.id, "Black");
                 continue;
@@ -142,17 +151,8 @@ final class SupportTicketViewSupport {
                 slaColors.put(ticket.id, "#a855f7");
                 continue;
             }
-            LocalDateTime messageDate = messageDates.get(ticket.id);
-            if (messageDate == null || ticket.companyEntitlement == null
-                    || ticket.companyEntitlement.supportLevel == null) {
-                continue;
-            }
-            long minutes = Duration.between(messageDate, now).toMinutes();
-            if (minutes < 0) {
-                minutes = 0;
-            }
-            String color = resolveSlaColor(ticket.companyEntitlement.supportLevel, minutes);
-            if (color != null && !color.isBlank()) {
+            String color = SlaSupport.color(ticket, now);
+            if (color != null) {
                 slaColors.put(ticket.id, color);
             }
         }
@@ -161,9 +161,8 @@ final class SupportTicketViewSupport {
         Map<Long, Long> supportAssignmentIds = new LinkedHashMap<>();
         Map<Long, User> supportAssignmentUsers = new LinkedHashMap<>();
         for (Ticket ticket : tickets) {
-            User assignedSupport = User
-                    .find("select u from Ticket t join t.supportUsers u where t = ?1 order by u.id desc", ticket)
-                    .firstResult();
+            TicketActivity activity = activities.get(ticket.id);
+            User assignedSupport = activity == null ? null : activity.assignee;
             if (assignedSupport != null) {
                 supportAssignments.put(ticket.id, assignedSupport.email);
                 supportAssignmentNames.put(ticket.id, assignedSupport.name);
@@ -176,7 +175,7 @@ final class SupportTicketViewSupport {
         List<Ticket> openTickets = new ArrayList<>();
         List<Ticket> closedTickets = new ArrayList<>();
         List<Ticket> assignedToUser = Ticket
-                .find("select distinct t from Ticket t join t.supportUsers u where u = ?1", user).list();
+                .find("select distinct t from Ticket t join t.supportUsers u where u.id = ?1", viewer.id()).list();
         for (Ticket ticket : assignedToUser) {
             if (ticket.id != null) {
                 assignedTicketIds.add(ticket.id);
@@ -201,9 +200,9 @@ final class SupportTicketViewSupport {
                 slaColors.put(ticket.id, "White");
             }
         }
-        sortBySla(assignedTickets, slaColors, messageDates);
-        sortBySla(openTickets, slaColors, messageDates);
-        sortBySla(closedTickets, slaColors, messageDates);
+        sortBySla(assignedTickets, slaColors, slaDeadlines, messageDates);
+        sortBySla(openTickets, slaColors, slaDeadlines, messageDates);
+        sortBySla(closedTickets, slaColors, slaDeadlines, messageDates);
         return new SupportTicketData(assignedTickets, openTickets, closedTickets, messageDates, messageDateLabels,
                 messageDirectionArrows, slaColors, supportAssignments, supportAssignmentNames, supportAssignmentIds,
                 supportAssignmentUsers, assignedTicketIds);
@@ -245,31 +244,29 @@ final class SupportTicketViewSupport {
         return displayTicket;
     }
 
-    private static String messageDirectionArrow(User author) {
-        if (author != null && User.TYPE_SUPPORT.equalsIgnoreCase(author.type)) {
-            return "\u2190";
-        }
-        return "\u2192";
-    }
-
-    private static String resolveSlaColor(ai.mnemosyne_systems.model.Level level, long minutes) {
-        if (level == null || level.level == null || level.color == null || level.color.isBlank()) {
-            return null;
-        }
-        if (minutes >= level.level.longValue()) {
-            return level.color;
-        }
-        return "White";
+    private static String messageDirectionArrow(boolean fromSupport) {
+        return fromSupport ? "\u2190" : "\u2192";
     }
 
     private static void sortBySla(List<Ticket> tickets, Map<Long, String> slaColors,
-            Map<Long, LocalDateTime> messageDates) {
+            Map<Long, LocalDateTime> slaDeadlines, Map<Long, LocalDateTime> messageDates) {
         tickets.sort((left, right) -> {
             int leftRank = slaColorRank(slaColors.get(left.id));
             int rightRank = slaColorRank(slaColors.get(right.id));
             if (leftRank != rightRank) {
                 return Integer.compare(leftRank, rightRank);
             }
+            LocalDateTime leftDeadline = slaDeadlines.get(left.id);
+            LocalDateTime rightDeadline = slaDeadlines.get(right.id);
+            if (leftDeadline != null && rightDeadline != null && !leftDeadline.equals(rightDeadline)) {
+                return leftDeadline.compareTo(rightDeadline);
+            }
+            if (leftDeadline != null && rightDeadline == null) {
+                return -1;
+            }
+            if (leftDeadline == null && rightDeadline != null) {
+                return 1;
+            }
             LocalDateTime leftDate = messageDates.get(left.id);
             LocalDateTime rightDate = messageDates.get(right.id);
             if (leftDate == null && rightDate == null) {
@@ -13,6 +13,7 @@ import ai.mnemosyne_systems.model.Country;
 import ai.mnemosyne_systems.model.Timezone;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.CookieParam;
 import jakarta.ws.rs.GET;
@@ -35,8 +36,7 @@ public class SupportUserApiResource {
     @Transactional
     public UserDirectoryApiModels.DirectoryListResponse list(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @QueryParam("companyId") Long companyId) {
-        User currentUser = requireSupport(auth);
-        SupportResource.SupportTicketCounts counts = SupportResource.loadTicketCounts(currentUser);
+        requireSupport(auth);
         List<Company> companies = Company.list("order by name");
         Company selectedCompany = selectCompany(companies, companyId);
         List<User> users = selectedCompany == null ? List.of()
@@ -55,8 +55,7 @@ public class SupportUserApiResource {
     @Transactional
     public UserDirectoryApiModels.UserFormResponse bootstrap(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @QueryParam("companyId") Long companyId, @QueryParam("countryId") Long countryId) {
-        User currentUser = requireSupport(auth);
-        SupportResource.loadTicketCounts(currentUser);
+        requireSupport(auth);
         List<Company> companies = Company.list("order by name");
         Company selectedCompany = companyId == null ? (companies.isEmpty() ? null : companies.get(0))
                 : Company.findById(companyId);
@@ -200,11 +199,11 @@ public class SupportUserApiResource {
         return Country.find("code", "US").firstResult();
     }
 
-    private User requireSupport(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (!AuthHelper.isSupport(user)) {
+    private AuthPrincipal requireSupport(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isSupport()) {
             throw new NotAuthorizedException(Response.status(Response.Status.UNAUTHORIZED).build());
         }
-        return user;
+        return principal;
     }
 }
@@ -10,7 +10,9 @@ package ai.mnemosyne_systems.resource;
 
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.service.CsvTicketImportSource;
+import ai.mnemosyne_systems.service.NdjsonTicketImportSource;
 import ai.mnemosyne_systems.service.TicketImportService;
+import ai.mnemosyne_systems.service.TicketImportSource;
 import ai.mnemosyne_systems.util.AttachmentHelper;
 import ai.mnemosyne_systems.util.AuthHelper;
 import io.smallrye.common.annotation.Blocking;
@@ -19,14 +21,17 @@ import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.CookieParam;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import org.jboss.resteasy.plugins.providers.multipart.MultipartFormDataInput;
 
 @Path("/api/ticket-imports")
@@ -41,30 +46,59 @@ public class TicketImportApiResource {
     @Path("/bootstrap")
     public TicketImportBootstrapResponse bootstrap(@CookieParam(AuthHelper.AUTH_COOKIE) String auth) {
         requireImportAccess(auth);
-        return new TicketImportBootstrapResponse(List.of(new TicketImportFormat("csv", "CSV",
-                CsvTicketImportSource.REQUIRED_COLUMNS, CsvTicketImportSource.OPTIONAL_COLUMNS)),
+        return new TicketImportBootstrapResponse(List.of(
+                new TicketImportFormat("csv", "CSV", CsvTicketImportSource.REQUIRED_COLUMNS,
+                        CsvTicketImportSource.OPTIONAL_COLUMNS, "/api/ticket-imports/csv"),
+                new TicketImportFormat("ndjson", "NDJSON", NdjsonTicketImportSource.REQUIRED_FIELDS,
+                        NdjsonTicketImportSource.OPTIONAL_FIELDS, "/api/ticket-imports/ndjson"),
+                new TicketImportFormat("mbox", "Mailbox archive", List.of(), List.of(), "/api/ticket-imports/mbox")),
                 "/api/ticket-imports/csv");
     }
 
     @POST
-    @Path("/csv")
+    @Path("/{format}")
     @Consumes(MediaType.MULTIPART_FORM_DATA)
-    public TicketImportService.TicketImportSummary importCsv(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
+    public Response importFile(@CookieParam(AuthHelper.AUTH_COOKIE) String auth, @PathParam("format") String format,
             MultipartFormDataInput input) {
         User actor = requireImportAccess(auth);
-        AttachmentHelper.UploadedFile file = AttachmentHelper.readFile(input, "file",
-                CsvTicketImportSource.MAX_CSV_BYTES);
-        if (file == null || file.data() == null || file.data().length == 0) {
-            throw new WebApplicationException("CSV file is required", Response.Status.BAD_REQUEST);
+        TicketImportSource source = ticketImportService.source(format);
+        if (source == null) {
+            throw new NotFoundException();
+        }
+        boolean background = AttachmentHelper.readFormBoolean(input, "background", false);
+        AttachmentHelper.SpooledFile file = AttachmentHelper.spoolFile(input, "file", "ticket-import");
+        if (file == null || file.size() == 0) {
+            if (file != null) {
+                AttachmentHelper.deleteQuietly(file.path());
+            }
+            throw new WebApplicationException(fileLabel(source) + " file is required", Response.Status.BAD_REQUEST);
         }
         try {
-            return ticketImportService.importCsv(file.data(), file.fileName(), actor);
+            TicketImportService.TicketImportSummary summary = ticketImportService.importFile(source, file.path(),
+                    file.fileName(), actor, background);
+            return Response.status(background ? Response.Status.ACCEPTED : Response.Status.OK).entity(summary).build();
         } catch (BadRequestException ex) {
             throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST).type(MediaType.TEXT_PLAIN)
                     .entity(ex.getMessage()).build());
         }
     }
 
+    @GET
+    @Path("/{id}")
+    public TicketImportService.TicketImportSummary batch(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
+            @PathParam("id") Long id) {
+        requireImportAccess(auth);
+        TicketImportService.TicketImportSummary summary = ticketImportService.summary(id);
+        if (summary == null) {
+            throw new NotFoundException();
+        }
+        return summary;
+    }
+
+    private String fileLabel(TicketImportSource source) {
+        return "mbox".equals(source.sourceType()) ? "mbox" : source.sourceType().toUpperCase(Locale.ROOT);
+    }
+
     private User requireImportAccess(String auth) {
         User user = AuthHelper.findUser(auth);
         if (!AuthHelper.isSupport(user) && !AuthHelper.isAdmin(user)) {
@@ -77,6 +111,6 @@ public class TicketImportApiResource {
     }
 
     public record TicketImportFormat(String id, String label, List<String> requiredColumns,
-            List<String> optionalColumns) {
+            List<String> optionalColumns, String submitPath) {
     }
 }
@@ -0,0 +1,125 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.resource;
+
+import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.util.AuthPrincipal;
+import ai.mnemosyne_systems.util.FullTextSearchSupport;
+import io.quarkus.hibernate.orm.panache.Panache;
+import jakarta.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+final class TicketListQuerySupport {
+
+    static final String NOT_CLOSED = "(t.status is null or lower(t.status) <> 'closed')";
+    static final String CLOSED = "lower(t.status) = 'closed'";
+    static final String HAS_SUPPORT = "t.supportUsers is not empty";
+    static final String NO_SUPPORT = "t.supportUsers is empty";
+    /** Lists without an explicit sort keep the SLA order the ticket views have always used. */
+    static final String DEFAULT_SORT = "sla";
+
+    private static final String FROM = "from Ticket t left join t.company c left join t.category cat"
+            + " left join t.companyEntitlement ce left join ce.entitlement ent left join ce.supportLevel lvl"
+            + " left join t.affectsVersion av";
+
+    private static final Map<String, PaginationSupport.QueryColumn> SORT_COLUMNS = Map.ofEntries(
+            Map.entry("name", PaginationSupport.queryColumn("lower(t.name)", String.class)),
+            Map.entry("title", PaginationSupport.queryColumn("lower(coalesce(t.title, t.name))", String.class)),
+            Map.entry("date",
+                    PaginationSupport.queryColumn(
+                            "(select max(lm.date) from Message lm where lm.ticket = t and lm.isPublic = true)",
+                            LocalDateTime.class)),
+            Map.entry("status", PaginationSupport.queryColumn("lower(t.status)", String.class)),
+            Map.entry("category", PaginationSupport.queryColumn("lower(cat.name)", String.class)),
+            Map.entry("company", PaginationSupport.queryColumn("lower(c.name)", String.class)),
+            Map.entry("entitlement", PaginationSupport.queryColumn("lower(ent.name)", String.class)),
+            Map.entry("level", PaginationSupport.queryColumn("lower(lvl.name)", String.class)),
+            Map.entry("affects", PaginationSupport.queryColumn("lower(av.name)", String.class)),
+            Map.entry("sla", PaginationSupport.queryColumn("t.slaDeadline", LocalDateTime.class)));
+
+    private TicketListQuerySupport() {
+    }
+
+    static PaginationSupport.PageQuery scoped(String scopePredicate, Map<String, Object> params) {
+        return new PaginationSupport.PageQuery("t", FROM, scopePredicate, params == null ? Map.of() : params);
+    }
+
+    static PaginationSupport.PageQuery withSearch(PaginationSupport.PageQuery query, String searchTerm,
+            AuthPrincipal viewer) {
+        String normalized = TicketSearchSupport.normalizeSearchTerm(searchTerm);
+        if (normalized == null) {
+            return query;
+        }
+        String search = "%" + normalized.toLowerCase(Locale.ENGLISH) + "%";
+        Map<String, Object> params = new LinkedHashMap<>(MessageVisibilitySupport.visibilityParams(viewer));
+        params.put("search", search);
+        String visibleMessage = MessageVisibilitySupport.visibilityPredicate("sm", "sa", viewer);
+        String ftsQuery = FullTextSearchSupport.enabled() ? FullTextSearchSupport.prefixQuery(normalized) : null;
+        if (ftsQuery != null) {
+            params.put("ftsQuery", ftsQuery);
+            return query.and("lower(t.name) like :search or " + FullTextSearchSupport.ticketMatch("t", ":ftsQuery")
+                    + " or t.id in (select sm.ticket.id from Message sm left join sm.author sa where "
+                    + FullTextSearchSupport.messageMatch("sm", ":ftsQuery") + " and " + visibleMessage + ")", params);
+        }
+        return query.and("lower(t.name) like :search or exists (select sm.id from Message sm left join sm.author sa"
+                + " where sm.ticket = t and lower(coalesce(sm.body, '')) like :search and " + visibleMessage + ")",
+                params);
+    }
+
+    static PaginationSupport.QueryPage<Ticket> page(PaginationSupport.PageQuery query, String sort, String dir,
+            Integer page, Integer pageSize, String cursor) {
+        return PaginationSupport.queryAndPaginate(Ticket.class, query, sort, dir, SORT_COLUMNS, DEFAULT_SORT, page,
+                pageSize, cursor);
+    }
+
+    /**
+     * Ticket picker suggestions: tickets in scope whose number starts with the term or whose number or title words
+     * start with its words, in SLA order. The match and the limit are applied by the database; without full-text search
+     * the number and title only have to contain the term.
+     */
+    static List<Ticket> suggest(PaginationSupport.PageQuery scope, String searchTerm, Long exclude, int limit) {
+        String normalized = TicketSearchSupport.normalizeSearchTerm(searchTerm);
+        if (normalized == null || limit <= 0) {
+            return List.of();
+        }
+        String lowered = normalized.toLowerCase(Locale.ENGLISH);
+        String ftsQuery = FullTextSearchSupport.enabled() ? FullTextSearchSupport.prefixQuery(normalized) : null;
+        PaginationSupport.PageQuery query;
+        if (ftsQuery != null) {
+            query = scope.and("lower(t.name) like :suggest or " + FullTextSearchSupport.ticketMatch("t", ":ftsQuery"),
+                    Map.of("suggest", lowered + "%", "ftsQuery", ftsQuery));
+        } else {
+            query = scope.and("lower(t.name) like :suggest or lower(t.title) like :suggest",
+                    Map.of("suggest", "%" + lowered + "%"));
+        }
+        if (exclude != null) {
+            query = query.and("t.id <> :exclude", Map.of("exclude", exclude));
+        }
+        TypedQuery<Ticket> suggestions = Panache.getEntityManager().createQuery(
+                "select t " + query.from() + query.whereClause() + " order by t.slaDeadline asc nulls last, t.id asc",
+                Ticket.class);
+        query.params().forEach(suggestions::setParameter);
+        return suggestions.setMaxResults(limit).getResultList();
+    }
+
+    @SafeVarargs
+    static Map<Long, Ticket> displayTickets(List<Ticket>... ticketGroups) {
+        Map<Long, Ticket> displayTickets = new LinkedHashMap<>();
+        for (Ticket ticket : TicketSearchSupport.combineTickets(ticketGroups)) {
+            if (ticket != null && ticket.id != null) {
+                displayTickets.put(ticket.id, ticket);
+            }
+        }
+        return displayTickets;
+    }
+}
@@ -36,6 +36,7 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
@@ -329,7 +330,7 @@ public class TicketResource {
         if (!MessageVisibilitySupport.canAccessTicket(user, ticket)) {
             throw new WebApplicationException(Response.seeOther(URI.create("/")).build());
         }
-        byte[] ticketPdf = pdfService.generateTicketPdf(ticket,
+        StreamingOutput ticketPdf = pdfService.ticketPdf(ticket,
                 MessageVisibilitySupport.loadMessagesForViewer(ticket, user));
         return Response.ok(ticketPdf).header("Content-Disposition", "attachment; filename=\"" + ticket.name + ".pdf\"")
                 .build();
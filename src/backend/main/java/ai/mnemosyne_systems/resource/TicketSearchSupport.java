@@ -8,10 +8,11 @@
 
 package ai.mnemosyne_systems.resource;
 
-import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Ticket;
 import ai.mnemosyne_systems.model.User;
+import ai.mnemosyne_systems.util.FullTextSearchSupport;
 import io.quarkus.hibernate.orm.panache.Panache;
+import jakarta.persistence.TypedQuery;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -20,6 +21,8 @@ import java.util.Set;
 
 final class TicketSearchSupport {
 
+    private static final int SEARCH_BATCH_SIZE = 500;
+
     private TicketSearchSupport() {
     }
 
@@ -43,18 +46,6 @@ final class TicketSearchSupport {
                 || (ticket != null && ticket.id != null && messageTicketIds.contains(ticket.id))).toList();
     }
 
-    static List<Ticket> suggestTickets(List<Ticket> tickets, String searchTerm, int limit) {
-        List<Ticket> scopedTickets = tickets == null ? List.of() : tickets;
-        String normalizedSearchTerm = normalizeSearchTerm(searchTerm);
-        if (normalizedSearchTerm == null || scopedTickets.isEmpty() || limit <= 0) {
-            return List.of();
-        }
-        String normalizedQuery = normalizedSearchTerm.toLowerCase(Locale.ENGLISH);
-        return scopedTickets.stream().filter(
-                ticket -> matchesTicketNumber(ticket, normalizedQuery) || matchesTicketTitle(ticket, normalizedQuery))
-                .limit(limit).toList();
-    }
-
     @SafeVarargs
     static List<Ticket> combineTickets(List<Ticket>... ticketGroups) {
         if (ticketGroups == null || ticketGroups.length == 0) {
@@ -87,28 +78,24 @@ final class TicketSearchSupport {
                 && ticket.name.toLowerCase(Locale.ENGLISH).contains(normalizedQuery);
     }
 
-    private static boolean matchesTicketTitle(Ticket ticket, String normalizedQuery) {
-        return ticket != null && ticket.title != null
-                && ticket.title.toLowerCase(Locale.ENGLISH).contains(normalizedQuery);
-    }
-
     private static Set<Long> findMessageMatchTicketIds(List<Ticket> tickets, String normalizedQuery, User viewer) {
         List<Long> ticketIds = tickets.stream().filter(ticket -> ticket != null && ticket.id != null)
-                .map(ticket -> ticket.id).toList();
-        if (ticketIds.isEmpty()) {
-            return Set.of();
-        }
-        List<Message> matchingMessages = Panache.getEntityManager().createQuery(
-                "select distinct m from Message m where m.ticket.id in :ticketIds and lower(coalesce(m.body, '')) like :search",
-                Message.class).setParameter("ticketIds", ticketIds).setParameter("search", "%" + normalizedQuery + "%")
-                .getResultList();
+                .map(ticket -> ticket.id).distinct().toList();
         Set<Long> matchingIds = new LinkedHashSet<>();
-        for (Message message : matchingMessages) {
-            if (message == null || message.ticket == null || message.ticket.id == null
-                    || !MessageVisibilitySupport.canViewMessage(viewer, message)) {
+        for (int from = 0; from < ticketIds.size(); from += SEARCH_BATCH_SIZE) {
+            List<Long> batch = ticketIds.subList(from, Math.min(from + SEARCH_BATCH_SIZE, ticketIds.size()));
+            if (FullTextSearchSupport.enabled()) {
+                matchingIds.addAll(FullTextSearchSupport.ticketIds(normalizedQuery,
+                        MessageVisibilitySupport.visibleAuthorTypes(viewer), batch, batch.size()));
                 continue;
             }
-            matchingIds.add(message.ticket.id);
+            TypedQuery<Long> query = Panache.getEntityManager().createQuery(
+                    "select distinct m.ticket.id from Message m left join m.author a where m.ticket.id in :ticketIds"
+                            + " and lower(coalesce(m.body, '')) like :search and "
+                            + MessageVisibilitySupport.visibilityPredicate("m", "a", viewer),
+                    Long.class).setParameter("ticketIds", batch).setParameter("search", "%" + normalizedQuery + "%");
+            MessageVisibilitySupport.visibilityParams(viewer).forEach(query::setParameter);
+            matchingIds.addAll(query.getResultList());
         }
         return matchingIds;
     }
@@ -13,10 +13,11 @@ import ai.mnemosyne_systems.model.Company;
 import ai.mnemosyne_systems.model.CompanyEntitlement;
 import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Ticket;
-import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.model.Version;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import io.smallrye.common.annotation.Blocking;
+import jakarta.persistence.TypedQuery;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.CookieParam;
 import jakarta.ws.rs.GET;
@@ -46,24 +47,21 @@ public class TicketWorkbenchApiResource {
 
     @GET
     @Transactional
-    public TicketListResponse list(@CookieParam(AuthHelper.AUTH_COOKIE) String auth) {
-        User user = requireSupport(auth);
-        List<Ticket> tickets = Ticket.listAll();
-        Map<Long, String> lastMessageLabels = new LinkedHashMap<>();
-        for (Message message : MessageVisibilitySupport
-                .filterVisibleMessages(Message.<Message> list("order by date desc"), user)) {
-            if (message.ticket != null && message.ticket.id != null
-                    && !lastMessageLabels.containsKey(message.ticket.id)) {
-                lastMessageLabels.put(message.ticket.id, formatDate(message.date));
-            }
-        }
-        return new TicketListResponse("Tickets", "/tickets/new", tickets.stream()
+    public TicketListResponse list(@CookieParam(AuthHelper.AUTH_COOKIE) String auth, @QueryParam("page") Integer page,
+            @QueryParam("pageSize") Integer pageSize, @QueryParam("sort") String sort, @QueryParam("dir") String dir,
+            @QueryParam("cursor") String cursor) {
+        AuthPrincipal principal = requireSupport(auth);
+        PaginationSupport.QueryPage<Ticket> result = TicketListQuerySupport
+                .page(TicketListQuerySupport.scoped(null, null), sort, dir, page, pageSize, cursor);
+        Map<Long, String> lastMessageLabels = loadLastMessageLabels(result.items(), principal);
+        return new TicketListResponse("Tickets", "/tickets/new", result.items().stream()
                 .map(ticket -> new TicketListItem(ticket.id, ticket.name, ticket.status,
                         ticket.company == null ? null : ticket.company.name,
                         ticket.requester == null ? null : ticket.requester.getDisplayName(),
                         ticket.category == null ? null : ticket.category.name, lastMessageLabels.get(ticket.id),
                         "/support/tickets/" + ticket.id, "/tickets/" + ticket.id + "/edit", ticket.externalIssueLink))
-                .toList());
+                .toList(), result.meta().page(), result.meta().pageSize(), result.meta().totalItems(),
+                result.meta().totalPages(), result.nextCursor());
     }
 
     @GET
@@ -71,7 +69,7 @@ public class TicketWorkbenchApiResource {
     @Transactional
     public TicketFormResponse bootstrap(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @QueryParam("ticketId") Long ticketId, @QueryParam("companyId") Long companyId) {
-        User user = requireSupport(auth);
+        AuthPrincipal principal = requireSupport(auth);
         Ticket ticket = ticketId == null ? new Ticket()
                 : Ticket.find(
                         "select t from Ticket t left join fetch t.companyEntitlement ce left join fetch ce.entitlement left join fetch ce.supportLevel where t.id = ?1",
@@ -103,7 +101,7 @@ public class TicketWorkbenchApiResource {
                         .toList(),
                 versions.stream().map(version -> new VersionOption(version.id, version.name)).toList(),
                 ticketId == null ? List.of()
-                        : MessageVisibilitySupport.loadMessagesForViewer(ticket, user).stream()
+                        : MessageVisibilitySupport.loadMessagesForViewer(ticket, principal).stream()
                                 .map(this::toMessageSummary).toList(),
                 new TicketFormData(ticket.id, ticket.displayTitle(), ticket.status,
                         ticket.company == null ? null : ticket.company.id,
@@ -121,6 +119,25 @@ public class TicketWorkbenchApiResource {
         return bootstrap(auth, id, null);
     }
 
+    private Map<Long, String> loadLastMessageLabels(List<Ticket> tickets, AuthPrincipal viewer) {
+        Map<Long, String> lastMessageLabels = new LinkedHashMap<>();
+        List<Long> ticketIds = tickets.stream().map(ticket -> ticket.id).toList();
+        if (ticketIds.isEmpty()) {
+            return lastMessageLabels;
+        }
+        Map<String, Object> params = new LinkedHashMap<>(MessageVisibilitySupport.visibilityParams(viewer));
+        params.put("ticketIds", ticketIds);
+        TypedQuery<Object[]> query = Message.getEntityManager().createQuery(
+                "select m.ticket.id, max(m.date) from Message m left join m.author a where m.ticket.id in :ticketIds and "
+                        + MessageVisibilitySupport.visibilityPredicate("m", "a", viewer) + " group by m.ticket.id",
+                Object[].class);
+        params.forEach(query::setParameter);
+        for (Object[] row : query.getResultList()) {
+            lastMessageLabels.put((Long) row[0], formatDate((LocalDateTime) row[1]));
+        }
+        return lastMessageLabels;
+    }
+
     private MessageSummary toMessageSummary(Message message) {
         return new MessageSummary(message.id, message.body, formatDate(message.date), message.isPublic);
     }
@@ -184,15 +201,16 @@ public class TicketWorkbenchApiResource {
         return date == null ? "-" : DATE_FORMATTER.format(date);
     }
 
-    private User requireSupport(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (!AuthHelper.isSupport(user)) {
+    private AuthPrincipal requireSupport(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isSupport()) {
             throw new WebApplicationException(Response.seeOther(URI.create("/")).build());
         }
-        return user;
+        return principal;
     }
 
-    public record TicketListResponse(String title, String createPath, List<TicketListItem> items) {
+    public record TicketListResponse(String title, String createPath, List<TicketListItem> items, int page,
+            int pageSize, int totalItems, int totalPages, String nextCursor) {
     }
 
     public record TicketListItem(Long id, String name, String status, String companyName, String requesterName,
@@ -14,6 +14,7 @@ import ai.mnemosyne_systems.model.Company;
 import ai.mnemosyne_systems.model.CompanyEntitlement;
 import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.model.TicketActivity;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.model.Version;
 import ai.mnemosyne_systems.model.Country;
@@ -22,6 +23,10 @@ import ai.mnemosyne_systems.service.CrossReferenceService;
 import ai.mnemosyne_systems.service.TicketEmailService;
 import ai.mnemosyne_systems.util.AttachmentHelper;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
+import ai.mnemosyne_systems.util.SlaSupport;
+import ai.mnemosyne_systems.util.TicketActivitySupport;
+import ai.mnemosyne_systems.util.TicketCountCache;
 import io.quarkus.hibernate.orm.panache.Panache;
 import io.quarkus.elytron.security.common.BcryptUtil;
 import io.smallrye.common.annotation.Blocking;
@@ -605,6 +610,7 @@ public class UserResource {
         for (Message message : messages) {
             message.author = null;
         }
+        TicketActivity.update("assignee = null where assignee = ?1", user);
     }
 
     private boolean hasPasswordResetTokenTable() {
@@ -655,12 +661,38 @@ public class UserResource {
         java.util.List<Ticket> tickets = Ticket.list(
                 "select distinct t from Ticket t left join t.tamUsers tu left join t.company c left join c.users cu where tu = ?1 or cu = ?1",
                 user);
-        return buildTicketDataFor(tickets, user);
+        return buildTicketDataFor(tickets, AuthHelper.principal(user));
     }
 
     SupportTicketData buildUserTicketData(User user) {
         java.util.List<Ticket> tickets = Ticket.list("requester = ?1", user);
-        return buildTicketDataFor(tickets, user);
+        return buildTicketDataFor(tickets, AuthHelper.principal(user));
+    }
+
+    static SupportResource.SupportTicketCounts loadTicketCounts(User user) {
+        return loadTicketCounts(AuthHelper.principal(user));
+    }
+
+    static SupportResource.SupportTicketCounts loadTicketCounts(AuthPrincipal principal) {
+        if (principal == null) {
+            return new SupportResource.SupportTicketCounts(0, 0);
+        }
+        boolean tam = principal.isTam();
+        return TicketCountCache.get(tam ? User.TYPE_TAM : User.TYPE_USER, principal.id(), () -> {
+            Object[] counts = Ticket.getEntityManager()
+                    .createQuery(
+                            "select" + " coalesce(sum(case when " + TicketListQuerySupport.HAS_SUPPORT
+                                    + " then 1 else 0 end), 0)," + " coalesce(sum(case when "
+                                    + TicketListQuerySupport.NO_SUPPORT + " then 1 else 0 end), 0)"
+                                    + " from Ticket t left join t.company c where ("
+                                    + (tam ? ":user member of t.tamUsers or :user member of c.users"
+                                            : "t.requester = :user")
+                                    + ") and " + TicketListQuerySupport.NOT_CLOSED,
+                            Object[].class)
+                    .setParameter("user", AuthHelper.reference(principal)).getSingleResult();
+            return new SupportResource.SupportTicketCounts(((Number) counts[0]).intValue(),
+                    ((Number) counts[1]).intValue());
+        });
     }
 
     SupportTicketData buildTicketDataForUser(User user) {
@@ -670,64 +702,45 @@ public class UserResource {
         return buildUserTicketData(user);
     }
 
-    private SupportTicketData buildTicketDataFor(java.util.List<Ticket> tickets, User viewer) {
-        return buildTicketDataFor(tickets, viewer, false);
-    }
-
-    private SupportTicketData buildTicketDataFor(java.util.List<Ticket> tickets, User viewer,
-            boolean keepExistingSlaForRequesterReplies) {
+    SupportTicketData buildTicketDataFor(java.util.List<Ticket> tickets, AuthPrincipal viewer) {
         java.util.List<Ticket> scopedTickets = tickets == null ? java.util.List.of() : tickets;
         java.util.Set<Long> scopedTicketIds = scopedTickets.stream()
                 .filter(ticket -> ticket != null && ticket.id != null).map(ticket -> ticket.id)
                 .collect(java.util.stream.Collectors.toSet());
+        java.util.Map<Long, TicketActivity> activities = TicketActivitySupport.load(scopedTickets);
         java.util.Map<Long, java.time.LocalDateTime> messageDates = new java.util.LinkedHashMap<>();
         java.util.Map<Long, String> messageDateLabels = new java.util.LinkedHashMap<>();
         java.util.Map<Long, String> messageDirectionArrows = new java.util.LinkedHashMap<>();
-        java.util.List<ai.mnemosyne_systems.model.Message> allMessages = ai.mnemosyne_systems.model.Message
-                .find("order by date desc").list();
-        java.util.List<ai.mnemosyne_systems.model.Message> visibleMessages = MessageVisibilitySupport
-                .filterVisibleMessages(allMessages, viewer);
-        for (ai.mnemosyne_systems.model.Message message : allMessages) {
-            if (message.ticket != null && message.ticket.id != null && message.isPublic
-                    && scopedTicketIds.contains(message.ticket.id) && !messageDates.containsKey(message.ticket.id)) {
-                messageDates.put(message.ticket.id, message.date);
+        for (Ticket ticket : scopedTickets) {
+            TicketActivity activity = activities.get(ticket.id);
+            if (activity != null && activity.lastPublicDate != null) {
+                messageDates.put(ticket.id, activity.lastPublicDate);
             }
-        }
-        for (ai.mnemosyne_systems.model.Message message : visibleMessages) {
-            if (message.ticket != null && message.ticket.id != null && scopedTicketIds.contains(message.ticket.id)
-                    && !messageDateLabels.containsKey(message.ticket.id)) {
-                if (message.date != null) {
-                    messageDateLabels.put(message.ticket.id, formatDate(message.date));
-                }
-                messageDirectionArrows.put(message.ticket.id, messageDirectionArrow(message.author));
+            java.time.LocalDateTime lastVisibleDate = TicketActivitySupport.lastVisibleDate(activity, viewer);
+            if (lastVisibleDate != null) {
+                messageDateLabels.put(ticket.id, formatDate(lastVisibleDate));
+                messageDirectionArrows.put(ticket.id,
+                        messageDirectionArrow(TicketActivitySupport.lastVisibleFromSupport(activity, viewer)));
             }
         }
-        java.util.Map<Long, java.time.LocalDateTime> slaDates = keepExistingSlaForRequesterReplies
-                ? requesterPendingSlaDates(scopedTickets)
-                : messageDates;
         for (Ticket ticket : scopedTickets) {
             if (!messageDateLabels.containsKey(ticket.id)) {
                 messageDateLabels.put(ticket.id, "-");
             }
         }
         java.util.Map<Long, String> slaColors = new java.util.LinkedHashMap<>();
+        java.util.Map<Long, java.time.LocalDateTime> slaDeadlines = new java.util.LinkedHashMap<>();
         java.time.LocalDateTime now = java.time.LocalDateTime.now();
         for (Ticket ticket : scopedTickets) {
             if (isEntitlementExpired(ticket)) {
                 slaColors.put(ticket.id, "Black");
                 continue;
             }
-            java.time.LocalDateTime messageDate = slaDates.get(ticket.id);
-            if (messageDate == null || ticket.companyEntitlement == null
-                    || ticket.companyEntitlement.supportLevel == null) {
-                continue;
-            }
-            long minutes = java.time.Duration.between(messageDate, now).toMinutes();
-            if (minutes < 0) {
-                minutes = 0;
+            if (ticket.slaDeadline != null) {
+                slaDeadlines.put(ticket.id, ticket.slaDeadline);
             }
-            String color = resolveSlaColor(ticket.companyEntitlement.supportLevel, minutes);
-            if (color != null && !color.isBlank()) {
+            String color = SlaSupport.color(ticket, now);
+            if (color != null) {
                 slaColors.put(ticket.id, color);
             }
         }
@@ -736,9 +749,8 @@ public class UserResource {
         java.util.Map<Long, Long> supportAssignmentIds = new java.util.LinkedHashMap<>();
         java.util.Map<Long, User> supportAssignmentUsers = new java.util.LinkedHashMap<>();
         for (Ticket ticket : scopedTickets) {
-            User assignedSupport = User
-                    .find("select u from Ticket t join t.supportUsers u where t = ?1 order by u.id desc", ticket)
-                    .firstResult();
+            TicketActivity activity = activities.get(ticket.id);
+            User assignedSupport = activity == null ? null : activity.assignee;
             if (assignedSupport != null) {
                 supportAssignments.put(ticket.id, assignedSupport.email);
                 supportAssignmentNames.put(ticket.id, assignedSupport.name);
@@ -767,9 +779,9 @@ public class UserResource {
                 }
             }
         }
-        sortBySla(assignedTickets, slaColors, messageDates);
-        sortBySla(openTickets, slaColors, messageDates);
-        sortBySla(closedTickets, slaColors, messageDates);
+        sortBySla(assignedTickets, slaColors, slaDeadlines, messageDates);
+        sortBySla(openTickets, slaColors, slaDeadlines, messageDates);
+        sortBySla(closedTickets, slaColors, slaDeadlines, messageDates);
         SupportTicketData data = new SupportTicketData();
         data.assignedTickets = assignedTickets;
         data.openTickets = openTickets;
@@ -785,40 +797,6 @@ public class UserResource {
         return data;
     }
 
-    private java.util.Map<Long, java.time.LocalDateTime> requesterPendingSlaDates(java.util.List<Ticket> tickets) {
-        java.util.Set<Long> ticketIds = tickets.stream().filter(ticket -> ticket != null && ticket.id != null)
-                .map(ticket -> ticket.id).collect(java.util.stream.Collectors.toSet());
-        java.util.Map<Long, java.time.LocalDateTime> pendingDates = new java.util.LinkedHashMap<>();
-        java.util.List<ai.mnemosyne_systems.model.Message> messages = ai.mnemosyne_systems.model.Message
-                .find("order by date asc").list();
-        for (ai.mnemosyne_systems.model.Message message : messages) {
-            if (message.ticket == null || message.ticket.id == null || !message.isPublic
-                    || !ticketIds.contains(message.ticket.id)) {
-                continue;
-            }
-            if (resetsRequesterSla(message.author)) {
-                pendingDates.remove(message.ticket.id);
-                continue;
-            }
-            pendingDates.putIfAbsent(message.ticket.id, message.date);
-        }
-        return pendingDates;
-    }
-
-    private boolean resetsRequesterSla(User author) {
-        return AuthHelper.isSupport(author) || AuthHelper.isTam(author);
-    }
-
-    private String resolveSlaColor(ai.mnemosyne_systems.model.Level level, long minutes) {
-        if (level == null || level.level == null || level.color == null || level.color.isBlank()) {
-            return null;
-        }
-        if (minutes >= level.level.longValue()) {
-            return level.color;
-        }
-        return "White";
-    }
-
     boolean isEntitlementExpired(Ticket ticket) {
         if (ticket == null || ticket.companyEntitlement == null || ticket.companyEntitlement.date == null
                 || ticket.companyEntitlement.duration == null) {
@@ -862,13 +840,24 @@ public class UserResource {
     }
 
     private void sortBySla(List<Ticket> tickets, Map<Long, String> slaColors,
-            Map<Long, java.time.LocalDateTime> messageDates) {
+            Map<Long, java.time.LocalDateTime> slaDeadlines, Map<Long, java.time.LocalDateTime> messageDates) {
         tickets.sort((left, right) -> {
             int leftRank = slaColorRank(slaColors.get(left.id));
             int rightRank = slaColorRank(slaColors.get(right.id));
             if (leftRank != rightRank) {
                 return Integer.compare(leftRank, rightRank);
             }
+            java.time.LocalDateTime leftDeadline = slaDeadlines.get(left.id);
+            java.time.LocalDateTime rightDeadline = slaDeadlines.get(right.id);
+            if (leftDeadline != null && rightDeadline != null && !leftDeadline.equals(rightDeadline)) {
+                return leftDeadline.compareTo(rightDeadline);
+            }
+            if (leftDeadline != null && rightDeadline == null) {
+                return -1;
+            }
+            if (leftDeadline == null && rightDeadline != null) {
+                return 1;
+            }
             java.time.LocalDateTime leftDate = messageDates.get(left.id);
             java.time.LocalDateTime rightDate = messageDates.get(right.id);
             if (leftDate == null && rightDate == null) {
@@ -914,11 +903,8 @@ public class UserResource {
         return 3;
     }
 
-    private String messageDirectionArrow(User author) {
-        if (author != null && User.TYPE_SUPPORT.equalsIgnoreCase(author.type)) {
-            return "\u2190";
-        }
-        return "\u2192";
+    private String messageDirectionArrow(boolean fromSupport) {
+        return fromSupport ? "\u2190" : "\u2192";
     }
 
     private Ticket normalizeOpenAssigned(Ticket ticket) {
@@ -1093,11 +1079,11 @@ public class UserResource {
         return user;
     }
 
-    private User requireAdmin(String auth) {
-        User user = AuthHelper.findUser(auth);
-        if (!AuthHelper.isAdmin(user)) {
+    private AuthPrincipal requireAdmin(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isAdmin()) {
             throw new WebApplicationException(Response.seeOther(URI.create("/")).build());
         }
-        return user;
+        return principal;
     }
 }
@@ -18,6 +18,7 @@ import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.model.Version;
 import ai.mnemosyne_systems.service.CrossReferenceService;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.CookieParam;
@@ -52,35 +53,35 @@ public class UserTicketApiResource {
     public SupportTicketApiResource.SupportTicketListResponse list(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @QueryParam("view") @DefaultValue("assigned") String view, @QueryParam("q") String q,
             @QueryParam("page") Integer page, @QueryParam("pageSize") Integer pageSize, @QueryParam("sort") String sort,
-            @QueryParam("dir") String dir) {
-        User user = requireUser(auth);
-        UserResource.SupportTicketData data = userResource.buildTicketDataForUser(user);
+            @QueryParam("dir") String dir, @QueryParam("cursor") String cursor) {
+        AuthPrincipal principal = requireUserPrincipal(auth);
         String normalizedView = normalizeView(view);
-        List<Ticket> tickets = switch (normalizedView) {
-            case "open" -> data.openTickets;
-            case "closed" -> data.closedTickets;
-            default -> data.assignedTickets;
-        };
         String searchTerm = TicketSearchSupport.normalizeSearchTerm(q);
-        if (searchTerm != null) {
-            tickets = TicketSearchSupport.combineTickets(data.assignedTickets, data.openTickets, data.closedTickets);
-        }
-        tickets = TicketSearchSupport.filterTicketsBySearch(tickets, searchTerm, user);
-        int totalItems = tickets.size();
-        List<SupportTicketApiResource.SupportTicketSummary> allSummaries = tickets.stream()
-                .map(ticket -> toSummary(ticket, data, user)).toList();
-        List<SupportTicketApiResource.SupportTicketSummary> pageItems = PaginationSupport.sortAndPaginate(allSummaries,
-                sort, dir, SupportTicketApiResource.ticketSortColumns(), page, pageSize);
-        PaginationSupport.PaginationMeta meta = PaginationSupport.meta(page, pageSize, totalItems);
         String title = switch (normalizedView) {
             case "open" -> "Open tickets";
             case "closed" -> "Closed tickets";
             default -> "Tickets";
         };
-        return new SupportTicketApiResource.SupportTicketListResponse(normalizedView, title,
-                data.assignedTickets == null ? 0 : data.assignedTickets.size(),
-                data.openTickets == null ? 0 : data.openTickets.size(), "/user/tickets/new", searchTerm, pageItems,
-                meta.page(), meta.pageSize(), meta.totalItems(), meta.totalPages());
+        PaginationSupport.PageQuery scope = ticketScope(principal);
+        PaginationSupport.PageQuery viewQuery = searchTerm != null ? scope : switch (normalizedView) {
+            case "open" -> scope
+                    .and(TicketListQuerySupport.NOT_CLOSED + " and " + TicketListQuerySupport.NO_SUPPORT, null);
+            case "closed" -> scope.and(TicketListQuerySupport.CLOSED, null);
+            default -> scope.and(TicketListQuerySupport.NOT_CLOSED + " and " + TicketListQuerySupport.HAS_SUPPORT,
+                    null);
+        };
+        PaginationSupport.QueryPage<Ticket> result = TicketListQuerySupport.page(
+                TicketListQuerySupport.withSearch(viewQuery, searchTerm, principal), sort, dir, page, pageSize, cursor);
+        UserResource.SupportTicketData data = userResource.buildTicketDataFor(result.items(), principal);
+        java.util.Map<Long, Ticket> displayTickets = TicketListQuerySupport.displayTickets(data.assignedTickets,
+                data.openTickets, data.closedTickets);
+        List<SupportTicketApiResource.SupportTicketSummary> pageItems = result.items().stream()
+                .map(ticket -> toSummary(displayTickets.getOrDefault(ticket.id, ticket), data, principal)).toList();
+        SupportResource.SupportTicketCounts counts = UserResource.loadTicketCounts(principal);
+        return new SupportTicketApiResource.SupportTicketListResponse(normalizedView, title, counts.assignedCount,
+                counts.openCount, "/user/tickets/new", searchTerm, pageItems, result.meta().page(),
+                result.meta().pageSize(), result.meta().totalItems(), result.meta().totalPages(),
+                result.nextCursor());
     }
 
     @GET
@@ -89,29 +90,32 @@ public class UserTicketApiResource {
     public SupportTicketApiResource.TicketSuggestionResponse suggest(@CookieParam(AuthHelper.AUTH_COOKIE) String auth,
             @QueryParam("view") @DefaultValue("assigned") String view, @QueryParam("q") String q,
             @QueryParam("exclude") Long exclude) {
-        User user = requireUser(auth);
-        UserResource.SupportTicketData data = userResource.buildTicketDataForUser(user);
-        List<Ticket> tickets = TicketSearchSupport.combineTickets(data.assignedTickets, data.openTickets,
-                data.closedTickets);
-        if (exclude != null) {
-            tickets = tickets.stream().filter(t -> t.id != null && !t.id.equals(exclude)).toList();
-        }
-        return new SupportTicketApiResource.TicketSuggestionResponse(TicketSearchSupport.suggestTickets(tickets, q, 6)
-                .stream().map(ticket -> new SupportTicketApiResource.TicketSuggestion(ticket.id, ticket.name,
+        AuthPrincipal principal = requireUserPrincipal(auth);
+        List<Ticket> tickets = TicketListQuerySupport.suggest(ticketScope(principal), q, exclude, 6);
+        return new SupportTicketApiResource.TicketSuggestionResponse(tickets.stream()
+                .map(ticket -> new SupportTicketApiResource.TicketSuggestion(ticket.id, ticket.name,
                         ticket.displayTitle(), "/user/tickets/" + ticket.id))
                 .toList());
     }
 
+    private PaginationSupport.PageQuery ticketScope(AuthPrincipal principal) {
+        return TicketListQuerySupport.scoped(
+                principal.isTam() ? ":viewer member of t.tamUsers or :viewer member of c.users"
+                        : "t.requester = :viewer",
+                java.util.Map.of("viewer", AuthHelper.reference(principal)));
+    }
+
     @GET
     @Path("/bootstrap")
     @Transactional
     public SupportTicketApiResource.SupportTicketBootstrapResponse bootstrap(
             @CookieParam(AuthHelper.AUTH_COOKIE) String auth, @QueryParam("companyId") Long companyId,
             @QueryParam("companyEntitlementId") Long companyEntitlementId) {
-        User user = requireUser(auth);
-        UserResource.SupportTicketData data = userResource.buildTicketDataForUser(user);
-        List<Company> companies = Company
-                .find("select distinct c from Company c join c.users u where u = ?1 order by c.name", user).list();
+        AuthPrincipal principal = requireUserPrincipal(auth);
+        SupportResource.SupportTicketCounts counts = UserResource.loadTicketCounts(principal);
+        List<Company> companies = Company.find(
+                "select distinct c from Company c join c.users u where u = ?1 order by c.name",
+                AuthHelper.reference(principal)).list();
         Company selectedCompany = selectCompany(companies, companyId);
         List<CompanyEntitlement> entitlements = selectedCompany == null ? List.of()
                 : uniqueEntitlements(CompanyEntitlement.find(
@@ -126,9 +130,7 @@ public class UserTicketApiResource {
                         version.date == null ? null : version.date.toString()))
                 .toList();
         Category defaultCategory = Category.findDefault();
-        return new SupportTicketApiResource.SupportTicketBootstrapResponse(
-                data.assignedTickets == null ? 0 : data.assignedTickets.size(),
-                data.openTickets == null ? 0 : data.openTickets.size(),
+        return new SupportTicketApiResource.SupportTicketBootstrapResponse(counts.assignedCount, counts.openCount,
                 selectedCompany == null ? null : selectedCompany.id,
                 selectedCompany == null ? "" : Ticket.previewNextName(selectedCompany), "",
                 companies.stream().map(company -> new SupportTicketApiResource.CompanyOption(company.id, company.name))
@@ -176,8 +178,8 @@ public class UserTicketApiResource {
                         "select distinct u from Company c join c.users u, Ticket t join t.userUsers tu where t = ?1 and c = ?2 and u = tu order by u.fullName",
                         ticket, ticket.company).list();
 
-        java.util.Map<Long, Ticket> ticketCache = crossReferenceService
-                .preloadReferencedTickets(messages.stream().map(m -> m.body).toList());
+        java.util.Map<Long, String> transformedBodies = crossReferenceService.transformBodies(messages,
+                "/user/tickets/");
         return new RoleTicketDetailResponse(ticket.id, ticket.name, ticket.displayTitle(),
                 normalizeDisplayStatus(ticket.status), data.assignedTickets == null ? 0 : data.assignedTickets.size(),
                 data.openTickets == null ? 0 : data.openTickets.size(),
@@ -197,7 +199,7 @@ public class UserTicketApiResource {
                 Category.<Category> list("order by name").stream().map(this::toCategoryOption).toList(),
                 supportUsers.stream().map(this::toUserReference).toList(), "TAM",
                 secondaryUsers.stream().map(this::toUserReference).toList(),
-                messages.stream().map(m -> toMessageEntry(m, ticketCache)).toList(),
+                messages.stream().map(m -> toMessageEntry(m, transformedBodies)).toList(),
                 userResource.isEntitlementExpired(ticket), "/user/tickets/" + ticket.id,
                 "/user/tickets/" + ticket.id + "/messages", "/tickets/export/" + ticket.id,
                 List.of("Open", "Assigned", "In Progress", "Resolved", "Closed"), false, false, false, true, tamView,
@@ -223,7 +225,7 @@ public class UserTicketApiResource {
     }
 
     private SupportTicketApiResource.SupportTicketSummary toSummary(Ticket ticket, UserResource.SupportTicketData data,
-            User currentUser) {
+            AuthPrincipal principal) {
         User assignedSupport = data.supportAssignmentUsers.get(ticket.id);
         return new SupportTicketApiResource.SupportTicketSummary(ticket.id, ticket.name, ticket.displayTitle(),
                 normalizeDisplayStatus(ticket.status), data.messageDateLabels.get(ticket.id),
@@ -234,9 +236,7 @@ public class UserTicketApiResource {
                 ticket.company == null ? null : ticket.company.id, ticket.company == null ? null : ticket.company.name,
                 ticket.companyEntitlement == null || ticket.companyEntitlement.entitlement == null ? null
                         : ticket.companyEntitlement.entitlement.name,
-                User.TYPE_TAM.equalsIgnoreCase(currentUser.type)
-                        ? userResource.resolveLowestEntitlementLevelName(ticket)
-                        : null,
+                principal.isTam() ? userResource.resolveLowestEntitlementLevelName(ticket) : null,
                 ticket.affectsVersion == null ? null : ticket.affectsVersion.name,
                 ticket.resolvedVersion == null ? null : ticket.resolvedVersion.name, "/user/tickets/" + ticket.id,
                 ticket.company == null ? null : "/user/companies/" + ticket.company.id);
@@ -259,8 +259,8 @@ public class UserTicketApiResource {
     }
 
     private SupportTicketApiResource.MessageEntry toMessageEntry(Message message,
-            java.util.Map<Long, Ticket> ticketCache) {
-        String transformedBody = crossReferenceService.transformBody(message.body, "/user/tickets/", ticketCache);
+            java.util.Map<Long, String> transformedBodies) {
+        String transformedBody = transformedBodies.get(message.id);
         return new SupportTicketApiResource.MessageEntry(message.id, transformedBody,
                 message.date == null ? null : SupportTicketViewSupport.formatDate(message.date),
                 message.date == null ? null : message.date.toString(),
@@ -358,6 +358,14 @@ public class UserTicketApiResource {
         };
     }
 
+    private AuthPrincipal requireUserPrincipal(String auth) {
+        AuthPrincipal principal = AuthHelper.findPrincipal(auth);
+        if (principal == null || !principal.isUser()) {
+            throw new NotAuthorizedException(Response.status(Response.Status.UNAUTHORIZED).build());
+        }
+        return principal;
+    }
+
     private User requireUser(String auth) {
         User user = AuthHelper.findUser(auth);
         if (!AuthHelper.isUser(user)) {
@@ -0,0 +1,159 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.service;
+
+import ai.mnemosyne_systems.init.SchemaMigrationInitializer;
+import ai.mnemosyne_systems.model.Attachment;
+import ai.mnemosyne_systems.util.AttachmentStorage;
+import ai.mnemosyne_systems.util.DatabaseAttachmentStore;
+import ai.mnemosyne_systems.util.FileSystemAttachmentStore;
+import ai.mnemosyne_systems.util.SchemaMigrations;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+@ApplicationScoped
+public class AttachmentMigrationService {
+
+    private static final Logger LOGGER = Logger.getLogger(AttachmentMigrationService.class);
+    private static final int MIGRATION_BATCH_SIZE = 20;
+    private static final int SWEEP_BATCH_SIZE = 500;
+    private static final Duration ORPHAN_GRACE_PERIOD = Duration.ofHours(24);
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @Inject
+    SchemaMigrationInitializer schemaMigrations;
+
+    @Scheduled(every = "{ticket.attachments.migration-interval}", delayed = "1m")
+    void scheduledMigration() {
+        // Moved payloads leave data empty, which older PostgreSQL schemas only allow once the migration has run.
+        if ("postgresql".equalsIgnoreCase(dbKind)
+                && !schemaMigrations.applied(SchemaMigrations.ATTACHMENT_DATA_NULLABLE)) {
+            return;
+        }
+        migrateLegacyAttachments();
+        sweepOrphanedFiles();
+    }
+
+    public int migrateLegacyAttachments() {
+        if (!FileSystemAttachmentStore.NAME.equals(AttachmentStorage.store().name())) {
+            return 0;
+        }
+        int migrated = 0;
+        int moved;
+        do {
+            moved = QuarkusTransaction.requiringNew().call(this::migrateBatch);
+            migrated += moved;
+        } while (moved > 0);
+        if (migrated > 0) {
+            LOGGER.infof("Moved %d attachment(s) from the database to %s", migrated,
+                    AttachmentStorage.fileSystem().root());
+        }
+        return migrated;
+    }
+
+    public int sweepOrphanedFiles() {
+        Path root = AttachmentStorage.fileSystem().root();
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(ORPHAN_GRACE_PERIOD);
+        int removed = 0;
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            Iterator<Path> iterator = files.filter(Files::isRegularFile).filter(file -> isOlderThan(file, cutoff))
+                    .iterator();
+            List<Path> batch = new ArrayList<>();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() >= SWEEP_BATCH_SIZE || !iterator.hasNext()) {
+                    removed += removeUnreferenced(batch, cutoff);
+                    batch.clear();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (removed > 0) {
+            LOGGER.infof("Removed %d orphaned attachment file(s)", removed);
+        }
+        return removed;
+    }
+
+    int migrateBatch() {
+        List<Attachment> batch = Attachment
+                .<Attachment> find(
+                        "((storage is null or storage = ?1) and data is not null)"
+                                + " or (storage = ?2 and (sha256 is null or storageKey <> sha256)) order by id",
+                        DatabaseAttachmentStore.NAME, FileSystemAttachmentStore.NAME)
+                .page(0, MIGRATION_BATCH_SIZE).list();
+        for (Attachment attachment : batch) {
+            try (InputStream input = FileSystemAttachmentStore.NAME.equals(attachment.storage)
+                    ? AttachmentStorage.open(attachment)
+                    : new ByteArrayInputStream(attachment.data)) {
+                AttachmentStorage.fileSystem().write(attachment, input);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to migrate attachment " + attachment.id, ex);
+            }
+        }
+        return batch.size();
+    }
+
+    private int removeUnreferenced(List<Path> files, Instant cutoff) throws IOException {
+        List<String> keys = files.stream().map(file -> file.getFileName().toString()).toList();
+        Set<String> referenced = new HashSet<>(QuarkusTransaction.requiringNew()
+                .call(() -> Attachment.getEntityManager()
+                        .createQuery("select a.storageKey from Attachment a where a.storageKey in :keys", String.class)
+                        .setParameter("keys", keys).getResultList()));
+        int removed = 0;
+        for (Path file : files) {
+            String key = file.getFileName().toString();
+            boolean incoming = file.getParent() != null && file.getParent().getFileName().toString().equals("incoming");
+            if (incoming) {
+                Files.deleteIfExists(file);
+                removed++;
+            } else if (!referenced.contains(key)) {
+                // An upload may have reused the file since the query above, so age and reference are checked again.
+                if (AttachmentStorage.fileSystem().deleteIfUnused(key, cutoff, this::isReferenced)) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private boolean isReferenced(String storageKey) {
+        return QuarkusTransaction.requiringNew().call(() -> Attachment.count("storageKey", storageKey) > 0);
+    }
+
+    private boolean isOlderThan(Path file, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+}
@@ -12,9 +12,11 @@ import ai.mnemosyne_systems.model.Article;
 import ai.mnemosyne_systems.model.CrossReference;
 import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.util.RenderedBodyCache;
 import jakarta.enterprise.context.ApplicationScoped;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -22,6 +24,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import org.hibernate.Session;
 
 @ApplicationScoped
 public class CrossReferenceService {
@@ -37,74 +40,150 @@ public class CrossReferenceService {
             new ReferenceTypeConfig(Pattern.compile("\\$\\[(\\d+)]"), TARGET_TYPE_ARTICLE, "$", "/articles/"));
 
     public void extractAndSaveReferences(Message message, Set<Long> accessibleTicketIds) {
+        saveReferences(message, accessibleTicketIds, Set.of());
+    }
+
+    public void updateReferences(Message message, Set<Long> accessibleTicketIds) {
+        if (message == null || message.id == null) {
+            return;
+        }
+        Map<String, CrossReference> existing = new LinkedHashMap<>();
+        for (CrossReference ref : CrossReference.<CrossReference> list("sourceMessage = ?1", message)) {
+            existing.put(ref.targetType + ":" + ref.targetId, ref);
+        }
+        Set<String> kept = saveReferences(message, accessibleTicketIds, existing.keySet());
+        existing.keySet().removeAll(kept);
+        if (!existing.isEmpty()) {
+            CrossReference.delete("id in ?1", existing.values().stream().map(ref -> ref.id).toList());
+        }
+    }
+
+    private Set<String> saveReferences(Message message, Set<Long> accessibleTicketIds, Set<String> existing) {
+        Set<String> references = new LinkedHashSet<>();
         if (message == null || message.body == null || message.body.isBlank()) {
+            return references;
+        }
+        Set<Long> ticketIds = new LinkedHashSet<>();
+        Set<Long> articleIds = new LinkedHashSet<>();
+        collectTargets(message.body, ticketIds, articleIds);
+        if (message.ticket != null && message.ticket.id != null) {
+            ticketIds.remove(message.ticket.id);
+        }
+        if (accessibleTicketIds != null) {
+            ticketIds.retainAll(accessibleTicketIds);
+        }
+        for (Long id : existingIds("Ticket", ticketIds)) {
+            references.add(TARGET_TYPE_TICKET + ":" + id);
+        }
+        for (Long id : existingIds("Article", articleIds)) {
+            references.add(TARGET_TYPE_ARTICLE + ":" + id);
+        }
+        List<CrossReference> added = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (String key : references) {
+            if (existing.contains(key)) {
+                continue;
+            }
+            int separator = key.indexOf(':');
+            CrossReference ref = new CrossReference();
+            ref.sourceMessage = message;
+            ref.sourceTicket = message.ticket;
+            ref.targetType = key.substring(0, separator);
+            ref.targetId = Long.parseLong(key.substring(separator + 1));
+            ref.createdAt = now;
+            added.add(ref);
+        }
+        if (!added.isEmpty()) {
+            // The references are written as one JDBC batch instead of a flush per row.
+            Session session = CrossReference.getEntityManager().unwrap(Session.class);
+            Integer batchSize = session.getJdbcBatchSize();
+            session.setJdbcBatchSize(Math.max(added.size(), batchSize == null ? 0 : batchSize));
+            try {
+                CrossReference.persist(added);
+                session.flush();
+            } finally {
+                session.setJdbcBatchSize(batchSize);
+            }
+        }
+        return references;
+    }
+
+    private void collectTargets(String body, Set<Long> ticketIds, Set<Long> articleIds) {
+        if (body == null || body.isBlank()) {
             return;
         }
-        Set<String> seen = new LinkedHashSet<>();
         for (ReferenceTypeConfig config : configs) {
-            Matcher matcher = config.pattern.matcher(message.body);
+            Set<Long> ids = config.targetType.equals(TARGET_TYPE_TICKET) ? ticketIds : articleIds;
+            Matcher matcher = config.pattern.matcher(body);
             while (matcher.find()) {
-                long targetId = Long.parseLong(matcher.group(1));
-                String key = config.targetType + ":" + targetId;
-                if (!seen.add(key)) {
-                    continue;
-                }
-                if (config.targetType.equals(TARGET_TYPE_TICKET)) {
-                    if (message.ticket != null && message.ticket.id != null && message.ticket.id.equals(targetId)) {
-                        continue;
-                    }
-                    if (accessibleTicketIds != null && !accessibleTicketIds.contains(targetId)) {
-                        continue;
-                    }
-                    Ticket target = Ticket.findById(targetId);
-                    if (target == null) {
-                        continue;
-                    }
-                } else if (config.targetType.equals(TARGET_TYPE_ARTICLE)) {
-                    Article target = Article.findById(targetId);
-                    if (target == null) {
-                        continue;
-                    }
-                }
-                CrossReference ref = new CrossReference();
-                ref.sourceMessage = message;
-                ref.sourceTicket = message.ticket;
-                ref.targetType = config.targetType;
-                ref.targetId = targetId;
-                ref.createdAt = LocalDateTime.now();
-                ref.persistAndFlush();
+                ids.add(Long.parseLong(matcher.group(1)));
             }
         }
     }
 
-    public Map<Long, Ticket> preloadReferencedTickets(List<String> bodies) {
-        Set<Long> allIds = new LinkedHashSet<>();
+    private List<Long> existingIds(String entity, Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return CrossReference.getEntityManager()
+                .createQuery("select e.id from " + entity + " e where e.id in :ids", Long.class)
+                .setParameter("ids", List.copyOf(ids)).getResultList();
+    }
+
+    public ReferenceCache preloadReferences(List<String> bodies) {
+        Set<Long> ticketIds = new LinkedHashSet<>();
+        Set<Long> articleIds = new LinkedHashSet<>();
         for (String body : bodies) {
-            if (body == null || body.isBlank()) {
-                continue;
+            collectTargets(body, ticketIds, articleIds);
+        }
+        Map<Long, Ticket> tickets = new LinkedHashMap<>();
+        if (!ticketIds.isEmpty()) {
+            for (Ticket t : Ticket.<Ticket> list("id in ?1", List.copyOf(ticketIds))) {
+                tickets.put(t.id, t);
             }
-            for (ReferenceTypeConfig config : configs) {
-                if (!config.targetType.equals(TARGET_TYPE_TICKET)) {
-                    continue;
-                }
-                Matcher matcher = config.pattern.matcher(body);
-                while (matcher.find()) {
-                    allIds.add(Long.parseLong(matcher.group(1)));
-                }
+        }
+        Map<Long, String> articleTitles = new HashMap<>();
+        if (!articleIds.isEmpty()) {
+            for (Object[] row : Article.getEntityManager()
+                    .createQuery("select a.id, a.title from Article a where a.id in :ids", Object[].class)
+                    .setParameter("ids", List.copyOf(articleIds)).getResultList()) {
+                articleTitles.put((Long) row[0], (String) row[1]);
             }
         }
-        if (allIds.isEmpty()) {
-            return Map.of();
+        return new ReferenceCache(tickets, articleTitles);
+    }
+
+    public Map<Long, String> transformBodies(List<Message> messages, String pathPrefix) {
+        Map<Long, String> bodies = new HashMap<>();
+        List<Message> misses = new ArrayList<>();
+        for (Message message : messages) {
+            String cached = RenderedBodyCache.get(message.id, message.body, pathPrefix);
+            if (cached != null) {
+                bodies.put(message.id, cached);
+            } else {
+                misses.add(message);
+            }
+        }
+        if (misses.isEmpty()) {
+            return bodies;
         }
-        List<Ticket> tickets = Ticket.list("id in ?1", List.copyOf(allIds));
-        Map<Long, Ticket> map = new LinkedHashMap<>();
-        for (Ticket t : tickets) {
-            map.put(t.id, t);
+        long generation = RenderedBodyCache.generation();
+        ReferenceCache cache = preloadReferences(misses.stream().map(message -> message.body).toList());
+        for (Message message : misses) {
+            String transformed = transformBody(message.body, pathPrefix, cache);
+            bodies.put(message.id, transformed);
+            Set<Long> ticketIds = new LinkedHashSet<>();
+            Set<Long> articleIds = new LinkedHashSet<>();
+            collectTargets(message.body, ticketIds, articleIds);
+            Set<String> targets = new LinkedHashSet<>();
+            ticketIds.forEach(id -> targets.add(TARGET_TYPE_TICKET + ":" + id));
+            articleIds.forEach(id -> targets.add(TARGET_TYPE_ARTICLE + ":" + id));
+            RenderedBodyCache.put(message.id, message.body, pathPrefix, transformed, targets, generation);
         }
-        return map;
+        return bodies;
     }
 
-    public String transformBody(String body, String pathPrefix, Map<Long, Ticket> ticketCache) {
+    public String transformBody(String body, String pathPrefix, ReferenceCache cache) {
         if (body == null || body.isBlank()) {
             return body;
         }
@@ -116,7 +195,7 @@ public class CrossReferenceService {
                 long targetId = Long.parseLong(matcher.group(1));
                 String replacement;
                 if (config.targetType.equals(TARGET_TYPE_TICKET)) {
-                    Ticket target = ticketCache.get(targetId);
+                    Ticket target = cache.tickets().get(targetId);
                     if (target != null) {
                         String displayName = config.displayPrefix + target.name;
                         replacement = "[" + displayName + "](" + pathPrefix + targetId + ")";
@@ -124,11 +203,11 @@ public class CrossReferenceService {
                         replacement = matcher.group(0);
                     }
                 } else if (config.targetType.equals(TARGET_TYPE_ARTICLE)) {
-                    Article article = Article.findById(targetId);
-                    if (article != null) {
-                        String displayName = article.title != null && !article.title.isBlank() ? article.title
-                                : config.displayPrefix + article.id;
-                        replacement = "[" + displayName + "](" + config.pathPrefix + article.id + ")";
+                    if (cache.articleTitles().containsKey(targetId)) {
+                        String title = cache.articleTitles().get(targetId);
+                        String displayName = title != null && !title.isBlank() ? title
+                                : config.displayPrefix + targetId;
+                        replacement = "[" + displayName + "](" + config.pathPrefix + targetId + ")";
                     } else {
                         replacement = matcher.group(0);
                     }
@@ -241,7 +320,7 @@ public class CrossReferenceService {
         return stripped.substring(0, EXCERPT_MAX_LENGTH).trim() + "...";
     }
 
-    public String transformBodyForPdf(String body, Map<Long, Ticket> ticketCache) {
+    public String transformBodyForPdf(String body, ReferenceCache cache) {
         if (body == null || body.isBlank()) {
             return body;
         }
@@ -253,17 +332,16 @@ public class CrossReferenceService {
                 long targetId = Long.parseLong(matcher.group(1));
                 String replacement;
                 if (config.targetType.equals(TARGET_TYPE_TICKET)) {
-                    Ticket target = ticketCache.get(targetId);
+                    Ticket target = cache.tickets().get(targetId);
                     if (target != null) {
                         replacement = config.displayPrefix + target.name;
                     } else {
                         replacement = matcher.group(0);
                     }
                 } else if (config.targetType.equals(TARGET_TYPE_ARTICLE)) {
-                    Article article = Article.findById(targetId);
-                    if (article != null) {
-                        replacement = article.title != null && !article.title.isBlank() ? article.title
-                                : config.displayPrefix + article.id;
+                    if (cache.articleTitles().containsKey(targetId)) {
+                        String title = cache.articleTitles().get(targetId);
+                        replacement = title != null && !title.isBlank() ? title : config.displayPrefix + targetId;
                     } else {
                         replacement = matcher.group(0);
                     }
@@ -282,6 +360,9 @@ public class CrossReferenceService {
             String detailPath) {
     }
 
+    public record ReferenceCache(Map<Long, Ticket> tickets, Map<Long, String> articleTitles) {
+    }
+
     public record CrossReferencesResponse(List<CrossReferenceEntry> references, List<CrossReferenceEntry> referencedBy,
             List<ArticleReferenceEntry> articles) {
     }
@@ -10,23 +10,31 @@ package ai.mnemosyne_systems.service;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.ws.rs.BadRequestException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 @ApplicationScoped
 public class CsvTicketImportSource implements TicketImportSource {
 
-    public static final int MAX_CSV_BYTES = 5 * 1024 * 1024;
     public static final List<String> REQUIRED_COLUMNS = List.of("source_key", "title", "company", "entitlement",
             "status", "initial_message");
     public static final List<String> OPTIONAL_COLUMNS = List.of("source_system", "requester_email", "category",
             "external_issue_link", "created_at");
 
+    private static final int READ_BUFFER_CHARS = 64 * 1024;
     private static final Set<String> KNOWN_COLUMNS = Set.of("source_system", "source_key", "title", "company",
             "entitlement", "status", "initial_message", "requester_email", "category", "external_issue_link",
             "created_at");
@@ -37,41 +45,58 @@ public class CsvTicketImportSource implements TicketImportSource {
     }
 
     @Override
-    public List<TicketImportRow> parse(byte[] data) {
-        if (data == null || data.length == 0) {
-            throw new BadRequestException("CSV file is required");
-        }
-        if (data.length > MAX_CSV_BYTES) {
-            throw new BadRequestException("CSV file must be 5 MB or smaller");
-        }
-        List<List<String>> rows = parseRows(new String(data, StandardCharsets.UTF_8));
-        if (rows.isEmpty()) {
+    public Iterator<TicketImportRow> rows(InputStream input) {
+        CsvReader reader = new CsvReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), READ_BUFFER_CHARS));
+        List<String> headerRow = reader.next();
+        if (headerRow == null || isBlankRow(headerRow)) {
             throw new BadRequestException("CSV header is required");
         }
-        Map<String, Integer> header = headerIndexes(rows.get(0));
+        Map<String, Integer> header = headerIndexes(headerRow);
         for (String required : REQUIRED_COLUMNS) {
             if (!header.containsKey(required)) {
                 throw new BadRequestException("CSV header is missing required column: " + required);
             }
         }
-        List<TicketImportRow> result = new ArrayList<>();
-        for (int i = 1; i < rows.size(); i++) {
-            List<String> row = rows.get(i);
-            if (isBlankRow(row)) {
-                continue;
+        return new Iterator<>() {
+            private TicketImportRow next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    List<String> row = reader.next();
+                    if (row == null) {
+                        return false;
+                    }
+                    if (!isBlankRow(row)) {
+                        next = toRow(reader.recordNumber(), row, header);
+                    }
+                }
+                return true;
             }
-            int rowNumber = i + 1;
-            String sourceSystem = value(row, header, "source_system");
-            if (sourceSystem == null || sourceSystem.isBlank()) {
-                sourceSystem = sourceType();
+
+            @Override
+            public TicketImportRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                TicketImportRow row = next;
+                next = null;
+                return row;
             }
-            result.add(new TicketImportRow(rowNumber, sourceSystem, value(row, header, "source_key"),
-                    value(row, header, "title"), value(row, header, "company"), value(row, header, "entitlement"),
-                    value(row, header, "status"), value(row, header, "initial_message"),
-                    value(row, header, "requester_email"), value(row, header, "category"),
-                    value(row, header, "external_issue_link"), value(row, header, "created_at")));
+        };
+    }
+
+    private TicketImportRow toRow(int rowNumber, List<String> row, Map<String, Integer> header) {
+        String sourceSystem = value(row, header, "source_system");
+        if (sourceSystem == null || sourceSystem.isBlank()) {
+            sourceSystem = sourceType();
         }
-        return result;
+        return new TicketImportRow(rowNumber, sourceSystem, value(row, header, "source_key"),
+                value(row, header, "title"), value(row, header, "company"), value(row, header, "entitlement"),
+                value(row, header, "status"), value(row, header, "initial_message"),
+                value(row, header, "requester_email"), value(row, header, "category"),
+                value(row, header, "external_issue_link"), value(row, header, "created_at"));
     }
 
     private Map<String, Integer> headerIndexes(List<String> headerRow) {
@@ -121,58 +146,85 @@ public class CsvTicketImportSource implements TicketImportSource {
         return true;
     }
 
-    private List<List<String>> parseRows(String csv) {
-        List<List<String>> rows = new ArrayList<>();
-        List<String> row = new ArrayList<>();
-        StringBuilder field = new StringBuilder();
-        boolean quoted = false;
-        int i = 0;
-        while (i < csv.length()) {
-            char ch = csv.charAt(i);
-            if (quoted) {
-                if (ch == '"') {
-                    if (i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
-                        field.append('"');
-                        i += 2;
-                        continue;
+    /**
+     * Reads one CSV record at a time; quoted fields may span lines.
+     */
+    private static final class CsvReader {
+
+        private final Reader reader;
+        private int pending = -2;
+        private int recordNumber;
+
+        CsvReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        int recordNumber() {
+            return recordNumber;
+        }
+
+        List<String> next() {
+            int ch = read();
+            if (ch == -1) {
+                return null;
+            }
+            recordNumber++;
+            List<String> row = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (ch == -1) {
+                    if (quoted) {
+                        throw new BadRequestException("CSV contains an unterminated quoted field");
                     }
-                    quoted = false;
-                } else {
-                    field.append(ch);
+                    row.add(field.toString());
+                    return row;
                 }
-                i++;
-                continue;
-            }
-            if (ch == '"') {
-                quoted = true;
-            } else if (ch == ',') {
-                row.add(field.toString());
-                field.setLength(0);
-            } else if (ch == '\n') {
-                row.add(field.toString());
-                rows.add(row);
-                row = new ArrayList<>();
-                field.setLength(0);
-            } else if (ch == '\r') {
-                if (i + 1 < csv.length() && csv.charAt(i + 1) == '\n') {
-                    i++;
+                if (quoted) {
+                    if (ch == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            pending = following;
+                        }
+                    } else {
+                        field.append((char) ch);
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                } else if (ch == ',') {
+                    row.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '\n') {
+                    row.add(field.toString());
+                    return row;
+                } else if (ch == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pending = following;
+                    }
+                    row.add(field.toString());
+                    return row;
+                } else {
+                    field.append((char) ch);
                 }
-                row.add(field.toString());
-                rows.add(row);
-                row = new ArrayList<>();
-                field.setLength(0);
-            } else {
-                field.append(ch);
+                ch = read();
             }
-            i++;
-        }
-        if (quoted) {
-            throw new BadRequestException("CSV contains an unterminated quoted field");
         }
-        row.add(field.toString());
-        if (!row.isEmpty() && !isBlankRow(row)) {
-            rows.add(row);
+
+        private int read() {
+            if (pending != -2) {
+                int ch = pending;
+                pending = -2;
+                return ch;
+            }
+            try {
+                return reader.read();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
         }
-        return rows;
     }
 }
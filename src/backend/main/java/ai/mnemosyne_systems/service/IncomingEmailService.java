@@ -41,6 +41,15 @@ public class IncomingEmailService {
     @Transactional
     public IncomingEmailResult processIncomingEmail(String from, String subject, String body,
             List<Attachment> attachments) {
+        return processIncomingEmail(from, subject, body, attachments, Routing.NONE);
+    }
+
+    /**
+     * Processes a message received on a mailbox; the routing only applies when the message opens a new ticket.
+     */
+    @Transactional
+    public IncomingEmailResult processIncomingEmail(String from, String subject, String body,
+            List<Attachment> attachments, Routing routing) {
         if (body == null || body.isBlank()) {
             throw new BadRequestException("Body is required");
         }
@@ -67,7 +76,7 @@ public class IncomingEmailService {
             }
         }
         if (ticket == null) {
-            ticket = createTicketForIncoming(sender, subject, body);
+            ticket = createTicketForIncoming(sender, subject, body, routing == null ? Routing.NONE : routing);
             if (ticket == null) {
                 return IncomingEmailResult.ignored();
             }
@@ -84,6 +93,14 @@ public class IncomingEmailService {
         return IncomingEmailResult.processed(ticket.name);
     }
 
+    /**
+     * Returns the ticket named in a subject tag such as {@code [ACME-00012]} when the sender belongs to it.
+     */
+    Ticket taggedTicket(User sender, String subject) {
+        Ticket ticket = resolveTicket(extractTicketName(subject));
+        return ticket != null && senderMatchesTicket(sender, ticket) ? ticket : null;
+    }
+
     private Ticket resolveTicket(String ticketName) {
         if (ticketName == null) {
             return null;
@@ -103,16 +120,17 @@ public class IncomingEmailService {
         return candidate == null ? null : candidate.trim();
     }
 
-    private Ticket createTicketForIncoming(User sender, String subject, String body) {
+    private Ticket createTicketForIncoming(User sender, String subject, String body, Routing routing) {
         Company company = companyForSender(sender);
         if (company == null) {
             LOGGER.warnf("Ignoring incoming email: no company found for From '%s'",
                     sender == null ? null : sender.email);
             return null;
         }
-        CompanyEntitlement entitlement = CompanyEntitlement.find(
-                "select ce from CompanyEntitlement ce join fetch ce.entitlement join fetch ce.supportLevel where ce.company = ?1 order by ce.entitlement.name, ce.supportLevel.level, ce.supportLevel.id",
-                company).firstResult();
+        CompanyEntitlement entitlement = routedEntitlement(company, routing.entitlementId());
+        if (entitlement == null) {
+            entitlement = defaultEntitlement(company);
+        }
         if (entitlement == null) {
             throw new BadRequestException("Entitlement is required to create ticket from email");
         }
@@ -123,13 +141,29 @@ public class IncomingEmailService {
         ticket.company = company;
         ticket.requester = sender;
         ticket.companyEntitlement = entitlement;
-        ticket.category = Category.findDefault();
+        Category category = routing.categoryId() == null ? null : Category.findById(routing.categoryId());
+        ticket.category = category != null ? category : Category.findDefault();
         ticket.persist();
         assignCompanyTams(ticket);
         return ticket;
     }
 
-    private String incomingTitle(String subject, String body, String fallback) {
+    CompanyEntitlement defaultEntitlement(Company company) {
+        return CompanyEntitlement.find(
+                "select ce from CompanyEntitlement ce join fetch ce.entitlement join fetch ce.supportLevel where ce.company = ?1 order by ce.entitlement.name, ce.supportLevel.level, ce.supportLevel.id",
+                company).firstResult();
+    }
+
+    private CompanyEntitlement routedEntitlement(Company company, Long entitlementId) {
+        if (entitlementId == null) {
+            return null;
+        }
+        return CompanyEntitlement.find(
+                "select ce from CompanyEntitlement ce join fetch ce.entitlement join fetch ce.supportLevel where ce.company = ?1 and ce.entitlement.id = ?2 order by ce.supportLevel.level, ce.supportLevel.id",
+                company, entitlementId).firstResult();
+    }
+
+    String incomingTitle(String subject, String body, String fallback) {
         String title = Ticket.normalizeTitle(subject);
         if (title != null) {
             return title;
@@ -145,7 +179,7 @@ public class IncomingEmailService {
         return fallback;
     }
 
-    private Company companyForSender(User sender) {
+    Company companyForSender(User sender) {
         if (sender == null) {
             return null;
         }
@@ -192,6 +226,15 @@ public class IncomingEmailService {
         }
     }
 
+    /**
+     * Defaults for tickets opened from a mailbox. An entitlement the sender's company does not hold falls back to the
+     * company's default entitlement.
+     */
+    public record Routing(Long categoryId, Long entitlementId) {
+
+        public static final Routing NONE = new Routing(null, null);
+    }
+
     public record IncomingEmailResult(boolean processed, String ticketName) {
 
         static IncomingEmailResult processed(String ticketName) {
@@ -0,0 +1,305 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.service;
+
+import ai.mnemosyne_systems.model.Attachment;
+import ai.mnemosyne_systems.model.OutboundMail;
+import ai.mnemosyne_systems.model.OutboundMailRecipient;
+import ai.mnemosyne_systems.model.User;
+import ai.mnemosyne_systems.util.AttachmentStorage;
+import io.quarkus.mailer.Mail;
+import io.quarkus.mailer.Mailer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Persistent outbox for ticket notifications. Mail is queued in the caller's transaction and delivered after commit by
+ * a background dispatcher that claims recipients in batches, sends to each recipient on its own and retries failed
+ * recipients with exponential backoff.
+ */
+@ApplicationScoped
+public class MailOutboxService {
+
+    private static final Logger LOGGER = Logger.getLogger(MailOutboxService.class);
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(5);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+    private static final Duration SENT_RETENTION = Duration.ofDays(7);
+    private static final List<String> DUE_STATUSES = List.of(OutboundMailRecipient.STATUS_PENDING,
+            OutboundMailRecipient.STATUS_SENDING);
+
+    @Inject
+    Mailer mailer;
+
+    @Inject
+    Event<MailQueued> mailQueued;
+
+    @ConfigProperty(name = "ticket.mailer.from")
+    String fromAddress;
+
+    @ConfigProperty(name = "ticket.mail.outbox.batch-size", defaultValue = "20")
+    int batchSize;
+
+    @ConfigProperty(name = "ticket.mail.outbox.max-attempts", defaultValue = "8")
+    int maxAttempts;
+
+    @ConfigProperty(name = "ticket.mail.outbox.retry-delay", defaultValue = "30s")
+    Duration retryDelay;
+
+    @ConfigProperty(name = "ticket.mail.outbox.dispatch-inline", defaultValue = "false")
+    boolean dispatchInline;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mail-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong totalSendMillis = new AtomicLong();
+    private final AtomicLong lastSendMillis = new AtomicLong();
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void enqueue(String subject, String textBody, String htmlBody, Long messageId, List<User> recipients) {
+        if (recipients == null || recipients.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        OutboundMail mail = new OutboundMail();
+        mail.subject = subject;
+        mail.textBody = textBody;
+        mail.htmlBody = htmlBody;
+        mail.messageId = messageId;
+        mail.createdAt = now;
+        mail.persist();
+        for (User user : recipients) {
+            OutboundMailRecipient recipient = new OutboundMailRecipient();
+            recipient.mail = mail;
+            recipient.email = user.email.trim().toLowerCase();
+            recipient.emailFormat = user.emailFormat;
+            recipient.nextAttemptAt = now;
+            recipient.persist();
+        }
+        mailQueued.fire(new MailQueued(mail.id));
+    }
+
+    void onMailQueued(@Observes(during = TransactionPhase.AFTER_SUCCESS) MailQueued event) {
+        Future<?> dispatch = executor.submit(this::dispatchPending);
+        if (!dispatchInline) {
+            return;
+        }
+        try {
+            dispatch.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            LOGGER.warn("Mail outbox dispatch failed", ex.getCause());
+        }
+    }
+
+    @Scheduled(every = "{ticket.mail.outbox.poll-interval}", delayed = "10s")
+    void scheduledDispatch() {
+        dispatchPending();
+        QuarkusTransaction.requiringNew().run(this::purgeSent);
+    }
+
+    public int dispatchPending() {
+        dispatchLock.lock();
+        try {
+            int sent = 0;
+            List<Long> claimed;
+            while (!(claimed = QuarkusTransaction.requiringNew().call(this::claimBatch)).isEmpty()) {
+                sent += sendBatch(claimed);
+            }
+            return sent;
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    public OutboxStats stats() {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            long queued = OutboundMailRecipient.count("status in ?1", DUE_STATUSES);
+            long failed = OutboundMailRecipient.count("status", OutboundMailRecipient.STATUS_FAILED);
+            LocalDateTime oldest = OutboundMailRecipient.getEntityManager()
+                    .createQuery(
+                            "select min(r.mail.createdAt) from OutboundMailRecipient r where r.status in :statuses",
+                            LocalDateTime.class)
+                    .setParameter("statuses", DUE_STATUSES).getSingleResult();
+            long batches = batchCount.get();
+            return new OutboxStats(queued, failed, sentCount.get(), failedAttempts.get(), batches,
+                    batches == 0 ? 0 : totalSendMillis.get() / batches, lastSendMillis.get(), oldest);
+        });
+    }
+
+    List<Long> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboundMailRecipient> due = OutboundMailRecipient
+                .<OutboundMailRecipient> find("status in ?1 and nextAttemptAt <= ?2 order by nextAttemptAt, id",
+                        DUE_STATUSES, now)
+                .page(0, batchSize).list();
+        LocalDateTime leaseUntil = now.plus(CLAIM_LEASE);
+        List<Long> claimed = new ArrayList<>();
+        for (OutboundMailRecipient recipient : due) {
+            int updated = OutboundMailRecipient.update(
+                    "status = ?1, nextAttemptAt = ?2 where id = ?3 and nextAttemptAt = ?4",
+                    OutboundMailRecipient.STATUS_SENDING, leaseUntil, recipient.id, recipient.nextAttemptAt);
+            if (updated == 1) {
+                claimed.add(recipient.id);
+            }
+        }
+        return claimed;
+    }
+
+    private int sendBatch(List<Long> recipientIds) {
+        Map<Long, Mail> mails = QuarkusTransaction.requiringNew().call(() -> prepare(recipientIds));
+        // The mailer cannot tell which mails of a multi-mail send were accepted before a failure, so each recipient is
+        // sent and marked on its own and a failure only retries that recipient.
+        int sent = 0;
+        for (Map.Entry<Long, Mail> entry : mails.entrySet()) {
+            List<Long> single = List.of(entry.getKey());
+            try {
+                timedSend(entry.getValue());
+            } catch (RuntimeException ex) {
+                QuarkusTransaction.requiringNew().run(() -> markFailed(single, ex));
+                continue;
+            }
+            QuarkusTransaction.requiringNew().run(() -> markSent(single));
+            sent++;
+        }
+        return sent;
+    }
+
+    private void timedSend(Mail mail) {
+        long started = System.nanoTime();
+        mailer.send(mail);
+        long elapsed = Duration.ofNanos(System.nanoTime() - started).toMillis();
+        batchCount.incrementAndGet();
+        totalSendMillis.addAndGet(elapsed);
+        lastSendMillis.set(elapsed);
+    }
+
+    private Map<Long, Mail> prepare(List<Long> recipientIds) {
+        List<OutboundMailRecipient> recipients = OutboundMailRecipient.<OutboundMailRecipient> find(
+                "select r from OutboundMailRecipient r join fetch r.mail where r.id in ?1 order by r.id", recipientIds)
+                .list();
+        Map<Long, List<Attachment>> attachmentsByMessage = new HashMap<>();
+        Map<Long, byte[]> payloads = new HashMap<>();
+        Map<Long, Mail> mails = new LinkedHashMap<>();
+        for (OutboundMailRecipient recipient : recipients) {
+            Mail mail = createMail(recipient);
+            Long messageId = recipient.mail.messageId;
+            if (messageId != null) {
+                for (Attachment attachment : attachmentsByMessage.computeIfAbsent(messageId,
+                        id -> Attachment.list("message.id = ?1 order by id", id))) {
+                    if (attachment.name != null && attachment.sizeBytes() > 0) {
+                        mail.addAttachment(attachment.name,
+                                payloads.computeIfAbsent(attachment.id,
+                                        id -> AttachmentStorage.readAllBytes(attachment)),
+                                attachment.mimeType == null || attachment.mimeType.isBlank()
+                                        ? "application/octet-stream"
+                                        : attachment.mimeType);
+                    }
+                }
+            }
+            mails.put(recipient.id, mail);
+        }
+        return mails;
+    }
+
+    private Mail createMail(OutboundMailRecipient recipient) {
+        OutboundMail content = recipient.mail;
+        if ("text".equalsIgnoreCase(recipient.emailFormat)) {
+            return Mail.withText(recipient.email, content.subject, content.textBody).setFrom(fromAddress);
+        }
+        if ("html".equalsIgnoreCase(recipient.emailFormat)) {
+            return Mail.withHtml(recipient.email, content.subject, content.htmlBody).setFrom(fromAddress);
+        }
+        return Mail.withText(recipient.email, content.subject, content.textBody).setFrom(fromAddress)
+                .setHtml(content.htmlBody);
+    }
+
+    private void markSent(Collection<Long> recipientIds) {
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboundMailRecipient recipient : OutboundMailRecipient.<OutboundMailRecipient> list("id in ?1",
+                recipientIds)) {
+            recipient.status = OutboundMailRecipient.STATUS_SENT;
+            recipient.attempts++;
+            recipient.sentAt = now;
+            recipient.lastError = null;
+        }
+        sentCount.addAndGet(recipientIds.size());
+    }
+
+    private void markFailed(Collection<Long> recipientIds, RuntimeException failure) {
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboundMailRecipient recipient : OutboundMailRecipient.<OutboundMailRecipient> list("id in ?1",
+                recipientIds)) {
+            recipient.attempts++;
+            recipient.lastError = failure.getMessage();
+            if (recipient.attempts >= maxAttempts) {
+                recipient.status = OutboundMailRecipient.STATUS_FAILED;
+                LOGGER.errorf(failure, "Giving up on mail to %s after %d attempts", recipient.email,
+                        recipient.attempts);
+            } else {
+                recipient.status = OutboundMailRecipient.STATUS_PENDING;
+                recipient.nextAttemptAt = now.plus(retryDelay(recipient.attempts));
+                LOGGER.warnf("Mail to %s failed (attempt %d), retrying at %s: %s", recipient.email, recipient.attempts,
+                        recipient.nextAttemptAt, failure.getMessage());
+            }
+        }
+        failedAttempts.addAndGet(recipientIds.size());
+    }
+
+    private Duration retryDelay(int attempts) {
+        Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts - 1, 16));
+        return delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay;
+    }
+
+    private void purgeSent() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(SENT_RETENTION);
+        OutboundMailRecipient.delete("status = ?1 and sentAt < ?2", OutboundMailRecipient.STATUS_SENT, cutoff);
+        OutboundMail.getEntityManager().createQuery(
+                "delete from OutboundMail m where not exists (select r.id from OutboundMailRecipient r where r.mail = m)")
+                .executeUpdate();
+    }
+
+    public record MailQueued(Long mailId) {
+    }
+
+    public record OutboxStats(long queued, long failed, long sent, long failedAttempts, long batches,
+            long averageSendMillis, long lastSendMillis, LocalDateTime oldestQueuedAt) {
+    }
+}
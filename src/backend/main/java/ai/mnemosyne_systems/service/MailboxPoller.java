@@ -0,0 +1,620 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.service;
+
+import ai.mnemosyne_systems.model.MailboxCheckpoint;
+import ai.mnemosyne_systems.util.MailMessageSupport;
+import ai.mnemosyne_systems.util.SpooledMimeMessage;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Flags;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Store;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.search.FlagTerm;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.jboss.logging.Logger;
+
+/**
+ * Polls one mailbox on its own connection and worker pool. IMAP folders are read incrementally from a UID checkpoint
+ * stored in the database, so flags changed by other mail clients do not hide or repeat messages; other stores fall back
+ * to the unseen-message search. A pass takes at most {@code maxMessagesPerPoll} messages and continues with the rest
+ * right away, so a large backlog is checkpointed in steps. Messages are downloaded on the mailbox connection and
+ * processed by the worker pool, keeping the messages of one sender in arrival order. With IMAP IDLE enabled a poll
+ * starts as soon as the server announces new mail.
+ */
+final class MailboxPoller {
+
+    private static final Logger LOGGER = Logger.getLogger(MailboxPoller.class);
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int MESSAGES_PER_WORKER = 4;
+    private static final Duration IDLE_RECONNECT_DELAY = Duration.ofSeconds(30);
+
+    private final Settings settings;
+    private final MessageHandler handler;
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private final AtomicBoolean pollRequested = new AtomicBoolean();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final ExecutorService workerPool;
+    private ScheduledExecutorService idleExecutor;
+    private Store store;
+    private volatile Folder idleFolder;
+    private volatile Instant nextPollAt = Instant.EPOCH;
+    private volatile Instant lastPolledAt;
+    private volatile int lastProcessed;
+    private volatile String lastError;
+
+    MailboxPoller(Settings settings, MessageHandler handler) {
+        this.settings = settings;
+        this.handler = handler;
+        String threadName = "mailbox-worker-" + settings.threadName() + "-";
+        AtomicInteger threads = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(settings.workers(), runnable -> {
+            Thread thread = new Thread(runnable, threadName + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    Settings settings() {
+        return settings;
+    }
+
+    synchronized void start() {
+        if (idleExecutor != null || !settings.idle() || !settings.protocol().startsWith("imap")) {
+            return;
+        }
+        idleExecutor = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "mailbox-idle-" + settings.threadName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        idleExecutor.submit(this::idleLoop);
+        long keepalive = Math.max(1, settings.idleKeepalive().toSeconds());
+        idleExecutor.scheduleWithFixedDelay(this::keepIdleAlive, keepalive, keepalive, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the poller. A pass that is running finishes its current window; queued work is still processed.
+     */
+    void close() {
+        running.set(false);
+        closeQuietly(idleFolder);
+        synchronized (this) {
+            if (idleExecutor != null) {
+                idleExecutor.shutdownNow();
+            }
+        }
+        workerPool.shutdown();
+        resetStore();
+    }
+
+    /**
+     * Waits for a pass that is still running after {@link #close()} to finish its window and save its checkpoint.
+     */
+    void awaitIdle() {
+        pollLock.lock();
+        pollLock.unlock();
+    }
+
+    /**
+     * Returns true and schedules the following poll when this mailbox is due at {@code now}.
+     */
+    boolean claimDue(Instant now) {
+        if (!running.get() || now.isBefore(nextPollAt)) {
+            return false;
+        }
+        nextPollAt = now.plus(settings.pollInterval());
+        return true;
+    }
+
+    Instant lastPolledAt() {
+        return lastPolledAt;
+    }
+
+    int lastProcessed() {
+        return lastProcessed;
+    }
+
+    String lastError() {
+        return lastError;
+    }
+
+    /**
+     * Polls the mailbox. A poll requested while another one runs is folded into a follow-up pass of the running poll.
+     */
+    int poll() {
+        pollRequested.set(true);
+        int processed = 0;
+        while (running.get() && pollRequested.get() && pollLock.tryLock()) {
+            try {
+                boolean continuation = false;
+                while (running.get() && (pollRequested.getAndSet(false) || continuation)) {
+                    Pass pass = pollOnce(continuation);
+                    processed += pass.processed();
+                    continuation = pass.backlog();
+                }
+            } finally {
+                pollLock.unlock();
+            }
+        }
+        return processed;
+    }
+
+    private Pass pollOnce(boolean continuation) {
+        if (!settings.complete()) {
+            LOGGER.warnf("Skipping poll of mailbox '%s': host/username/password are not fully configured",
+                    settings.name());
+            return record(new Pass(0, false), "Mailbox is not fully configured");
+        }
+        Folder folder = null;
+        try {
+            folder = connectedStore().getFolder(settings.folder());
+            folder.open(Folder.READ_WRITE);
+            Pass pass = folder instanceof UIDFolder uidFolder ? pollByUid(folder, uidFolder, continuation)
+                    : pollBySearch(folder);
+            return record(pass, null);
+        } catch (MessagingException e) {
+            LOGGER.errorf(e, "Failed to poll mailbox '%s'", settings.name());
+            resetStore();
+            return record(new Pass(0, false), e.getMessage());
+        } finally {
+            if (folder != null && folder.isOpen()) {
+                try {
+                    folder.close(settings.deleteAfterProcess());
+                } catch (MessagingException e) {
+                    LOGGER.warnf(e, "Failed to close folder of mailbox '%s'", settings.name());
+                }
+            }
+        }
+    }
+
+    private Pass record(Pass pass, String error) {
+        lastPolledAt = Instant.now();
+        lastProcessed = pass.processed();
+        lastError = error;
+        return pass;
+    }
+
+    private Pass pollBySearch(Folder folder) throws MessagingException {
+        List<Message> candidates = Arrays.asList(select(folder));
+        List<Message> selected = limit(candidates);
+        fetchEnvelopes(folder, selected, false);
+        int processed = 0;
+        for (List<Message> window : windows(selected)) {
+            boolean[] results = processDownloaded(window);
+            for (int i = 0; i < window.size(); i++) {
+                if (results[i]) {
+                    markProcessed(window.get(i));
+                    processed++;
+                }
+            }
+        }
+        // Without UIDs the rest is only found again once the handled messages leave the selection.
+        boolean backlog = selected.size() < candidates.size() && processed > 0
+                && (settings.unreadOnly() || settings.deleteAfterProcess());
+        return new Pass(processed, backlog);
+    }
+
+    Pass pollByUid(Folder folder, UIDFolder uidFolder, boolean continuation) throws MessagingException {
+        String mailboxKey = settings.mailboxKey();
+        long uidValidity = uidFolder.getUIDValidity();
+        MailboxCheckpoint stored = QuarkusTransaction.requiringNew()
+                .call(() -> MailboxCheckpoint.findByMailbox(mailboxKey));
+        boolean firstSync = stored == null || stored.uidValidity != uidValidity;
+        long lastUid;
+        Map<Long, Integer> retries;
+        List<Message> candidates = new ArrayList<>();
+        if (firstSync) {
+            // First sync, or the mailbox was recreated and old UIDs mean nothing: fall back to the flag selection once.
+            lastUid = Math.max(0, uidFolder.getUIDNext() - 1);
+            retries = new LinkedHashMap<>();
+            candidates.addAll(Arrays.asList(select(folder)));
+        } else {
+            lastUid = stored.lastUid;
+            retries = stored.retries();
+            // A continuation only picks up deferred messages; failed ones wait for the next regular poll.
+            long[] retryUids = retries.entrySet().stream().filter(entry -> !continuation || entry.getValue() == 0)
+                    .mapToLong(Map.Entry::getKey).toArray();
+            if (retryUids.length > 0) {
+                Set<Long> found = new HashSet<>();
+                for (Message message : uidFolder.getMessagesByUID(retryUids)) {
+                    if (message != null) {
+                        candidates.add(message);
+                        found.add(uid(uidFolder, message));
+                    }
+                }
+                // UIDs that no longer resolve were expunged elsewhere.
+                for (long uid : retryUids) {
+                    if (!found.contains(uid)) {
+                        retries.remove(uid);
+                    }
+                }
+            }
+            long after = lastUid;
+            for (Message message : uidFolder.getMessagesByUID(lastUid + 1, UIDFolder.LASTUID)) {
+                // A range past the last message still returns the last message, so the lower bound is checked here.
+                if (message != null && uid(uidFolder, message) > after) {
+                    candidates.add(message);
+                }
+            }
+        }
+        if (!candidates.isEmpty()) {
+            FetchProfile uids = new FetchProfile();
+            uids.add(UIDFolder.FetchProfileItem.UID);
+            folder.fetch(candidates.toArray(Message[]::new), uids);
+        }
+        candidates.sort(Comparator.comparingLong(message -> uid(uidFolder, message)));
+        List<Message> selected = limit(candidates);
+        List<Message> deferred = candidates.subList(selected.size(), candidates.size());
+        if (firstSync) {
+            // The checkpoint already lies past these, so they are carried as retries that have not been attempted.
+            for (Message message : deferred) {
+                retries.putIfAbsent(uid(uidFolder, message), 0);
+            }
+        }
+        fetchEnvelopes(folder, selected, true);
+        int processed = 0;
+        for (List<Message> window : windows(selected)) {
+            boolean[] results = processDownloaded(window);
+            for (int i = 0; i < window.size(); i++) {
+                Message message = window.get(i);
+                long uid = uid(uidFolder, message);
+                if (results[i]) {
+                    markProcessed(message);
+                    retries.remove(uid);
+                    processed++;
+                } else {
+                    int attempts = retries.merge(uid, 1, Integer::sum);
+                    if (attempts >= MAX_ATTEMPTS) {
+                        LOGGER.errorf("Giving up on message UID %d of mailbox '%s' after %d attempts", uid,
+                                settings.name(), attempts);
+                        retries.remove(uid);
+                    }
+                }
+                lastUid = Math.max(lastUid, uid);
+            }
+            saveCheckpoint(mailboxKey, uidValidity, lastUid, retries);
+        }
+        if (selected.isEmpty()) {
+            saveCheckpoint(mailboxKey, uidValidity, lastUid, retries);
+        }
+        return new Pass(processed, !deferred.isEmpty() && running.get());
+    }
+
+    /**
+     * Processes already downloaded messages on the worker pool. Messages from the same sender run in order on one
+     * worker so a reply never overtakes the message that creates its ticket. Senders of one company may create tickets
+     * side by side; their names are taken from the company's counter row, so they never collide.
+     */
+    boolean[] processMessages(List<? extends Message> messages) {
+        boolean[] results = new boolean[messages.size()];
+        Map<String, List<Integer>> bySender = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i) != null) {
+                bySender.computeIfAbsent(senderKey(messages.get(i), i), key -> new ArrayList<>()).add(i);
+            }
+        }
+        List<Future<?>> futures = new ArrayList<>();
+        for (List<Integer> indexes : bySender.values()) {
+            try {
+                futures.add(workerPool.submit(() -> {
+                    for (int index : indexes) {
+                        Message message = messages.get(index);
+                        try {
+                            handler.process(message, settings.routing());
+                            results[index] = true;
+                        } catch (Exception e) {
+                            LOGGER.errorf(e, "Failed to process message with subject '%s' from mailbox '%s'",
+                                    safeSubject(message), settings.name());
+                        }
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                // The poller was closed; the remaining messages stay unprocessed for the next poll.
+                break;
+            }
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                LOGGER.errorf(e.getCause(), "Worker of mailbox '%s' failed", settings.name());
+            }
+        }
+        return results;
+    }
+
+    private void idleLoop() {
+        while (running.get()) {
+            try {
+                Folder folder = connectedStore().getFolder(settings.folder());
+                if (!(folder instanceof IMAPFolder imapFolder)) {
+                    LOGGER.warnf("IDLE is enabled but the folder of mailbox '%s' does not support it", settings.name());
+                    return;
+                }
+                imapFolder.open(Folder.READ_ONLY);
+                idleFolder = imapFolder;
+                poll();
+                while (running.get() && imapFolder.isOpen()) {
+                    // Returns after the first untagged response, such as EXISTS for new mail, or a keepalive.
+                    imapFolder.idle(true);
+                    poll();
+                }
+            } catch (Exception e) {
+                if (running.get()) {
+                    LOGGER.warnf(e, "IDLE connection of mailbox '%s' lost, reconnecting in %d seconds", settings.name(),
+                            IDLE_RECONNECT_DELAY.toSeconds());
+                }
+            } finally {
+                closeQuietly(idleFolder);
+                idleFolder = null;
+            }
+            try {
+                Thread.sleep(IDLE_RECONNECT_DELAY.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void keepIdleAlive() {
+        Folder folder = idleFolder;
+        if (folder == null) {
+            return;
+        }
+        try {
+            // Any command on the folder ends the current IDLE; the loop then polls and idles again.
+            folder.getMessageCount();
+        } catch (MessagingException e) {
+            LOGGER.debugf(e, "IDLE keepalive of mailbox '%s' failed", settings.name());
+            closeQuietly(folder);
+        }
+    }
+
+    private synchronized Store connectedStore() throws MessagingException {
+        if (store != null && store.isConnected()) {
+            return store;
+        }
+        closeQuietly(store);
+        Store connected = Session.getInstance(mailProperties()).getStore(settings.protocol());
+        connected.connect(settings.host(), settings.port(), settings.username(), settings.password());
+        store = connected;
+        return store;
+    }
+
+    private synchronized void resetStore() {
+        closeQuietly(store);
+        store = null;
+    }
+
+    private Message[] select(Folder folder) throws MessagingException {
+        return settings.unreadOnly() ? folder.search(new FlagTerm(new Flags(Flags.Flag.SEEN), false))
+                : folder.getMessages();
+    }
+
+    private List<Message> limit(List<Message> messages) {
+        int max = settings.maxMessagesPerPoll();
+        return max <= 0 || messages.size() <= max ? messages : messages.subList(0, max);
+    }
+
+    private void fetchEnvelopes(Folder folder, List<Message> messages, boolean withUid) throws MessagingException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        FetchProfile profile = new FetchProfile();
+        profile.add(FetchProfile.Item.ENVELOPE);
+        profile.add(FetchProfile.Item.CONTENT_INFO);
+        profile.add(FetchProfile.Item.FLAGS);
+        if (withUid) {
+            profile.add(UIDFolder.FetchProfileItem.UID);
+        }
+        folder.fetch(messages.toArray(Message[]::new), profile);
+    }
+
+    private List<List<Message>> windows(List<Message> messages) {
+        int size = settings.workers() * MESSAGES_PER_WORKER;
+        List<List<Message>> windows = new ArrayList<>();
+        for (int from = 0; from < messages.size() && running.get(); from += size) {
+            windows.add(messages.subList(from, Math.min(from + size, messages.size())));
+        }
+        return windows;
+    }
+
+    private boolean[] processDownloaded(List<Message> window) {
+        List<MimeMessage> copies = download(window);
+        try {
+            return processMessages(copies);
+        } finally {
+            SpooledMimeMessage.release(copies);
+        }
+    }
+
+    /**
+     * Copies each message on the mailbox connection so workers parse and store it without sharing the folder. Messages
+     * above the spool threshold are copied to temporary files rather than memory. A message that cannot be downloaded
+     * is left as null and counts as failed.
+     */
+    private List<MimeMessage> download(List<Message> window) {
+        List<MimeMessage> copies = new ArrayList<>(window.size());
+        for (Message message : window) {
+            try {
+                copies.add(message instanceof MimeMessage mimeMessage
+                        ? SpooledMimeMessage.copy(mimeMessage, settings.spoolThreshold())
+                        : null);
+            } catch (MessagingException e) {
+                LOGGER.errorf(e, "Failed to download message with subject '%s' from mailbox '%s'", safeSubject(message),
+                        settings.name());
+                copies.add(null);
+            }
+        }
+        return copies;
+    }
+
+    private void markProcessed(Message message) {
+        try {
+            message.setFlag(Flags.Flag.SEEN, true);
+            if (settings.deleteAfterProcess()) {
+                message.setFlag(Flags.Flag.DELETED, true);
+            }
+        } catch (MessagingException e) {
+            LOGGER.warnf(e, "Failed to flag message with subject '%s' in mailbox '%s'", safeSubject(message),
+                    settings.name());
+        }
+    }
+
+    private void saveCheckpoint(String mailboxKey, long uidValidity, long lastUid, Map<Long, Integer> retries) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            MailboxCheckpoint checkpoint = MailboxCheckpoint.findByMailbox(mailboxKey);
+            if (checkpoint == null) {
+                checkpoint = new MailboxCheckpoint();
+                checkpoint.mailboxKey = mailboxKey;
+            }
+            checkpoint.uidValidity = uidValidity;
+            checkpoint.lastUid = lastUid;
+            checkpoint.retries(retries);
+            checkpoint.updatedAt = LocalDateTime.now();
+            if (!checkpoint.isPersistent()) {
+                checkpoint.persist();
+            }
+        });
+    }
+
+    private long uid(UIDFolder folder, Message message) {
+        try {
+            return folder.getUID(message);
+        } catch (MessagingException e) {
+            throw new IllegalStateException("Unable to read mailbox message UID", e);
+        }
+    }
+
+    private String senderKey(Message message, int index) {
+        try {
+            String from = MailMessageSupport.from(message);
+            return from == null ? "#" + index : from.trim().toLowerCase(Locale.ROOT);
+        } catch (MessagingException e) {
+            return "#" + index;
+        }
+    }
+
+    private Properties mailProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("mail.store.protocol", settings.protocol());
+        String prefix = "mail." + settings.protocol();
+        properties.setProperty(prefix + ".host", settings.host());
+        properties.setProperty(prefix + ".port", Integer.toString(settings.port()));
+        properties.setProperty(prefix + ".connectiontimeout", "60000");
+        // An idling connection stays silent until the keepalive, so reads may wait longer than a normal command.
+        long timeout = settings.idle() ? Math.max(60000, settings.idleKeepalive().toMillis() * 2) : 60000;
+        properties.setProperty(prefix + ".timeout", Long.toString(timeout));
+        if (settings.ssl()) {
+            properties.setProperty(prefix + ".ssl.enable", "true");
+        }
+        if (settings.startTls()) {
+            properties.setProperty(prefix + ".starttls.enable", "true");
+        }
+        return properties;
+    }
+
+    private void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            if (closeable instanceof Folder folder) {
+                if (folder.isOpen()) {
+                    folder.close(false);
+                }
+                return;
+            }
+            closeable.close();
+        } catch (Exception e) {
+            LOGGER.debugf(e, "Failed to close connection of mailbox '%s'", settings.name());
+        }
+    }
+
+    private String safeSubject(Message message) {
+        try {
+            return message == null ? null : message.getSubject();
+        } catch (MessagingException e) {
+            return null;
+        }
+    }
+
+    interface MessageHandler {
+        void process(Message message, IncomingEmailService.Routing routing) throws MessagingException, IOException;
+    }
+
+    /**
+     * Connection, cadence and routing of one mailbox. Two equal settings describe the same running poller.
+     */
+    record Settings(String name, String protocol, String host, int port, String username, String password,
+            String folder, boolean ssl, boolean startTls, boolean unreadOnly, boolean deleteAfterProcess,
+            Duration pollInterval, int workers, int maxMessagesPerPoll, boolean idle, Duration idleKeepalive,
+            long spoolThreshold, IncomingEmailService.Routing routing) {
+
+        Settings {
+            protocol = protocol == null || protocol.isBlank() ? "imap" : protocol.trim().toLowerCase(Locale.ROOT);
+            host = host == null ? "" : host.trim();
+            username = username == null ? "" : username.trim();
+            password = password == null ? "" : password;
+            folder = folder == null || folder.isBlank() ? "INBOX" : folder.trim();
+            workers = Math.max(1, workers);
+            routing = routing == null ? IncomingEmailService.Routing.NONE : routing;
+        }
+
+        boolean complete() {
+            return !host.isBlank() && !username.isBlank() && !password.isBlank();
+        }
+
+        String mailboxKey() {
+            return protocol + "://" + username.toLowerCase(Locale.ROOT) + "@" + host.toLowerCase(Locale.ROOT) + ":"
+                    + port + "/" + folder;
+        }
+
+        String threadName() {
+            return name.replaceAll("[^A-Za-z0-9]+", "-").toLowerCase(Locale.ROOT);
+        }
+    }
+
+    record Pass(int processed, boolean backlog) {
+    }
+}
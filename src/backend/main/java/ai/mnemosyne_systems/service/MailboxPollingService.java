@@ -9,35 +9,44 @@
 package ai.mnemosyne_systems.service;
 
 import ai.mnemosyne_systems.model.Attachment;
+import ai.mnemosyne_systems.model.MailboxSource;
+import ai.mnemosyne_systems.util.MailMessageSupport;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.configuration.MemorySize;
 import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.mail.BodyPart;
-import jakarta.mail.Flags;
-import jakarta.mail.Folder;
 import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
-import jakarta.mail.Multipart;
-import jakarta.mail.Part;
-import jakarta.mail.Session;
-import jakarta.mail.Store;
-import jakarta.mail.internet.InternetAddress;
-import jakarta.mail.internet.MimeUtility;
-import jakarta.mail.search.FlagTerm;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+/**
+ * Pulls mail from every enabled {@link MailboxSource} and from the mailbox in the {@code ticket.mailbox.*} properties.
+ * Each mailbox runs its own {@link MailboxPoller} with its own connection, workers and cadence, so mailboxes are polled
+ * side by side. Pollers are reconciled with the database on every dispatch, which also picks up edited sources.
+ */
 @ApplicationScoped
 public class MailboxPollingService {
 
     private static final Logger LOGGER = Logger.getLogger(MailboxPollingService.class);
+    private static final String CONFIG_POLLER = "config";
 
     @Inject
     IncomingEmailService incomingEmailService;
@@ -45,6 +54,9 @@ public class MailboxPollingService {
     @ConfigProperty(name = "ticket.mailbox.enabled", defaultValue = "false")
     boolean enabled;
 
+    @ConfigProperty(name = "ticket.mailbox.poll-interval", defaultValue = "5m")
+    Duration pollInterval;
+
     @ConfigProperty(name = "ticket.mailbox.protocol", defaultValue = "imap")
     String protocol;
 
@@ -75,219 +87,177 @@ public class MailboxPollingService {
     @ConfigProperty(name = "ticket.mailbox.delete-after-process", defaultValue = "false")
     boolean deleteAfterProcess;
 
-    @Scheduled(every = "{ticket.mailbox.poll-interval}")
-    void scheduledPoll() {
-        if (!enabled) {
-            return;
-        }
-        pollMailbox();
+    @ConfigProperty(name = "ticket.mailbox.workers", defaultValue = "4")
+    int workers;
+
+    @ConfigProperty(name = "ticket.mailbox.max-messages-per-poll", defaultValue = "500")
+    int maxMessagesPerPoll;
+
+    @ConfigProperty(name = "ticket.mailbox.idle", defaultValue = "false")
+    boolean idle;
+
+    @ConfigProperty(name = "ticket.mailbox.idle-keepalive", defaultValue = "9m")
+    Duration idleKeepalive;
+
+    @ConfigProperty(name = "ticket.mailbox.spool-threshold", defaultValue = "1M")
+    MemorySize spoolThreshold;
+
+    private final Map<String, MailboxPoller> pollers = new ConcurrentHashMap<>();
+    private MailboxPoller configPoller;
+    private ExecutorService pollExecutor;
+
+    @PostConstruct
+    void init() {
+        configPoller = new MailboxPoller(new MailboxPoller.Settings(CONFIG_POLLER, protocol, host.orElse(""), port,
+                username.orElse(""), password.orElse(""), folderName, ssl, startTls, unreadOnly, deleteAfterProcess,
+                pollInterval, workers, maxMessagesPerPoll, idle, idleKeepalive, spoolThreshold.asLongValue(),
+                IncomingEmailService.Routing.NONE), this::processMailboxMessage);
+        AtomicInteger threads = new AtomicInteger();
+        pollExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mailbox-poll-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    public int pollMailbox() {
-        if (!enabled) {
-            return 0;
-        }
-        String mailboxHost = host.map(String::trim).orElse("");
-        String mailboxUsername = username.map(String::trim).orElse("");
-        String mailboxPassword = password.orElse("");
-        if (mailboxHost.isBlank() || mailboxUsername.isBlank() || mailboxPassword.isBlank()) {
-            LOGGER.warn(
-                    "Skipping mailbox poll: mailbox is enabled but host/username/password are not fully configured");
-            return 0;
-        }
-        String normalizedProtocol = protocol == null || protocol.isBlank() ? "imap" : protocol.trim().toLowerCase();
-        Session session = Session.getInstance(mailProperties(normalizedProtocol, mailboxHost));
-        Folder folder = null;
-        try (Store store = session.getStore(normalizedProtocol)) {
-            store.connect(mailboxHost, port, mailboxUsername, mailboxPassword);
-            folder = store.getFolder(folderName.trim().isEmpty() ? "INBOX" : folderName.trim());
-            folder.open(Folder.READ_WRITE);
-            Message[] messages = unreadOnly ? folder.search(new FlagTerm(new Flags(Flags.Flag.SEEN), false))
-                    : folder.getMessages();
-            int processed = 0;
-            for (Message message : messages) {
-                try {
-                    processMailboxMessage(message);
-                    message.setFlag(Flags.Flag.SEEN, true);
-                    if (deleteAfterProcess) {
-                        message.setFlag(Flags.Flag.DELETED, true);
-                    }
-                    processed++;
-                } catch (Exception e) {
-                    LOGGER.errorf(e, "Failed to process mailbox message with subject '%s'", safeSubject(message));
-                }
-            }
-            return processed;
-        } catch (MessagingException e) {
-            LOGGER.error("Failed to poll mailbox", e);
-            return 0;
-        } finally {
-            if (folder != null && folder.isOpen()) {
-                try {
-                    folder.close(deleteAfterProcess);
-                } catch (MessagingException e) {
-                    LOGGER.warn("Failed to close mailbox folder", e);
-                }
-            }
-        }
+    @PreDestroy
+    void shutdown() {
+        pollExecutor.shutdownNow();
+        pollers.values().forEach(MailboxPoller::close);
+        configPoller.close();
     }
 
-    public void processMailboxMessage(Message message) throws MessagingException, IOException {
-        if (message == null) {
-            return;
+    @Scheduled(every = "{ticket.mailbox.dispatch-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void dispatch() {
+        refreshPollers();
+        Instant now = Instant.now();
+        for (MailboxPoller poller : pollers.values()) {
+            if (poller.claimDue(now)) {
+                pollExecutor.execute(poller::poll);
+            }
         }
-        MailboxMessage mailboxMessage = extractMailboxMessage(message);
-        incomingEmailService.processIncomingEmail(mailboxMessage.from(), mailboxMessage.subject(),
-                mailboxMessage.body(), mailboxMessage.attachments());
     }
 
-    private Properties mailProperties(String normalizedProtocol, String mailboxHost) {
-        Properties properties = new Properties();
-        properties.setProperty("mail.store.protocol", normalizedProtocol);
-        String prefix = "mail." + normalizedProtocol;
-        properties.setProperty(prefix + ".host", mailboxHost);
-        properties.setProperty(prefix + ".port", Integer.toString(port));
-        properties.setProperty(prefix + ".connectiontimeout", "60000");
-        properties.setProperty(prefix + ".timeout", "60000");
-        if (ssl) {
-            properties.setProperty(prefix + ".ssl.enable", "true");
+    /**
+     * Polls every mailbox now, side by side, and returns the number of messages processed.
+     */
+    public int pollMailbox() {
+        refreshPollers();
+        List<Future<Integer>> polls = new ArrayList<>();
+        for (MailboxPoller poller : pollers.values()) {
+            polls.add(pollExecutor.submit(poller::poll));
         }
-        if (startTls) {
-            properties.setProperty(prefix + ".starttls.enable", "true");
+        int processed = 0;
+        for (Future<Integer> poll : polls) {
+            try {
+                processed += poll.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                LOGGER.error("Mailbox poll failed", e.getCause());
+            }
         }
-        return properties;
+        return processed;
     }
 
-    private MailboxMessage extractMailboxMessage(Message message) throws MessagingException, IOException {
-        List<Attachment> attachments = new ArrayList<>();
-        MailContent content = extractContent(message, attachments);
-        return new MailboxMessage(extractFrom(message), message.getSubject(), content.body(), attachments);
+    /**
+     * Polls one mailbox source now. Returns null when the source is not enabled.
+     */
+    public Integer pollSource(Long sourceId) {
+        refreshPollers();
+        MailboxPoller poller = pollers.get(pollerKey(sourceId));
+        return poller == null ? null : poller.poll();
     }
 
-    private MailContent extractContent(Part part, List<Attachment> attachments) throws MessagingException, IOException {
-        if (part.isMimeType("text/plain") && !isAttachment(part)) {
-            return new MailContent(readText(part.getInputStream()));
-        }
-        if (part.isMimeType("text/html") && !isAttachment(part)) {
-            return new MailContent(stripHtml(readText(part.getInputStream())));
-        }
-        if (part.isMimeType("multipart/*")) {
-            Multipart multipart = (Multipart) part.getContent();
-            String plainText = null;
-            String htmlFallback = null;
-            for (int i = 0; i < multipart.getCount(); i++) {
-                BodyPart bodyPart = multipart.getBodyPart(i);
-                if (isAttachment(bodyPart)) {
-                    Attachment attachment = toAttachment(bodyPart);
-                    if (attachment != null) {
-                        attachments.add(attachment);
-                    }
-                    continue;
-                }
-                MailContent nested = extractContent(bodyPart, attachments);
-                if (!nested.body().isBlank()) {
-                    if (bodyPart.isMimeType("text/plain")) {
-                        if (plainText == null) {
-                            plainText = nested.body();
-                        }
-                        continue;
-                    }
-                    if (htmlFallback == null) {
-                        htmlFallback = nested.body();
-                    }
-                }
-            }
-            if (plainText != null) {
-                return new MailContent(plainText);
-            }
-            return new MailContent(htmlFallback == null ? "" : htmlFallback);
-        }
-        if (part.isMimeType("message/rfc822")) {
-            Object content = part.getContent();
-            if (content instanceof Part nestedPart) {
-                return extractContent(nestedPart, attachments);
-            }
+    public MailboxStatus status(Long sourceId) {
+        MailboxPoller poller = pollers.get(pollerKey(sourceId));
+        if (poller == null) {
+            return new MailboxStatus(false, null, 0, null);
         }
-        if (isAttachment(part)) {
-            Attachment attachment = toAttachment(part);
-            if (attachment != null) {
-                attachments.add(attachment);
-            }
-        }
-        return new MailContent("");
+        return new MailboxStatus(true, poller.lastPolledAt(), poller.lastProcessed(), poller.lastError());
     }
 
-    private boolean isAttachment(Part part) throws MessagingException {
-        String disposition = part.getDisposition();
-        return Part.ATTACHMENT.equalsIgnoreCase(disposition) || Part.INLINE.equalsIgnoreCase(disposition)
-                || (part.getFileName() != null && !part.getFileName().isBlank());
+    public void processMailboxMessage(Message message) throws MessagingException, IOException {
+        processMailboxMessage(message, IncomingEmailService.Routing.NONE);
     }
 
-    private Attachment toAttachment(Part part) throws MessagingException, IOException {
-        byte[] data = part.getInputStream().readAllBytes();
-        if (data.length == 0) {
-            return null;
+    public void processMailboxMessage(Message message, IncomingEmailService.Routing routing)
+            throws MessagingException, IOException {
+        if (message == null) {
+            return;
         }
-        Attachment attachment = new Attachment();
-        attachment.name = decodeFileName(part.getFileName());
-        attachment.mimeType = normalizeContentType(part.getContentType());
-        attachment.data = data;
-        return attachment;
+        MailboxMessage mailboxMessage = extractMailboxMessage(message);
+        incomingEmailService.processIncomingEmail(mailboxMessage.from(), mailboxMessage.subject(),
+                mailboxMessage.body(), mailboxMessage.attachments(), routing);
     }
 
-    private String decodeFileName(String value) {
-        if (value == null || value.isBlank()) {
-            return "attachment";
+    /**
+     * Starts pollers for new or edited sources and closes pollers whose source was disabled, changed or removed.
+     */
+    synchronized void refreshPollers() {
+        Map<String, MailboxPoller.Settings> wanted = new LinkedHashMap<>();
+        if (enabled) {
+            wanted.put(CONFIG_POLLER, configPoller.settings());
         }
         try {
-            return MimeUtility.decodeText(value);
-        } catch (Exception e) {
-            return value;
-        }
-    }
-
-    private String normalizeContentType(String contentType) {
-        if (contentType == null || contentType.isBlank()) {
-            return "application/octet-stream";
+            QuarkusTransaction.requiringNew().run(() -> {
+                for (MailboxSource source : MailboxSource.<MailboxSource> list("enabled = true order by id")) {
+                    wanted.put(pollerKey(source.id), settings(source));
+                }
+            });
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to load mailbox sources, keeping the running pollers", e);
+            return;
         }
-        int separator = contentType.indexOf(';');
-        return separator >= 0 ? contentType.substring(0, separator).trim() : contentType.trim();
+        List<MailboxPoller> closed = new ArrayList<>();
+        pollers.entrySet().removeIf(entry -> {
+            if (entry.getValue().settings().equals(wanted.get(entry.getKey()))) {
+                return false;
+            }
+            if (entry.getValue() != configPoller) {
+                entry.getValue().close();
+                closed.add(entry.getValue());
+            }
+            return true;
+        });
+        // A replacement reads the same checkpoint, so it may only start once the old pass has saved its progress.
+        closed.forEach(MailboxPoller::awaitIdle);
+        wanted.forEach((key, settings) -> pollers.computeIfAbsent(key, ignored -> {
+            MailboxPoller poller = CONFIG_POLLER.equals(key) ? configPoller
+                    : new MailboxPoller(settings, this::processMailboxMessage);
+            poller.start();
+            return poller;
+        }));
     }
 
-    private String extractFrom(Message message) throws MessagingException {
-        if (message == null || message.getFrom() == null || message.getFrom().length == 0) {
-            return null;
-        }
-        if (message.getFrom()[0] instanceof InternetAddress address) {
-            return address.getAddress();
-        }
-        return message.getFrom()[0].toString();
+    private MailboxPoller.Settings settings(MailboxSource source) {
+        return new MailboxPoller.Settings(source.name, source.protocol, source.host, source.port, source.username,
+                source.password, source.folder, source.ssl, source.startTls, source.unreadOnly,
+                source.deleteAfterProcess, Duration.ofSeconds(Math.max(1, source.pollIntervalSeconds)), source.workers,
+                source.maxMessagesPerPoll, source.idle, idleKeepalive, spoolThreshold.asLongValue(),
+                new IncomingEmailService.Routing(source.defaultCategory == null ? null : source.defaultCategory.id,
+                        source.defaultEntitlement == null ? null : source.defaultEntitlement.id));
     }
 
-    private String readText(InputStream inputStream) throws IOException {
-        return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+    private String pollerKey(Long sourceId) {
+        return "source:" + sourceId;
     }
 
-    private String stripHtml(String html) {
-        if (html == null || html.isBlank()) {
-            return "";
+    private MailboxMessage extractMailboxMessage(Message message) throws MessagingException, IOException {
+        MailMessageSupport.MailContent content = MailMessageSupport.read(message);
+        MailMessageSupport.StoredAttachments stored = MailMessageSupport.storeAttachments(content.attachments());
+        String from = MailMessageSupport.from(message);
+        if (!stored.skipped().isEmpty()) {
+            LOGGER.warnf("Skipped %d attachment(s) over the size limit in mail from '%s'", stored.skipped().size(),
+                    from);
         }
-        return html.replaceAll("(?i)<br\\s*/?>", "\n").replaceAll("(?i)</p>", "\n\n").replaceAll("(?i)</div>", "\n")
-                .replaceAll("<[^>]+>", " ").replace("&nbsp;", " ").replaceAll("[ \\t\\x0B\\f\\r]+", " ")
-                .replaceAll(" *\n *", "\n").trim();
+        return new MailboxMessage(from, message.getSubject(), content.body() + stored.note(), stored.attachments());
     }
 
-    private String safeSubject(Message message) {
-        try {
-            return message == null ? null : message.getSubject();
-        } catch (MessagingException e) {
-            return null;
-        }
+    public record MailboxStatus(boolean running, Instant lastPolledAt, int lastProcessed, String lastError) {
     }
 
     private record MailboxMessage(String from, String subject, String body, List<Attachment> attachments) {
     }
-
-    private record MailContent(String body) {
-    }
 }
@@ -8,13 +8,18 @@
 
 package ai.mnemosyne_systems.service;
 
+import ai.mnemosyne_systems.model.Message;
+import ai.mnemosyne_systems.util.RenderedBodyCache;
 import jakarta.enterprise.context.ApplicationScoped;
+import java.util.Set;
 import org.commonmark.parser.Parser;
 import org.commonmark.renderer.html.HtmlRenderer;
 
 @ApplicationScoped
 public class MarkdownService {
 
+    private static final String HTML_VARIANT = "html";
+
     private final Parser parser = Parser.builder().build();
     private final HtmlRenderer renderer = HtmlRenderer.builder().escapeHtml(true).build();
 
@@ -24,4 +29,18 @@ public class MarkdownService {
         }
         return renderer.render(parser.parse(markdown));
     }
+
+    public String renderHtml(Message message) {
+        if (message == null) {
+            return "";
+        }
+        String cached = RenderedBodyCache.get(message.id, message.body, HTML_VARIANT);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = RenderedBodyCache.generation();
+        String html = renderHtml(message.body);
+        RenderedBodyCache.put(message.id, message.body, HTML_VARIANT, html, Set.of(), generation);
+        return html;
+    }
 }
@@ -0,0 +1,274 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.service;
+
+import ai.mnemosyne_systems.util.MailMessageSupport;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Part;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.ws.rs.BadRequestException;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Reads an mbox archive one message at a time. Each message becomes a row keyed by its Message-ID; replies carry their
+ * In-Reply-To and References ids as thread keys so they continue the ticket of an earlier message.
+ */
+@ApplicationScoped
+public class MboxTicketImportSource implements TicketImportSource {
+
+    static final int MAX_MESSAGE_BYTES = 64 * 1024 * 1024;
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    private static final byte[] FROM_LINE = "From ".getBytes(StandardCharsets.US_ASCII);
+
+    private final Session session = Session.getInstance(new Properties());
+
+    @Override
+    public String sourceType() {
+        return "mbox";
+    }
+
+    @Override
+    public boolean mailThreading() {
+        return true;
+    }
+
+    @Override
+    public Iterator<TicketImportRow> rows(InputStream input) {
+        MboxReader reader = new MboxReader(new BufferedInputStream(input, READ_BUFFER_BYTES));
+        if (!reader.start()) {
+            throw new BadRequestException("mbox file must start with a From line");
+        }
+        return new Iterator<>() {
+            private int messageNumber;
+            private TicketImportRow next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    byte[] message = reader.next();
+                    if (message == null) {
+                        return false;
+                    }
+                    messageNumber++;
+                    next = toRow(messageNumber, message);
+                }
+                return true;
+            }
+
+            @Override
+            public TicketImportRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                TicketImportRow row = next;
+                next = null;
+                return row;
+            }
+        };
+    }
+
+    private TicketImportRow toRow(int messageNumber, byte[] data) {
+        try {
+            MimeMessage message = new MimeMessage(session, new ByteArrayInputStream(data));
+            MailMessageSupport.MailContent content = MailMessageSupport.read(message);
+            List<TicketImportAttachment> attachments = new ArrayList<>();
+            List<String> skipped = new ArrayList<>();
+            for (Part part : MailMessageSupport.fittingAttachments(content.attachments(), skipped)) {
+                attachments.add(new TicketImportAttachment(MailMessageSupport.fileName(part),
+                        MailMessageSupport.contentType(part), () -> open(part)));
+            }
+            String note = MailMessageSupport.skippedNote(skipped, MailMessageSupport.maxAttachmentBytes());
+            String body = content.body() == null ? null : content.body().trim() + note;
+            String messageId = messageId(message.getMessageID());
+            String createdAt = message.getSentDate() == null ? null
+                    : LocalDateTime.ofInstant(message.getSentDate().toInstant(), ZoneId.systemDefault()).toString();
+            return new TicketImportRow(messageNumber, null, messageId == null ? "sha256:" + digest(data) : messageId,
+                    message.getSubject(), null, null, null, body,
+                    MailMessageSupport.from(message), null, null, createdAt, attachments, List.of(),
+                    threadKeys(message));
+        } catch (MessagingException | IOException | RuntimeException ex) {
+            return TicketImportRow.unreadable(messageNumber, "sha256:" + digest(data),
+                    "mbox message " + messageNumber + " could not be parsed");
+        }
+    }
+
+    private InputStream open(Part part) throws IOException {
+        try {
+            return part.getInputStream();
+        } catch (MessagingException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    private List<String> threadKeys(MimeMessage message) throws MessagingException {
+        // The direct parent is the most specific match, then References from the newest ancestor back to the root.
+        Set<String> keys = new LinkedHashSet<>();
+        String inReplyTo = message.getHeader("In-Reply-To", " ");
+        if (inReplyTo != null) {
+            for (String id : inReplyTo.trim().split("\\s+")) {
+                addMessageId(keys, id);
+            }
+        }
+        String references = message.getHeader("References", " ");
+        if (references != null) {
+            String[] ids = references.trim().split("\\s+");
+            for (int i = ids.length - 1; i >= 0; i--) {
+                addMessageId(keys, ids[i]);
+            }
+        }
+        return List.copyOf(keys);
+    }
+
+    private void addMessageId(Set<String> keys, String value) {
+        String id = messageId(value);
+        if (id != null) {
+            keys.add(id);
+        }
+    }
+
+    private String messageId(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.startsWith("<")) {
+            trimmed = trimmed.substring(1);
+        }
+        if (trimmed.endsWith(">")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed.isBlank() ? null : trimmed.trim();
+    }
+
+    private String digest(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Splits the archive on {@code From } separator lines and undoes mboxrd {@code >From } quoting.
+     */
+    private static final class MboxReader {
+
+        private final InputStream input;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private boolean atSeparator;
+        private int messageNumber;
+
+        MboxReader(InputStream input) {
+            this.input = input;
+        }
+
+        boolean start() {
+            while (readLine()) {
+                byte[] bytes = line.toByteArray();
+                if (startsWith(bytes, 0, FROM_LINE)) {
+                    atSeparator = true;
+                    return true;
+                }
+                if (!isBlank(bytes)) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        byte[] next() {
+            if (!atSeparator) {
+                return null;
+            }
+            atSeparator = false;
+            messageNumber++;
+            ByteArrayOutputStream message = new ByteArrayOutputStream();
+            while (readLine()) {
+                byte[] bytes = line.toByteArray();
+                if (startsWith(bytes, 0, FROM_LINE)) {
+                    atSeparator = true;
+                    break;
+                }
+                int offset = quotedFromOffset(bytes);
+                if (message.size() + bytes.length - offset > MAX_MESSAGE_BYTES) {
+                    throw new BadRequestException(
+                            "mbox message " + messageNumber + " exceeds " + MAX_MESSAGE_BYTES / (1024 * 1024) + " MB");
+                }
+                message.write(bytes, offset, bytes.length - offset);
+            }
+            return message.toByteArray();
+        }
+
+        private boolean readLine() {
+            line.reset();
+            try {
+                int value;
+                while ((value = input.read()) != -1) {
+                    line.write(value);
+                    if (value == '\n') {
+                        return true;
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return line.size() > 0;
+        }
+
+        private int quotedFromOffset(byte[] bytes) {
+            int index = 0;
+            while (index < bytes.length && bytes[index] == '>') {
+                index++;
+            }
+            return index > 0 && startsWith(bytes, index, FROM_LINE) ? 1 : 0;
+        }
+
+        private static boolean startsWith(byte[] bytes, int offset, byte[] prefix) {
+            if (bytes.length - offset < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (bytes[offset + i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isBlank(byte[] bytes) {
+            for (byte value : bytes) {
+                if (!Character.isWhitespace(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads one JSON ticket object per line, including its follow-up messages and base64 attachments. Only the current line
+ * is held in memory.
+ */
+@ApplicationScoped
+public class NdjsonTicketImportSource implements TicketImportSource {
+
+    public static final List<String> REQUIRED_FIELDS = List.of("source_key", "title", "company", "entitlement",
+            "initial_message");
+    public static final List<String> OPTIONAL_FIELDS = List.of("source_system", "status", "requester_email", "category",
+            "external_issue_link", "created_at", "attachments", "messages");
+
+    private static final int READ_BUFFER_CHARS = 64 * 1024;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Override
+    public String sourceType() {
+        return "ndjson";
+    }
+
+    @Override
+    public Iterator<TicketImportRow> rows(InputStream input) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8),
+                READ_BUFFER_CHARS);
+        Iterator<TicketImportRow> rows = new Iterator<>() {
+            private int lineNumber;
+            private TicketImportRow next;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (next == null) {
+                        String line = reader.readLine();
+                        if (line == null) {
+                            return false;
+                        }
+                        lineNumber++;
+                        if (!line.isBlank()) {
+                            next = toRow(lineNumber, line);
+                        }
+                    }
+                    return true;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            @Override
+            public TicketImportRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                TicketImportRow row = next;
+                next = null;
+                return row;
+            }
+        };
+        if (!rows.hasNext()) {
+            throw new BadRequestException("NDJSON file contains no tickets");
+        }
+        return rows;
+    }
+
+    private TicketImportRow toRow(int lineNumber, String line) {
+        NdjsonTicket ticket;
+        try {
+            ticket = objectMapper.readValue(line, NdjsonTicket.class);
+        } catch (JsonProcessingException ex) {
+            ticket = null;
+        }
+        if (ticket == null) {
+            return TicketImportRow.unreadable(lineNumber, null,
+                    "NDJSON line " + lineNumber + " is not a ticket object");
+        }
+        List<TicketImportMessage> messages = new ArrayList<>();
+        if (ticket.messages() != null) {
+            for (NdjsonMessage message : ticket.messages()) {
+                if (message != null) {
+                    messages.add(new TicketImportMessage(message.authorEmail(), message.body(), message.createdAt(),
+                            message.isPublic() == null || message.isPublic(), attachments(message.attachments())));
+                }
+            }
+        }
+        String initialMessage = ticket.initialMessage();
+        String requesterEmail = ticket.requesterEmail();
+        String createdAt = ticket.createdAt();
+        List<TicketImportAttachment> attachments = attachments(ticket.attachments());
+        if ((initialMessage == null || initialMessage.isBlank()) && !messages.isEmpty()) {
+            // Thread exports often carry the opening message as the first entry of the thread.
+            TicketImportMessage first = messages.remove(0);
+            initialMessage = first.body();
+            requesterEmail = requesterEmail == null || requesterEmail.isBlank() ? first.authorEmail() : requesterEmail;
+            createdAt = createdAt == null || createdAt.isBlank() ? first.createdAt() : createdAt;
+            attachments = first.attachments();
+        }
+        return new TicketImportRow(lineNumber, ticket.sourceSystem(), ticket.sourceKey(), ticket.title(),
+                ticket.company(), ticket.entitlement(), ticket.status(), initialMessage, requesterEmail,
+                ticket.category(), ticket.externalIssueLink(), createdAt, attachments, messages, List.of());
+    }
+
+    private List<TicketImportAttachment> attachments(List<NdjsonAttachment> attachments) {
+        if (attachments == null || attachments.isEmpty()) {
+            return List.of();
+        }
+        List<TicketImportAttachment> converted = new ArrayList<>();
+        for (NdjsonAttachment attachment : attachments) {
+            if (attachment == null || attachment.data() == null || attachment.data().isBlank()) {
+                continue;
+            }
+            String data = attachment.data();
+            converted.add(new TicketImportAttachment(
+                    attachment.name() == null || attachment.name().isBlank() ? "attachment" : attachment.name(),
+                    attachment.mimeType() == null || attachment.mimeType().isBlank() ? "application/octet-stream"
+                            : attachment.mimeType(),
+                    () -> new ByteArrayInputStream(Base64.getMimeDecoder().decode(data))));
+        }
+        return converted;
+    }
+
+    record NdjsonTicket(@JsonProperty("source_system") String sourceSystem,
+            @JsonProperty("source_key") String sourceKey, String title, String company, String entitlement,
+            String status, @JsonProperty("initial_message") String initialMessage,
+            @JsonProperty("requester_email") String requesterEmail, String category,
+            @JsonProperty("external_issue_link") String externalIssueLink, @JsonProperty("created_at") String createdAt,
+            List<NdjsonAttachment> attachments, List<NdjsonMessage> messages) {
+    }
+
+    record NdjsonMessage(@JsonProperty("author_email") String authorEmail, String body,
+            @JsonProperty("created_at") String createdAt, @JsonProperty("public") Boolean isPublic,
+            List<NdjsonAttachment> attachments) {
+    }
+
+    record NdjsonAttachment(String name, @JsonProperty("mime_type") String mimeType, String data) {
+    }
+}
@@ -8,44 +8,119 @@
 
 package ai.mnemosyne_systems.service;
 
+import ai.mnemosyne_systems.infra.BrandingProvider;
 import ai.mnemosyne_systems.model.*;
+import ai.mnemosyne_systems.util.AttachmentStorage;
 import com.lowagie.text.*;
 import com.lowagie.text.Font;
 import com.lowagie.text.Image;
+import com.lowagie.text.pdf.PdfContentByte;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfReader;
 import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfTemplate;
 import com.lowagie.text.pdf.PdfWriter;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.core.StreamingOutput;
 
 import java.awt.*;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.Semaphore;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Renders ticket and report PDFs straight to the response. Exports are limited to a few at a time; embedded PDF pages
+ * and image resolution are capped so a single ticket cannot take an unbounded amount of memory.
+ */
 @ApplicationScoped
 public class PdfService {
 
     @jakarta.inject.Inject
     CrossReferenceService crossReferenceService;
 
+    @jakarta.inject.Inject
+    BrandingProvider brandingProvider;
+
+    private static final long EXPORT_RETRY_SECONDS = 5;
+
     private final Color red = new Color(176, 0, 32);
     private final Color lightRedFontColor = new Color(178, 15, 30);
     private final Color lightRed = new Color(244, 235, 236);
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM dd yyyy, h.mma");
 
-    public byte[] generateTicketPdf(Ticket ticket, List<Message> messages) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+    @ConfigProperty(name = "ticket.pdf.max-embedded-pages", defaultValue = "50")
+    int maxEmbeddedPages;
+
+    @ConfigProperty(name = "ticket.pdf.max-image-dimension", defaultValue = "1600")
+    int maxImageDimension;
+
+    @ConfigProperty(name = "ticket.pdf.max-concurrent-exports", defaultValue = "2")
+    int maxConcurrentExports;
+
+    private Semaphore exports;
+
+    @PostConstruct
+    void init() {
+        exports = new Semaphore(Math.max(1, maxConcurrentExports));
+    }
+
+    public StreamingOutput ticketPdf(Ticket ticket, List<Message> messages) {
+        return output -> {
+            acquireExport();
+            try {
+                writeTicketPdf(ticket, messages, output);
+            } finally {
+                exports.release();
+            }
+        };
+    }
+
+    public StreamingOutput reportPdf(ReportData data, String companyName, String period, boolean showCompanyTable) {
+        return output -> {
+            acquireExport();
+            try {
+                writeReportPdf(data, companyName, period, showCompanyTable, output);
+            } finally {
+                exports.release();
+            }
+        };
+    }
+
+    /**
+     * Takes an export slot when the body is written, so a response that is never written holds none. Nothing has been
+     * sent yet at that point, and a busy export is answered with a retry right away instead of waiting for a slot.
+     */
+    private void acquireExport() {
+        if (!exports.tryAcquire()) {
+            throw new ServiceUnavailableException(EXPORT_RETRY_SECONDS);
+        }
+    }
+
+    void writeTicketPdf(Ticket ticket, List<Message> messages, OutputStream outputStream) {
+        try {
             Document document = new Document();
             PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+            writer.setCloseStream(false);
             document.open();
             Color color = getTicketColor(ticket);
             Font titleFont = FontFactory.getFont(FontFactory.COURIER_BOLD, 16);
@@ -53,8 +128,7 @@ public class PdfService {
             Font normalFont = FontFactory.getFont(FontFactory.COURIER, 12);
 
             // Owner Header
-            Installation installation = getOwner();
-            Chunk ownerHeader = new Chunk(installation.name, subHeaderFont);
+            Chunk ownerHeader = new Chunk(brandingProvider.installationCompanyName(), subHeaderFont);
             ownerHeader.setBackground(red, 5f, 5f, 400f, 5f);
             Paragraph owner = new Paragraph(ownerHeader);
             owner.setAlignment(Paragraph.ALIGN_LEFT);
@@ -130,11 +204,9 @@ public class PdfService {
             messagesSubTitle.setSpacingAfter(20);
             document.add(messagesSubTitle);
             // messages and attachments details
-            PdfPTable messagesTable = generateMessages(messages, writer);
-            document.add(messagesTable);
+            addMessages(document, messages, writer);
             document.add(Chunk.NEWLINE);
             document.close();
-            return outputStream.toByteArray();
         } catch (IOException e) {
             throw new RuntimeException("Failed to generate PDF", e);
         } catch (Exception e) {
@@ -142,12 +214,14 @@ public class PdfService {
         }
     }
 
-    public byte[] generateReportPdf(ReportData data, String companyName, String period, boolean showCompanyTable,
-            Map<String, String> chartImages) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+    void writeReportPdf(ReportData data, String companyName, String period, boolean showCompanyTable,
+            OutputStream outputStream) {
+        try {
             Document document = new Document();
-            PdfWriter.getInstance(document, outputStream);
+            PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+            writer.setCloseStream(false);
             document.open();
+            PdfContentByte canvas = writer.getDirectContent();
 
             Font titleFont = FontFactory.getFont(FontFactory.COURIER_BOLD, 16);
             Font sectionFont = FontFactory.getFont(FontFactory.COURIER_BOLD, 13);
@@ -155,9 +229,8 @@ public class PdfService {
             Font subFont = FontFactory.getFont(FontFactory.COURIER, 10, Color.GRAY);
 
             // Owner header
-            Installation installation = getOwner();
             Font subHeaderFont = FontFactory.getFont(FontFactory.COURIER_BOLD, 14, Color.white);
-            Chunk ownerHeader = new Chunk(installation.name, subHeaderFont);
+            Chunk ownerHeader = new Chunk(brandingProvider.installationCompanyName(), subHeaderFont);
             ownerHeader.setBackground(red, 5f, 5f, 400f, 5f);
             Paragraph owner = new Paragraph(ownerHeader);
             owner.setAlignment(Paragraph.ALIGN_LEFT);
@@ -179,7 +252,7 @@ public class PdfService {
             // Tickets by Status
             document.add(new Paragraph("Tickets by Status", sectionFont));
             document.add(Chunk.NEWLINE);
-            addChartImage(document, chartImages, "statusChart");
+            addChart(document, ReportCharts.pie(canvas, data.ticketsByStatus));
             PdfPTable statusTable = new PdfPTable(2);
             statusTable.setWidthPercentage(100);
             statusTable.addCell(createCell("Status", red, Color.WHITE));
@@ -194,7 +267,7 @@ public class PdfService {
             // Tickets by Category
             document.add(new Paragraph("Tickets by Category", sectionFont));
             document.add(Chunk.NEWLINE);
-            addChartImage(document, chartImages, "categoryChart");
+            addChart(document, ReportCharts.bar(canvas, data.ticketsByCategory, true));
             PdfPTable categoryTable = new PdfPTable(2);
             categoryTable.setWidthPercentage(100);
             categoryTable.addCell(createCell("Category", red, Color.WHITE));
@@ -210,7 +283,7 @@ public class PdfService {
             if (showCompanyTable) {
                 document.add(new Paragraph("Tickets by Company", sectionFont));
                 document.add(Chunk.NEWLINE);
-                addChartImage(document, chartImages, "companyChart");
+                addChart(document, ReportCharts.bar(canvas, data.ticketsByCompany, true));
                 PdfPTable companyTable = new PdfPTable(2);
                 companyTable.setWidthPercentage(100);
                 companyTable.addCell(createCell("Company", red, Color.WHITE));
@@ -228,7 +301,7 @@ public class PdfService {
                     : "month".equals(period) ? "This month" : "All time";
             document.add(new Paragraph("Ticket Volume Over Time — " + periodLabel, sectionFont));
             document.add(Chunk.NEWLINE);
-            addChartImage(document, chartImages, "timeChart");
+            addChart(document, ReportCharts.line(canvas, data.ticketsOverTime));
             if (data.ticketsOverTime.isEmpty()) {
                 document.add(new Paragraph("No data available", normalFont));
             } else {
@@ -247,7 +320,7 @@ public class PdfService {
             // Avg First Response Time
             document.add(new Paragraph("Avg. First Response Time (hours)", sectionFont));
             document.add(Chunk.NEWLINE);
-            addChartImage(document, chartImages, "responseTimeChart");
+            addChart(document, ReportCharts.bar(canvas, data.avgFirstResponseTime, false));
             if (data.avgFirstResponseTime.isEmpty()) {
                 document.add(new Paragraph("No data available", normalFont));
             } else {
@@ -266,7 +339,7 @@ public class PdfService {
             // Resolution Histogram
             document.add(new Paragraph("Resolution Time", sectionFont));
             document.add(Chunk.NEWLINE);
-            addChartImage(document, chartImages, "histogramChart");
+            addChart(document, ReportCharts.bar(canvas, histogramCounts(data), true));
             boolean hasHistogramData = data.resolutionHistogram.values().stream().anyMatch(list -> !list.isEmpty());
             if (!hasHistogramData) {
                 document.add(new Paragraph("No data available", normalFont));
@@ -277,8 +350,8 @@ public class PdfService {
                 histogramTable.addCell(createCell("Duration", red, Color.WHITE));
                 histogramTable.addCell(createCell("Count", red, Color.WHITE));
                 histogramTable.addCell(createCell("Tickets", red, Color.WHITE));
-                for (Map.Entry<String, List<Ticket>> entry : data.resolutionHistogram.entrySet()) {
-                    List<Ticket> tickets = entry.getValue();
+                for (Map.Entry<String, List<ReportData.HistogramTicket>> entry : data.resolutionHistogram.entrySet()) {
+                    List<ReportData.HistogramTicket> tickets = entry.getValue();
                     histogramTable.addCell(new Phrase(entry.getKey(), normalFont));
                     histogramTable.addCell(new Phrase(String.valueOf(tickets.size()), normalFont));
                     if (tickets.isEmpty()) {
@@ -288,7 +361,7 @@ public class PdfService {
                         for (int i = 0; i < tickets.size(); i++) {
                             if (i > 0)
                                 names.append(", ");
-                            names.append(tickets.get(i).name);
+                            names.append(tickets.get(i).name());
                         }
                         histogramTable.addCell(new Phrase(names.toString(), normalFont));
                     }
@@ -300,7 +373,7 @@ public class PdfService {
             // Avg Resolution Time
             document.add(new Paragraph("Avg. Resolution Time (hours)", sectionFont));
             document.add(Chunk.NEWLINE);
-            addChartImage(document, chartImages, "resolutionTimeChart");
+            addChart(document, ReportCharts.bar(canvas, data.avgResolutionTime, false));
             if (data.avgResolutionTime.isEmpty()) {
                 document.add(new Paragraph("No data available", normalFont));
             } else {
@@ -317,9 +390,6 @@ public class PdfService {
             document.add(Chunk.NEWLINE);
 
             document.close();
-            return outputStream.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to generate PDF", e);
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate PDF", e);
         }
@@ -434,7 +504,7 @@ public class PdfService {
         return usersTable;
     }
 
-    private PdfPTable generateMessages(List<Message> messages, PdfWriter writer) throws IOException {
+    private void addMessages(Document document, List<Message> messages, PdfWriter writer) throws IOException {
         PdfPTable messageTable = new PdfPTable(2);
         messageTable.setWidthPercentage(100);
         List<Message> safeMessages = messages == null ? new ArrayList<>() : new ArrayList<>(messages);
@@ -444,38 +514,54 @@ public class PdfService {
             emptyCell.setColspan(2);
             emptyCell.setPadding(8f);
             messageTable.addCell(emptyCell);
-            return messageTable;
+            document.add(messageTable);
+            return;
         }
 
-        Map<Long, Ticket> ticketCache = crossReferenceService
-                .preloadReferencedTickets(safeMessages.stream().map(m -> m.body).toList());
+        CrossReferenceService.ReferenceCache referenceCache = crossReferenceService
+                .preloadReferences(safeMessages.stream().map(m -> m.body).toList());
 
+        // Rows are flushed to the writer after every message so only one message's attachments are held at a time.
+        messageTable.setComplete(false);
+        int[] remainingPages = { Math.max(0, maxEmbeddedPages) };
         for (Message message : safeMessages) {
             messageTable.addCell(createCell(message.date.format(formatter), red, Color.WHITE));
             messageTable.addCell(createCell(message.author == null ? "-" : message.author.email, red, Color.WHITE));
 
-            PdfPTable attachmentTable = new PdfPTable(1);
-            attachmentTable.setWidthPercentage(100);
-            if (message.attachments == null || message.attachments.isEmpty()) {
-                attachmentTable.addCell(createCell("-", lightRed, lightRedFontColor));
-            } else {
-                for (Attachment attachment : message.attachments) {
-                    addAttachmentContent(attachmentTable, attachment, writer);
+            List<PdfReader> readers = new ArrayList<>();
+            try {
+                PdfPTable attachmentTable = new PdfPTable(1);
+                attachmentTable.setWidthPercentage(100);
+                if (message.attachments == null || message.attachments.isEmpty()) {
+                    attachmentTable.addCell(createCell("-", lightRed, lightRedFontColor));
+                } else {
+                    for (Attachment attachment : message.attachments) {
+                        addAttachmentContent(attachmentTable, attachment, writer, readers, remainingPages);
+                    }
+                }
+                PdfPCell mergedCell = new PdfPCell();
+                mergedCell.setColspan(2);
+                String transformedBody = crossReferenceService.transformBodyForPdf(message.body, referenceCache);
+                mergedCell.addElement(new Paragraph(transformedBody == null ? "" : transformedBody));
+                mergedCell.addElement(new Paragraph(" "));
+                mergedCell.addElement(attachmentTable);
+                messageTable.addCell(mergedCell);
+                document.add(messageTable);
+                for (PdfReader reader : readers) {
+                    writer.freeReader(reader);
+                }
+            } finally {
+                for (PdfReader reader : readers) {
+                    reader.close();
                 }
             }
-            PdfPCell mergedCell = new PdfPCell();
-            mergedCell.setColspan(2);
-            String transformedBody = crossReferenceService.transformBodyForPdf(message.body, ticketCache);
-            mergedCell.addElement(new Paragraph(transformedBody == null ? "" : transformedBody));
-            mergedCell.addElement(new Paragraph(" "));
-            mergedCell.addElement(attachmentTable);
-            messageTable.addCell(mergedCell);
         }
-        return messageTable;
+        messageTable.setComplete(true);
+        document.add(messageTable);
     }
 
-    private void addAttachmentContent(PdfPTable attachmentTable, Attachment attachment, PdfWriter writer)
-            throws IOException {
+    private void addAttachmentContent(PdfPTable attachmentTable, Attachment attachment, PdfWriter writer,
+            List<PdfReader> readers, int[] remainingPages) throws IOException {
         attachmentTable.addCell(createCell(attachment.name == null ? "Attachment" : attachment.name, red, Color.WHITE));
 
         PdfPCell contentCell = new PdfPCell();
@@ -485,7 +571,7 @@ public class PdfService {
         if (attachment.isImage()) {
             addImageAttachment(contentCell, attachment);
         } else if (isPdfAttachment(attachment)) {
-            addPdfAttachment(contentCell, attachment, writer);
+            addPdfAttachment(contentCell, attachment, writer, readers, remainingPages);
         } else if (isTextAttachment(attachment)) {
             addTextAttachment(contentCell, attachment);
         } else {
@@ -498,33 +584,71 @@ public class PdfService {
 
     private void addImageAttachment(PdfPCell contentCell, Attachment attachment) {
         try {
-            Image img = Image.getInstance(attachment.data);
+            Image img = boundedImage(attachment);
             img.scaleToFit(460f, 320f);
             img.setAlignment(Image.ALIGN_LEFT);
             contentCell.addElement(img);
-        } catch (IOException e) {
+        } catch (IOException | RuntimeException e) {
             contentCell.addElement(new Paragraph("Failed to obtain image",
                     FontFactory.getFont(FontFactory.COURIER, 12, lightRedFontColor)));
         }
     }
 
-    private void addPdfAttachment(PdfPCell contentCell, Attachment attachment, PdfWriter writer) throws IOException {
-        try (PdfReader reader = new PdfReader(attachment.data)) {
-            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
-                Image pageImage = Image.getInstance(writer.getImportedPage(reader, page));
-                pageImage.scaleToFit(460f, 640f);
-                pageImage.setAlignment(Image.ALIGN_LEFT);
-                contentCell.addElement(pageImage);
-                if (page < reader.getNumberOfPages()) {
-                    contentCell.addElement(Chunk.NEWLINE);
+    private Image boundedImage(Attachment attachment) throws IOException {
+        try (InputStream input = AttachmentStorage.open(attachment);
+                ImageInputStream imageInput = ImageIO.createImageInputStream(input)) {
+            Iterator<ImageReader> imageReaders = imageInput == null ? null : ImageIO.getImageReaders(imageInput);
+            if (imageReaders != null && imageReaders.hasNext()) {
+                ImageReader imageReader = imageReaders.next();
+                try {
+                    imageReader.setInput(imageInput, true, true);
+                    int largest = Math.max(imageReader.getWidth(0), imageReader.getHeight(0));
+                    if (maxImageDimension > 0 && largest > maxImageDimension) {
+                        int step = (int) Math.ceil((double) largest / maxImageDimension);
+                        ImageReadParam param = imageReader.getDefaultReadParam();
+                        param.setSourceSubsampling(step, step, 0, 0);
+                        return Image.getInstance(imageReader.read(0, param), null);
+                    }
+                } finally {
+                    imageReader.dispose();
                 }
             }
         }
+        return Image.getInstance(AttachmentStorage.readAllBytes(attachment));
+    }
+
+    private void addPdfAttachment(PdfPCell contentCell, Attachment attachment, PdfWriter writer,
+            List<PdfReader> readers, int[] remainingPages) throws IOException {
+        if (remainingPages[0] <= 0) {
+            contentCell.addElement(new Paragraph("Embedded page limit reached; download the attachment to view it.",
+                    FontFactory.getFont(FontFactory.COURIER, 12, lightRedFontColor)));
+            return;
+        }
+        Path path = AttachmentStorage.storeFor(attachment).path(attachment);
+        PdfReader reader = path != null ? new PdfReader(new RandomAccessFileOrArray(path.toString(), false, true), null)
+                : new PdfReader(AttachmentStorage.readAllBytes(attachment));
+        readers.add(reader);
+        int pages = reader.getNumberOfPages();
+        int included = Math.min(pages, remainingPages[0]);
+        remainingPages[0] -= included;
+        for (int page = 1; page <= included; page++) {
+            Image pageImage = Image.getInstance(writer.getImportedPage(reader, page));
+            pageImage.scaleToFit(460f, 640f);
+            pageImage.setAlignment(Image.ALIGN_LEFT);
+            contentCell.addElement(pageImage);
+            if (page < included) {
+                contentCell.addElement(Chunk.NEWLINE);
+            }
+        }
+        if (included < pages) {
+            contentCell.addElement(new Paragraph((pages - included) + " more page(s) not included in this export.",
+                    FontFactory.getFont(FontFactory.COURIER, 12, lightRedFontColor)));
+        }
     }
 
     private void addTextAttachment(PdfPCell contentCell, Attachment attachment) {
         Paragraph paragraph = new Paragraph(
-                new String(attachment.data == null ? new byte[0] : attachment.data, StandardCharsets.UTF_8),
+                new String(AttachmentStorage.readAllBytes(attachment), StandardCharsets.UTF_8),
                 FontFactory.getFont(FontFactory.COURIER, 12, lightRedFontColor));
         paragraph.setLeading(14f);
         contentCell.addElement(paragraph);
@@ -614,26 +738,21 @@ public class PdfService {
                 + lastMessageText;
     }
 
-    private Installation getOwner() {
-        return Installation.find("SELECT i from Installation i WHERE i.singletonKey = 'installation'").firstResult();
+    private void addChart(Document document, PdfTemplate chart) throws DocumentException {
+        if (chart == null) {
+            return;
+        }
+        Image img = Image.getInstance(chart);
+        img.setAlignment(Image.ALIGN_LEFT);
+        document.add(img);
+        document.add(Chunk.NEWLINE);
     }
 
-    private void addChartImage(Document document, Map<String, String> chartImages, String key) {
-        if (chartImages == null)
-            return;
-        String base64 = chartImages.get(key);
-        if (base64 == null || base64.isBlank())
-            return;
-        try {
-            String data = base64.contains(",") ? base64.substring(base64.indexOf(',') + 1) : base64;
-            byte[] imageBytes = java.util.Base64.getDecoder().decode(data);
-            Image img = Image.getInstance(imageBytes);
-            img.scaleToFit(500, 200);
-            img.setAlignment(Image.ALIGN_LEFT);
-            document.add(img);
-            document.add(Chunk.NEWLINE);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to embed chart image: " + key, e);
+    private Map<String, Long> histogramCounts(ReportData data) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (data.resolutionHistogram != null) {
+            data.resolutionHistogram.forEach((bucket, tickets) -> counts.put(bucket, (long) tickets.size()));
         }
+        return counts;
     }
 }
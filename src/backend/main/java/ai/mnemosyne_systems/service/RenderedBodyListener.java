@@ -0,0 +1,40 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.service;
+
+import ai.mnemosyne_systems.model.Article;
+import ai.mnemosyne_systems.model.Message;
+import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.util.RenderedBodyCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+public class RenderedBodyListener {
+
+    @PostPersist
+    @PostRemove
+    void createdOrRemoved(Object entity) {
+        if (entity instanceof Ticket ticket) {
+            RenderedBodyCache.invalidateTarget(CrossReferenceService.TARGET_TYPE_TICKET, ticket.id);
+        } else if (entity instanceof Article article) {
+            RenderedBodyCache.invalidateTarget(CrossReferenceService.TARGET_TYPE_ARTICLE, article.id);
+        } else if (entity instanceof Message message) {
+            RenderedBodyCache.invalidateMessage(message.id);
+        }
+    }
+
+    @PostUpdate
+    void updated(Object entity) {
+        // Ticket and article renames need the previous state and are evicted by PrincipalCacheInterceptor.
+        if (entity instanceof Message message) {
+            RenderedBodyCache.invalidateMessage(message.id);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.service;
+
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfGState;
+import com.lowagie.text.pdf.PdfTemplate;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Draws the report charts as vector graphics into PDF templates, using the same chart types and colors as the reports
+ * page.
+ */
+final class ReportCharts {
+
+    static final float WIDTH = 500f;
+    static final float HEIGHT = 200f;
+
+    private static final float LEFT = 44f;
+    private static final float RIGHT = 8f;
+    private static final float TOP = 10f;
+    private static final float BOTTOM = 26f;
+    private static final float FONT_SIZE = 7f;
+    private static final Color AXIS = new Color(120, 120, 120);
+    private static final Color GRID = new Color(225, 225, 225);
+    private static final Color TEXT = new Color(60, 60, 60);
+    private static final Color LINE = new Color(176, 0, 32);
+    private static final Map<String, Color> STATUS_COLORS = Map.of("Open", new Color(0x4285f4), "Assigned",
+            new Color(0xfbbc04), "Closed", new Color(0x34a853), "Resolved", new Color(0x34a853), "In Progress",
+            new Color(0xea4335));
+    private static final List<Color> PALETTE = List.of(new Color(0x4285f4), new Color(0xea4335), new Color(0xfbbc04),
+            new Color(0x34a853), new Color(0x9334e6), new Color(0xff6d01), new Color(0x46bdc6), new Color(0x7baaf7),
+            new Color(0xf07b72), new Color(0xfdd663));
+
+    private static volatile BaseFont font;
+
+    private ReportCharts() {
+    }
+
+    static PdfTemplate pie(PdfContentByte canvas, Map<String, ? extends Number> values) {
+        Map<String, Double> data = positive(values);
+        if (data.isEmpty()) {
+            return null;
+        }
+        PdfTemplate template = canvas.createTemplate(WIDTH, HEIGHT);
+        double total = data.values().stream().mapToDouble(Double::doubleValue).sum();
+        float radius = (HEIGHT - 2 * TOP) / 2f;
+        float centerX = TOP + radius;
+        float centerY = HEIGHT / 2f;
+        float start = 90f;
+        int index = 0;
+        for (Map.Entry<String, Double> entry : data.entrySet()) {
+            float extent = (float) (-360d * entry.getValue() / total);
+            template.setColorFill(color(entry.getKey(), index, STATUS_COLORS));
+            if (data.size() == 1) {
+                template.circle(centerX, centerY, radius);
+            } else {
+                List<float[]> curves = PdfContentByte.bezierArc(centerX - radius, centerY - radius, centerX + radius,
+                        centerY + radius, start, extent);
+                template.moveTo(centerX, centerY);
+                template.lineTo(curves.get(0)[0], curves.get(0)[1]);
+                for (float[] curve : curves) {
+                    template.curveTo(curve[2], curve[3], curve[4], curve[5], curve[6], curve[7]);
+                }
+                template.closePath();
+            }
+            template.fill();
+            start += extent;
+            index++;
+        }
+        float legendX = centerX + radius + 30f;
+        float legendY = HEIGHT - TOP - FONT_SIZE;
+        index = 0;
+        for (Map.Entry<String, Double> entry : data.entrySet()) {
+            template.setColorFill(color(entry.getKey(), index, STATUS_COLORS));
+            template.rectangle(legendX, legendY - 1f, 8f, 8f);
+            template.fill();
+            text(template, PdfContentByte.ALIGN_LEFT, entry.getKey() + " (" + format(entry.getValue()) + ")",
+                    legendX + 12f, legendY);
+            legendY -= 14f;
+            index++;
+        }
+        return template;
+    }
+
+    static PdfTemplate bar(PdfContentByte canvas, Map<String, ? extends Number> values, boolean integerScale) {
+        Map<String, Double> data = all(values);
+        if (data.isEmpty()) {
+            return null;
+        }
+        PdfTemplate template = canvas.createTemplate(WIDTH, HEIGHT);
+        double axisMax = axis(template, data, integerScale);
+        float plotWidth = WIDTH - LEFT - RIGHT;
+        float plotHeight = HEIGHT - TOP - BOTTOM;
+        float slot = plotWidth / data.size();
+        float barWidth = Math.min(slot * 0.6f, 40f);
+        int index = 0;
+        for (Map.Entry<String, Double> entry : data.entrySet()) {
+            float x = LEFT + slot * index + (slot - barWidth) / 2f;
+            float barHeight = (float) (plotHeight * Math.max(0d, entry.getValue()) / axisMax);
+            template.setColorFill(PALETTE.get(index % PALETTE.size()));
+            template.rectangle(x, BOTTOM, barWidth, barHeight);
+            template.fill();
+            text(template, PdfContentByte.ALIGN_CENTER, fit(entry.getKey(), slot - 2f), LEFT + slot * index + slot / 2f,
+                    BOTTOM - 10f);
+            index++;
+        }
+        return template;
+    }
+
+    static PdfTemplate line(PdfContentByte canvas, Map<String, ? extends Number> values) {
+        Map<String, Double> data = all(values);
+        if (data.isEmpty()) {
+            return null;
+        }
+        PdfTemplate template = canvas.createTemplate(WIDTH, HEIGHT);
+        double axisMax = axis(template, data, true);
+        float plotWidth = WIDTH - LEFT - RIGHT;
+        float plotHeight = HEIGHT - TOP - BOTTOM;
+        float slot = plotWidth / data.size();
+        List<float[]> points = new ArrayList<>();
+        int labelEvery = Math.max(1, (int) Math.ceil(data.size() / (plotWidth / 40f)));
+        int index = 0;
+        for (Map.Entry<String, Double> entry : data.entrySet()) {
+            float x = LEFT + slot * index + slot / 2f;
+            points.add(new float[] { x, BOTTOM + (float) (plotHeight * Math.max(0d, entry.getValue()) / axisMax) });
+            if (index % labelEvery == 0) {
+                text(template, PdfContentByte.ALIGN_CENTER, fit(entry.getKey(), slot * labelEvery - 2f), x,
+                        BOTTOM - 10f);
+            }
+            index++;
+        }
+        template.saveState();
+        PdfGState translucent = new PdfGState();
+        translucent.setFillOpacity(0.2f);
+        template.setGState(translucent);
+        template.setColorFill(LINE);
+        template.moveTo(points.get(0)[0], BOTTOM);
+        for (float[] point : points) {
+            template.lineTo(point[0], point[1]);
+        }
+        template.lineTo(points.get(points.size() - 1)[0], BOTTOM);
+        template.closePath();
+        template.fill();
+        template.restoreState();
+        template.setColorStroke(LINE);
+        template.setLineWidth(1.5f);
+        template.moveTo(points.get(0)[0], points.get(0)[1]);
+        for (float[] point : points) {
+            template.lineTo(point[0], point[1]);
+        }
+        template.stroke();
+        template.setColorFill(LINE);
+        for (float[] point : points) {
+            template.circle(point[0], point[1], 2f);
+            template.fill();
+        }
+        return template;
+    }
+
+    private static double axis(PdfTemplate template, Map<String, Double> data, boolean integerScale) {
+        double max = data.values().stream().mapToDouble(Double::doubleValue).max().orElse(0d);
+        double step = step(max / 4d, integerScale);
+        double axisMax = Math.max(step, Math.ceil(max / step) * step);
+        float plotHeight = HEIGHT - TOP - BOTTOM;
+        template.setLineWidth(0.5f);
+        for (double tick = 0; tick <= axisMax + step / 2d; tick += step) {
+            float y = BOTTOM + (float) (plotHeight * tick / axisMax);
+            template.setColorStroke(tick == 0 ? AXIS : GRID);
+            template.moveTo(LEFT, y);
+            template.lineTo(WIDTH - RIGHT, y);
+            template.stroke();
+            text(template, PdfContentByte.ALIGN_RIGHT, format(tick), LEFT - 4f, y - FONT_SIZE / 3f);
+        }
+        template.setColorStroke(AXIS);
+        template.moveTo(LEFT, BOTTOM);
+        template.lineTo(LEFT, HEIGHT - TOP);
+        template.stroke();
+        return axisMax;
+    }
+
+    private static double step(double raw, boolean integerScale) {
+        if (raw <= 0d) {
+            return 1d;
+        }
+        double magnitude = Math.pow(10, Math.floor(Math.log10(raw)));
+        double normalized = raw / magnitude;
+        double nice = normalized <= 1d ? 1d : normalized <= 2d ? 2d : normalized <= 5d ? 5d : 10d;
+        double step = nice * magnitude;
+        return integerScale ? Math.max(1d, Math.ceil(step)) : step;
+    }
+
+    private static void text(PdfTemplate template, int alignment, String value, float x, float y) {
+        template.beginText();
+        template.setColorFill(TEXT);
+        template.setFontAndSize(font(), FONT_SIZE);
+        template.showTextAligned(alignment, value, x, y, 0f);
+        template.endText();
+    }
+
+    private static String fit(String label, float width) {
+        String value = label == null ? "" : label;
+        if (font().getWidthPoint(value, FONT_SIZE) <= width) {
+            return value;
+        }
+        while (value.length() > 1 && font().getWidthPoint(value + "...", FONT_SIZE) > width) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return value + "...";
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value)) {
+            return String.valueOf((long) value);
+        }
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static Color color(String label, int index, Map<String, Color> colors) {
+        Color mapped = colors.get(label);
+        return mapped != null ? mapped : PALETTE.get(index % PALETTE.size());
+    }
+
+    private static Map<String, Double> all(Map<String, ? extends Number> values) {
+        Map<String, Double> data = new LinkedHashMap<>();
+        if (values != null) {
+            values.forEach((label, value) -> data.put(label, value == null ? 0d : value.doubleValue()));
+        }
+        return data;
+    }
+
+    private static Map<String, Double> positive(Map<String, ? extends Number> values) {
+        Map<String, Double> data = all(values);
+        data.values().removeIf(value -> value <= 0d);
+        return data;
+    }
+
+    private static BaseFont font() {
+        if (font == null) {
+            try {
+                font = BaseFont.createFont(BaseFont.COURIER, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+            } catch (Exception e) {
+                throw new IllegalStateException("Unable to load chart font", e);
+            }
+        }
+        return font;
+    }
+}
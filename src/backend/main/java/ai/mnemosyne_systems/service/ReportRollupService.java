@@ -0,0 +1,582 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.service;
+
+import ai.mnemosyne_systems.init.SchemaMigrationInitializer;
+import ai.mnemosyne_systems.model.Company;
+import ai.mnemosyne_systems.model.ReportDailyRollup;
+import ai.mnemosyne_systems.model.ReportData;
+import ai.mnemosyne_systems.model.ReportSnapshot;
+import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.model.TicketReportFact;
+import ai.mnemosyne_systems.model.User;
+import ai.mnemosyne_systems.util.SchemaMigrations;
+import io.quarkus.arc.Arc;
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.query.NativeQuery;
+import org.jboss.logging.Logger;
+
+/**
+ * Maintains per-ticket report facts and daily ticket rollups per company, category and status. Ticket and message
+ * changes mark the ticket dirty; the facts are refreshed after the transaction commits and the rollups are adjusted by
+ * the difference. A scheduled rebuild reconciles both tables with the source data. Report snapshots covering the
+ * affected companies are invalidated in the same transaction.
+ */
+@ApplicationScoped
+public class ReportRollupService {
+
+    private static final Logger LOGGER = Logger.getLogger(ReportRollupService.class);
+    private static final int BATCH_SIZE = 500;
+    private static final String DIRTY_KEY = ReportRollupService.class.getName() + ".dirty";
+    private static final Set<Long> PENDING = ConcurrentHashMap.newKeySet();
+    private static final String BUCKET_UNDER_1H = "< 1h";
+    private static final String BUCKET_1_TO_8H = "1–8h";
+    private static final String BUCKET_8_TO_24H = "8–24h";
+    private static final String BUCKET_1_TO_7D = "1–7 days";
+    private static final String BUCKET_OVER_7D = "> 7 days";
+
+    @ConfigProperty(name = "ticket.reports.rollup.refresh-inline", defaultValue = "false")
+    boolean refreshInline;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @Inject
+    SchemaMigrationInitializer schemaMigrations;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "report-rollup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        executor.submit(this::rebuildIfMissing);
+    }
+
+    public static void markDirty(Long ticketId) {
+        if (ticketId == null) {
+            return;
+        }
+        try {
+            TransactionSynchronizationRegistry registry = Arc.container()
+                    .instance(TransactionSynchronizationRegistry.class).get();
+            if (registry != null && registry.getTransactionKey() != null) {
+                @SuppressWarnings("unchecked")
+                Set<Long> dirty = (Set<Long>) registry.getResource(DIRTY_KEY);
+                if (dirty == null) {
+                    dirty = new LinkedHashSet<>();
+                    registry.registerInterposedSynchronization(new RefreshAfterCommit(dirty));
+                    registry.putResource(DIRTY_KEY, dirty);
+                }
+                dirty.add(ticketId);
+                return;
+            }
+        } catch (IllegalStateException ex) {
+            LOGGER.debugf("Deferring report rollup refresh for ticket %d to the scheduler", ticketId);
+        }
+        PENDING.add(ticketId);
+    }
+
+    void enqueue(Set<Long> ticketIds) {
+        PENDING.addAll(ticketIds);
+        Future<?> refresh = executor.submit(this::refreshPending);
+        if (!refreshInline) {
+            return;
+        }
+        try {
+            refresh.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            LOGGER.warn("Report rollup refresh failed", ex.getCause());
+        }
+    }
+
+    @Scheduled(every = "{ticket.reports.rollup.refresh-interval}", delayed = "30s")
+    void scheduledRefresh() {
+        refreshPending();
+    }
+
+    @Scheduled(cron = "{ticket.reports.rollup.rebuild-cron}")
+    void scheduledRebuild() {
+        rebuild();
+    }
+
+    public int refreshPending() {
+        refreshLock.lock();
+        try {
+            int refreshed = 0;
+            while (!PENDING.isEmpty()) {
+                List<Long> batch = new ArrayList<>();
+                Iterator<Long> iterator = PENDING.iterator();
+                while (iterator.hasNext() && batch.size() < BATCH_SIZE) {
+                    batch.add(iterator.next());
+                    iterator.remove();
+                }
+                try {
+                    QuarkusTransaction.requiringNew().run(() -> refresh(batch, true));
+                    refreshed += batch.size();
+                } catch (RuntimeException ex) {
+                    PENDING.addAll(batch);
+                    LOGGER.warn("Unable to refresh report rollups", ex);
+                    break;
+                }
+            }
+            return refreshed;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public int rebuild() {
+        refreshLock.lock();
+        try {
+            long started = System.currentTimeMillis();
+            int rebuilt = 0;
+            long after = 0L;
+            while (true) {
+                long from = after;
+                List<Long> batch = QuarkusTransaction.requiringNew().call(() -> {
+                    List<Long> ids = Panache.getEntityManager()
+                            .createQuery("select t.id from Ticket t where t.id > :after order by t.id", Long.class)
+                            .setParameter("after", from).setMaxResults(BATCH_SIZE).getResultList();
+                    refresh(ids, false);
+                    return ids;
+                });
+                if (batch.isEmpty()) {
+                    break;
+                }
+                rebuilt += batch.size();
+                after = batch.get(batch.size() - 1);
+            }
+            QuarkusTransaction.requiringNew().run(this::rebuildRollups);
+            LOGGER.infof("Rebuilt report rollups for %d tickets in %d ms", rebuilt,
+                    System.currentTimeMillis() - started);
+            return rebuilt;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    void rebuildIfMissing() {
+        try {
+            long tickets = QuarkusTransaction.requiringNew().call(() -> Ticket.count());
+            long facts = QuarkusTransaction.requiringNew().call(() -> TicketReportFact.count());
+            if (tickets != facts) {
+                rebuild();
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Unable to backfill report rollups", ex);
+        }
+    }
+
+    public ReportData report(List<Company> companies, String period) {
+        List<Long> companyIds = companies == null ? null
+                : companies.stream().filter(Objects::nonNull).map(company -> company.id).toList();
+        ReportData data = new ReportData();
+        data.ticketsByStatus = new LinkedHashMap<>();
+        data.ticketsByCategory = new LinkedHashMap<>();
+        data.ticketsByCompany = new LinkedHashMap<>();
+        data.ticketsOverTime = new TreeMap<>();
+        data.avgFirstResponseTime = new LinkedHashMap<>();
+        data.avgResolutionTime = new LinkedHashMap<>();
+        data.resolutionHistogram = emptyHistogram();
+        if (companyIds != null && companyIds.isEmpty()) {
+            return data;
+        }
+
+        List<Object[]> counts = rows(
+                "select r.status, r.companyId, r.categoryId, sum(r.ticketCount) from ReportDailyRollup r"
+                        + where("r", companyIds) + " group by r.status, r.companyId, r.categoryId",
+                companyIds, null);
+        Map<Long, String> companyNames = names("Company", counts.stream().map(row -> (Long) row[1]).toList());
+        Map<Long, String> categoryNames = names("Category", counts.stream().map(row -> (Long) row[2]).toList());
+        Map<String, Long> byCategory = new LinkedHashMap<>();
+        Map<String, Long> byCompany = new LinkedHashMap<>();
+        long total = 0;
+        for (Object[] row : counts) {
+            long count = ((Number) row[3]).longValue();
+            total += count;
+            data.ticketsByStatus.merge((String) row[0], count, Long::sum);
+            byCompany.merge(companyNames.getOrDefault((Long) row[1], "Unknown"), count, Long::sum);
+            byCategory.merge(categoryNames.getOrDefault((Long) row[2], "Uncategorized"), count, Long::sum);
+        }
+        data.totalTickets = (int) total;
+        data.ticketsByCategory = sortedByValue(byCategory);
+        data.ticketsByCompany = sortedByValue(byCompany);
+        data.ticketsOverTime = ticketsOverTime(companyIds, period);
+        data.avgFirstResponseTime = averageHours("firstResponseMinutes", companyIds);
+        data.avgResolutionTime = averageHours("resolutionMinutes", companyIds);
+        fillHistogram(data.resolutionHistogram, companyIds);
+        return data;
+    }
+
+    void refresh(List<Long> ticketIds, boolean adjustRollups) {
+        if (ticketIds.isEmpty()) {
+            return;
+        }
+        Map<Long, TicketReportFact> facts = new HashMap<>();
+        for (TicketReportFact fact : TicketReportFact.<TicketReportFact> list("ticketId in ?1", ticketIds)) {
+            facts.put(fact.ticketId, fact);
+        }
+        Map<Long, Object[]> tickets = new HashMap<>();
+        for (Object[] row : Panache.getEntityManager().createQuery(
+                "select t.id, t.company.id, c.id, t.status from Ticket t left join t.category c where t.id in :ticketIds",
+                Object[].class).setParameter("ticketIds", ticketIds).getResultList()) {
+            tickets.put((Long) row[0], row);
+        }
+        Map<Long, List<Object[]>> messages = new HashMap<>();
+        for (Object[] row : Panache.getEntityManager().createQuery(
+                "select m.ticket.id, m.date, a.type from Message m left join m.author a where m.ticket.id in :ticketIds and m.date is not null order by m.date, m.id",
+                Object[].class).setParameter("ticketIds", ticketIds).getResultList()) {
+            messages.computeIfAbsent((Long) row[0], ignored -> new ArrayList<>()).add(row);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> companyIds = new LinkedHashSet<>();
+        for (Long ticketId : ticketIds) {
+            TicketReportFact fact = facts.get(ticketId);
+            RollupKey before = fact == null ? null : RollupKey.of(fact);
+            if (before != null) {
+                companyIds.add(before.companyId());
+            }
+            Object[] ticket = tickets.get(ticketId);
+            if (ticket == null) {
+                if (fact != null) {
+                    fact.delete();
+                }
+            } else {
+                if (fact == null) {
+                    fact = new TicketReportFact();
+                    fact.ticketId = ticketId;
+                }
+                apply(fact, ticket, messages.getOrDefault(ticketId, List.of()));
+                fact.updatedAt = now;
+                if (!fact.isPersistent()) {
+                    fact.persist();
+                }
+            }
+            RollupKey after = ticket == null ? null : RollupKey.of(fact);
+            if (after != null) {
+                companyIds.add(after.companyId());
+            }
+            if (adjustRollups && !Objects.equals(before, after)) {
+                adjust(before, -1);
+                adjust(after, 1);
+            }
+        }
+        if (adjustRollups) {
+            ReportSnapshot.invalidate(companyIds);
+        }
+    }
+
+    private void rebuildRollups() {
+        TicketReportFact.delete("ticketId not in (select t.id from Ticket t)");
+        ReportDailyRollup.deleteAll();
+        List<Object[]> rows = Panache.getEntityManager().createQuery(
+                "select f.openedDay, f.companyId, f.categoryId, f.status, count(f) from TicketReportFact f group by f.openedDay, f.companyId, f.categoryId, f.status",
+                Object[].class).getResultList();
+        for (Object[] row : rows) {
+            ReportDailyRollup rollup = new ReportDailyRollup();
+            rollup.openedDay = (LocalDate) row[0];
+            rollup.companyId = (Long) row[1];
+            rollup.categoryId = (Long) row[2];
+            rollup.status = (String) row[3];
+            rollup.ticketCount = ((Number) row[4]).longValue();
+            rollup.persist();
+        }
+        ReportSnapshot.invalidateAll();
+    }
+
+    private void apply(TicketReportFact fact, Object[] ticket, List<Object[]> messages) {
+        String status = (String) ticket[3];
+        fact.companyId = (Long) ticket[1];
+        fact.categoryId = (Long) ticket[2];
+        fact.status = status == null || status.isBlank() ? "Open" : status;
+        fact.openedAt = null;
+        fact.openedDay = null;
+        fact.firstResponseAt = null;
+        fact.lastMessageAt = null;
+        fact.firstResponseMinutes = null;
+        fact.resolutionMinutes = null;
+        if (messages.isEmpty()) {
+            return;
+        }
+        LocalDateTime first = (LocalDateTime) messages.get(0)[1];
+        LocalDateTime last = (LocalDateTime) messages.get(messages.size() - 1)[1];
+        fact.openedAt = first;
+        fact.openedDay = first.toLocalDate();
+        fact.lastMessageAt = last;
+        for (int index = 1; index < messages.size(); index++) {
+            String authorType = (String) messages.get(index)[2];
+            if (User.TYPE_SUPPORT.equalsIgnoreCase(authorType) || User.TYPE_ADMIN.equalsIgnoreCase(authorType)) {
+                fact.firstResponseAt = (LocalDateTime) messages.get(index)[1];
+                fact.firstResponseMinutes = Math.max(Duration.between(first, fact.firstResponseAt).toMinutes(), 0);
+                break;
+            }
+        }
+        if ("Closed".equalsIgnoreCase(fact.status)) {
+            fact.resolutionMinutes = Math.max(Duration.between(first, last).toMinutes(), 0);
+        }
+    }
+
+    private void adjust(RollupKey key, long delta) {
+        if (key == null) {
+            return;
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        StringBuilder query = new StringBuilder("status = :status");
+        parameters.put("status", key.status());
+        appendMatch(query, parameters, "openedDay", key.openedDay());
+        appendMatch(query, parameters, "companyId", key.companyId());
+        appendMatch(query, parameters, "categoryId", key.categoryId());
+        // The upsert needs the unique key, which an existing database only has once its migration is applied.
+        if ("postgresql".equalsIgnoreCase(dbKind)
+                && schemaMigrations.applied(SchemaMigrations.REPORT_ROLLUP_UNIQUE_KEY)) {
+            adjustAtomically(key, delta, query.toString(), parameters);
+            return;
+        }
+        // A concurrent insert of the same key violates the unique key; refreshPending queues the batch again.
+        ReportDailyRollup rollup = ReportDailyRollup.<ReportDailyRollup> find(query.toString(), parameters)
+                .withLock(LockModeType.PESSIMISTIC_WRITE).firstResult();
+        if (rollup == null) {
+            if (delta > 0) {
+                rollup = new ReportDailyRollup();
+                rollup.openedDay = key.openedDay();
+                rollup.companyId = key.companyId();
+                rollup.categoryId = key.categoryId();
+                rollup.status = key.status();
+                rollup.ticketCount = delta;
+                rollup.persist();
+            }
+            return;
+        }
+        rollup.ticketCount += delta;
+        if (rollup.ticketCount <= 0) {
+            rollup.delete();
+        }
+    }
+
+    /**
+     * Adds to the rollup row with single statements, so another instance adjusting the same key neither inserts a
+     * second row nor loses an update. The unique key treats missing companies, categories and days as equal.
+     */
+    private void adjustAtomically(RollupKey key, long delta, String match, Map<String, Object> parameters) {
+        if (delta > 0) {
+            NativeQuery<?> upsert = Panache.getEntityManager().createNativeQuery(
+                    "insert into report_daily_rollups (id, opened_day, company_id, category_id, status, ticket_count)"
+                            + " values (nextval('report_daily_rollup_seq'), ?1, ?2, ?3, ?4, ?5)"
+                            + " on conflict (company_id, opened_day, category_id, status)"
+                            + " do update set ticket_count = report_daily_rollups.ticket_count + excluded.ticket_count")
+                    .unwrap(NativeQuery.class);
+            upsert.setParameter(1, key.openedDay(), LocalDate.class).setParameter(2, key.companyId(), Long.class)
+                    .setParameter(3, key.categoryId(), Long.class).setParameter(4, key.status(), String.class)
+                    .setParameter(5, delta, Long.class).executeUpdate();
+            return;
+        }
+        Map<String, Object> update = new HashMap<>(parameters);
+        update.put("delta", delta);
+        ReportDailyRollup.update("ticketCount = ticketCount + :delta where " + match, update);
+        ReportDailyRollup.delete("ticketCount <= 0 and " + match, parameters);
+    }
+
+    private void appendMatch(StringBuilder query, Map<String, Object> parameters, String field, Object value) {
+        if (value == null) {
+            query.append(" and ").append(field).append(" is null");
+            return;
+        }
+        query.append(" and ").append(field).append(" = :").append(field);
+        parameters.put(field, value);
+    }
+
+    private Map<String, Long> ticketsOverTime(List<Long> companyIds, String period) {
+        DateTimeFormatter format;
+        LocalDate cutoff;
+        if ("month".equals(period)) {
+            format = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+            cutoff = LocalDate.now().withDayOfMonth(1);
+        } else if ("year".equals(period)) {
+            format = DateTimeFormatter.ofPattern("yyyy-MM");
+            cutoff = LocalDate.now().withDayOfYear(1);
+        } else {
+            format = DateTimeFormatter.ofPattern("yyyy-MM");
+            cutoff = null;
+        }
+        Map<String, Long> result = new TreeMap<>();
+        for (Object[] row : rows("select r.openedDay, sum(r.ticketCount) from ReportDailyRollup r"
+                + where("r", companyIds, "r.openedDay is not null", cutoff == null ? null : "r.openedDay >= :cutoff")
+                + " group by r.openedDay", companyIds, cutoff)) {
+            result.merge(format.format((LocalDate) row[0]), ((Number) row[1]).longValue(), Long::sum);
+        }
+        return result;
+    }
+
+    private Map<String, Double> averageHours(String field, List<Long> companyIds) {
+        List<Object[]> rows = rows(
+                "select f.categoryId, sum(f." + field + "), count(f." + field + ") from TicketReportFact f"
+                        + where("f", companyIds, "f." + field + " is not null") + " group by f.categoryId",
+                companyIds, null);
+        Map<Long, String> categoryNames = names("Category", rows.stream().map(row -> (Long) row[0]).toList());
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            long[] total = totals.computeIfAbsent(categoryNames.getOrDefault((Long) row[0], "Uncategorized"),
+                    ignored -> new long[2]);
+            total[0] += ((Number) row[1]).longValue();
+            total[1] += ((Number) row[2]).longValue();
+        }
+        Map<String, Double> averages = new LinkedHashMap<>();
+        totals.forEach((category, total) -> averages.put(category,
+                Math.round(total[0] / (double) total[1] / 60.0 * 10.0) / 10.0));
+        Map<String, Double> result = new LinkedHashMap<>();
+        averages.entrySet().stream().sorted(Map.Entry.<String, Double> comparingByValue().reversed())
+                .forEachOrdered(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    private void fillHistogram(Map<String, List<ReportData.HistogramTicket>> histogram, List<Long> companyIds) {
+        for (Object[] row : rows(
+                "select t.id, t.name, t.status, co.name, ca.name, f.resolutionMinutes from TicketReportFact f"
+                        + " join Ticket t on t.id = f.ticketId left join t.company co left join t.category ca"
+                        + where("f", companyIds, "f.resolutionMinutes is not null") + " order by f.ticketId",
+                companyIds, null)) {
+            double hours = ((Number) row[5]).longValue() / 60.0;
+            String bucket;
+            if (hours < 1) {
+                bucket = BUCKET_UNDER_1H;
+            } else if (hours < 8) {
+                bucket = BUCKET_1_TO_8H;
+            } else if (hours < 24) {
+                bucket = BUCKET_8_TO_24H;
+            } else if (hours < 168) {
+                bucket = BUCKET_1_TO_7D;
+            } else {
+                bucket = BUCKET_OVER_7D;
+            }
+            histogram.get(bucket).add(new ReportData.HistogramTicket((Long) row[0], (String) row[1], (String) row[2],
+                    (String) row[3], (String) row[4]));
+        }
+    }
+
+    private Map<String, List<ReportData.HistogramTicket>> emptyHistogram() {
+        Map<String, List<ReportData.HistogramTicket>> histogram = new LinkedHashMap<>();
+        histogram.put(BUCKET_UNDER_1H, new ArrayList<>());
+        histogram.put(BUCKET_1_TO_8H, new ArrayList<>());
+        histogram.put(BUCKET_8_TO_24H, new ArrayList<>());
+        histogram.put(BUCKET_1_TO_7D, new ArrayList<>());
+        histogram.put(BUCKET_OVER_7D, new ArrayList<>());
+        return histogram;
+    }
+
+    private Map<String, Long> sortedByValue(Map<String, Long> values) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        values.entrySet().stream().sorted(Map.Entry.<String, Long> comparingByValue().reversed())
+                .forEachOrdered(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    private Map<Long, String> names(String entity, List<Long> ids) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, String> names = new HashMap<>();
+        if (distinct.isEmpty()) {
+            return names;
+        }
+        for (Object[] row : Panache.getEntityManager()
+                .createQuery("select e.id, e.name from " + entity + " e where e.id in :ids", Object[].class)
+                .setParameter("ids", distinct).getResultList()) {
+            if (row[1] != null) {
+                names.put((Long) row[0], (String) row[1]);
+            }
+        }
+        return names;
+    }
+
+    private String where(String alias, List<Long> companyIds, String... conditions) {
+        List<String> clauses = new ArrayList<>();
+        if (companyIds != null) {
+            clauses.add(alias + ".companyId in :companyIds");
+        }
+        for (String condition : conditions) {
+            if (condition != null) {
+                clauses.add(condition);
+            }
+        }
+        return clauses.isEmpty() ? "" : " where " + String.join(" and ", clauses);
+    }
+
+    private List<Object[]> rows(String query, List<Long> companyIds, LocalDate cutoff) {
+        TypedQuery<Object[]> typed = Panache.getEntityManager().createQuery(query, Object[].class);
+        if (companyIds != null) {
+            typed.setParameter("companyIds", companyIds);
+        }
+        if (cutoff != null) {
+            typed.setParameter("cutoff", cutoff);
+        }
+        return typed.getResultList();
+    }
+
+    record RollupKey(LocalDate openedDay, Long companyId, Long categoryId, String status) {
+
+        static RollupKey of(TicketReportFact fact) {
+            return new RollupKey(fact.openedDay, fact.companyId, fact.categoryId, fact.status);
+        }
+    }
+
+    private record RefreshAfterCommit(Set<Long> ticketIds) implements Synchronization {
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == Status.STATUS_COMMITTED && !ticketIds.isEmpty()) {
+                Arc.container().instance(ReportRollupService.class).get().enqueue(Set.copyOf(ticketIds));
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.service;
+
+import ai.mnemosyne_systems.model.Company;
+import ai.mnemosyne_systems.model.ReportData;
+import ai.mnemosyne_systems.model.ReportSnapshot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import org.jboss.logging.Logger;
+
+/**
+ * Serves report data from stored snapshots per company scope and period. Snapshots are regenerated on a schedule and on
+ * demand in the background; a snapshot invalidated by a ticket change, or generated on an earlier day, is still served
+ * with its generation time while it is recomputed in the background. Only a scope without a snapshot is computed
+ * inline.
+ */
+@ApplicationScoped
+public class ReportSnapshotService {
+
+    private static final Logger LOGGER = Logger.getLogger(ReportSnapshotService.class);
+    private static final List<String> PERIODS = List.of("all", "year", "month");
+
+    @Inject
+    ReportRollupService reportRollupService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "report-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Snapshot report(List<Company> companies, String period) {
+        String scopeKey = scopeKey(companies);
+        ReportSnapshot snapshot = ReportSnapshot.findByScope(scopeKey, period);
+        if (snapshot != null) {
+            try {
+                ReportData data = objectMapper.readValue(snapshot.payload, ReportData.class);
+                if (!fresh(snapshot)) {
+                    refresh(companies, period);
+                }
+                return new Snapshot(data, snapshot.generatedAt);
+            } catch (JsonProcessingException ex) {
+                LOGGER.warnf(ex, "Discarding unreadable report snapshot %d", snapshot.id);
+            }
+        }
+        LocalDateTime generatedAt = LocalDateTime.now();
+        ReportData data = reportRollupService.report(companies, period);
+        store(scopeKey, period, data, generatedAt);
+        return new Snapshot(data, generatedAt);
+    }
+
+    public void refresh(List<Company> companies, String period) {
+        String scopeKey = scopeKey(companies);
+        if (queued.add(scopeKey + "|" + period)) {
+            executor.submit(() -> {
+                queued.remove(scopeKey + "|" + period);
+                regenerate(scopeKey, period);
+            });
+        }
+    }
+
+    @Scheduled(every = "{ticket.reports.snapshot.refresh-interval}", delayed = "1m")
+    void scheduledRefresh() {
+        executor.submit(this::refreshAll);
+    }
+
+    int refreshAll() {
+        Set<String> scopes = new LinkedHashSet<>();
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                for (String period : PERIODS) {
+                    scopes.add(ReportSnapshot.ALL_COMPANIES + "|" + period);
+                }
+                for (Company company : Company.<Company> list(
+                        "select c from Company c where exists (select t from Ticket t where t.company = c)")) {
+                    for (String period : PERIODS) {
+                        scopes.add(scopeKey(List.of(company)) + "|" + period);
+                    }
+                }
+                for (ReportSnapshot snapshot : ReportSnapshot.<ReportSnapshot> listAll()) {
+                    scopes.add(snapshot.scopeKey + "|" + snapshot.period);
+                }
+            });
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Unable to list report snapshots", ex);
+            return 0;
+        }
+        int refreshed = 0;
+        for (String scope : scopes) {
+            int separator = scope.lastIndexOf('|');
+            if (regenerate(scope.substring(0, separator), scope.substring(separator + 1))) {
+                refreshed++;
+            }
+        }
+        LOGGER.debugf("Refreshed %d report snapshots", refreshed);
+        return refreshed;
+    }
+
+    boolean regenerate(String scopeKey, String period) {
+        try {
+            LocalDateTime generatedAt = LocalDateTime.now();
+            ReportData data = QuarkusTransaction.requiringNew()
+                    .call(() -> reportRollupService.report(companies(scopeKey), period));
+            store(scopeKey, period, data, generatedAt);
+            return true;
+        } catch (RuntimeException ex) {
+            LOGGER.warnf(ex, "Unable to refresh report snapshot %s/%s", scopeKey, period);
+            return false;
+        }
+    }
+
+    private void store(String scopeKey, String period, ReportData data, LocalDateTime generatedAt) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException ex) {
+            LOGGER.warn("Unable to serialize report snapshot", ex);
+            return;
+        }
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                ReportSnapshot snapshot = ReportSnapshot.findByScope(scopeKey, period);
+                if (snapshot == null) {
+                    snapshot = new ReportSnapshot();
+                    snapshot.scopeKey = scopeKey;
+                    snapshot.period = period;
+                } else if (snapshot.generatedAt.isAfter(generatedAt)) {
+                    return;
+                }
+                snapshot.payload = payload;
+                snapshot.generatedAt = generatedAt;
+                if (!snapshot.isPersistent()) {
+                    snapshot.persist();
+                }
+            });
+        } catch (RuntimeException ex) {
+            LOGGER.debugf(ex, "Report snapshot %s/%s was stored concurrently", scopeKey, period);
+        }
+    }
+
+    private boolean fresh(ReportSnapshot snapshot) {
+        return !snapshot.isStale() && snapshot.generatedAt.toLocalDate().equals(LocalDate.now());
+    }
+
+    static String scopeKey(List<Company> companies) {
+        if (companies == null) {
+            return ReportSnapshot.ALL_COMPANIES;
+        }
+        return companies.stream().filter(Objects::nonNull).map(company -> company.id).filter(Objects::nonNull)
+                .distinct().sorted().map(String::valueOf).collect(Collectors.joining(",", ",", ","));
+    }
+
+    private List<Company> companies(String scopeKey) {
+        if (ReportSnapshot.ALL_COMPANIES.equals(scopeKey)) {
+            return null;
+        }
+        List<Long> ids = new ArrayList<>();
+        Arrays.stream(scopeKey.split(",")).filter(id -> !id.isEmpty()).forEach(id -> ids.add(Long.valueOf(id)));
+        return ids.isEmpty() ? List.of() : Company.list("id in ?1", ids);
+    }
+
+    public record Snapshot(ReportData data, LocalDateTime generatedAt) {
+    }
+}
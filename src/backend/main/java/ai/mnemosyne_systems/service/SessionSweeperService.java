@@ -0,0 +1,38 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.service;
+
+import ai.mnemosyne_systems.util.AuthHelper;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.jboss.logging.Logger;
+
+@ApplicationScoped
+public class SessionSweeperService {
+
+    private static final Logger LOGGER = Logger.getLogger(SessionSweeperService.class);
+
+    @Scheduled(every = "{ticket.auth.session-sweep-interval}", delayed = "30s")
+    void sweep() {
+        int evicted = AuthHelper.evictExpiredSessions();
+        if (evicted > 0) {
+            LOGGER.debugf("Evicted %d expired sessions", evicted);
+        }
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        try {
+            AuthHelper.sessionStore().flush();
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Unable to flush session activity on shutdown", ex);
+        }
+    }
+}
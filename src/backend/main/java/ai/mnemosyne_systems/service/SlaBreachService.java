@@ -0,0 +1,286 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.service;
+
+import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.model.TicketActivity;
+import ai.mnemosyne_systems.util.SlaSupport;
+import io.quarkus.arc.Arc;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Fires SLA breaches at the ticket deadline. Deadlines due within the scheduling horizon are kept in an in-process
+ * hashed timer wheel; each tick expires one bucket, so registering and firing a deadline costs the same however many
+ * tickets are open. Deadlines further away are loaded from the indexed {@code sla_deadline} column as they come within
+ * the horizon, which also picks up deadlines that passed while the application was down.
+ */
+@ApplicationScoped
+public class SlaBreachService {
+
+    private static final Logger LOGGER = Logger.getLogger(SlaBreachService.class);
+    private static final int WHEEL_SIZE = 512;
+    private static final int BATCH_SIZE = 500;
+    private static final String SCHEDULED_KEY = SlaBreachService.class.getName() + ".scheduled";
+
+    @ConfigProperty(name = "ticket.sla.timer-tick", defaultValue = "1s")
+    Duration timerTick;
+
+    @ConfigProperty(name = "ticket.sla.load-interval", defaultValue = "10m")
+    Duration loadInterval;
+
+    @Inject
+    TicketEmailService ticketEmailService;
+
+    private final Map<Long, LocalDateTime> deadlines = new ConcurrentHashMap<>();
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final List<List<Timeout>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sla-breach");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Thread timerThread;
+    private long tickMillis;
+    private long startMillis;
+
+    @PostConstruct
+    void init() {
+        for (int index = 0; index < WHEEL_SIZE; index++) {
+            wheel.add(new ArrayList<>());
+        }
+        tickMillis = Math.max(10, timerTick.toMillis());
+        startMillis = System.currentTimeMillis();
+        timerThread = new Thread(this::runWheel, "sla-timer");
+        timerThread.setDaemon(true);
+        timerThread.start();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timerThread.interrupt();
+        executor.shutdownNow();
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        executor.submit(() -> {
+            backfill();
+            loadUpcoming();
+        });
+    }
+
+    public static void schedule(Long ticketId, LocalDateTime deadline) {
+        if (ticketId == null) {
+            return;
+        }
+        try {
+            TransactionSynchronizationRegistry registry = Arc.container()
+                    .instance(TransactionSynchronizationRegistry.class).get();
+            if (registry != null && registry.getTransactionKey() != null) {
+                @SuppressWarnings("unchecked")
+                Map<Long, LocalDateTime> scheduled = (Map<Long, LocalDateTime>) registry.getResource(SCHEDULED_KEY);
+                if (scheduled == null) {
+                    scheduled = new LinkedHashMap<>();
+                    registry.registerInterposedSynchronization(new ScheduleAfterCommit(scheduled));
+                    registry.putResource(SCHEDULED_KEY, scheduled);
+                }
+                scheduled.put(ticketId, deadline);
+                return;
+            }
+        } catch (IllegalStateException ex) {
+            LOGGER.debugf("Leaving the SLA deadline of ticket %d to the scheduled load", ticketId);
+            return;
+        }
+        Arc.container().instance(SlaBreachService.class).get().register(Collections.singletonMap(ticketId, deadline));
+    }
+
+    @Scheduled(every = "{ticket.sla.load-interval}", delayed = "{ticket.sla.load-interval}")
+    void scheduledLoad() {
+        loadUpcoming();
+    }
+
+    void loadUpcoming() {
+        LocalDateTime horizon = LocalDateTime.now().plus(horizon());
+        List<Object[]> rows = QuarkusTransaction.requiringNew().call(() -> Ticket.getEntityManager().createQuery(
+                "select t.id, t.slaDeadline from Ticket t where t.slaBreached = false and t.slaDeadline <= :horizon",
+                Object[].class).setParameter("horizon", horizon).getResultList());
+        Map<Long, LocalDateTime> upcoming = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            upcoming.put((Long) row[0], (LocalDateTime) row[1]);
+        }
+        register(upcoming);
+    }
+
+    void register(Map<Long, LocalDateTime> scheduled) {
+        LocalDateTime horizon = LocalDateTime.now().plus(horizon());
+        for (Map.Entry<Long, LocalDateTime> entry : scheduled.entrySet()) {
+            LocalDateTime deadline = entry.getValue();
+            if (deadline == null || deadline.isAfter(horizon)) {
+                deadlines.remove(entry.getKey());
+                continue;
+            }
+            if (!deadline.equals(deadlines.put(entry.getKey(), deadline))) {
+                pending.add(new Timeout(entry.getKey(), deadline,
+                        deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+            }
+        }
+    }
+
+    private void backfill() {
+        try {
+            List<Long> ticketIds = QuarkusTransaction.requiringNew()
+                    .call(() -> Ticket.getEntityManager()
+                            .createQuery("select t.id from Ticket t, TicketActivity a where a.ticketId = t.id"
+                                    + " and t.slaStartedAt is null and a.lastPublicDate is not null order by t.id",
+                                    Long.class)
+                            .getResultList());
+            for (int from = 0; from < ticketIds.size(); from += BATCH_SIZE) {
+                List<Long> batch = ticketIds.subList(from, Math.min(from + BATCH_SIZE, ticketIds.size()));
+                QuarkusTransaction.requiringNew().run(() -> {
+                    for (Ticket ticket : Ticket.<Ticket> list("id in ?1", batch)) {
+                        TicketActivity activity = TicketActivity.findById(ticket.id);
+                        SlaSupport.restart(ticket, activity == null ? null : activity.lastPublicDate);
+                    }
+                });
+            }
+            if (!ticketIds.isEmpty()) {
+                LOGGER.infof("Computed SLA deadlines for %d existing tickets", ticketIds.size());
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Computing SLA deadlines for existing tickets failed", ex);
+        }
+    }
+
+    private void runWheel() {
+        long tick = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long wait = startMillis + (tick + 1) * tickMillis - System.currentTimeMillis();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            tick++;
+            transferPending(tick);
+            List<Long> due = expire(wheel.get((int) (tick % WHEEL_SIZE)));
+            if (!due.isEmpty()) {
+                executor.submit(() -> breach(due));
+            }
+        }
+    }
+
+    private void transferPending(long tick) {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            long target = Math.max(tick, Math.ceilDiv(timeout.deadlineMillis - startMillis, tickMillis));
+            timeout.rounds = (target - tick) / WHEEL_SIZE;
+            wheel.get((int) (target % WHEEL_SIZE)).add(timeout);
+        }
+    }
+
+    private List<Long> expire(List<Timeout> bucket) {
+        List<Long> due = new ArrayList<>();
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (!Objects.equals(deadlines.get(timeout.ticketId), timeout.deadline)) {
+                iterator.remove();
+            } else if (timeout.rounds > 0) {
+                timeout.rounds--;
+            } else {
+                iterator.remove();
+                if (deadlines.remove(timeout.ticketId, timeout.deadline)) {
+                    due.add(timeout.ticketId);
+                }
+            }
+        }
+        return due;
+    }
+
+    void breach(List<Long> ticketIds) {
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                LocalDateTime now = LocalDateTime.now();
+                for (Long ticketId : ticketIds) {
+                    // Claimed by the update so only one instance notifies, even when several fire the same deadline.
+                    if (Ticket.update("slaBreached = true where id = ?1 and slaBreached = false and slaDeadline <= ?2",
+                            ticketId, now) == 0) {
+                        continue;
+                    }
+                    Ticket ticket = Ticket.findById(ticketId);
+                    LOGGER.infof("Ticket %s breached its SLA deadline %s", ticket.name, ticket.slaDeadline);
+                    ticketEmailService.notifySlaBreach(ticket);
+                }
+            });
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Recording SLA breaches failed", ex);
+        }
+    }
+
+    private Duration horizon() {
+        return loadInterval.multipliedBy(2);
+    }
+
+    private static final class Timeout {
+
+        private final Long ticketId;
+        private final LocalDateTime deadline;
+        private final long deadlineMillis;
+        private long rounds;
+
+        private Timeout(Long ticketId, LocalDateTime deadline, long deadlineMillis) {
+            this.ticketId = ticketId;
+            this.deadline = deadline;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+
+    private record ScheduleAfterCommit(Map<Long, LocalDateTime> scheduled) implements Synchronization {
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == Status.STATUS_COMMITTED && !scheduled.isEmpty()) {
+                Arc.container().instance(SlaBreachService.class).get().register(new LinkedHashMap<>(scheduled));
+            }
+        }
+    }
+}
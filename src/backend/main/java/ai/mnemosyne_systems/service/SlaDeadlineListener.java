@@ -0,0 +1,31 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.service;
+
+import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.util.SlaSupport;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+public class SlaDeadlineListener {
+
+    @PrePersist
+    @PreUpdate
+    void refresh(Ticket ticket) {
+        SlaSupport.refresh(ticket);
+    }
+
+    @PostPersist
+    @PostUpdate
+    void changed(Ticket ticket) {
+        SlaBreachService.schedule(ticket.id, ticket.slaBreached ? null : ticket.slaDeadline);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.service;
+
+import ai.mnemosyne_systems.util.TicketActivitySupport;
+import io.quarkus.arc.Arc;
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.jboss.logging.Logger;
+
+/**
+ * The single writer of the ticket_activity rows. Changes to tickets and messages mark the ticket dirty; just before
+ * the transaction completes its row is rebuilt and its SLA restarted from the last public message, so the row commits
+ * together with the change and ticket lists only ever read rows. Tickets without a row are backfilled once at startup.
+ */
+@ApplicationScoped
+public class TicketActivityService {
+
+    private static final Logger LOGGER = Logger.getLogger(TicketActivityService.class);
+    private static final int BATCH_SIZE = 500;
+    private static final String DIRTY_KEY = TicketActivityService.class.getName() + ".dirty";
+    private static final Set<Long> PENDING = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ticket-activity");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        executor.submit(this::backfill);
+    }
+
+    public static void markDirty(Long ticketId) {
+        if (ticketId == null) {
+            return;
+        }
+        try {
+            TransactionSynchronizationRegistry registry = Arc.container()
+                    .instance(TransactionSynchronizationRegistry.class).get();
+            if (registry != null && registry.getTransactionKey() != null) {
+                @SuppressWarnings("unchecked")
+                Set<Long> dirty = (Set<Long>) registry.getResource(DIRTY_KEY);
+                if (dirty == null) {
+                    dirty = new LinkedHashSet<>();
+                    registry.registerInterposedSynchronization(new RefreshBeforeCompletion(registry, dirty));
+                    registry.putResource(DIRTY_KEY, dirty);
+                }
+                dirty.add(ticketId);
+                return;
+            }
+        } catch (IllegalStateException ex) {
+            LOGGER.debugf("Deferring ticket activity refresh for ticket %d to the scheduler", ticketId);
+        }
+        PENDING.add(ticketId);
+    }
+
+    @Scheduled(every = "{ticket.activity.refresh-interval}", delayed = "30s")
+    void scheduledRefresh() {
+        refreshPending();
+    }
+
+    public int refreshPending() {
+        int refreshed = 0;
+        while (!PENDING.isEmpty()) {
+            List<Long> batch = new ArrayList<>();
+            Iterator<Long> iterator = PENDING.iterator();
+            while (iterator.hasNext() && batch.size() < BATCH_SIZE) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            try {
+                QuarkusTransaction.requiringNew().run(() -> batch.forEach(TicketActivityService::markDirty));
+                refreshed += batch.size();
+            } catch (RuntimeException ex) {
+                PENDING.addAll(batch);
+                LOGGER.warn("Unable to refresh ticket activity", ex);
+                break;
+            }
+        }
+        return refreshed;
+    }
+
+    void backfill() {
+        try {
+            int backfilled = 0;
+            while (true) {
+                List<Long> batch = QuarkusTransaction.requiringNew().call(() -> {
+                    List<Long> ids = Panache.getEntityManager().createQuery(
+                            "select t.id from Ticket t where not exists (select a from TicketActivity a where a.ticketId = t.id) order by t.id",
+                            Long.class).setMaxResults(BATCH_SIZE).getResultList();
+                    ids.forEach(TicketActivityService::markDirty);
+                    return ids;
+                });
+                if (batch.isEmpty()) {
+                    break;
+                }
+                backfilled += batch.size();
+            }
+            if (backfilled > 0) {
+                LOGGER.infof("Backfilled ticket activity for %d tickets", backfilled);
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Unable to backfill ticket activity", ex);
+        }
+    }
+
+    private record RefreshBeforeCompletion(TransactionSynchronizationRegistry registry, Set<Long> ticketIds)
+            implements Synchronization {
+
+        @Override
+        public void beforeCompletion() {
+            if (registry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+                return;
+            }
+            EntityManager entityManager = Panache.getEntityManager();
+            // Flushing runs the listeners of pending changes, and restarting an SLA updates the ticket and marks it
+            // dirty again, so the set is drained until only rebuilt tickets are left.
+            Set<Long> rebuilt = new HashSet<>();
+            entityManager.flush();
+            List<Long> batch = pending(rebuilt);
+            while (!batch.isEmpty()) {
+                rebuilt.addAll(batch);
+                TicketActivitySupport.refreshTickets(batch);
+                entityManager.flush();
+                batch = pending(rebuilt);
+            }
+        }
+
+        private List<Long> pending(Set<Long> rebuilt) {
+            List<Long> pending = ticketIds.stream().filter(id -> !rebuilt.contains(id)).toList();
+            ticketIds.clear();
+            return pending;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+        }
+    }
+}
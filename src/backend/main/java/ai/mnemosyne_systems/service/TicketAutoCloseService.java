@@ -8,7 +8,7 @@
 
 package ai.mnemosyne_systems.service;
 
-import ai.mnemosyne_systems.model.Installation;
+import ai.mnemosyne_systems.infra.BrandingProvider;
 import ai.mnemosyne_systems.model.Ticket;
 import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -21,11 +21,13 @@ import org.jboss.logging.Logger;
 public class TicketAutoCloseService {
 
     private static final Logger LOGGER = Logger.getLogger(TicketAutoCloseService.class);
-    private static final int DEFAULT_AUTO_CLOSE_DAYS = 7;
 
     @Inject
     TicketEmailService ticketEmailService;
 
+    @Inject
+    BrandingProvider brandingProvider;
+
     // Run once a day at 2 AM
     @Scheduled(cron = "0 0 2 * * ?")
     @Transactional
@@ -56,10 +58,6 @@ public class TicketAutoCloseService {
     }
 
     private int resolveAutoCloseDays() {
-        Installation installation = Installation.find("singletonKey", "installation").firstResult();
-        if (installation != null && installation.ticketAutoCloseDays != null) {
-            return installation.ticketAutoCloseDays;
-        }
-        return DEFAULT_AUTO_CLOSE_DAYS;
+        return brandingProvider.ticketAutoCloseDays();
     }
 }
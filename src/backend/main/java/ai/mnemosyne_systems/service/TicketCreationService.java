@@ -8,6 +8,7 @@
 
 package ai.mnemosyne_systems.service;
 
+import ai.mnemosyne_systems.model.Attachment;
 import ai.mnemosyne_systems.model.Category;
 import ai.mnemosyne_systems.model.Company;
 import ai.mnemosyne_systems.model.CompanyEntitlement;
@@ -15,6 +16,7 @@ import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Ticket;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.model.Version;
+import ai.mnemosyne_systems.util.AttachmentHelper;
 import jakarta.enterprise.context.ApplicationScoped;
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -25,6 +27,10 @@ import java.util.Set;
 public class TicketCreationService {
 
     public Ticket createTicketWithInitialMessage(TicketCreationRequest request) {
+        return createTicketWithInitialMessage(request, List.of());
+    }
+
+    public Ticket createTicketWithInitialMessage(TicketCreationRequest request, List<Attachment> attachments) {
         Ticket ticket = new Ticket();
         ticket.name = Ticket.nextName(request.company());
         ticket.title = Ticket.normalizeTitle(request.title());
@@ -44,6 +50,7 @@ public class TicketCreationService {
         message.ticket = ticket;
         message.author = request.requester();
         message.isPublic = request.initialMessagePublic();
+        AttachmentHelper.attachToMessage(message, attachments);
         message.persist();
         return ticket;
     }
@@ -8,19 +8,15 @@
 
 package ai.mnemosyne_systems.service;
 
-import ai.mnemosyne_systems.model.Attachment;
 import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Ticket;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.util.MessageAudienceSupport;
-import io.quarkus.mailer.Mail;
 import io.quarkus.qute.RawString;
-import io.quarkus.mailer.Mailer;
 import io.quarkus.qute.Location;
 import io.quarkus.qute.Template;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import org.eclipse.microprofile.config.inject.ConfigProperty;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -30,7 +26,7 @@ import java.util.Set;
 public class TicketEmailService {
 
     @Inject
-    Mailer mailer;
+    MailOutboxService mailOutboxService;
 
     @Inject
     MarkdownService markdownService;
@@ -44,9 +40,6 @@ public class TicketEmailService {
     @Location("mail/ticket-change-body.html")
     Template bodyHtmlTemplate;
 
-    @ConfigProperty(name = "ticket.mailer.from")
-    String fromAddress;
-
     public void notifyMessageChange(Ticket ticket, Message message, User actor) {
         send(ticket, message, actor, "Message", null);
     }
@@ -55,11 +48,20 @@ public class TicketEmailService {
         send(ticket, null, actor, "Status", normalize(previousStatus));
     }
 
+    public void notifySlaBreach(Ticket ticket) {
+        send(ticket, null, null, "SLA breach", null, MessageAudienceSupport.Audience.SUPPORT_TAM);
+    }
+
     private void send(Ticket ticket, Message message, User actor, String eventType, String previousStatus) {
+        send(ticket, message, actor, eventType, previousStatus, messageAudience(message));
+    }
+
+    private void send(Ticket ticket, Message message, User actor, String eventType, String previousStatus,
+            MessageAudienceSupport.Audience audience) {
         if (ticket == null || ticket.id == null) {
             return;
         }
-        List<User> recipientUsers = recipientUsers(ticket, message);
+        List<User> recipientUsers = recipientUsers(ticket, audience);
         if (recipientUsers.isEmpty()) {
             return;
         }
@@ -68,17 +70,12 @@ public class TicketEmailService {
         String subject = subjectTemplate.data("ticket", ticket).data("eventType", eventType).render().strip();
         String text = renderText(ticket, message, eventType, previousStatus, currentStatus, actorName);
         String html = renderHtml(ticket, message, eventType, previousStatus, currentStatus, actorName);
-        for (User recipient : recipientUsers) {
-            Mail mail = createMail(recipient, subject, text, html);
-            addAttachments(mail, message);
-            mailer.send(mail);
-        }
+        mailOutboxService.enqueue(subject, text, html, message == null ? null : message.id, recipientUsers);
     }
 
-    private List<User> recipientUsers(Ticket ticket, Message message) {
+    private List<User> recipientUsers(Ticket ticket, MessageAudienceSupport.Audience audience) {
         Set<Long> seen = new LinkedHashSet<>();
         List<User> result = new ArrayList<>();
-        MessageAudienceSupport.Audience audience = messageAudience(message);
         addUser(seen, result, ticket.requester, audience);
         if (ticket.tamUsers != null) {
             for (User user : ticket.tamUsers) {
@@ -141,34 +138,10 @@ public class TicketEmailService {
                 .data("previousStatus", previousStatus).data("currentStatus", currentStatus)
                 .data("actorName", actorName)
                 .data("messageHtml",
-                        message == null ? new RawString("") : new RawString(markdownService.renderHtml(message.body)))
+                        message == null ? new RawString("") : new RawString(markdownService.renderHtml(message)))
                 .render();
     }
 
-    private Mail createMail(User recipient, String subject, String text, String html) {
-        String recipientEmail = recipient.email.trim().toLowerCase();
-        if ("text".equalsIgnoreCase(recipient.emailFormat)) {
-            return Mail.withText(recipientEmail, subject, text).setFrom(fromAddress);
-        }
-        if ("html".equalsIgnoreCase(recipient.emailFormat)) {
-            return Mail.withHtml(recipientEmail, subject, html).setFrom(fromAddress);
-        }
-        return Mail.withText(recipientEmail, subject, text).setFrom(fromAddress).setHtml(html);
-    }
-
-    private void addAttachments(Mail mail, Message message) {
-        if (message == null || message.attachments == null) {
-            return;
-        }
-        for (Attachment attachment : message.attachments) {
-            if (attachment != null && attachment.name != null && attachment.data != null) {
-                mail.addAttachment(attachment.name, attachment.data,
-                        attachment.mimeType == null || attachment.mimeType.isBlank() ? "application/octet-stream"
-                                : attachment.mimeType);
-            }
-        }
-    }
-
     private String normalize(String value) {
         if (value == null || value.isBlank()) {
             return "-";
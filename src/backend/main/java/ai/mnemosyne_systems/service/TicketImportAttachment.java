@@ -0,0 +1,25 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An attachment carried by an import row. The content is opened only when the row is imported, so skipped rows never
+ * reach the attachment store.
+ */
+public record TicketImportAttachment(String name, String mimeType, Content content) {
+
+    @FunctionalInterface
+    public interface Content {
+
+        InputStream open() throws IOException;
+    }
+}
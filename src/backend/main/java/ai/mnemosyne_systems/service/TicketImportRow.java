@@ -8,7 +8,35 @@
 
 package ai.mnemosyne_systems.service;
 
+import java.util.List;
+
+/**
+ * One imported ticket. {@code messages} follow the initial message in order, and {@code threadKeys} name earlier source
+ * keys of the same source system whose ticket this row continues instead of creating a new one. A row the source could
+ * not read carries the reason in {@code readError} and is recorded as failed without importing anything.
+ */
 public record TicketImportRow(int rowNumber, String sourceSystem, String sourceKey, String title, String company,
         String entitlement, String status, String initialMessage, String requesterEmail, String category,
-        String externalIssueLink, String createdAt) {
+        String externalIssueLink, String createdAt, List<TicketImportAttachment> attachments,
+        List<TicketImportMessage> messages, List<String> threadKeys, String readError) {
+
+    public TicketImportRow(int rowNumber, String sourceSystem, String sourceKey, String title, String company,
+            String entitlement, String status, String initialMessage, String requesterEmail, String category,
+            String externalIssueLink, String createdAt, List<TicketImportAttachment> attachments,
+            List<TicketImportMessage> messages, List<String> threadKeys) {
+        this(rowNumber, sourceSystem, sourceKey, title, company, entitlement, status, initialMessage, requesterEmail,
+                category, externalIssueLink, createdAt, attachments, messages, threadKeys, null);
+    }
+
+    public TicketImportRow(int rowNumber, String sourceSystem, String sourceKey, String title, String company,
+            String entitlement, String status, String initialMessage, String requesterEmail, String category,
+            String externalIssueLink, String createdAt) {
+        this(rowNumber, sourceSystem, sourceKey, title, company, entitlement, status, initialMessage, requesterEmail,
+                category, externalIssueLink, createdAt, List.of(), List.of(), List.of());
+    }
+
+    public static TicketImportRow unreadable(int rowNumber, String sourceKey, String readError) {
+        return new TicketImportRow(rowNumber, null, sourceKey, null, null, null, null, null, null, null, null, null,
+                List.of(), List.of(), List.of(), readError);
+    }
 }
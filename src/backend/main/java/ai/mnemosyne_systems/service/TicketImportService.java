@@ -8,66 +8,243 @@
 
 package ai.mnemosyne_systems.service;
 
+import ai.mnemosyne_systems.model.Attachment;
 import ai.mnemosyne_systems.model.Category;
 import ai.mnemosyne_systems.model.Company;
 import ai.mnemosyne_systems.model.CompanyEntitlement;
+import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Ticket;
 import ai.mnemosyne_systems.model.TicketImportBatch;
 import ai.mnemosyne_systems.model.TicketImportRecord;
 import ai.mnemosyne_systems.model.User;
+import ai.mnemosyne_systems.util.AttachmentHelper;
+import ai.mnemosyne_systems.util.AttachmentStorage;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
-import jakarta.transaction.Transactional;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.jboss.logging.Logger;
 
+/**
+ * Imports tickets from a spooled upload. Rows are parsed lazily and imported in chunks, each chunk in its own
+ * transaction with its own reference-data lookups, and the batch row counts and bytes read are updated after every
+ * chunk so a running import can be polled. Chunks and batches run one at a time on purpose: a chunk threads replies
+ * onto tickets and skips source keys committed by the chunks and batches before it, which parallel chunks would race.
+ */
 @ApplicationScoped
 public class TicketImportService {
 
+    public static final int MAX_RESULTS = 1000;
+
+    // Rows keep their message text and attachments in memory until their chunk is imported.
+    private static final long MAX_CHUNK_BYTES = 32L * 1024 * 1024;
+
+    private static final String NO_SUBJECT_TITLE = "(no subject)";
+    private static final Logger LOGGER = Logger.getLogger(TicketImportService.class);
+
     @Inject
     CsvTicketImportSource csvSource;
 
+    @Inject
+    NdjsonTicketImportSource ndjsonSource;
+
+    @Inject
+    MboxTicketImportSource mboxSource;
+
     @Inject
     TicketCreationService ticketCreationService;
 
-    @Transactional
-    public TicketImportSummary importCsv(byte[] data, String fileName, User actor) {
-        return importRows(csvSource, csvSource.parse(data), fileName, actor);
+    @Inject
+    IncomingEmailService incomingEmailService;
+
+    @ConfigProperty(name = "ticket.import.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    // Sequential by design, see the class comment; ticket numbers alone would be safe to allocate in parallel.
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ticket-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Background imports do not survive a restart, so batches still marked as running are closed as failed.
+     */
+    void onStart(@Observes StartupEvent event) {
+        int interrupted = QuarkusTransaction.requiringNew().call(() -> TicketImportBatch.update(
+                "status = ?1, errorMessage = ?2, completedAt = ?3 where status = ?4", TicketImportBatch.STATUS_FAILED,
+                "Import was interrupted by a restart", LocalDateTime.now(), TicketImportBatch.STATUS_RUNNING));
+        if (interrupted > 0) {
+            LOGGER.warnf("Marked %d ticket import batch(es) interrupted by a restart as failed", interrupted);
+        }
     }
 
-    TicketImportSummary importRows(TicketImportSource source, List<TicketImportRow> rows, String fileName, User actor) {
+    public List<TicketImportSource> sources() {
+        return List.of(csvSource, ndjsonSource, mboxSource);
+    }
+
+    public TicketImportSource source(String sourceType) {
+        for (TicketImportSource source : sources()) {
+            if (source.sourceType().equalsIgnoreCase(sourceType)) {
+                return source;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes ownership of the spooled file and deletes it once the import has finished or failed to start.
+     */
+    public TicketImportSummary importFile(TicketImportSource source, Path file, String fileName, User actor,
+            boolean background) {
+        boolean handedOff = false;
+        try {
+            long bytesTotal = Files.size(file);
+            CountingInputStream input = new CountingInputStream(Files.newInputStream(file));
+            try {
+                Iterator<TicketImportRow> rows = source.rows(input);
+                Long batchId = QuarkusTransaction.requiringNew()
+                        .call(() -> startBatch(source.sourceType(), fileName, actor, bytesTotal));
+                Long actorId = actor == null ? null : actor.id;
+                if (background) {
+                    executor.submit(() -> {
+                        try {
+                            process(batchId, actorId, source, rows, input);
+                        } finally {
+                            AttachmentHelper.deleteQuietly(file);
+                        }
+                    });
+                    handedOff = true;
+                } else {
+                    process(batchId, actorId, source, rows, input);
+                }
+                return summary(batchId);
+            } finally {
+                if (!handedOff) {
+                    input.close();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            if (!handedOff) {
+                AttachmentHelper.deleteQuietly(file);
+            }
+        }
+    }
+
+    public TicketImportSummary summary(Long batchId) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            TicketImportBatch batch = TicketImportBatch.findById(batchId);
+            if (batch == null) {
+                return null;
+            }
+            List<TicketImportResult> results = TicketImportRecord.<TicketImportRecord> find(
+                    "select r from TicketImportRecord r left join fetch r.ticket where r.batch.id = ?1 order by r.rowNumber, r.id",
+                    batchId).range(0, MAX_RESULTS - 1).list().stream().map(this::toResult).toList();
+            return new TicketImportSummary(batch.id, batch.sourceType, batch.fileName, batch.status, batch.rowCount(),
+                    batch.createdCount, batch.appendedCount, batch.skippedCount, batch.failedCount, results,
+                    batch.bytesRead, batch.bytesTotal, batch.errorMessage);
+        });
+    }
+
+    private Long startBatch(String sourceType, String fileName, User actor, long bytesTotal) {
         TicketImportBatch batch = new TicketImportBatch();
-        batch.sourceType = source.sourceType();
+        batch.sourceType = sourceType;
         batch.fileName = fileName;
-        batch.actor = actor;
+        batch.actor = actor == null ? null : User.findById(actor.id);
         batch.startedAt = LocalDateTime.now();
-        batch.status = "Running";
+        batch.status = TicketImportBatch.STATUS_RUNNING;
+        batch.bytesTotal = bytesTotal;
         batch.persist();
+        return batch.id;
+    }
 
-        List<TicketImportResult> results = new ArrayList<>();
-        for (TicketImportRow row : rows) {
-            TicketImportResult result = importRow(batch, row, actor);
-            results.add(result);
-            if (TicketImportRecord.RESULT_CREATED.equals(result.result())) {
-                batch.createdCount++;
-            } else if (TicketImportRecord.RESULT_SKIPPED.equals(result.result())) {
-                batch.skippedCount++;
-            } else {
-                batch.failedCount++;
+    private void process(Long batchId, Long actorId, TicketImportSource source, Iterator<TicketImportRow> rows,
+            CountingInputStream input) {
+        String error = null;
+        try (input) {
+            List<TicketImportRow> chunk = new ArrayList<>(chunkSize);
+            long chunkStart = input.count();
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() >= chunkSize || input.count() - chunkStart >= MAX_CHUNK_BYTES) {
+                    importChunk(batchId, actorId, source, chunk, input.count());
+                    chunk.clear();
+                    chunkStart = input.count();
+                }
             }
+            importChunk(batchId, actorId, source, chunk, input.count());
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.warnf(ex, "Ticket import batch %d stopped", batchId);
+            error = ex.getMessage() == null || ex.getMessage().isBlank() ? "Unable to read import file"
+                    : ex.getMessage();
         }
-        batch.completedAt = LocalDateTime.now();
-        batch.status = batchStatus(batch);
-        return new TicketImportSummary(batch.id, batch.sourceType, batch.fileName, batch.status, rows.size(),
-                batch.createdCount, batch.skippedCount, batch.failedCount, results);
+        String failure = error;
+        QuarkusTransaction.requiringNew().run(() -> {
+            TicketImportBatch batch = TicketImportBatch.findById(batchId);
+            batch.completedAt = LocalDateTime.now();
+            batch.errorMessage = failure;
+            batch.status = failure == null ? batchStatus(batch) : TicketImportBatch.STATUS_FAILED;
+        });
+    }
+
+    private void importChunk(Long batchId, Long actorId, TicketImportSource source, List<TicketImportRow> chunk,
+            long bytesRead) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            // Messages, attachments and import records of the chunk go out in JDBC batches between flushes.
+            TicketImportBatch.getEntityManager().unwrap(Session.class).setJdbcBatchSize(chunkSize);
+            TicketImportBatch batch = TicketImportBatch.findById(batchId);
+            User actor = actorId == null ? null : User.findById(actorId);
+            ChunkLookups lookups = new ChunkLookups(chunk);
+            for (TicketImportRow row : chunk) {
+                TicketImportResult result = importRow(batch, source, row, actor, lookups);
+                if (TicketImportRecord.RESULT_CREATED.equals(result.result())) {
+                    batch.createdCount++;
+                } else if (TicketImportRecord.RESULT_APPENDED.equals(result.result())) {
+                    batch.appendedCount++;
+                } else if (TicketImportRecord.RESULT_SKIPPED.equals(result.result())) {
+                    batch.skippedCount++;
+                } else {
+                    batch.failedCount++;
+                }
+            }
+            batch.bytesRead = bytesRead;
+        });
     }
 
     private String batchStatus(TicketImportBatch batch) {
-        if (batch.failedCount > 0 && batch.createdCount == 0 && batch.skippedCount == 0) {
+        if (batch.failedCount > 0 && batch.createdCount == 0 && batch.appendedCount == 0 && batch.skippedCount == 0) {
             return TicketImportBatch.STATUS_FAILED;
         }
         if (batch.failedCount > 0) {
@@ -76,32 +253,65 @@ public class TicketImportService {
         return TicketImportBatch.STATUS_COMPLETED;
     }
 
-    private TicketImportResult importRow(TicketImportBatch batch, TicketImportRow row, User actor) {
+    private TicketImportResult importRow(TicketImportBatch batch, TicketImportSource source, TicketImportRow row,
+            User actor, ChunkLookups lookups) {
         String sourceSystem = sourceIdentity(row.sourceSystem(), batch.sourceType);
         String sourceKey = sourceIdentity(row.sourceKey(), "__missing_source_key_row_" + row.rowNumber());
+        if (row.readError() != null) {
+            return toResult(record(batch, row, sourceSystem, sourceKey, TicketImportRecord.RESULT_FAILED, null,
+                    row.readError()));
+        }
         try {
             sourceKey = normalizeRequired(row.sourceKey(), "Source key is required");
-            TicketImportRecord existing = TicketImportRecord
-                    .find("sourceSystem = ?1 and sourceKey = ?2 and result = ?3 order by id asc", sourceSystem,
-                            sourceKey, TicketImportRecord.RESULT_CREATED)
-                    .firstResult();
-            if (existing != null && existing.ticket != null) {
+            Ticket existing = lookups.importedTickets.get(new SourceIdentity(sourceSystem, sourceKey));
+            if (existing != null) {
                 TicketImportRecord record = record(batch, row, sourceSystem, sourceKey,
-                        TicketImportRecord.RESULT_SKIPPED, existing.ticket, "Duplicate source ticket");
+                        TicketImportRecord.RESULT_SKIPPED, existing, "Duplicate source ticket");
                 return toResult(record);
             }
-            String title = normalizeRequired(row.title(), "Title is required");
+            // Everything the row needs is resolved and stored before the first entity is persisted, so a failing row
+            // leaves no ticket or message behind in the chunk's transaction.
+            String title = source.mailThreading() ? row.title() : normalizeRequired(row.title(), "Title is required");
             String initialMessage = normalizeRequired(row.initialMessage(), "Initial message is required");
-            Company company = resolveCompany(row.company());
-            CompanyEntitlement entitlement = resolveEntitlement(company, row.entitlement());
-            Category category = resolveCategory(row.category());
-            User requester = resolveRequester(row.requesterEmail(), actor);
+            User requester = lookups.requester(row.requesterEmail(), actor);
+            LocalDateTime createdAt = parseCreatedAt(row.createdAt());
+            List<PreparedMessage> followUps = prepareMessages(row.messages(), requester, lookups);
+            Ticket thread = lookups.thread(sourceSystem, row.threadKeys());
+            if (thread == null && source.mailThreading()) {
+                thread = incomingEmailService.taggedTicket(requester, row.title());
+            }
+            if (thread != null) {
+                List<Attachment> attachments = attachments(row.attachments());
+                appendMessage(thread, new PreparedMessage(requester, initialMessage, createdAt, true, attachments));
+                for (PreparedMessage message : followUps) {
+                    appendMessage(thread, message);
+                }
+                TicketImportRecord record = record(batch, row, sourceSystem, sourceKey,
+                        TicketImportRecord.RESULT_APPENDED, thread, null);
+                lookups.importedTickets.put(new SourceIdentity(sourceSystem, sourceKey), thread);
+                return toResult(record);
+            }
+            if (source.mailThreading()) {
+                title = incomingEmailService.incomingTitle(title, initialMessage, NO_SUBJECT_TITLE);
+            }
+            Company company = source.mailThreading() && isBlank(row.company()) ? lookups.senderCompany(requester)
+                    : lookups.company(row.company());
+            CompanyEntitlement entitlement = source.mailThreading() && isBlank(row.entitlement())
+                    ? lookups.defaultEntitlement(company)
+                    : lookups.entitlement(company, row.entitlement());
+            Category category = lookups.category(row.category());
             String status = row.status() == null || row.status().isBlank() ? "Open" : row.status().trim();
+            List<Attachment> attachments = attachments(row.attachments());
             Ticket ticket = ticketCreationService.createTicketWithInitialMessage(
                     new TicketCreationService.TicketCreationRequest(title, status, company, entitlement, category,
-                            requester, initialMessage, parseCreatedAt(row.createdAt()), row.externalIssueLink(), true));
+                            requester, initialMessage, createdAt, row.externalIssueLink(), true),
+                    attachments);
+            for (PreparedMessage message : followUps) {
+                appendMessage(ticket, message);
+            }
             TicketImportRecord record = record(batch, row, sourceSystem, sourceKey, TicketImportRecord.RESULT_CREATED,
                     ticket, null);
+            lookups.importedTickets.put(new SourceIdentity(sourceSystem, sourceKey), ticket);
             return toResult(record);
         } catch (RuntimeException ex) {
             TicketImportRecord record = record(batch, row, sourceSystem, sourceKey, TicketImportRecord.RESULT_FAILED,
@@ -110,6 +320,51 @@ public class TicketImportService {
         }
     }
 
+    private List<PreparedMessage> prepareMessages(List<TicketImportMessage> messages, User requester,
+            ChunkLookups lookups) {
+        List<PreparedMessage> prepared = new ArrayList<>();
+        for (TicketImportMessage message : messages) {
+            User author = lookups.requester(message.authorEmail(), requester);
+            String body = normalizeRequired(message.body(), "Message body is required");
+            prepared.add(new PreparedMessage(author, body, parseCreatedAt(message.createdAt()), message.isPublic(),
+                    attachments(message.attachments())));
+        }
+        return prepared;
+    }
+
+    private void appendMessage(Ticket ticket, PreparedMessage prepared) {
+        Message message = new Message();
+        message.body = prepared.body();
+        message.date = prepared.date();
+        message.ticket = ticket;
+        message.author = prepared.author();
+        message.isPublic = prepared.isPublic();
+        AttachmentHelper.attachToMessage(message, prepared.attachments());
+        message.persist();
+    }
+
+    private List<Attachment> attachments(List<TicketImportAttachment> attachments) {
+        List<Attachment> stored = new ArrayList<>();
+        for (TicketImportAttachment source : attachments) {
+            Attachment attachment = new Attachment();
+            attachment.name = source.name();
+            attachment.mimeType = source.mimeType();
+            try (InputStream input = source.content().open()) {
+                AttachmentStorage.write(attachment, input);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to read attachment " + source.name(), ex);
+            }
+            if (attachment.sizeBytes() > 0) {
+                stored.add(attachment);
+            }
+        }
+        return stored;
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
     private String sourceIdentity(String value, String fallback) {
         if (value == null || value.isBlank()) {
             return fallback;
@@ -137,48 +392,6 @@ public class TicketImportService {
                 record.errorMessage);
     }
 
-    private Company resolveCompany(String name) {
-        String normalized = normalizeRequired(name, "Company is required");
-        Company company = Company.find("lower(name) = ?1", normalized.toLowerCase(Locale.ENGLISH)).firstResult();
-        if (company == null) {
-            throw new IllegalArgumentException("Company not found: " + normalized);
-        }
-        return company;
-    }
-
-    private CompanyEntitlement resolveEntitlement(Company company, String name) {
-        String normalized = normalizeRequired(name, "Entitlement is required");
-        CompanyEntitlement entitlement = CompanyEntitlement.find(
-                "select ce from CompanyEntitlement ce join ce.entitlement e where ce.company = ?1 and lower(e.name) = ?2",
-                company, normalized.toLowerCase(Locale.ENGLISH)).firstResult();
-        if (entitlement == null) {
-            throw new IllegalArgumentException("Entitlement not found for company: " + normalized);
-        }
-        return entitlement;
-    }
-
-    private Category resolveCategory(String name) {
-        if (name == null || name.isBlank()) {
-            return Category.findDefault();
-        }
-        Category category = Category.find("lower(name) = ?1", name.trim().toLowerCase(Locale.ENGLISH)).firstResult();
-        if (category == null) {
-            throw new IllegalArgumentException("Category not found: " + name.trim());
-        }
-        return category;
-    }
-
-    private User resolveRequester(String email, User actor) {
-        if (email == null || email.isBlank()) {
-            return actor;
-        }
-        User requester = User.find("lower(email) = ?1", email.trim().toLowerCase(Locale.ENGLISH)).firstResult();
-        if (requester == null) {
-            throw new IllegalArgumentException("Requester not found: " + email.trim());
-        }
-        return requester;
-    }
-
     private LocalDateTime parseCreatedAt(String value) {
         if (value == null || value.isBlank()) {
             return LocalDateTime.now();
@@ -210,8 +423,151 @@ public class TicketImportService {
         return message;
     }
 
+    /**
+     * Reference data and already imported source keys for one chunk. Entries are only valid inside the chunk's
+     * transaction.
+     */
+    private final class ChunkLookups {
+
+        final Map<SourceIdentity, Ticket> importedTickets = new HashMap<>();
+        private final Map<String, Optional<Company>> companies = new HashMap<>();
+        private final Map<String, Optional<CompanyEntitlement>> entitlements = new HashMap<>();
+        private final Map<String, Optional<Category>> categories = new HashMap<>();
+        private final Map<String, Optional<User>> users = new HashMap<>();
+        private final Map<String, Optional<Company>> senderCompanies = new HashMap<>();
+        private final Map<String, Optional<CompanyEntitlement>> defaultEntitlements = new HashMap<>();
+
+        ChunkLookups(List<TicketImportRow> chunk) {
+            Set<String> sourceKeys = new LinkedHashSet<>();
+            for (TicketImportRow row : chunk) {
+                if (row.sourceKey() != null && !row.sourceKey().isBlank()) {
+                    sourceKeys.add(row.sourceKey().trim());
+                }
+                sourceKeys.addAll(row.threadKeys());
+            }
+            if (sourceKeys.isEmpty()) {
+                return;
+            }
+            for (TicketImportRecord record : TicketImportRecord.<TicketImportRecord> list(
+                    "select r from TicketImportRecord r join fetch r.ticket where r.result in ?1 and r.sourceKey in ?2 order by r.id",
+                    List.of(TicketImportRecord.RESULT_CREATED, TicketImportRecord.RESULT_APPENDED),
+                    List.copyOf(sourceKeys))) {
+                importedTickets.putIfAbsent(new SourceIdentity(record.sourceSystem, record.sourceKey), record.ticket);
+            }
+        }
+
+        Company company(String name) {
+            String normalized = normalizeRequired(name, "Company is required");
+            return cached(companies, normalized.toLowerCase(Locale.ENGLISH),
+                    key -> Company.<Company> find("lower(name) = ?1", key).firstResult())
+                            .orElseThrow(() -> new IllegalArgumentException("Company not found: " + normalized));
+        }
+
+        CompanyEntitlement entitlement(Company company, String name) {
+            String normalized = normalizeRequired(name, "Entitlement is required");
+            String lowered = normalized.toLowerCase(Locale.ENGLISH);
+            return cached(entitlements, company.id + ":" + lowered, key -> CompanyEntitlement.<CompanyEntitlement> find(
+                    "select ce from CompanyEntitlement ce join ce.entitlement e where ce.company = ?1 and lower(e.name) = ?2",
+                    company, lowered).firstResult()).orElseThrow(
+                            () -> new IllegalArgumentException("Entitlement not found for company: " + normalized));
+        }
+
+        Category category(String name) {
+            if (name == null || name.isBlank()) {
+                return cached(categories, "", key -> Category.findDefault()).orElse(null);
+            }
+            String trimmed = name.trim();
+            return cached(categories, trimmed.toLowerCase(Locale.ENGLISH),
+                    key -> Category.<Category> find("lower(name) = ?1", key).firstResult())
+                            .orElseThrow(() -> new IllegalArgumentException("Category not found: " + trimmed));
+        }
+
+        User requester(String email, User actor) {
+            if (email == null || email.isBlank()) {
+                return actor;
+            }
+            String trimmed = email.trim();
+            return cached(users, trimmed.toLowerCase(Locale.ENGLISH),
+                    key -> User.<User> find("lower(email) = ?1", key).firstResult())
+                            .orElseThrow(() -> new IllegalArgumentException("Requester not found: " + trimmed));
+        }
+
+        Ticket thread(String sourceSystem, List<String> threadKeys) {
+            for (String key : threadKeys) {
+                Ticket ticket = importedTickets.get(new SourceIdentity(sourceSystem, key));
+                if (ticket != null) {
+                    return ticket;
+                }
+            }
+            return null;
+        }
+
+        Company senderCompany(User requester) {
+            if (requester == null) {
+                throw new IllegalArgumentException("Requester is required");
+            }
+            return cached(senderCompanies, String.valueOf(requester.id),
+                    key -> incomingEmailService.companyForSender(requester)).orElseThrow(
+                            () -> new IllegalArgumentException("Company not found for requester: " + requester.email));
+        }
+
+        CompanyEntitlement defaultEntitlement(Company company) {
+            return cached(defaultEntitlements, String.valueOf(company.id),
+                    key -> incomingEmailService.defaultEntitlement(company)).orElseThrow(
+                            () -> new IllegalArgumentException("Entitlement not found for company: " + company.name));
+        }
+
+        private <T> Optional<T> cached(Map<String, Optional<T>> cache, String key, Function<String, T> loader) {
+            Optional<T> value = cache.get(key);
+            if (value == null) {
+                value = Optional.ofNullable(loader.apply(key));
+                cache.put(key, value);
+            }
+            return value;
+        }
+    }
+
+    private record SourceIdentity(String sourceSystem, String sourceKey) {
+    }
+
+    private record PreparedMessage(User author, String body, LocalDateTime date, boolean isPublic,
+            List<Attachment> attachments) {
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream input) {
+            super(input);
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
     public record TicketImportSummary(Long batchId, String sourceType, String fileName, String status, int rowCount,
-            int createdCount, int skippedCount, int failedCount, List<TicketImportResult> results) {
+            int createdCount, int appendedCount, int skippedCount, int failedCount, List<TicketImportResult> results,
+            long bytesRead, long bytesTotal, String errorMessage) {
     }
 
     public record TicketImportResult(int rowNumber, String sourceSystem, String sourceKey, String result, Long ticketId,
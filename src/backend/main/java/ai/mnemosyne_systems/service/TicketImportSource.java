@@ -8,11 +8,24 @@
 
 package ai.mnemosyne_systems.service;
 
-import java.util.List;
+import java.io.InputStream;
+import java.util.Iterator;
 
 public interface TicketImportSource {
 
     String sourceType();
 
-    List<TicketImportRow> parse(byte[] data);
+    /**
+     * Opens a lazily parsed row iterator over the input. Structural problems with the header are reported before the
+     * first row is read; the caller closes the input.
+     */
+    Iterator<TicketImportRow> rows(InputStream input);
+
+    /**
+     * Whether rows are threaded like incoming email: subject ticket tags continue existing tickets, and a blank company
+     * or entitlement falls back to the requester's company and its default entitlement.
+     */
+    default boolean mailThreading() {
+        return false;
+    }
 }
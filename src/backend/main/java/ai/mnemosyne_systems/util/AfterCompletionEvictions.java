@@ -0,0 +1,59 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.util;
+
+import io.quarkus.arc.Arc;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Repeats a cache eviction once the current transaction completes. Caches evict right away when an entity changes, but
+ * a concurrent request can still load the old state before the commit; evicting again afterwards drops what it cached.
+ * Keys are collected per cache and transaction, so each one is evicted once.
+ */
+public final class AfterCompletionEvictions {
+
+    private AfterCompletionEvictions() {
+    }
+
+    public static <K> void register(Class<?> cache, K key, Consumer<K> evict) {
+        try {
+            TransactionSynchronizationRegistry registry = Arc.container()
+                    .instance(TransactionSynchronizationRegistry.class).get();
+            if (registry == null || registry.getTransactionKey() == null
+                    || registry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+                return;
+            }
+            String resourceKey = cache.getName() + ".invalidated";
+            @SuppressWarnings("unchecked")
+            Set<K> invalidated = (Set<K>) registry.getResource(resourceKey);
+            if (invalidated == null) {
+                Set<K> pending = new LinkedHashSet<>();
+                registry.registerInterposedSynchronization(new Synchronization() {
+                    @Override
+                    public void beforeCompletion() {
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        pending.forEach(evict);
+                    }
+                });
+                registry.putResource(resourceKey, pending);
+                invalidated = pending;
+            }
+            invalidated.add(key);
+        } catch (IllegalStateException ex) {
+            // No transaction to wait for; the immediate eviction is enough.
+        }
+    }
+}
@@ -12,11 +12,15 @@ import ai.mnemosyne_systems.model.Attachment;
 import ai.mnemosyne_systems.model.Message;
 import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.core.MultivaluedMap;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -28,6 +32,7 @@ import org.jboss.resteasy.plugins.providers.multipart.MultipartFormDataInput;
 public final class AttachmentHelper {
 
     private static final Logger LOGGER = Logger.getLogger(AttachmentHelper.class);
+    private static final int MIME_SNIFF_BYTES = 8;
 
     private AttachmentHelper() {
     }
@@ -95,6 +100,37 @@ public final class AttachmentHelper {
         return new UploadedFile(fileName, data);
     }
 
+    public static SpooledFile spoolFile(MultipartFormDataInput input, String name, String prefix) {
+        if (input == null || name == null) {
+            return null;
+        }
+        List<InputPart> parts = collectParts(input, name);
+        if (parts.isEmpty()) {
+            return null;
+        }
+        InputPart part = parts.get(0);
+        Path path = null;
+        try (InputStream body = part.getBody(InputStream.class, null)) {
+            path = Files.createTempFile(prefix, ".upload");
+            long size = body == null ? 0 : Files.copy(body, path, StandardCopyOption.REPLACE_EXISTING);
+            return new SpooledFile(extractFileName(part.getHeaders()), path, size);
+        } catch (IOException ex) {
+            deleteQuietly(path);
+            throw new BadRequestException("Invalid file data");
+        }
+    }
+
+    public static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            LOGGER.debugf(ex, "Unable to delete %s", path);
+        }
+    }
+
     public static List<Attachment> readAttachments(MultipartFormDataInput input, String name) {
         if (input == null || name == null) {
             return List.of();
@@ -113,19 +149,27 @@ public final class AttachmentHelper {
                 LOGGER.debug("Skipping attachment with blank filename");
                 continue;
             }
-            byte[] data = readBytes(part);
-            if (data.length == 0) {
-                LOGGER.debugf("Skipping attachment '%s' with empty payload", fileName);
-                continue;
-            }
             String mimeType = part.getMediaType() == null ? null : part.getMediaType().toString();
-            mimeType = detectMimeType(mimeType, fileName, data);
             Attachment attachment = new Attachment();
             attachment.name = fileName;
-            attachment.mimeType = mimeType;
-            attachment.data = data;
+            try (InputStream body = part.getBody(InputStream.class, null);
+                    BufferedInputStream buffered = new BufferedInputStream(
+                            body == null ? InputStream.nullInputStream() : body)) {
+                buffered.mark(MIME_SNIFF_BYTES);
+                byte[] header = buffered.readNBytes(MIME_SNIFF_BYTES);
+                if (header.length == 0) {
+                    LOGGER.debugf("Skipping attachment '%s' with empty payload", fileName);
+                    continue;
+                }
+                buffered.reset();
+                attachment.mimeType = detectMimeType(mimeType, fileName, header);
+                AttachmentStorage.write(attachment, buffered);
+            } catch (IOException ex) {
+                throw new BadRequestException("Invalid attachment data");
+            }
             attachments.add(attachment);
-            LOGGER.debugf("Prepared attachment '%s' (%s, %d bytes)", fileName, mimeType, data.length);
+            LOGGER.debugf("Prepared attachment '%s' (%s, %d bytes)", fileName, attachment.mimeType,
+                    attachment.sizeBytes());
         }
         LOGGER.debugf("Prepared %d attachment(s) for field '%s'", attachments.size(), name);
         return attachments;
@@ -332,4 +376,7 @@ public final class AttachmentHelper {
 
     public record UploadedFile(String fileName, byte[] data) {
     }
+
+    public record SpooledFile(String fileName, Path path, long size) {
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.util;
+
+import ai.mnemosyne_systems.model.Attachment;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+public final class AttachmentStorage {
+
+    private static final DatabaseAttachmentStore DATABASE = new DatabaseAttachmentStore();
+
+    private static volatile FileSystemAttachmentStore fileSystem;
+
+    private AttachmentStorage() {
+    }
+
+    public static AttachmentStore store() {
+        Config config = ConfigProvider.getConfig();
+        String name = config.getOptionalValue("ticket.attachments.store", String.class)
+                .orElse(FileSystemAttachmentStore.NAME).trim().toLowerCase(Locale.ROOT);
+        return DatabaseAttachmentStore.NAME.equals(name) ? DATABASE : fileSystem();
+    }
+
+    public static AttachmentStore storeFor(Attachment attachment) {
+        if (attachment != null && FileSystemAttachmentStore.NAME.equals(attachment.storage)
+                && attachment.storageKey != null) {
+            return fileSystem();
+        }
+        return DATABASE;
+    }
+
+    public static FileSystemAttachmentStore fileSystem() {
+        FileSystemAttachmentStore current = fileSystem;
+        if (current == null) {
+            String directory = ConfigProvider.getConfig().getOptionalValue("ticket.attachments.directory", String.class)
+                    .orElse("data/attachments");
+            current = new FileSystemAttachmentStore(Path.of(directory));
+            fileSystem = current;
+        }
+        return current;
+    }
+
+    public static void write(Attachment attachment, InputStream input) {
+        try {
+            store().write(attachment, input);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to store attachment", ex);
+        }
+    }
+
+    public static InputStream open(Attachment attachment) throws IOException {
+        return storeFor(attachment).open(attachment);
+    }
+
+    public static byte[] readAllBytes(Attachment attachment) {
+        if (attachment == null) {
+            return new byte[0];
+        }
+        try (InputStream input = open(attachment)) {
+            return input.readAllBytes();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read attachment " + attachment.id, ex);
+        }
+    }
+
+    /**
+     * Moves a payload assigned directly to {@code data} into the configured store. Invoked before the attachment is
+     * inserted or updated.
+     */
+    public static void storePending(Attachment attachment) {
+        byte[] data = attachment.data;
+        if (data == null) {
+            return;
+        }
+        try {
+            store().write(attachment, new ByteArrayInputStream(data));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to store attachment", ex);
+        }
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static String sha256(byte[] data) {
+        return HexFormat.of().formatHex(newDigest().digest(data));
+    }
+}
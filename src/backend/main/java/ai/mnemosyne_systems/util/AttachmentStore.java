@@ -0,0 +1,35 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.util;
+
+import ai.mnemosyne_systems.model.Attachment;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Storage backend for attachment payloads. Implementations record where the payload lives on the attachment itself
+ * ({@code storage}, {@code storageKey}, {@code size}, {@code sha256}).
+ */
+public interface AttachmentStore {
+
+    String name();
+
+    void write(Attachment attachment, InputStream input) throws IOException;
+
+    InputStream open(Attachment attachment) throws IOException;
+
+    void delete(String storageKey) throws IOException;
+
+    /**
+     * Returns the file holding the payload when it can be served directly from disk, otherwise null.
+     */
+    default Path path(Attachment attachment) {
+        return null;
+    }
+}
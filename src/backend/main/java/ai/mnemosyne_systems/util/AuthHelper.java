@@ -9,9 +9,10 @@
 package ai.mnemosyne_systems.util;
 
 import ai.mnemosyne_systems.model.User;
-import java.util.Map;
+import io.quarkus.hibernate.orm.panache.Panache;
+import java.util.Locale;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.microprofile.config.ConfigProvider;
 
 public final class AuthHelper {
 
@@ -19,32 +20,70 @@ public final class AuthHelper {
     public static final int INACTIVITY_TIMEOUT_SECONDS = 60 * 60;
     public static final int WARNING_LEAD_SECONDS = 5 * 60;
     public static final long INACTIVITY_TIMEOUT_MILLIS = INACTIVITY_TIMEOUT_SECONDS * 1000L;
-    private static final Map<Long, ActiveSession> ACTIVE_TOKENS = new ConcurrentHashMap<>();
+    private static volatile SessionStore sessionStore;
 
     private AuthHelper() {
     }
 
     public static User findUser(String cookieValue) {
+        AuthPrincipal principal = findPrincipal(cookieValue);
+        if (principal == null) {
+            return null;
+        }
+        User user = User.findById(principal.id());
+        if (user == null) {
+            PrincipalCache.invalidate(principal.id());
+            clearSession(cookieValue);
+            return null;
+        }
+        return user;
+    }
+
+    public static AuthPrincipal findPrincipal(String cookieValue) {
+        RequestPrincipal request = RequestPrincipal.current();
+        if (request != null && request.resolved(cookieValue)) {
+            return request.principal();
+        }
+        AuthPrincipal principal = resolvePrincipal(cookieValue);
+        if (request != null) {
+            request.resolve(cookieValue, principal);
+        }
+        return principal;
+    }
+
+    public static AuthPrincipal principal(User user) {
+        return user == null || user.id == null ? null : PrincipalCache.get(user.id);
+    }
+
+    /**
+     * Returns an unloaded reference to the principal's user for binding query parameters, so read-only endpoints never
+     * select the user row.
+     */
+    public static User reference(AuthPrincipal principal) {
+        return principal == null ? null : Panache.getEntityManager().getReference(User.class, principal.id());
+    }
+
+    private static AuthPrincipal resolvePrincipal(String cookieValue) {
         SessionCookie sessionCookie = parseSessionCookie(cookieValue);
         if (sessionCookie == null) {
             return null;
         }
-        ActiveSession activeSession = ACTIVE_TOKENS.get(sessionCookie.userId());
-        if (activeSession == null || !activeSession.token.equals(sessionCookie.token())) {
+        SessionStore store = sessionStore();
+        Long lastActivityAt = store.lastActivity(sessionCookie.userId(), sessionCookie.token());
+        if (lastActivityAt == null) {
             return null;
         }
         long now = System.currentTimeMillis();
-        if (now - activeSession.lastActivityAt >= INACTIVITY_TIMEOUT_MILLIS) {
-            ACTIVE_TOKENS.remove(sessionCookie.userId(), activeSession);
+        if (now - lastActivityAt >= INACTIVITY_TIMEOUT_MILLIS) {
+            store.remove(sessionCookie.userId(), sessionCookie.token());
             return null;
         }
-        activeSession.lastActivityAt = now;
-        User user = User.findById(sessionCookie.userId());
-        if (user == null) {
-            ACTIVE_TOKENS.remove(sessionCookie.userId(), activeSession);
-            return null;
+        store.touch(sessionCookie.userId(), sessionCookie.token(), now);
+        AuthPrincipal principal = PrincipalCache.get(sessionCookie.userId());
+        if (principal == null) {
+            store.remove(sessionCookie.userId(), sessionCookie.token());
         }
-        return user;
+        return principal;
     }
 
     public static String createSessionCookieValue(User user) {
@@ -52,7 +91,7 @@ public final class AuthHelper {
             return null;
         }
         String token = UUID.randomUUID().toString();
-        ACTIVE_TOKENS.put(user.id, new ActiveSession(token, System.currentTimeMillis()));
+        sessionStore().create(user.id, token, System.currentTimeMillis());
         return token + ":" + user.id;
     }
 
@@ -61,9 +100,10 @@ public final class AuthHelper {
         if (sessionCookie == null) {
             return;
         }
-        ActiveSession activeSession = ACTIVE_TOKENS.get(sessionCookie.userId());
-        if (activeSession != null && activeSession.token.equals(sessionCookie.token())) {
-            ACTIVE_TOKENS.remove(sessionCookie.userId(), activeSession);
+        sessionStore().remove(sessionCookie.userId(), sessionCookie.token());
+        RequestPrincipal request = RequestPrincipal.current();
+        if (request != null) {
+            request.clear();
         }
     }
 
@@ -72,10 +112,24 @@ public final class AuthHelper {
         if (sessionCookie == null) {
             return;
         }
-        ActiveSession activeSession = ACTIVE_TOKENS.get(sessionCookie.userId());
-        if (activeSession != null && activeSession.token.equals(sessionCookie.token())) {
-            activeSession.lastActivityAt = lastActivityAt;
+        sessionStore().setLastActivity(sessionCookie.userId(), sessionCookie.token(), lastActivityAt);
+    }
+
+    public static SessionStore sessionStore() {
+        SessionStore current = sessionStore;
+        if (current == null) {
+            String name = ConfigProvider.getConfig().getOptionalValue("ticket.auth.session-store", String.class)
+                    .orElse(DatabaseSessionStore.NAME).trim().toLowerCase(Locale.ROOT);
+            current = InMemorySessionStore.NAME.equals(name) ? new InMemorySessionStore() : new DatabaseSessionStore();
+            sessionStore = current;
         }
+        return current;
+    }
+
+    public static int evictExpiredSessions() {
+        SessionStore store = sessionStore();
+        store.flush();
+        return store.evictExpired(System.currentTimeMillis() - INACTIVITY_TIMEOUT_MILLIS);
     }
 
     public static boolean isAdmin(User user) {
@@ -122,16 +176,6 @@ public final class AuthHelper {
         }
     }
 
-    private static final class ActiveSession {
-        private final String token;
-        private volatile long lastActivityAt;
-
-        private ActiveSession(String token, long lastActivityAt) {
-            this.token = token;
-            this.lastActivityAt = lastActivityAt;
-        }
-    }
-
     private record SessionCookie(String token, long userId) {
     }
 }
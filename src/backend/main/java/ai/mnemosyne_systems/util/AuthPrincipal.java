@@ -0,0 +1,52 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.util;
+
+import ai.mnemosyne_systems.model.User;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of an authenticated user holding what access checks need: the user type and the companies the user
+ * belongs to, which scope TAM and superuser access.
+ */
+public record AuthPrincipal(long id, String type, Set<Long> companyIds) {
+
+    public AuthPrincipal {
+        type = type == null ? "" : type.toLowerCase(Locale.ROOT);
+        companyIds = companyIds == null ? Set.of() : Set.copyOf(companyIds);
+    }
+
+    public boolean hasType(String candidate) {
+        return type.equalsIgnoreCase(candidate);
+    }
+
+    public boolean isAdmin() {
+        return hasType(User.TYPE_ADMIN);
+    }
+
+    public boolean isSupport() {
+        return hasType(User.TYPE_SUPPORT);
+    }
+
+    public boolean isTam() {
+        return hasType(User.TYPE_TAM);
+    }
+
+    public boolean isSuperuser() {
+        return hasType(User.TYPE_SUPERUSER);
+    }
+
+    public boolean isUser() {
+        return hasType(User.TYPE_USER) || hasType(User.TYPE_TAM);
+    }
+
+    public boolean memberOf(Long companyId) {
+        return companyId != null && companyIds.contains(companyId);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.util;
+
+import ai.mnemosyne_systems.model.Attachment;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Legacy backend keeping payloads in the {@code attachments.data} column.
+ */
+public final class DatabaseAttachmentStore implements AttachmentStore {
+
+    public static final String NAME = "database";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void write(Attachment attachment, InputStream input) throws IOException {
+        byte[] data = input.readAllBytes();
+        attachment.data = data;
+        attachment.storage = NAME;
+        attachment.storageKey = null;
+        attachment.size = (long) data.length;
+        attachment.sha256 = AttachmentStorage.sha256(data);
+    }
+
+    @Override
+    public InputStream open(Attachment attachment) {
+        byte[] data = attachment.data;
+        return new ByteArrayInputStream(data == null ? new byte[0] : data);
+    }
+
+    @Override
+    public void delete(String storageKey) {
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.util;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * Keeps sessions in the {@code auth_sessions} table so they survive restarts and are shared between replicas. On
+ * PostgreSQL the table is unlogged. Tokens are stored as SHA-256 hashes and activity updates are buffered until the
+ * next {@link #flush()}.
+ */
+public class DatabaseSessionStore implements SessionStore {
+
+    public static final String NAME = "database";
+
+    private final Map<Long, PendingTouch> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    public static List<String> schemaStatements() {
+        boolean postgres = "postgresql".equalsIgnoreCase(
+                ConfigProvider.getConfig().getOptionalValue("quarkus.datasource.db-kind", String.class).orElse(""));
+        return List.of(
+                "create " + (postgres ? "unlogged " : "") + "table if not exists auth_sessions ("
+                        + "user_id bigint primary key, token_hash varchar(64) not null, created_at bigint not null,"
+                        + " last_activity_at bigint not null)",
+                "create index if not exists idx_auth_sessions_last_activity on auth_sessions (last_activity_at)");
+    }
+
+    @Override
+    public void create(long userId, String token, long createdAt) {
+        pending.remove(userId);
+        QuarkusTransaction.requiringNew().run(() -> {
+            Panache.getEntityManager().createNativeQuery("delete from auth_sessions where user_id = ?1")
+                    .setParameter(1, userId).executeUpdate();
+            Panache.getEntityManager().createNativeQuery(
+                    "insert into auth_sessions (user_id, token_hash, created_at, last_activity_at) values (?1, ?2, ?3, ?3)")
+                    .setParameter(1, userId).setParameter(2, hash(token)).setParameter(3, createdAt).executeUpdate();
+        });
+    }
+
+    @Override
+    public Long lastActivity(long userId, String token) {
+        String tokenHash = hash(token);
+        List<?> rows = QuarkusTransaction.joiningExisting().call(() -> Panache.getEntityManager()
+                .createNativeQuery("select last_activity_at from auth_sessions where user_id = ?1 and token_hash = ?2")
+                .setParameter(1, userId).setParameter(2, tokenHash).getResultList());
+        if (rows.isEmpty()) {
+            return null;
+        }
+        long stored = ((Number) rows.get(0)).longValue();
+        PendingTouch touch = pending.get(userId);
+        return touch != null && touch.tokenHash().equals(tokenHash) ? Math.max(stored, touch.lastActivityAt()) : stored;
+    }
+
+    @Override
+    public void touch(long userId, String token, long lastActivityAt) {
+        String tokenHash = hash(token);
+        pending.merge(userId, new PendingTouch(tokenHash, lastActivityAt),
+                (current, next) -> current.tokenHash().equals(next.tokenHash())
+                        && current.lastActivityAt() >= next.lastActivityAt() ? current : next);
+    }
+
+    @Override
+    public void setLastActivity(long userId, String token, long lastActivityAt) {
+        pending.remove(userId);
+        QuarkusTransaction.requiringNew().run(() -> Panache.getEntityManager()
+                .createNativeQuery(
+                        "update auth_sessions set last_activity_at = ?1 where user_id = ?2 and token_hash = ?3")
+                .setParameter(1, lastActivityAt).setParameter(2, userId).setParameter(3, hash(token)).executeUpdate());
+    }
+
+    @Override
+    public void remove(long userId, String token) {
+        pending.remove(userId);
+        QuarkusTransaction.requiringNew()
+                .run(() -> Panache.getEntityManager()
+                        .createNativeQuery("delete from auth_sessions where user_id = ?1 and token_hash = ?2")
+                        .setParameter(1, userId).setParameter(2, hash(token)).executeUpdate());
+    }
+
+    @Override
+    public int evictExpired(long cutoff) {
+        return QuarkusTransaction.requiringNew()
+                .call(() -> Panache.getEntityManager()
+                        .createNativeQuery("delete from auth_sessions where last_activity_at < ?1")
+                        .setParameter(1, cutoff).executeUpdate());
+    }
+
+    @Override
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, PendingTouch> batch = Map.copyOf(pending);
+        QuarkusTransaction.requiringNew().run(() -> {
+            for (Map.Entry<Long, PendingTouch> entry : batch.entrySet()) {
+                Panache.getEntityManager().createNativeQuery(
+                        "update auth_sessions set last_activity_at = ?1 where user_id = ?2 and token_hash = ?3 and last_activity_at < ?1")
+                        .setParameter(1, entry.getValue().lastActivityAt()).setParameter(2, entry.getKey())
+                        .setParameter(3, entry.getValue().tokenHash()).executeUpdate();
+            }
+        });
+        batch.forEach(pending::remove);
+    }
+
+    private static String hash(String token) {
+        try {
+            return HexFormat.of()
+                    .formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private record PendingTouch(String tokenHash, long lastActivityAt) {
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.util;
+
+import ai.mnemosyne_systems.model.Attachment;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Predicate;
+
+/**
+ * Default backend storing payloads below the configured directory under their SHA-256, so identical payloads share one
+ * file. Files are kept while any attachment references their key and are reclaimed by
+ * {@code AttachmentMigrationService}.
+ */
+public final class FileSystemAttachmentStore implements AttachmentStore {
+
+    public static final String NAME = "filesystem";
+
+    private static final Object[] KEY_LOCKS = new Object[64];
+
+    static {
+        for (int index = 0; index < KEY_LOCKS.length; index++) {
+            KEY_LOCKS[index] = new Object();
+        }
+    }
+
+    private final Path root;
+
+    public FileSystemAttachmentStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    @Override
+    public void write(Attachment attachment, InputStream input) throws IOException {
+        Path incoming = root.resolve("incoming");
+        Files.createDirectories(incoming);
+        Path temp = Files.createTempFile(incoming, "upload-", ".tmp");
+        try {
+            MessageDigest digest = AttachmentStorage.newDigest();
+            long size;
+            try (OutputStream output = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                size = input.transferTo(output);
+            }
+            String key = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(key);
+            synchronized (lock(key)) {
+                if (Files.exists(target)) {
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                } else {
+                    Files.createDirectories(target.getParent());
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            attachment.data = null;
+            attachment.storage = NAME;
+            attachment.storageKey = key;
+            attachment.size = size;
+            attachment.sha256 = key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream open(Attachment attachment) throws IOException {
+        return Files.newInputStream(resolve(attachment.storageKey));
+    }
+
+    @Override
+    public void delete(String storageKey) throws IOException {
+        Files.deleteIfExists(resolve(storageKey));
+    }
+
+    /**
+     * Deletes the file of a key unless it was written again since {@code cutoff} or is still referenced. Runs under the
+     * lock of the key, so a write reusing the file either refreshes it first or stores a new copy afterwards.
+     */
+    public boolean deleteIfUnused(String key, Instant cutoff, Predicate<String> referenced) throws IOException {
+        synchronized (lock(key)) {
+            Path file = resolve(key);
+            if (!Files.exists(file) || !Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)
+                    || referenced.test(key)) {
+                return false;
+            }
+            Files.delete(file);
+            return true;
+        }
+    }
+
+    @Override
+    public Path path(Attachment attachment) {
+        return resolve(attachment.storageKey);
+    }
+
+    private static Object lock(String key) {
+        return KEY_LOCKS[Math.floorMod(key.hashCode(), KEY_LOCKS.length)];
+    }
+
+    Path resolve(String key) {
+        if (key == null || key.length() < 2 || key.contains("/") || key.contains("\\") || key.contains("..")) {
+            throw new IllegalArgumentException("Invalid attachment storage key");
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.util;
+
+import io.quarkus.hibernate.orm.panache.Panache;
+import jakarta.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * PostgreSQL full-text search over messages, tickets and articles. The expression indexes the queries rely on are
+ * declared in {@link SchemaMigrations}. The list queries embed the match predicates in their own HQL, so the viewer's
+ * scope and the full-text match are applied together by the database. Other databases fall back to LIKE queries in the
+ * callers.
+ */
+public final class FullTextSearchSupport {
+
+    private static volatile Boolean enabled;
+
+    private FullTextSearchSupport() {
+    }
+
+    public static boolean enabled() {
+        Boolean current = enabled;
+        if (current == null) {
+            current = "postgresql".equalsIgnoreCase(
+                    ConfigProvider.getConfig().getOptionalValue("quarkus.datasource.db-kind", String.class).orElse(""));
+            enabled = current;
+        }
+        return current;
+    }
+
+    public static String prefixQuery(String term) {
+        if (term == null) {
+            return null;
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : term.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token + ":*");
+            }
+        }
+        return tokens.isEmpty() ? null : String.join(" & ", tokens);
+    }
+
+    /**
+     * HQL predicate matching tickets whose number or title matches the prefix query bound to {@code queryParam}.
+     */
+    public static String ticketMatch(String ticketAlias, String queryParam) {
+        return match(ticketVector("?", "?"), ticketAlias + ".name", ticketAlias + ".title", queryParam);
+    }
+
+    /**
+     * HQL predicate matching messages whose body matches the prefix query bound to {@code queryParam}.
+     */
+    public static String messageMatch(String messageAlias, String queryParam) {
+        return match(messageVector("?"), messageAlias + ".body", queryParam);
+    }
+
+    /**
+     * HQL predicate matching articles whose title, tags or body match the prefix query bound to {@code queryParam}.
+     */
+    public static String articleMatch(String articleAlias, String queryParam) {
+        return match(articleVector("?", "?", "?"), articleAlias + ".title", articleAlias + ".tags",
+                articleAlias + ".body", queryParam);
+    }
+
+    private static String match(String vector, String... arguments) {
+        String pattern = vector + " @@ to_tsquery('simple', ?)";
+        return "sql('" + pattern.replace("'", "''") + "', " + String.join(", ", arguments) + ")";
+    }
+
+    public static List<Long> ticketIds(String term, List<String> visibleAuthorTypes, Collection<Long> scopeIds,
+            int limit) {
+        String query = prefixQuery(term);
+        if (query == null || (scopeIds != null && scopeIds.isEmpty())) {
+            return List.of();
+        }
+        boolean restrictTypes = visibleAuthorTypes != null && !visibleAuthorTypes.isEmpty();
+        String messageScope = scopeIds == null ? "" : " and m.ticket_id in (:scopeIds)";
+        String ticketScope = scopeIds == null ? "" : " and t.id in (:scopeIds)";
+        Query nativeQuery = Panache.getEntityManager()
+                .createNativeQuery("select ticket_id from (" + "select m.ticket_id as ticket_id, ts_rank("
+                        + messageVector("m.body") + ", q) as rank"
+                        + " from messages m left join users u on u.id = m.author_id, to_tsquery('simple', :query) q"
+                        + " where " + messageVector("m.body") + " @@ q and (m.is_public"
+                        + (restrictTypes ? " or lower(u.user_type) in (:visibleAuthorTypes)" : "") + ")" + messageScope
+                        + " union all select t.id as ticket_id, ts_rank(" + ticketVector("t.name", "t.title")
+                        + ", q) as rank from tickets t, to_tsquery('simple', :query) q where "
+                        + ticketVector("t.name", "t.title") + " @@ q"
+                        + ticketScope + ") matches group by ticket_id order by max(rank) desc, ticket_id limit :limit");
+        nativeQuery.setParameter("query", query).setParameter("limit", limit);
+        if (restrictTypes) {
+            nativeQuery.setParameter("visibleAuthorTypes", visibleAuthorTypes);
+        }
+        if (scopeIds != null) {
+            nativeQuery.setParameter("scopeIds", scopeIds);
+        }
+        return ids(nativeQuery.getResultList());
+    }
+
+    public static List<Long> articleIds(String term, int limit) {
+        String query = prefixQuery(term);
+        if (query == null) {
+            return List.of();
+        }
+        return ids(
+                Panache.getEntityManager()
+                        .createNativeQuery("select a.id from articles a, to_tsquery('simple', :query) q where "
+                                + articleVector("a.title", "a.tags", "a.body") + " @@ q order by ts_rank("
+                                + articleVector("a.title", "a.tags", "a.body")
+                                + ", q) desc, a.id desc limit :limit")
+                        .setParameter("query", query).setParameter("limit", limit).getResultList());
+    }
+
+    static String messageVector(String body) {
+        return "to_tsvector('simple', coalesce(" + body + ", ''))";
+    }
+
+    static String ticketVector(String name, String title) {
+        return "to_tsvector('simple', coalesce(" + name + ", '') || ' ' || coalesce(" + title + ", ''))";
+    }
+
+    static String articleVector(String title, String tags, String body) {
+        return "(setweight(to_tsvector('simple', coalesce(" + title + ", '')), 'A')"
+                + " || setweight(to_tsvector('simple', coalesce(" + tags + ", '')), 'B')"
+                + " || setweight(to_tsvector('simple', coalesce(" + body + ", '')), 'C'))";
+    }
+
+    private static List<Long> ids(List<?> rows) {
+        return rows.stream().map(row -> ((Number) row).longValue()).toList();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemorySessionStore implements SessionStore {
+
+    public static final String NAME = "memory";
+
+    private final Map<Long, ActiveSession> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void create(long userId, String token, long createdAt) {
+        sessions.put(userId, new ActiveSession(token, createdAt));
+    }
+
+    @Override
+    public Long lastActivity(long userId, String token) {
+        ActiveSession session = sessions.get(userId);
+        return session == null || !session.token.equals(token) ? null : session.lastActivityAt;
+    }
+
+    @Override
+    public void touch(long userId, String token, long lastActivityAt) {
+        setLastActivity(userId, token, lastActivityAt);
+    }
+
+    @Override
+    public void setLastActivity(long userId, String token, long lastActivityAt) {
+        ActiveSession session = sessions.get(userId);
+        if (session != null && session.token.equals(token)) {
+            session.lastActivityAt = lastActivityAt;
+        }
+    }
+
+    @Override
+    public void remove(long userId, String token) {
+        ActiveSession session = sessions.get(userId);
+        if (session != null && session.token.equals(token)) {
+            sessions.remove(userId, session);
+        }
+    }
+
+    @Override
+    public int evictExpired(long cutoff) {
+        int evicted = 0;
+        for (Map.Entry<Long, ActiveSession> entry : sessions.entrySet()) {
+            if (entry.getValue().lastActivityAt < cutoff && sessions.remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private static final class ActiveSession {
+        private final String token;
+        private volatile long lastActivityAt;
+
+        private ActiveSession(String token, long lastActivityAt) {
+            this.token = token;
+            this.lastActivityAt = lastActivityAt;
+        }
+    }
+}
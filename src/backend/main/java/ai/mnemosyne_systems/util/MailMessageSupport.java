@@ -0,0 +1,303 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.util;
+
+import ai.mnemosyne_systems.model.Attachment;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.mail.BodyPart;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeUtility;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * Extracts the text body and attachment parts of a MIME message, shared by mailbox polling and mbox imports. Parts are
+ * read as streams: the text body is cut at {@code ticket.mail.incoming.max-body-size} and attachments go straight into
+ * attachment storage within the {@code ticket.mail.incoming.max-attachments-size} budget of one mail.
+ */
+public final class MailMessageSupport {
+
+    private static final long DEFAULT_MAX_BODY_BYTES = 1024L * 1024;
+    private static final long DEFAULT_MAX_ATTACHMENT_BYTES = 200L * 1024 * 1024;
+
+    private MailMessageSupport() {
+    }
+
+    public static MailContent read(Part part) throws MessagingException, IOException {
+        List<Part> attachments = new ArrayList<>();
+        String body = extractContent(part, attachments);
+        return new MailContent(body, attachments);
+    }
+
+    /**
+     * Streams attachment parts into attachment storage. Parts that no longer fit the remaining budget of the mail are
+     * skipped; a part is abandoned as soon as it reads past the budget, so its size never has to be known up front.
+     */
+    public static StoredAttachments storeAttachments(List<Part> parts) throws MessagingException, IOException {
+        long limit = maxAttachmentBytes();
+        long remaining = limit;
+        List<Attachment> attachments = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        for (Part part : parts) {
+            String name = fileName(part);
+            // The encoded size overstates base64 payloads by a third at most, so this only skips parts that cannot fit.
+            if (part.getSize() > 0 && part.getSize() / 4L * 3 > remaining) {
+                skipped.add(name);
+                continue;
+            }
+            Attachment attachment = new Attachment();
+            attachment.name = name;
+            attachment.mimeType = contentType(part);
+            try (InputStream input = new BoundedInputStream(part.getInputStream(), remaining)) {
+                AttachmentStorage.write(attachment, input);
+            } catch (UncheckedIOException e) {
+                if (e.getCause() instanceof LimitExceededException) {
+                    skipped.add(name);
+                    continue;
+                }
+                throw e;
+            }
+            if (attachment.sizeBytes() > 0) {
+                remaining -= attachment.sizeBytes();
+                attachments.add(attachment);
+            }
+        }
+        return new StoredAttachments(attachments, skipped, limit);
+    }
+
+    /**
+     * Selects the attachment parts that fit the budget of one mail, in order, for callers that store them later, such
+     * as mbox imports. The names of the parts left out are added to {@code skipped}.
+     */
+    public static List<Part> fittingAttachments(List<Part> parts, List<String> skipped)
+            throws MessagingException, IOException {
+        long remaining = maxAttachmentBytes();
+        List<Part> fitting = new ArrayList<>();
+        for (Part part : parts) {
+            long size = decodedSize(part, remaining);
+            if (size > remaining) {
+                skipped.add(fileName(part));
+                continue;
+            }
+            remaining -= size;
+            fitting.add(part);
+        }
+        return fitting;
+    }
+
+    public static String skippedNote(List<String> skipped, long limit) {
+        if (skipped.isEmpty()) {
+            return "";
+        }
+        return "\n\n[Not imported, the attachments of one email are limited to " + megabytes(limit) + ": "
+                + String.join(", ", skipped) + "]";
+    }
+
+    public static long maxBodyBytes() {
+        return configuredSize("ticket.mail.incoming.max-body-size", DEFAULT_MAX_BODY_BYTES);
+    }
+
+    public static long maxAttachmentBytes() {
+        return configuredSize("ticket.mail.incoming.max-attachments-size", DEFAULT_MAX_ATTACHMENT_BYTES);
+    }
+
+    public static String fileName(Part part) throws MessagingException {
+        String value = part.getFileName();
+        if (value == null || value.isBlank()) {
+            return "attachment";
+        }
+        try {
+            return MimeUtility.decodeText(value);
+        } catch (Exception e) {
+            return value;
+        }
+    }
+
+    public static String contentType(Part part) throws MessagingException {
+        String contentType = part.getContentType();
+        if (contentType == null || contentType.isBlank()) {
+            return "application/octet-stream";
+        }
+        int separator = contentType.indexOf(';');
+        return separator >= 0 ? contentType.substring(0, separator).trim() : contentType.trim();
+    }
+
+    public static String from(Message message) throws MessagingException {
+        if (message == null || message.getFrom() == null || message.getFrom().length == 0) {
+            return null;
+        }
+        if (message.getFrom()[0] instanceof InternetAddress address) {
+            return address.getAddress();
+        }
+        return message.getFrom()[0].toString();
+    }
+
+    private static String extractContent(Part part, List<Part> attachments) throws MessagingException, IOException {
+        if (part.isMimeType("text/plain") && !isAttachment(part)) {
+            return readText(part.getInputStream());
+        }
+        if (part.isMimeType("text/html") && !isAttachment(part)) {
+            return stripHtml(readText(part.getInputStream()));
+        }
+        if (part.isMimeType("multipart/*")) {
+            Multipart multipart = (Multipart) part.getContent();
+            String plainText = null;
+            String htmlFallback = null;
+            for (int i = 0; i < multipart.getCount(); i++) {
+                BodyPart bodyPart = multipart.getBodyPart(i);
+                if (isAttachment(bodyPart)) {
+                    attachments.add(bodyPart);
+                    continue;
+                }
+                String nested = extractContent(bodyPart, attachments);
+                if (!nested.isBlank()) {
+                    if (bodyPart.isMimeType("text/plain")) {
+                        if (plainText == null) {
+                            plainText = nested;
+                        }
+                        continue;
+                    }
+                    if (htmlFallback == null) {
+                        htmlFallback = nested;
+                    }
+                }
+            }
+            if (plainText != null) {
+                return plainText;
+            }
+            return htmlFallback == null ? "" : htmlFallback;
+        }
+        if (part.isMimeType("message/rfc822")) {
+            Object content = part.getContent();
+            if (content instanceof Part nestedPart) {
+                return extractContent(nestedPart, attachments);
+            }
+        }
+        if (isAttachment(part)) {
+            attachments.add(part);
+        }
+        return "";
+    }
+
+    private static boolean isAttachment(Part part) throws MessagingException {
+        String disposition = part.getDisposition();
+        return Part.ATTACHMENT.equalsIgnoreCase(disposition) || Part.INLINE.equalsIgnoreCase(disposition)
+                || (part.getFileName() != null && !part.getFileName().isBlank());
+    }
+
+    private static String readText(InputStream inputStream) throws IOException {
+        long limit = maxBodyBytes();
+        try (InputStream input = inputStream) {
+            String text = new String(input.readNBytes((int) Math.min(limit, Integer.MAX_VALUE - 8)),
+                    StandardCharsets.UTF_8);
+            // The rest of an oversized text part is left unread instead of being loaded to be thrown away.
+            return input.read() < 0 ? text : text + "\n\n[Message text truncated at " + megabytes(limit) + "]";
+        }
+    }
+
+    private static long decodedSize(Part part, long limit) throws MessagingException, IOException {
+        byte[] buffer = new byte[8192];
+        long size = 0;
+        try (InputStream input = part.getInputStream()) {
+            int read;
+            // Counting stops right after the limit, so an oversized part is not decoded to the end.
+            while (size <= limit && (read = input.read(buffer)) >= 0) {
+                size += read;
+            }
+        }
+        return size;
+    }
+
+    private static long configuredSize(String name, long fallback) {
+        return ConfigProvider.getConfig().getOptionalValue(name, MemorySize.class).map(MemorySize::asLongValue)
+                .orElse(fallback);
+    }
+
+    private static String megabytes(long bytes) {
+        long megabytes = bytes / (1024 * 1024);
+        return megabytes > 0 ? megabytes + " MB" : bytes + " bytes";
+    }
+
+    private static String stripHtml(String html) {
+        if (html == null || html.isBlank()) {
+            return "";
+        }
+        return html.replaceAll("(?i)<br\\s*/?>", "\n").replaceAll("(?i)</p>", "\n\n").replaceAll("(?i)</div>", "\n")
+                .replaceAll("<[^>]+>", " ").replace("&nbsp;", " ").replaceAll("[ \\t\\x0B\\f\\r]+", " ")
+                .replaceAll(" *\n *", "\n").trim();
+    }
+
+    public record MailContent(String body, List<Part> attachments) {
+    }
+
+    public record StoredAttachments(List<Attachment> attachments, List<String> skipped, long limit) {
+
+        /**
+         * Text appended to the message body so readers know which attachments are missing.
+         */
+        public String note() {
+            return skippedNote(skipped, limit);
+        }
+    }
+
+    private static final class LimitExceededException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        LimitExceededException() {
+            super("Attachment size limit exceeded");
+        }
+    }
+
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        BoundedInputStream(InputStream input, long limit) {
+            super(input);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) throws LimitExceededException {
+            count += read;
+            if (count > limit) {
+                throw new LimitExceededException();
+            }
+        }
+    }
+}
@@ -38,6 +38,16 @@ public final class MessageAudienceSupport {
         };
     }
 
+    public static boolean belongsToAudience(AuthPrincipal viewer, Audience audience) {
+        if (viewer == null || audience == null) {
+            return false;
+        }
+        return switch (audience) {
+            case SUPPORT_TAM -> viewer.isSupport() || viewer.isTam();
+            case USER_SUPERUSER -> viewer.hasType(User.TYPE_USER) || viewer.isSuperuser();
+        };
+    }
+
     public enum Audience {
         SUPPORT_TAM, USER_SUPERUSER
     }
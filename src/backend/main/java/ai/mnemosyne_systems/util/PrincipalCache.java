@@ -0,0 +1,102 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.util;
+
+import ai.mnemosyne_systems.model.Company;
+import ai.mnemosyne_systems.model.User;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * Short-lived cache of {@link AuthPrincipal} snapshots by user id. User edits and company membership changes invalidate
+ * the affected entries through {@link AfterCompletionEvictions}.
+ */
+public final class PrincipalCache {
+
+    private static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+    private static final Long ALL = -1L;
+    private static final Map<Long, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static final AtomicLong GENERATION = new AtomicLong();
+    private static volatile Long ttlMillis;
+
+    private PrincipalCache() {
+    }
+
+    public static AuthPrincipal get(long userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = ENTRIES.get(userId);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.principal();
+        }
+        long generation = GENERATION.get();
+        AuthPrincipal principal = load(userId);
+        if (principal == null) {
+            ENTRIES.remove(userId);
+            return null;
+        }
+        if (GENERATION.get() == generation) {
+            ENTRIES.put(userId, new Entry(principal, now + ttlMillis()));
+        }
+        return principal;
+    }
+
+    public static void invalidate(Long userId) {
+        if (userId != null) {
+            evict(userId);
+            AfterCompletionEvictions.register(PrincipalCache.class, userId, PrincipalCache::evict);
+        }
+    }
+
+    public static void invalidateAll() {
+        evict(ALL);
+        AfterCompletionEvictions.register(PrincipalCache.class, ALL, PrincipalCache::evict);
+    }
+
+    private static AuthPrincipal load(long userId) {
+        return QuarkusTransaction.joiningExisting().call(() -> {
+            List<String> types = User.getEntityManager()
+                    .createQuery("select u.type from User u where u.id = ?1", String.class).setParameter(1, userId)
+                    .getResultList();
+            if (types.isEmpty()) {
+                return null;
+            }
+            List<Long> companyIds = Company.getEntityManager()
+                    .createQuery("select c.id from Company c join c.users u where u.id = ?1", Long.class)
+                    .setParameter(1, userId).getResultList();
+            return new AuthPrincipal(userId, types.get(0), Set.copyOf(companyIds));
+        });
+    }
+
+    private static void evict(Long userId) {
+        GENERATION.incrementAndGet();
+        if (ALL.equals(userId)) {
+            ENTRIES.clear();
+        } else {
+            ENTRIES.remove(userId);
+        }
+    }
+
+    private static long ttlMillis() {
+        Long current = ttlMillis;
+        if (current == null) {
+            current = ConfigProvider.getConfig().getOptionalValue("ticket.auth.principal-cache-ttl", Duration.class)
+                    .orElse(DEFAULT_TTL).toMillis();
+            ttlMillis = current;
+        }
+        return current;
+    }
+
+    private record Entry(AuthPrincipal principal, long expiresAt) {
+    }
+}
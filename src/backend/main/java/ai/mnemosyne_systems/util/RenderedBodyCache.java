@@ -0,0 +1,180 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * Bounded cache of rendered message bodies keyed by message id, SHA-256 of the body and rendering variant (a path
+ * prefix or output format). Entries expire after {@code ticket.messages.rendered-cache-ttl}. Each entry is indexed
+ * under its message and the tickets and articles its body references, so a rename or removal of one of them evicts
+ * only the affected entries, again once the transaction completes through {@link AfterCompletionEvictions}. Each
+ * eviction stamps its index key with the next value of a shared clock, and a rendering started before that stamp is
+ * not stored under the key, so evicting one ticket never discards renderings of unrelated messages.
+ */
+public final class RenderedBodyCache {
+
+    private static final int DEFAULT_SIZE = 5000;
+    private static final Duration DEFAULT_TTL = Duration.ofHours(1);
+    private static final AtomicLong CLOCK = new AtomicLong();
+    // Stamps dropped from the bounded map raise the floor, so a rendering older than a forgotten stamp is not stored.
+    private static final AtomicLong FORGOTTEN = new AtomicLong();
+    private static final Cache<String, Long> GENERATIONS = Caffeine.newBuilder().maximumSize(configuredSize())
+            .executor(Runnable::run).<String, Long> removalListener((key, generation, cause) -> {
+                if (generation != null && cause.wasEvicted()) {
+                    FORGOTTEN.accumulateAndGet(generation, Math::max);
+                }
+            }).build();
+    private static final Map<String, Set<Key>> INDEX = new ConcurrentHashMap<>();
+    // The index is cleaned on the calling thread, so a later put of the same key is never unindexed behind its back.
+    private static final Cache<Key, Entry> ENTRIES = Caffeine.newBuilder().maximumSize(configuredSize())
+            .expireAfterWrite(configuredTtl()).executor(Runnable::run)
+            .<Key, Entry> removalListener((key, entry, cause) -> {
+                if (key != null && entry != null && cause != RemovalCause.REPLACED) {
+                    unindex(key, entry);
+                }
+            }).build();
+
+    private RenderedBodyCache() {
+    }
+
+    public static long generation() {
+        return CLOCK.get();
+    }
+
+    public static String get(Long messageId, String body, String variant) {
+        if (messageId == null || body == null) {
+            return null;
+        }
+        Entry entry = ENTRIES.getIfPresent(new Key(messageId, digest(body), variant));
+        return entry == null ? null : entry.rendered();
+    }
+
+    public static void put(Long messageId, String body, String variant, String rendered, Set<String> targets,
+            long generation) {
+        if (messageId == null || body == null || rendered == null || configuredSize() <= 0) {
+            return;
+        }
+        Key key = new Key(messageId, digest(body), variant);
+        Entry entry = new Entry(rendered, Set.copyOf(targets));
+        if (evictedSince(key, entry, generation)) {
+            return;
+        }
+        index(key, entry);
+        ENTRIES.put(key, entry);
+        if (evictedSince(key, entry, generation)) {
+            // An eviction ran while the entry was stored and may have missed it.
+            ENTRIES.invalidate(key);
+        }
+    }
+
+    public static void invalidateMessage(Long messageId) {
+        if (messageId != null) {
+            String key = messageKey(messageId);
+            evict(key);
+            AfterCompletionEvictions.register(RenderedBodyCache.class, key, RenderedBodyCache::evict);
+        }
+    }
+
+    public static void invalidateTarget(String targetType, Long targetId) {
+        if (targetId != null) {
+            String key = targetType + ":" + targetId;
+            evict(key);
+            AfterCompletionEvictions.register(RenderedBodyCache.class, key, RenderedBodyCache::evict);
+        }
+    }
+
+    private static void evict(String key) {
+        GENERATIONS.put(key, CLOCK.incrementAndGet());
+        Set<Key> keys = INDEX.remove(key);
+        if (keys != null) {
+            ENTRIES.invalidateAll(keys);
+        }
+    }
+
+    private static boolean evictedSince(Key key, Entry entry, long generation) {
+        if (FORGOTTEN.get() > generation || evictedSince(messageKey(key.messageId()), generation)) {
+            return true;
+        }
+        for (String target : entry.targets()) {
+            if (evictedSince(target, generation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean evictedSince(String indexKey, long generation) {
+        Long evicted = GENERATIONS.getIfPresent(indexKey);
+        return evicted != null && evicted > generation;
+    }
+
+    private static void index(Key key, Entry entry) {
+        index(messageKey(key.messageId()), key);
+        for (String target : entry.targets()) {
+            index(target, key);
+        }
+    }
+
+    private static void index(String indexKey, Key key) {
+        INDEX.compute(indexKey, (ignored, keys) -> {
+            Set<Key> indexed = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+            indexed.add(key);
+            return indexed;
+        });
+    }
+
+    private static void unindex(Key key, Entry entry) {
+        unindex(messageKey(key.messageId()), key);
+        for (String target : entry.targets()) {
+            unindex(target, key);
+        }
+    }
+
+    private static void unindex(String indexKey, Key key) {
+        INDEX.computeIfPresent(indexKey, (ignored, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static String messageKey(long messageId) {
+        return "message:" + messageId;
+    }
+
+    private static String digest(String body) {
+        return HexFormat.of().formatHex(AttachmentStorage.newDigest().digest(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static int configuredSize() {
+        return ConfigProvider.getConfig().getOptionalValue("ticket.messages.rendered-cache-size", Integer.class)
+                .orElse(DEFAULT_SIZE);
+    }
+
+    private static Duration configuredTtl() {
+        return ConfigProvider.getConfig().getOptionalValue("ticket.messages.rendered-cache-ttl", Duration.class)
+                .orElse(DEFAULT_TTL);
+    }
+
+    private record Key(long messageId, String digest, String variant) {
+    }
+
+    private record Entry(String rendered, Set<String> targets) {
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.util;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import jakarta.enterprise.context.RequestScoped;
+import java.util.Objects;
+
+/**
+ * Holds the principal resolved from the session cookie for the current request so the session is validated once per
+ * request, however many times the resources ask for it.
+ */
+@RequestScoped
+public class RequestPrincipal {
+
+    private boolean resolved;
+    private String cookieValue;
+    private AuthPrincipal principal;
+
+    public static RequestPrincipal current() {
+        ManagedContext context = Arc.container() == null ? null : Arc.container().requestContext();
+        if (context == null || !context.isActive()) {
+            return null;
+        }
+        return Arc.container().instance(RequestPrincipal.class).get();
+    }
+
+    public boolean resolved(String value) {
+        return resolved && Objects.equals(cookieValue, value);
+    }
+
+    public AuthPrincipal principal() {
+        return principal;
+    }
+
+    public void resolve(String value, AuthPrincipal resolvedPrincipal) {
+        resolved = true;
+        cookieValue = value;
+        principal = resolvedPrincipal;
+    }
+
+    public void clear() {
+        resolved = false;
+        cookieValue = null;
+        principal = null;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.util;
+
+import java.util.List;
+
+/**
+ * Versioned secondary indexes of the PostgreSQL schema. Hibernate keeps creating tables, columns and constraints; every
+ * secondary index is declared here rather than on the entities, so it is built online and can be checked at startup.
+ * A migration may also run statements Hibernate does not issue itself, such as dropping a constraint that was replaced;
+ * the statements of a migration run in one transaction.
+ * Append new migrations with the next version and never change an applied one.
+ */
+public final class SchemaMigrations {
+
+    /** Version from which report_daily_rollups has the unique key the rollup upsert relies on. */
+    public static final int REPORT_ROLLUP_UNIQUE_KEY = 7;
+    /** Version from which attachments may keep their payload outside the database. */
+    public static final int ATTACHMENT_DATA_NULLABLE = 8;
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Ticket list indexes",
+                    List.of(new SchemaIndex("idx_tickets_company_status", "tickets", "(company_id, status)"),
+                            new SchemaIndex("idx_ticket_supports_user", "ticket_supports", "(user_id, ticket_id)"),
+                            new SchemaIndex("idx_ticket_supports_ticket", "ticket_supports", "(ticket_id)"),
+                            new SchemaIndex("idx_ticket_tams_user", "ticket_tams", "(user_id, ticket_id)"),
+                            new SchemaIndex("idx_ticket_tams_ticket", "ticket_tams", "(ticket_id)"))),
+            new Migration(2, "Message and cross reference indexes", List.of(
+                    new SchemaIndex("idx_messages_ticket_date", "messages", "(ticket_id, date)"),
+                    new SchemaIndex("idx_cross_references_source_ticket", "cross_references", "(source_ticket_id)"),
+                    new SchemaIndex("idx_cross_references_target", "cross_references", "(target_type, target_id)"))),
+            new Migration(3, "Lookup indexes",
+                    List.of(new SchemaIndex("idx_users_lower_email", "users", "(lower(email))"),
+                            new SchemaIndex("idx_ticket_import_records_source", "ticket_import_records",
+                                    "(source_system, source_key)"))),
+            new Migration(4, "Full-text search indexes", List.of(
+                    new SchemaIndex("idx_messages_body_fts", "messages",
+                            "using gin (" + FullTextSearchSupport.messageVector("body") + ")"),
+                    new SchemaIndex("idx_tickets_fts", "tickets",
+                            "using gin (" + FullTextSearchSupport.ticketVector("name", "title") + ")"),
+                    new SchemaIndex("idx_articles_fts", "articles",
+                            "using gin (" + FullTextSearchSupport.articleVector("title", "tags", "body") + ")"))),
+            new Migration(5, "Attachment, outbox, report and SLA indexes", List.of(
+                    new SchemaIndex("idx_attachments_storage_key", "attachments", "(storage_key)"),
+                    new SchemaIndex("idx_outbound_mail_recipients_due", "outbound_mail_recipients",
+                            "(status, next_attempt_at)"),
+                    new SchemaIndex("idx_ticket_report_facts_company", "ticket_report_facts", "(company_id)"),
+                    new SchemaIndex("idx_tickets_sla_deadline", "tickets", "(sla_deadline)"))),
+            new Migration(6, "Import records keyed by file row", List.of(),
+                    List.of("alter table ticket_import_records"
+                            + " drop constraint if exists uk_ticket_import_batch_source")),
+            new Migration(REPORT_ROLLUP_UNIQUE_KEY, "Report rollups keyed uniquely", List.of(), List.of(
+                    "lock table report_daily_rollups in share row exclusive mode",
+                    "update report_daily_rollups r set ticket_count = d.total from (select min(id) as id,"
+                            + " sum(ticket_count) as total from report_daily_rollups"
+                            + " group by company_id, opened_day, category_id, status having count(*) > 1) d"
+                            + " where r.id = d.id",
+                    "delete from report_daily_rollups r using report_daily_rollups d where r.id > d.id"
+                            + " and r.company_id is not distinct from d.company_id"
+                            + " and r.opened_day is not distinct from d.opened_day"
+                            + " and r.category_id is not distinct from d.category_id and r.status = d.status",
+                    "drop index if exists idx_report_daily_rollups_key",
+                    "alter table report_daily_rollups drop constraint if exists uk_report_daily_rollups_key",
+                    "alter table report_daily_rollups add constraint uk_report_daily_rollups_key"
+                            + " unique nulls not distinct (company_id, opened_day, category_id, status)")),
+            new Migration(ATTACHMENT_DATA_NULLABLE, "Attachment payloads outside the database", List.of(),
+                    List.of("alter table attachments alter column data drop not null")));
+
+    private SchemaMigrations() {
+    }
+
+    public static List<Migration> migrations() {
+        return MIGRATIONS;
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    public static List<SchemaIndex> indexes() {
+        return MIGRATIONS.stream().flatMap(migration -> migration.indexes().stream()).toList();
+    }
+
+    public record Migration(int version, String description, List<SchemaIndex> indexes, List<String> statements) {
+
+        public Migration(int version, String description, List<SchemaIndex> indexes) {
+            this(version, description, indexes, List.of());
+        }
+    }
+
+    public record SchemaIndex(String name, String table, String columns) {
+
+        public String createStatement() {
+            return "create index concurrently if not exists " + name + " on " + table + " " + columns;
+        }
+
+        public String dropStatement() {
+            return "drop index concurrently if exists " + name;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.util;
+
+/**
+ * Storage for authenticated sessions. Each user holds at most one session; creating a new one replaces the previous
+ * token.
+ */
+public interface SessionStore {
+
+    String name();
+
+    void create(long userId, String token, long createdAt);
+
+    /**
+     * Returns the last activity time of the session when the token matches the user's current session, otherwise null.
+     */
+    Long lastActivity(long userId, String token);
+
+    /**
+     * Records activity on the session. Implementations may defer the write until {@link #flush()}.
+     */
+    void touch(long userId, String token, long lastActivityAt);
+
+    void setLastActivity(long userId, String token, long lastActivityAt);
+
+    void remove(long userId, String token);
+
+    int evictExpired(long cutoff);
+
+    default void flush() {
+    }
+}
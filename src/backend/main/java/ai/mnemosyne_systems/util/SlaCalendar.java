@@ -0,0 +1,92 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.util;
+
+import ai.mnemosyne_systems.model.Level;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Business-hours calendar of a support level. The level covers the days from {@code fromDay} to {@code toDay} (Monday
+ * is 1, ranges may wrap around the week) and on each of them the hours from {@code fromTime} to {@code toTime} in the
+ * level timezone; a {@code toTime} of 23 runs to the end of the day and a {@code toTime} before {@code fromTime} runs
+ * overnight into the next day. A level without a window is covered around the clock.
+ */
+public final class SlaCalendar {
+
+    private SlaCalendar() {
+    }
+
+    public static LocalDateTime deadline(Level level, LocalDateTime start) {
+        if (level == null || level.level == null || start == null) {
+            return null;
+        }
+        long minutes = Math.max(0, level.level);
+        if (!hasWindow(level)) {
+            return start.plusMinutes(minutes);
+        }
+        ZoneId systemZone = ZoneId.systemDefault();
+        ZonedDateTime current = start.atZone(systemZone).withZoneSameInstant(zone(level));
+        Duration remaining = Duration.ofMinutes(minutes);
+        LocalDate day = current.toLocalDate().minusDays(1);
+        while (true) {
+            if (covers(level, day)) {
+                ZonedDateTime open = day.atTime(level.fromTime, 0).atZone(current.getZone());
+                ZonedDateTime close = close(level, day, current.getZone());
+                if (close.isAfter(current)) {
+                    ZonedDateTime from = open.isAfter(current) ? open : current;
+                    Duration available = Duration.between(from, close);
+                    if (remaining.compareTo(available) <= 0) {
+                        return from.plus(remaining).withZoneSameInstant(systemZone).toLocalDateTime();
+                    }
+                    remaining = remaining.minus(available);
+                    current = close;
+                }
+            }
+            day = day.plusDays(1);
+        }
+    }
+
+    private static boolean hasWindow(Level level) {
+        return Level.DayOption.isValid(level.fromDay) && Level.DayOption.isValid(level.toDay)
+                && Level.HourOption.isValid(level.fromTime) && Level.HourOption.isValid(level.toTime);
+    }
+
+    private static boolean covers(Level level, LocalDate day) {
+        int dayOfWeek = day.getDayOfWeek().getValue();
+        if (level.fromDay <= level.toDay) {
+            return dayOfWeek >= level.fromDay && dayOfWeek <= level.toDay;
+        }
+        return dayOfWeek >= level.fromDay || dayOfWeek <= level.toDay;
+    }
+
+    private static ZonedDateTime close(Level level, LocalDate day, ZoneId zone) {
+        int endHour = level.toTime == Level.HourOption.H23.getCode() ? 24 : level.toTime;
+        LocalDate closeDay = endHour <= level.fromTime ? day.plusDays(1) : day;
+        if (endHour == 24) {
+            return closeDay.plusDays(1).atStartOfDay(zone);
+        }
+        return closeDay.atTime(endHour, 0).atZone(zone);
+    }
+
+    private static ZoneId zone(Level level) {
+        if (level.timezone != null && level.timezone.name != null && !level.timezone.name.isBlank()) {
+            try {
+                return ZoneId.of(level.timezone.name.trim());
+            } catch (DateTimeException ex) {
+                return ZoneId.systemDefault();
+            }
+        }
+        return ZoneId.systemDefault();
+    }
+}
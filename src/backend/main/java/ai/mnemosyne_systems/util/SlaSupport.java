@@ -0,0 +1,88 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.util;
+
+import ai.mnemosyne_systems.model.Level;
+import ai.mnemosyne_systems.model.Ticket;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps the persistent SLA deadline of a ticket. The clock starts at the latest public message and the deadline is the
+ * support level response time counted in business hours of the level. Closed tickets and tickets waiting for external
+ * feedback have no deadline. A deadline that is already past when it is computed is marked as breached right away;
+ * deadlines in the future are breached by {@code SlaBreachService}.
+ */
+public final class SlaSupport {
+
+    private static final int BATCH_SIZE = 500;
+
+    private SlaSupport() {
+    }
+
+    public static void restart(Ticket ticket, LocalDateTime startedAt) {
+        if (ticket == null) {
+            return;
+        }
+        ticket.slaStartedAt = startedAt;
+        refresh(ticket);
+    }
+
+    public static void refresh(Ticket ticket) {
+        if (ticket == null) {
+            return;
+        }
+        LocalDateTime deadline = paused(ticket) ? null : SlaCalendar.deadline(level(ticket), ticket.slaStartedAt);
+        if (Objects.equals(deadline, ticket.slaDeadline)) {
+            return;
+        }
+        ticket.slaDeadline = deadline;
+        ticket.slaBreached = deadline != null && !deadline.isAfter(LocalDateTime.now());
+    }
+
+    public static void refreshLevel(Level level) {
+        if (level == null || level.id == null) {
+            return;
+        }
+        List<Long> ticketIds = Ticket.getEntityManager().createQuery(
+                "select t.id from Ticket t where t.companyEntitlement.supportLevel = :level and t.slaStartedAt is not null order by t.id",
+                Long.class).setParameter("level", level).getResultList();
+        for (int from = 0; from < ticketIds.size(); from += BATCH_SIZE) {
+            for (Ticket ticket : Ticket.<Ticket> list("id in ?1",
+                    ticketIds.subList(from, Math.min(from + BATCH_SIZE, ticketIds.size())))) {
+                refresh(ticket);
+            }
+        }
+    }
+
+    public static boolean breached(Ticket ticket, LocalDateTime now) {
+        if (ticket == null || ticket.slaDeadline == null) {
+            return false;
+        }
+        return ticket.slaBreached || !ticket.slaDeadline.isAfter(now);
+    }
+
+    public static String color(Ticket ticket, LocalDateTime now) {
+        Level level = level(ticket);
+        if (ticket.slaDeadline == null || level == null || level.color == null || level.color.isBlank()) {
+            return null;
+        }
+        return breached(ticket, now) ? level.color : "White";
+    }
+
+    private static boolean paused(Ticket ticket) {
+        return "Closed".equalsIgnoreCase(ticket.status)
+                || "Waiting for External Feedback".equalsIgnoreCase(ticket.status);
+    }
+
+    private static Level level(Ticket ticket) {
+        return ticket == null || ticket.companyEntitlement == null ? null : ticket.companyEntitlement.supportLevel;
+    }
+}
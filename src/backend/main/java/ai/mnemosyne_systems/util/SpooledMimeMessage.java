@@ -0,0 +1,105 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.util;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.util.SharedFileInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * A detached copy of a mail message whose raw bytes live in a temporary file. Parts are read from the file on demand,
+ * so a large message costs disk space instead of heap. {@link #close()} removes the file.
+ */
+public final class SpooledMimeMessage extends MimeMessage implements AutoCloseable {
+
+    private static final Session SESSION = Session.getInstance(new Properties());
+
+    private final Path file;
+    private final SharedFileInputStream input;
+
+    private SpooledMimeMessage(Path file, SharedFileInputStream input) throws MessagingException {
+        super(SESSION, input);
+        this.file = file;
+        this.input = input;
+    }
+
+    /**
+     * Copies a message, in memory when its reported size is at most {@code threshold} bytes and into a temporary file
+     * otherwise. Messages of unknown size are spooled.
+     */
+    public static MimeMessage copy(MimeMessage message, long threshold) throws MessagingException {
+        int size = message.getSize();
+        if (size >= 0 && size <= threshold) {
+            return new MimeMessage(message);
+        }
+        Path file = null;
+        SharedFileInputStream input = null;
+        try {
+            file = Files.createTempFile("billetsys-mail-", ".eml");
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file))) {
+                message.writeTo(output);
+            }
+            input = new SharedFileInputStream(file.toFile());
+            return new SpooledMimeMessage(file, input);
+        } catch (IOException | MessagingException | RuntimeException e) {
+            closeQuietly(input);
+            deleteQuietly(file);
+            if (e instanceof MessagingException messagingException) {
+                throw messagingException;
+            }
+            throw new MessagingException("Unable to spool mail message", e);
+        }
+    }
+
+    /**
+     * Releases spooled copies; in-memory copies are left to the garbage collector.
+     */
+    public static void release(Iterable<? extends MimeMessage> messages) {
+        for (MimeMessage message : messages) {
+            if (message instanceof SpooledMimeMessage spooled) {
+                spooled.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(input);
+        deleteQuietly(file);
+    }
+
+    private static void closeQuietly(SharedFileInputStream input) {
+        if (input == null) {
+            return;
+        }
+        try {
+            input.close();
+        } catch (IOException e) {
+            // The file is removed either way.
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+}
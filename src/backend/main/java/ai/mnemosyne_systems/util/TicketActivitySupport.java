@@ -0,0 +1,183 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.util;
+
+import ai.mnemosyne_systems.model.Message;
+import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.model.TicketActivity;
+import ai.mnemosyne_systems.model.User;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class TicketActivitySupport {
+
+    private static final int BATCH_SIZE = 500;
+
+    private TicketActivitySupport() {
+    }
+
+    public static Map<Long, TicketActivity> load(Collection<Ticket> tickets) {
+        List<Long> ticketIds = ticketIds(tickets);
+        Map<Long, TicketActivity> activities = new LinkedHashMap<>();
+        for (int from = 0; from < ticketIds.size(); from += BATCH_SIZE) {
+            List<Long> batch = ticketIds.subList(from, Math.min(from + BATCH_SIZE, ticketIds.size()));
+            for (TicketActivity activity : TicketActivity.<TicketActivity> list(
+                    "select a from TicketActivity a left join fetch a.assignee where a.ticketId in ?1", batch)) {
+                activities.put(activity.ticketId, activity);
+            }
+        }
+        return activities;
+    }
+
+    /**
+     * Rebuilds the rows of the given tickets and restarts their SLA from the last public message. The tickets are
+     * locked first, so a concurrent writer of the same ticket rebuilds after this transaction and sees its messages.
+     */
+    public static void refreshTickets(List<Long> ticketIds) {
+        for (int from = 0; from < ticketIds.size(); from += BATCH_SIZE) {
+            List<Long> batch = ticketIds.subList(from, Math.min(from + BATCH_SIZE, ticketIds.size()));
+            Ticket.find("id in ?1 order by id", batch).withLock(LockModeType.PESSIMISTIC_WRITE).list();
+            restartSla(rebuild(batch));
+        }
+    }
+
+    public static LocalDateTime lastVisibleDate(TicketActivity activity, AuthPrincipal viewer) {
+        if (activity == null || viewer == null) {
+            return null;
+        }
+        if (MessageAudienceSupport.belongsToAudience(viewer, MessageAudienceSupport.Audience.SUPPORT_TAM)) {
+            return activity.lastSupportTamDate;
+        }
+        if (MessageAudienceSupport.belongsToAudience(viewer, MessageAudienceSupport.Audience.USER_SUPERUSER)) {
+            return activity.lastUserSuperuserDate;
+        }
+        return activity.lastPublicDate;
+    }
+
+    public static boolean lastVisibleFromSupport(TicketActivity activity, AuthPrincipal viewer) {
+        if (activity == null || viewer == null) {
+            return false;
+        }
+        if (MessageAudienceSupport.belongsToAudience(viewer, MessageAudienceSupport.Audience.SUPPORT_TAM)) {
+            return activity.lastSupportTamFromSupport;
+        }
+        if (MessageAudienceSupport.belongsToAudience(viewer, MessageAudienceSupport.Audience.USER_SUPERUSER)) {
+            return activity.lastUserSuperuserFromSupport;
+        }
+        return activity.lastPublicFromSupport;
+    }
+
+    /**
+     * Recomputes the rows of the given tickets from their messages and assignees, and drops the rows of tickets that no
+     * longer exist.
+     */
+    public static Map<Long, TicketActivity> rebuild(List<Long> ticketIds) {
+        Map<Long, TicketActivity> activities = new LinkedHashMap<>();
+        if (ticketIds.isEmpty()) {
+            return activities;
+        }
+        List<Long> existingIds = Ticket.getEntityManager()
+                .createQuery("select t.id from Ticket t where t.id in :ticketIds", Long.class)
+                .setParameter("ticketIds", ticketIds).getResultList();
+        for (TicketActivity existing : TicketActivity.<TicketActivity> list("ticketId in ?1", ticketIds)) {
+            if (existingIds.contains(existing.ticketId)) {
+                activities.put(existing.ticketId, existing);
+            } else {
+                existing.delete();
+            }
+        }
+        if (existingIds.isEmpty()) {
+            return activities;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Long ticketId : existingIds) {
+            TicketActivity activity = activities.computeIfAbsent(ticketId, id -> {
+                TicketActivity created = new TicketActivity();
+                created.ticketId = id;
+                return created;
+            });
+            activity.lastPublicDate = null;
+            activity.lastPublicFromSupport = false;
+            activity.lastSupportTamDate = null;
+            activity.lastSupportTamFromSupport = false;
+            activity.lastUserSuperuserDate = null;
+            activity.lastUserSuperuserFromSupport = false;
+            activity.assignee = null;
+            activity.updatedAt = now;
+        }
+        List<Object[]> messages = Message.getEntityManager().createQuery(
+                "select m.ticket.id, m.date, m.isPublic, a.type from Message m left join m.author a where m.ticket.id in :ticketIds order by m.date desc, m.id desc",
+                Object[].class).setParameter("ticketIds", existingIds).getResultList();
+        for (Object[] row : messages) {
+            apply(activities.get((Long) row[0]), (LocalDateTime) row[1], Boolean.TRUE.equals(row[2]), (String) row[3]);
+        }
+        List<Object[]> assignees = Ticket.getEntityManager().createQuery(
+                "select t.id, u from Ticket t join t.supportUsers u where t.id in :ticketIds order by u.id desc",
+                Object[].class).setParameter("ticketIds", existingIds).getResultList();
+        for (Object[] row : assignees) {
+            TicketActivity activity = activities.get((Long) row[0]);
+            if (activity != null && activity.assignee == null) {
+                activity.assignee = (User) row[1];
+            }
+        }
+        for (TicketActivity activity : activities.values()) {
+            if (!activity.isPersistent()) {
+                activity.persist();
+            }
+        }
+        return activities;
+    }
+
+    private static void restartSla(Map<Long, TicketActivity> activities) {
+        if (activities.isEmpty()) {
+            return;
+        }
+        for (Ticket ticket : Ticket.<Ticket> list("id in ?1", List.copyOf(activities.keySet()))) {
+            SlaSupport.restart(ticket, activities.get(ticket.id).lastPublicDate);
+        }
+    }
+
+    private static void apply(TicketActivity activity, LocalDateTime date, boolean isPublic, String authorType) {
+        if (activity == null || date == null) {
+            return;
+        }
+        boolean fromSupport = User.TYPE_SUPPORT.equalsIgnoreCase(authorType);
+        boolean supportTamAuthor = fromSupport || User.TYPE_TAM.equalsIgnoreCase(authorType);
+        boolean userSuperuserAuthor = User.TYPE_USER.equalsIgnoreCase(authorType)
+                || User.TYPE_SUPERUSER.equalsIgnoreCase(authorType);
+        if (isPublic && replaces(activity.lastPublicDate, date)) {
+            activity.lastPublicDate = date;
+            activity.lastPublicFromSupport = fromSupport;
+        }
+        if ((isPublic || supportTamAuthor) && replaces(activity.lastSupportTamDate, date)) {
+            activity.lastSupportTamDate = date;
+            activity.lastSupportTamFromSupport = fromSupport;
+        }
+        if ((isPublic || userSuperuserAuthor) && replaces(activity.lastUserSuperuserDate, date)) {
+            activity.lastUserSuperuserDate = date;
+            activity.lastUserSuperuserFromSupport = fromSupport;
+        }
+    }
+
+    private static boolean replaces(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isAfter(current);
+    }
+
+    private static List<Long> ticketIds(Collection<Ticket> tickets) {
+        if (tickets == null) {
+            return List.of();
+        }
+        return tickets.stream().filter(ticket -> ticket != null && ticket.id != null).map(ticket -> ticket.id)
+                .distinct().toList();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+package ai.mnemosyne_systems.util;
+
+import ai.mnemosyne_systems.model.User;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * Short-lived cache of the ticket list counters by role and user id. Each entry remembers the companies of its user, so
+ * a ticket write only evicts the counters of the ticket's companies and requesters, the support counters (their
+ * unassigned count spans all tickets) and the roles named by the change. Evictions are repeated through
+ * {@link AfterCompletionEvictions}.
+ */
+public final class TicketCountCache {
+
+    private static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+    private static final Scope ALL = new Scope(Set.of(), Set.of(), Set.of(), true);
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static final AtomicLong GENERATION = new AtomicLong();
+    private static volatile Long ttlMillis;
+
+    private TicketCountCache() {
+    }
+
+    public static <T> T get(String role, Long userId, Supplier<T> loader) {
+        if (userId == null) {
+            return loader.get();
+        }
+        String key = role + ":" + userId;
+        long now = System.currentTimeMillis();
+        Entry entry = ENTRIES.get(key);
+        if (entry != null && entry.expiresAt() > now) {
+            @SuppressWarnings("unchecked")
+            T counts = (T) entry.counts();
+            return counts;
+        }
+        long generation = GENERATION.get();
+        T counts = loader.get();
+        AuthPrincipal principal = PrincipalCache.get(userId);
+        Set<Long> companyIds = principal == null ? Set.of() : principal.companyIds();
+        if (counts != null && GENERATION.get() == generation) {
+            ENTRIES.put(key, new Entry(counts, now + ttlMillis(), role, userId, companyIds));
+        }
+        return counts;
+    }
+
+    /**
+     * Evicts the counters a change to tickets of the given companies and requesters can affect, together with every
+     * counter of the given roles.
+     */
+    public static void invalidateTickets(Set<Long> companyIds, Set<Long> userIds, Set<String> roles) {
+        Set<String> affectedRoles = new HashSet<>(roles);
+        affectedRoles.add(User.TYPE_SUPPORT);
+        Scope scope = new Scope(Set.copyOf(companyIds), Set.copyOf(userIds), Set.copyOf(affectedRoles), false);
+        evict(scope);
+        AfterCompletionEvictions.register(TicketCountCache.class, scope, TicketCountCache::evict);
+    }
+
+    public static void invalidateAll() {
+        evict(ALL);
+        AfterCompletionEvictions.register(TicketCountCache.class, ALL, TicketCountCache::evict);
+    }
+
+    private static void evict(Scope scope) {
+        GENERATION.incrementAndGet();
+        if (scope.all()) {
+            ENTRIES.clear();
+        } else {
+            ENTRIES.values().removeIf(scope::matches);
+        }
+    }
+
+    private static long ttlMillis() {
+        Long current = ttlMillis;
+        if (current == null) {
+            current = ConfigProvider.getConfig().getOptionalValue("ticket.counts.cache-ttl", Duration.class)
+                    .orElse(DEFAULT_TTL).toMillis();
+            ttlMillis = current;
+        }
+        return current;
+    }
+
+    private record Entry(Object counts, long expiresAt, String role, Long userId, Set<Long> companyIds) {
+    }
+
+    private record Scope(Set<Long> companyIds, Set<Long> userIds, Set<String> roles, boolean all) {
+
+        boolean matches(Entry entry) {
+            return all || roles.contains(entry.role()) || userIds.contains(entry.userId())
+                    || !Collections.disjoint(companyIds, entry.companyIds());
+        }
+    }
+}
@@ -8,6 +8,7 @@
 
 package ai.mnemosyne_systems.resource;
 
+import ai.mnemosyne_systems.infra.BrandingProvider;
 import ai.mnemosyne_systems.model.Category;
 import ai.mnemosyne_systems.model.Article;
 import ai.mnemosyne_systems.model.Attachment;
@@ -52,6 +53,9 @@ abstract class AccessTestSupport {
     @Inject
     MockMailbox mailbox;
 
+    @Inject
+    BrandingProvider brandingProvider;
+
     @Inject
     MailboxPollingService mailboxPollingService;
 
@@ -544,6 +548,24 @@ abstract class AccessTestSupport {
             return;
         }
         installation.use24HourClock = use24HourClock;
+        brandingProvider.invalidate();
+    }
+
+    @Transactional
+    void setInstallationLogo(String logoBase64) {
+        Installation installation = Installation.find("singletonKey", "installation").firstResult();
+        if (installation == null) {
+            return;
+        }
+        installation.logoBase64 = logoBase64;
+        brandingProvider.invalidate();
+    }
+
+    @Transactional
+    long stampBrandingVersionWithoutInvalidating() {
+        long version = System.currentTimeMillis() + 1000;
+        Installation.update("brandingVersion = ?1 where singletonKey = ?2", version, "installation");
+        return version;
     }
 
     @Transactional
@@ -17,20 +17,29 @@ import ai.mnemosyne_systems.model.Country;
 import ai.mnemosyne_systems.model.Entitlement;
 import ai.mnemosyne_systems.model.Installation;
 import ai.mnemosyne_systems.model.Message;
+import ai.mnemosyne_systems.model.OutboundMailRecipient;
+import ai.mnemosyne_systems.model.ReportSnapshot;
 import ai.mnemosyne_systems.model.Level;
+import ai.mnemosyne_systems.model.MailboxSource;
 import ai.mnemosyne_systems.model.Ticket;
 import ai.mnemosyne_systems.model.Timezone;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.model.Version;
+import ai.mnemosyne_systems.service.IncomingEmailService;
 import ai.mnemosyne_systems.service.MailboxPollingService;
 import ai.mnemosyne_systems.service.TicketEmailService;
 import ai.mnemosyne_systems.util.AuthHelper;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
 import io.quarkus.elytron.security.common.BcryptUtil;
 import io.quarkus.hibernate.orm.panache.Panache;
 import io.quarkus.mailer.Mail;
 import io.quarkus.mailer.MockMailbox;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.RestAssured;
+import io.restassured.path.json.JsonPath;
 import io.restassured.http.ContentType;
 import jakarta.inject.Inject;
 import jakarta.mail.Session;
@@ -40,6 +49,8 @@ import jakarta.mail.internet.MimeMessage;
 import jakarta.mail.internet.MimeMultipart;
 import jakarta.transaction.Transactional;
 import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -397,7 +408,8 @@ class AdminAccessTest extends AccessTestSupport {
         Timezone timezone = Timezone.find("country = ?1 order by name", country).firstResult();
         User supportUser = User.find("email", "support1@mnemosyne-systems.ai").firstResult();
         User tamUser = User.find("email", "tam1@mnemosyne-systems.ai").firstResult();
-        String installationLogo = "data:image/svg+xml;base64,PHN2ZyB4bWxucz0iaHR0cDovL3d3dy53My5vcmcvMjAwMC9zdmciIHdpZHRoPSIyNCIgaGVpZ2h0PSIyNCI+PHJlY3Qgd2lkdGg9IjI0IiBoZWlnaHQ9IjI0IiByeD0iNCIgZmlsbD0iIzEyMzQ1NiIvPjwvc3ZnPg==";
+        String svgLogo = "data:image/svg+xml;base64,PHN2ZyB4bWxucz0iaHR0cDovL3d3dy53My5vcmcvMjAwMC9zdmciIHdpZHRoPSIyNCIgaGVpZ2h0PSIyNCI+PHJlY3Qgd2lkdGg9IjI0IiBoZWlnaHQ9IjI0IiByeD0iNCIgZmlsbD0iIzEyMzQ1NiIvPjwvc3ZnPg==";
+        String installationLogo = "data:image/gif;base64,R0lGODlhAQABAIAAAP///wAAACH5BAEAAAAALAAAAAABAAEAAAICRAEAOw==";
         String installationBackground = "data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR42mP8/x8AAwMCAO+jx6kAAAAASUVORK5CYII=";
 
         RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/owner").then().statusCode(200)
@@ -407,11 +419,17 @@ class AdminAccessTest extends AccessTestSupport {
                 .body("headerFooterColor", Matchers.equalTo("#b00020"))
                 .body("headersColor", Matchers.equalTo("#b00020")).body("buttonsColor", Matchers.equalTo("#b00020"))
                 .body("use24HourClock", Matchers.equalTo(false))
-                .body("logoBase64", Matchers.startsWith("data:image/svg+xml;base64,"))
-                .body("backgroundBase64", Matchers.nullValue())
+                .body("logoBase64", Matchers.nullValue()).body("backgroundBase64", Matchers.nullValue())
                 .body("supportOptions.email", Matchers.hasItem("support1@mnemosyne-systems.ai"))
                 .body("tamOptions.email", Matchers.hasItem("tam1@mnemosyne-systems.ai"));
 
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType(ContentType.JSON)
+                .body(Map.of("name", "mnemosyne systems", "logoBase64", svgLogo)).post("/api/owner").then()
+                .statusCode(400);
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType(ContentType.JSON)
+                .body(Map.of("name", "mnemosyne systems", "backgroundBase64", "data:image/png;base64,PGh0bWw+"))
+                .post("/api/owner").then().statusCode(400);
+
         RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType(ContentType.JSON)
                 .body(Map.ofEntries(Map.entry("name", "mnemosyne systems"), Map.entry("address1", "Owner Street 1"),
                         Map.entry("address2", "Owner Street 2"), Map.entry("city", "Owner City"),
@@ -452,6 +470,53 @@ class AdminAccessTest extends AccessTestSupport {
                 .body("installationHeadersColor", Matchers.equalTo("#234567"))
                 .body("installationButtonsColor", Matchers.equalTo("#345678"))
                 .body("installationUse24HourClock", Matchers.equalTo(true));
+
+        String logoUrl = RestAssured.given().get("/api/app/session").then().statusCode(200)
+                .body("installationLogoUrl", Matchers.startsWith("/api/app/branding/logo?v="))
+                .body("installationBackgroundUrl", Matchers.startsWith("/api/app/branding/background?v=")).extract()
+                .path("installationLogoUrl");
+        String etag = RestAssured.given().get(logoUrl).then().statusCode(200).contentType("image/gif")
+                .header("Cache-Control", Matchers.containsString("immutable"))
+                .header("X-Content-Type-Options", "nosniff")
+                .header("Content-Security-Policy", "default-src 'none'").extract().header("ETag");
+        Assertions.assertArrayEquals(Base64.getDecoder().decode(installationLogo.substring(22)),
+                RestAssured.given().get(logoUrl).asByteArray());
+        RestAssured.given().header("If-None-Match", etag).get("/api/app/branding/logo").then().statusCode(304);
+        RestAssured.given().get("/api/app/branding/background").then().statusCode(200).contentType("image/png")
+                .header("Cache-Control", Matchers.containsString("no-cache"));
+    }
+
+    @Test
+    void reactOwnerApiAcceptsTheOwnerDetailsItReturns() {
+        ensureUser("admin", "admin@mnemosyne-systems.ai", User.TYPE_ADMIN, "admin");
+        String cookie = login("admin", "admin");
+        String storedLogo = brandingProvider.defaultInstallationLogoBase64();
+        setInstallationLogo(storedLogo);
+        try {
+            JsonPath owner = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/owner").then()
+                    .statusCode(200).extract().jsonPath();
+            Map<String, Object> payload = new HashMap<>(owner.getMap("$"));
+            payload.put("supportIds", owner.getList("supportUsers.id", Long.class));
+            payload.put("tamIds", owner.getList("tamUsers.id", Long.class));
+
+            RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType(ContentType.JSON).body(payload)
+                    .post("/api/owner").then().statusCode(200).body("logoBase64", Matchers.equalTo(storedLogo))
+                    .body("name", Matchers.equalTo(owner.getString("name")));
+        } finally {
+            setInstallationLogo(null);
+        }
+    }
+
+    @Test
+    void brandingPicksUpVersionsStampedByAnotherInstance() {
+        RestAssured.given().get("/api/app/session").then().statusCode(200);
+        long version = stampBrandingVersionWithoutInvalidating();
+
+        String logoUrl = RestAssured.given().get("/api/app/session").then().statusCode(200)
+                .body("installationLogoUrl", Matchers.equalTo("/api/app/branding/logo?v=" + version)).extract()
+                .path("installationLogoUrl");
+        RestAssured.given().get(logoUrl).then().statusCode(200).header("ETag", "\"" + version + "\"")
+                .header("Cache-Control", Matchers.containsString("immutable"));
     }
 
     @Test
@@ -529,6 +594,174 @@ class AdminAccessTest extends AccessTestSupport {
         Assertions.assertTrue(deleteReferencesCleared("delete-target-2@mnemosyne-systems.ai"));
     }
 
+    @Test
+    void adminAttachmentStatsReportSharedPayloads() {
+        ensureUser("admin", "admin@mnemosyne-systems.ai", User.TYPE_ADMIN, "admin");
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        Long companyId = ensureCompany("Attachment Dedup Co");
+        Ticket ticket = ensureTicket(companyId);
+        Message first = ensureMessageWithBody(ticket, "dedup-first-" + System.nanoTime());
+        Message second = ensureMessageWithBody(ticket, "dedup-second-" + System.nanoTime());
+        byte[] logo = ("signature-logo-" + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+
+        Attachment firstAttachment = ensureAttachment(first, "logo.png", "image/png", logo);
+        Attachment secondAttachment = ensureAttachment(second, "logo.png", "image/png", logo);
+
+        Assertions.assertNotEquals(firstAttachment.id, secondAttachment.id);
+        Assertions.assertNotNull(firstAttachment.storageKey);
+        Assertions.assertEquals(firstAttachment.storageKey, secondAttachment.storageKey);
+        Assertions.assertEquals(firstAttachment.sha256, firstAttachment.storageKey);
+        String cookie = login("admin", "admin");
+        JsonPath stats = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/admin/attachments/stats")
+                .then().statusCode(200).body("store", Matchers.equalTo("filesystem")).extract().jsonPath();
+        Assertions.assertTrue(stats.getLong("blobs") < stats.getLong("attachments"));
+        Assertions.assertTrue(stats.getLong("storedBytes") < stats.getLong("logicalBytes"));
+        Assertions.assertTrue(stats.getDouble("dedupRatio") > 1.0);
+    }
+
+    @Test
+    void ticketNotificationsAreDeliveredThroughOutbox() {
+        ensureUser("admin", "admin@mnemosyne-systems.ai", User.TYPE_ADMIN, "admin");
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        ensureUser("tam1", "tam1@mnemosyne-systems.ai", User.TYPE_TAM, "tam1");
+        Long companyId = ensureCompany("Outbox Co");
+        Ticket ticket = ensureTicket(companyId);
+        mailbox.clear();
+
+        notifyStatusChange(ticket.id);
+
+        Assertions.assertEquals(1, mailbox.getMailsSentTo("user@mnemosyne-systems.ai").size());
+        Assertions.assertEquals(1, mailbox.getMailsSentTo("support1@mnemosyne-systems.ai").size());
+        Assertions.assertEquals(0, OutboundMailRecipient.count("status in ?1",
+                List.of(OutboundMailRecipient.STATUS_PENDING, OutboundMailRecipient.STATUS_SENDING)));
+        Assertions.assertTrue(OutboundMailRecipient.count("email = ?1 and status = ?2", "user@mnemosyne-systems.ai",
+                OutboundMailRecipient.STATUS_SENT) > 0);
+        String cookie = login("admin", "admin");
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/admin/mail/outbox").then().statusCode(200)
+                .body("queued", Matchers.equalTo(0)).body("sent", Matchers.greaterThan(0));
+    }
+
+    @Test
+    void reportsAreServedFromIncrementalRollups() throws Exception {
+        ensureUser("admin", "admin@mnemosyne-systems.ai", User.TYPE_ADMIN, "admin");
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        ensureUser("tam1", "tam1@mnemosyne-systems.ai", User.TYPE_TAM, "tam1");
+        Long companyId = ensureCompany("Rollup Reports Co");
+        Ticket ticket = ensureTicket(companyId);
+        java.time.LocalDateTime opened = java.time.LocalDateTime.now().minusHours(3);
+        ensureTimedMessage(ticket, "Rollup question", "user@mnemosyne-systems.ai", opened);
+        ensureTimedMessage(ticket, "Rollup answer", "support1@mnemosyne-systems.ai", opened.plusHours(2));
+        String cookie = login("admin", "admin");
+
+        String generatedAt = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie)
+                .queryParam("companyId", companyId).get("/api/reports").then().statusCode(200)
+                .body("totalTickets", Matchers.equalTo(1)).body("status.label", Matchers.contains("Assigned"))
+                .body("company.label", Matchers.contains("Rollup Reports Co"))
+                .body("firstResponse.value", Matchers.contains(2.0f)).body("resolutionTime", Matchers.empty())
+                .extract().path("generatedAt");
+
+        setTicketStatus(ticket.id, "Closed");
+        awaitRegeneratedReport(cookie, companyId, generatedAt);
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("companyId", companyId)
+                .get("/api/reports").then().statusCode(200).body("totalTickets", Matchers.equalTo(1))
+                .body("status.label", Matchers.contains("Closed")).body("resolutionTime.value", Matchers.contains(2.0f))
+                .body("histogram.find { it.label == '1–8h' }.tickets.name", Matchers.contains(ticket.name));
+    }
+
+    @Test
+    void reportsAreServedFromSnapshotsUntilTicketsChange() throws Exception {
+        ensureUser("admin", "admin@mnemosyne-systems.ai", User.TYPE_ADMIN, "admin");
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        Long companyId = ensureCompany("Snapshot Reports Co");
+        Ticket ticket = ensureTicket(companyId);
+        ensureTimedMessage(ticket, "Snapshot question", "user@mnemosyne-systems.ai",
+                java.time.LocalDateTime.now().minusHours(2));
+        String cookie = login("admin", "admin");
+
+        String generatedAt = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie)
+                .queryParam("companyId", companyId).get("/api/reports").then().statusCode(200)
+                .body("totalTickets", Matchers.equalTo(1)).body("generatedAt", Matchers.notNullValue()).extract()
+                .path("generatedAt");
+        Assertions.assertNotNull(snapshotGeneratedAt("," + companyId + ",", "all"));
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("companyId", companyId)
+                .get("/api/reports").then().statusCode(200).body("generatedAt", Matchers.equalTo(generatedAt));
+
+        setTicketStatus(ticket.id, "Closed");
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("companyId", companyId)
+                .get("/api/reports").then().statusCode(200).body("generatedAt", Matchers.equalTo(generatedAt))
+                .body("status.label", Matchers.not(Matchers.hasItem("Closed")));
+        awaitRegeneratedReport(cookie, companyId, generatedAt);
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("companyId", companyId)
+                .get("/api/reports").then().statusCode(200).body("status.label", Matchers.contains("Closed"));
+
+        java.time.LocalDateTime before = snapshotGeneratedAt("," + companyId + ",", "all");
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).formParam("companyId", companyId)
+                .post("/api/reports/refresh").then().statusCode(202);
+        java.time.LocalDateTime after = before;
+        for (int attempt = 0; attempt < 50 && after.equals(before); attempt++) {
+            Thread.sleep(100);
+            after = snapshotGeneratedAt("," + companyId + ",", "all");
+        }
+        Assertions.assertTrue(after.isAfter(before));
+
+        String userCookie = login("user", "user");
+        RestAssured.given().redirects().follow(false).cookie(AuthHelper.AUTH_COOKIE, userCookie)
+                .post("/api/reports/refresh").then().statusCode(403);
+    }
+
+    @Test
+    void reportPdfExportRendersChartsOnTheServer() throws Exception {
+        ensureUser("admin", "admin@mnemosyne-systems.ai", User.TYPE_ADMIN, "admin");
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        Long companyId = ensureCompany("Chart Export Co");
+        Ticket ticket = ensureTicket(companyId);
+        ensureTimedMessage(ticket, "Chart question", "user@mnemosyne-systems.ai",
+                java.time.LocalDateTime.now().minusHours(1));
+        String cookie = login("admin", "admin");
+
+        byte[] pdfBytes = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("companyId", companyId)
+                .get("/reports/export").then().statusCode(200).contentType("application/pdf")
+                .header("Cache-Control", Matchers.containsString("private"))
+                .header("Content-Disposition", Matchers.containsString("report-chart-export-co.pdf")).extract()
+                .asByteArray();
+
+        try (PdfReader reader = new PdfReader(pdfBytes)) {
+            String firstPage = new PdfTextExtractor(reader).getTextFromPage(1);
+            Assertions.assertTrue(firstPage.contains("Tickets by Status"));
+            PdfDictionary resources = reader.getPageN(1).getAsDict(PdfName.RESOURCES);
+            Assertions.assertNotNull(resources.getAsDict(PdfName.XOBJECT));
+        }
+    }
+
+    void awaitRegeneratedReport(String cookie, Long companyId, String generatedAt) throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            String current = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie)
+                    .queryParam("companyId", companyId).get("/api/reports").then().statusCode(200).extract()
+                    .path("generatedAt");
+            if (!generatedAt.equals(current)) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        Assertions.fail("Report snapshot was not regenerated in the background");
+    }
+
+    @Transactional
+    java.time.LocalDateTime snapshotGeneratedAt(String scopeKey, String period) {
+        ReportSnapshot snapshot = ReportSnapshot.findByScope(scopeKey, period);
+        return snapshot == null ? null : snapshot.generatedAt;
+    }
+
+    @Transactional
+    void notifyStatusChange(Long ticketId) {
+        Ticket ticket = Ticket.findById(ticketId);
+        ticketEmailService.notifyStatusChange(ticket, "Open", null);
+    }
+
     @Transactional
     Long prepareReferencedUserForDelete(Long companyId, String email, boolean assignToCompany) {
         Company company = Company.findById(companyId);
@@ -570,4 +803,109 @@ class AdminAccessTest extends AccessTestSupport {
         return requesterCount == 0 && messageAuthorCount == 0 && supportCount == 0 && tamCount == 0;
     }
 
+    @Test
+    void adminConfiguresMailboxSourcesThatRouteNewTickets() throws Exception {
+        ensureUser("admin", "admin@mnemosyne-systems.ai", User.TYPE_ADMIN, "admin");
+        ensureUser("mailbox-routing", "mailbox-routing@mnemosyne-systems.ai", User.TYPE_USER, "pass");
+        Long companyId = ensureCompany("Mailbox Routing Co");
+        ensureCompanyUsers(companyId, "mailbox-routing@mnemosyne-systems.ai");
+        Long entitlementId = ensureRoutedEntitlement(companyId, "Zephyr Mailbox Product");
+        Long categoryId = ensureRoutingCategory("Mailbox Routing Category");
+        String name = "Product line " + System.nanoTime();
+        String cookie = login("admin", "admin");
+
+        JsonPath created = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType(ContentType.URLENC)
+                .formParam("name", name).formParam("enabled", "false").formParam("host", "imap.example.com")
+                .formParam("username", "product@example.com").formParam("password", "secret")
+                .formParam("pollIntervalSeconds", 60).formParam("workers", 3).formParam("categoryId", categoryId)
+                .formParam("entitlementId", entitlementId).post("/api/admin/mailboxes").then().statusCode(201)
+                .body("name", Matchers.equalTo(name)).body("protocol", Matchers.equalTo("imap"))
+                .body("folder", Matchers.equalTo("INBOX")).body("workers", Matchers.equalTo(3))
+                .body("categoryName", Matchers.equalTo("Mailbox Routing Category"))
+                .body("entitlementName", Matchers.equalTo("Zephyr Mailbox Product"))
+                .body("running", Matchers.equalTo(false)).body("$", Matchers.not(Matchers.hasKey("password"))).extract()
+                .jsonPath();
+        Long sourceId = created.getLong("id");
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType(ContentType.URLENC)
+                .formParam("name", name.toUpperCase()).formParam("host", "imap.example.com")
+                .formParam("username", "other@example.com").formParam("password", "secret").post("/api/admin/mailboxes")
+                .then().statusCode(400);
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType(ContentType.URLENC)
+                .formParam("name", name).formParam("host", "imap.example.com")
+                .formParam("username", "product@example.com").formParam("password", "")
+                .formParam("pollIntervalSeconds", 120).formParam("categoryId", categoryId)
+                .formParam("entitlementId", entitlementId).post("/api/admin/mailboxes/" + sourceId).then()
+                .statusCode(200).body("pollIntervalSeconds", Matchers.equalTo(120));
+        Assertions.assertEquals("secret", mailboxPassword(sourceId));
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).post("/api/admin/mailboxes/" + sourceId + "/poll")
+                .then().statusCode(409);
+
+        String body = "Routed mailbox message " + System.nanoTime();
+        MimeMessage message = new MimeMessage(Session.getInstance(new Properties()));
+        message.setFrom(new InternetAddress("mailbox-routing@mnemosyne-systems.ai"));
+        message.setSubject("Product line question");
+        message.setText(body, StandardCharsets.UTF_8.name());
+        message.saveChanges();
+        mailboxPollingService.processMailboxMessage(message, mailboxRouting(sourceId));
+
+        Message saved = findMessageByBody(body);
+        Assertions.assertNotNull(saved);
+        Assertions.assertEquals(entitlementId, saved.ticket.companyEntitlement.entitlement.id);
+        Assertions.assertEquals(categoryId, saved.ticket.category.id);
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/admin/mailboxes").then().statusCode(200)
+                .body("items.name", Matchers.hasItem(name));
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).post("/api/admin/mailboxes/" + sourceId + "/delete")
+                .then().statusCode(204);
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/admin/mailboxes/" + sourceId).then()
+                .statusCode(404);
+    }
+
+    @Transactional
+    Long ensureRoutedEntitlement(Long companyId, String name) {
+        Company company = Company.findById(companyId);
+        Entitlement entitlement = ensureEntitlement(name, "Routed from a mailbox");
+        if (CompanyEntitlement.count("company = ?1 and entitlement = ?2", company, entitlement) == 0) {
+            Entitlement other = Entitlement.find("name", "Starter").firstResult();
+            Level level = Level.find("name", "Normal").firstResult();
+            // The company also holds an entitlement that sorts first, so only the routing selects this one.
+            CompanyEntitlement fallback = new CompanyEntitlement();
+            fallback.company = company;
+            fallback.entitlement = other;
+            fallback.supportLevel = level;
+            fallback.persist();
+            CompanyEntitlement routed = new CompanyEntitlement();
+            routed.company = company;
+            routed.entitlement = entitlement;
+            routed.supportLevel = level;
+            routed.persist();
+        }
+        return entitlement.id;
+    }
+
+    @Transactional
+    Long ensureRoutingCategory(String name) {
+        Category category = Category.find("name", name).firstResult();
+        if (category == null) {
+            category = new Category();
+            category.name = name;
+            category.description = "Mail for one product line";
+            category.persist();
+        }
+        return category.id;
+    }
+
+    @Transactional
+    String mailboxPassword(Long sourceId) {
+        MailboxSource source = MailboxSource.findById(sourceId);
+        return source.password;
+    }
+
+    @Transactional
+    IncomingEmailService.Routing mailboxRouting(Long sourceId) {
+        MailboxSource source = MailboxSource.findById(sourceId);
+        return new IncomingEmailService.Routing(source.defaultCategory.id, source.defaultEntitlement.id);
+    }
+
 }
@@ -9,47 +9,93 @@
 package ai.mnemosyne_systems.resource;
 
 import ai.mnemosyne_systems.model.Category;
+import ai.mnemosyne_systems.init.SchemaMigrationInitializer;
 import ai.mnemosyne_systems.model.Article;
 import ai.mnemosyne_systems.model.Attachment;
 import ai.mnemosyne_systems.model.Company;
 import ai.mnemosyne_systems.model.CompanyEntitlement;
 import ai.mnemosyne_systems.model.Country;
+import ai.mnemosyne_systems.model.CrossReference;
 import ai.mnemosyne_systems.model.Entitlement;
 import ai.mnemosyne_systems.model.Message;
 import ai.mnemosyne_systems.model.Level;
+import ai.mnemosyne_systems.model.ReportDailyRollup;
 import ai.mnemosyne_systems.model.Ticket;
+import ai.mnemosyne_systems.model.TicketActivity;
 import ai.mnemosyne_systems.model.Timezone;
 import ai.mnemosyne_systems.model.User;
 import ai.mnemosyne_systems.model.Version;
+import ai.mnemosyne_systems.service.CrossReferenceService;
 import ai.mnemosyne_systems.service.MailboxPollingService;
+import ai.mnemosyne_systems.service.TicketCreationService;
 import ai.mnemosyne_systems.service.TicketEmailService;
+import ai.mnemosyne_systems.util.AttachmentStorage;
 import ai.mnemosyne_systems.util.AuthHelper;
+import ai.mnemosyne_systems.util.AuthPrincipal;
+import ai.mnemosyne_systems.util.DatabaseSessionStore;
+import ai.mnemosyne_systems.util.PrincipalCache;
+import ai.mnemosyne_systems.util.SchemaMigrations;
+import ai.mnemosyne_systems.util.SpooledMimeMessage;
 import io.quarkus.elytron.security.common.BcryptUtil;
 import io.quarkus.hibernate.orm.panache.Panache;
 import io.quarkus.mailer.Mail;
 import io.quarkus.mailer.MockMailbox;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
 import io.restassured.response.Response;
+import jakarta.activation.DataHandler;
 import jakarta.inject.Inject;
 import jakarta.mail.Session;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeBodyPart;
 import jakarta.mail.internet.MimeMessage;
 import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.util.ByteArrayDataSource;
 import jakarta.transaction.Transactional;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 import org.hamcrest.Matchers;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 
 @QuarkusTest
 class SupportAccessTest extends AccessTestSupport {
 
+    @Inject
+    CrossReferenceService crossReferenceService;
+
+    @Inject
+    TicketCreationService ticketCreationService;
+
+    @Inject
+    SchemaMigrationInitializer schemaMigrationInitializer;
+
     @Test
     void supportCanAccessSupportUsersMenu() {
         ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
@@ -282,8 +328,8 @@ class SupportAccessTest extends AccessTestSupport {
         Assertions.assertEquals("https://github.com/example/issue/1", updatedTicket.externalIssueLink);
         RestAssured.given().redirects().follow(false).cookie(AuthHelper.AUTH_COOKIE, cookie).get("/tickets").then()
                 .statusCode(303).header("Location", Matchers.endsWith("/tickets"));
-        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/ticket-workbench").then().statusCode(200)
-                .body("items.name", Matchers.hasItem(ticket.name));
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("pageSize", 100)
+                .get("/api/ticket-workbench").then().statusCode(200).body("items.name", Matchers.hasItem(ticket.name));
         RestAssured.given().redirects().follow(false).cookie(AuthHelper.AUTH_COOKIE, cookie).get("/tickets/new").then()
                 .statusCode(303).header("Location", Matchers.endsWith("/tickets/new"));
         RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/ticket-workbench/bootstrap").then()
@@ -310,10 +356,21 @@ class SupportAccessTest extends AccessTestSupport {
         Attachment attachment = attachments.get(0);
         Assertions.assertEquals("note.txt", attachment.name);
         Assertions.assertEquals("text/plain", attachment.mimeType);
-        Assertions.assertEquals(attachmentData.length, attachment.data.length);
+        Assertions.assertEquals(attachmentData.length, attachment.sizeBytes());
+        Assertions.assertArrayEquals(attachmentData, AttachmentStorage.readAllBytes(attachment));
         Attachment secondAttachment = attachments.get(1);
         Assertions.assertEquals("note-2.txt", secondAttachment.name);
-        Assertions.assertEquals(attachmentDataTwo.length, secondAttachment.data.length);
+        Assertions.assertEquals(attachmentDataTwo.length, secondAttachment.sizeBytes());
+        Assertions.assertArrayEquals(attachmentDataTwo, AttachmentStorage.readAllBytes(secondAttachment));
+        String etag = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie)
+                .get("/attachments/" + attachment.id + "/data").then().statusCode(200).header("Accept-Ranges", "bytes")
+                .body(Matchers.equalTo(new String(attachmentData, StandardCharsets.UTF_8))).extract().header("ETag");
+        Assertions.assertEquals("\"" + attachment.sha256 + "\"", etag);
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).header("Range", "bytes=0-9")
+                .get("/attachments/" + attachment.id + "/data").then().statusCode(206)
+                .header("Content-Range", "bytes 0-9/" + attachmentData.length).body(Matchers.equalTo("Attachment"));
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).header("If-None-Match", etag)
+                .get("/attachments/" + attachment.id + "/data").then().statusCode(304);
 
         RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/support/tickets/" + ticket.id).then()
                 .statusCode(200)
@@ -349,6 +406,26 @@ class SupportAccessTest extends AccessTestSupport {
         Assertions.assertNull(refreshedTicket(ticket.id));
     }
 
+    @Test
+    void supportTicketSuggestionsStayInScope() {
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        ensureUser("support2", "support2@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support2");
+        Long companyId = ensureCompany("Support Suggest Co");
+        Ticket ticket = ensureTicket(companyId);
+        String cookie = login("support1", "support1");
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("q", ticket.name)
+                .get("/api/support/tickets/suggest").then().statusCode(200)
+                .body("items.name", Matchers.hasItem(ticket.name))
+                .body("items.detailPath", Matchers.hasItem("/support/tickets/" + ticket.id));
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("q", ticket.name)
+                .queryParam("exclude", ticket.id).get("/api/support/tickets/suggest").then().statusCode(200)
+                .body("items.name", Matchers.not(Matchers.hasItem(ticket.name)));
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, login("support2", "support2")).queryParam("q", ticket.name)
+                .get("/api/support/tickets/suggest").then().statusCode(200)
+                .body("items.name", Matchers.not(Matchers.hasItem(ticket.name)));
+    }
+
     @Test
     void supportTicketSearchMatchesTicketNumberAndMessages() {
         ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
@@ -370,6 +447,83 @@ class SupportAccessTest extends AccessTestSupport {
                 .get("/api/support/tickets").then().statusCode(200).body("items.size()", Matchers.equalTo(0));
     }
 
+    @Test
+    void supportTicketListCursorMatchesOffsetPages() {
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        Long companyId = ensureCompany("Support Cursor Co");
+        ensureTicket(companyId);
+        ensureTicket(companyId);
+        ensureTicket(companyId);
+        String cookie = login("support1", "support1");
+
+        JsonPath firstPage = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("sort", "name")
+                .queryParam("pageSize", 2).get("/api/support/tickets").then().statusCode(200).extract().jsonPath();
+        String cursor = firstPage.getString("nextCursor");
+        Assertions.assertNotNull(cursor);
+        List<String> offsetNames = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("sort", "name")
+                .queryParam("pageSize", 2).queryParam("page", 2).get("/api/support/tickets").then().statusCode(200)
+                .extract().jsonPath().getList("items.name");
+        List<String> cursorNames = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("sort", "name")
+                .queryParam("pageSize", 2).queryParam("cursor", cursor).get("/api/support/tickets").then()
+                .statusCode(200).extract().jsonPath().getList("items.name");
+        Assertions.assertEquals(offsetNames, cursorNames);
+        Assertions.assertTrue(Collections.disjoint(firstPage.getList("items.name"), cursorNames));
+    }
+
+    @Test
+    void supportTicketListCursorPagesThroughNullSortValues() {
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        Long companyId = ensureCompany("Support Null Cursor Co");
+        ensureUnassignedOpenTicket(companyId);
+        ensureUnassignedOpenTicket(companyId);
+        ensureUnassignedOpenTicket(companyId);
+        String cookie = login("support1", "support1");
+
+        for (String sort : new String[] { null, "affects" }) {
+            JsonPath firstPage = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("view", "open")
+                    .queryParam("sort", sort).queryParam("pageSize", 2).get("/api/support/tickets").then()
+                    .statusCode(200).extract().jsonPath();
+            String cursor = firstPage.getString("nextCursor");
+            Assertions.assertNotNull(cursor);
+            List<String> offsetNames = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie)
+                    .queryParam("view", "open").queryParam("sort", sort).queryParam("pageSize", 2)
+                    .queryParam("page", 2).get("/api/support/tickets").then().statusCode(200).extract().jsonPath()
+                    .getList("items.name");
+            List<String> cursorNames = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie)
+                    .queryParam("view", "open").queryParam("sort", sort).queryParam("pageSize", 2)
+                    .queryParam("cursor", cursor).get("/api/support/tickets").then().statusCode(200).extract()
+                    .jsonPath().getList("items.name");
+            Assertions.assertEquals(offsetNames, cursorNames);
+            Assertions.assertTrue(Collections.disjoint(firstPage.getList("items.name"), cursorNames));
+        }
+    }
+
+    @Test
+    void ticketActivityTracksLatestVisibleMessagesAndAssignee() {
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        Long companyId = ensureCompany("Support Activity Co");
+        Ticket ticket = ensureUnassignedOpenTicket(companyId);
+        java.time.LocalDateTime publicDate = java.time.LocalDateTime.now().minusHours(2).withNano(0);
+        java.time.LocalDateTime privateDate = publicDate.plusHours(1);
+        ensureTimedMessage(ticket, "activity-public", "user@mnemosyne-systems.ai", publicDate);
+        ensureTimedMessage(ticket, "activity-private", "support1@mnemosyne-systems.ai", privateDate, false);
+
+        TicketActivity activity = TicketActivity.findById(ticket.id);
+        Assertions.assertNotNull(activity);
+        Assertions.assertEquals(publicDate, activity.lastPublicDate);
+        Assertions.assertFalse(activity.lastPublicFromSupport);
+        Assertions.assertEquals(privateDate, activity.lastSupportTamDate);
+        Assertions.assertTrue(activity.lastSupportTamFromSupport);
+        Assertions.assertEquals(publicDate, activity.lastUserSuperuserDate);
+        Assertions.assertNull(activity.assignee);
+
+        String cookie = login("support1", "support1");
+        RestAssured.given().redirects().follow(false).cookie(AuthHelper.AUTH_COOKIE, cookie)
+                .post("/support/tickets/" + ticket.id + "/assign").then().statusCode(303);
+        TicketActivity assigned = TicketActivity.findById(ticket.id);
+        Assertions.assertEquals("support1@mnemosyne-systems.ai", assigned.assignee.email);
+    }
+
     @Test
     void supportTicketDetailUpdatesFieldsAndAddsRepliesWithAndWithoutAttachments() {
         ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
@@ -438,7 +592,7 @@ class SupportAccessTest extends AccessTestSupport {
         Assertions.assertEquals(1, replyAttachments.size());
         Assertions.assertEquals("detail-reply.txt", replyAttachments.get(0).name);
         Assertions.assertEquals("text/plain", replyAttachments.get(0).mimeType);
-        Assertions.assertEquals(replyAttachmentData.length, replyAttachments.get(0).data.length);
+        Assertions.assertArrayEquals(replyAttachmentData, AttachmentStorage.readAllBytes(replyAttachments.get(0)));
 
         RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/support/tickets/" + ticket.id).then()
                 .statusCode(200).body("messages.body", Matchers.hasItems(plainReplyBody, attachmentReplyBody))
@@ -675,6 +829,173 @@ class SupportAccessTest extends AccessTestSupport {
                 .body("inactivityWarningSeconds", Matchers.equalTo(AuthHelper.WARNING_LEAD_SECONDS));
     }
 
+    @Test
+    void expiredSessionsAreSweptFromTheSessionStore() {
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        String cookie = login("support1", "support1");
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/app/session").then().statusCode(200)
+                .body("authenticated", Matchers.equalTo(true));
+
+        AuthHelper.setLastActivityForTesting(cookie,
+                System.currentTimeMillis() - AuthHelper.INACTIVITY_TIMEOUT_MILLIS - 1000);
+        Assertions.assertTrue(AuthHelper.evictExpiredSessions() > 0);
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/app/session").then().statusCode(200)
+                .body("authenticated", Matchers.equalTo(false));
+    }
+
+    @Test
+    void databaseSessionStoreBuffersActivityUntilFlush() {
+        createSessionTable();
+        DatabaseSessionStore store = new DatabaseSessionStore();
+        long createdAt = System.currentTimeMillis() - 10_000;
+        store.create(4242L, "token-a", createdAt);
+        Assertions.assertEquals(createdAt, store.lastActivity(4242L, "token-a"));
+        Assertions.assertNull(store.lastActivity(4242L, "token-b"));
+
+        store.touch(4242L, "token-a", createdAt + 5_000);
+        Assertions.assertEquals(createdAt, storedLastActivity(4242L));
+        Assertions.assertEquals(createdAt + 5_000, store.lastActivity(4242L, "token-a"));
+        store.flush();
+        Assertions.assertEquals(createdAt + 5_000, storedLastActivity(4242L));
+
+        Assertions.assertEquals(1, store.evictExpired(createdAt + 6_000));
+        Assertions.assertNull(store.lastActivity(4242L, "token-a"));
+    }
+
+    @Test
+    void schemaMigrationsDeclareEachIndexOnceInVersionOrder() {
+        List<SchemaMigrations.Migration> migrations = SchemaMigrations.migrations();
+        for (int index = 0; index < migrations.size(); index++) {
+            Assertions.assertEquals(index + 1, migrations.get(index).version());
+            Assertions.assertFalse(
+                    migrations.get(index).indexes().isEmpty() && migrations.get(index).statements().isEmpty());
+        }
+        List<String> names = SchemaMigrations.indexes().stream().map(SchemaMigrations.SchemaIndex::name).toList();
+        Assertions.assertEquals(names.size(), new HashSet<>(names).size());
+        Assertions.assertTrue(names.containsAll(List.of("idx_messages_ticket_date", "idx_messages_body_fts",
+                "idx_tickets_fts", "idx_articles_fts", "idx_tickets_sla_deadline")));
+        for (SchemaMigrations.SchemaIndex index : SchemaMigrations.indexes()) {
+            Assertions.assertTrue(index.createStatement().startsWith("create index concurrently if not exists "));
+        }
+    }
+
+    @Test
+    void schemaMigrationsBuildTheDeclaredIndexes() throws Exception {
+        Assumptions.assumeTrue("postgresql".equalsIgnoreCase(
+                ConfigProvider.getConfig().getOptionalValue("quarkus.datasource.db-kind", String.class).orElse("")));
+        Assertions.assertEquals(SchemaMigrations.latestVersion(), awaitSchemaMigrations());
+        Assertions.assertEquals(List.of(), schemaMigrationInitializer.missingIndexes());
+    }
+
+    @Test
+    void reportRollupsKeepOneRowPerKey() throws Exception {
+        Assumptions.assumeTrue("postgresql".equalsIgnoreCase(
+                ConfigProvider.getConfig().getOptionalValue("quarkus.datasource.db-kind", String.class).orElse("")));
+        Assertions.assertEquals(SchemaMigrations.latestVersion(), awaitSchemaMigrations());
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        ensureUser("tam1", "tam1@mnemosyne-systems.ai", User.TYPE_TAM, "tam1");
+        Long companyId = ensureCompany("Rollup Key Co");
+        LocalDateTime opened = LocalDate.now().minusDays(2).atTime(10, 0);
+        for (int index = 0; index < 2; index++) {
+            ensureTimedMessage(ensureTicket(companyId), "Rollup key question " + index, "user@mnemosyne-systems.ai",
+                    opened);
+        }
+
+        List<ReportDailyRollup> rollups = QuarkusTransaction.requiringNew()
+                .call(() -> ReportDailyRollup.<ReportDailyRollup> list("companyId", companyId));
+        Assertions.assertEquals(1, rollups.size());
+        Assertions.assertEquals(2, rollups.get(0).ticketCount);
+        Assertions.assertNull(rollups.get(0).categoryId);
+    }
+
+    int awaitSchemaMigrations() throws InterruptedException {
+        int version = appliedSchemaVersion();
+        for (int attempt = 0; attempt < 300 && version < SchemaMigrations.latestVersion(); attempt++) {
+            Thread.sleep(100);
+            version = appliedSchemaVersion();
+        }
+        return version;
+    }
+
+    @Test
+    void entityIdsAreAllocatedInConsecutiveBlocks() {
+        List<Long> ids = persistCountries("Block Country", 120);
+        Assertions.assertEquals(120, new HashSet<>(ids).size());
+        for (int index = 1; index < ids.size(); index++) {
+            Assertions.assertEquals(ids.get(index - 1) + 1, ids.get(index));
+        }
+        Assertions.assertTrue(persistCountries("Later Block Country", 1).get(0) > ids.get(ids.size() - 1));
+    }
+
+    @Transactional
+    List<Long> persistCountries(String prefix, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            Country country = new Country();
+            country.name = prefix + " " + index;
+            country.code = "ZZ";
+            country.persist();
+            ids.add(country.id);
+        }
+        return ids;
+    }
+
+    int appliedSchemaVersion() {
+        try {
+            return QuarkusTransaction.requiringNew()
+                    .call(() -> ((Number) Panache.getEntityManager()
+                            .createNativeQuery("select coalesce(max(version), 0) from schema_migrations")
+                            .getSingleResult()).intValue());
+        } catch (RuntimeException ex) {
+            return 0;
+        }
+    }
+
+    @Transactional
+    void createSessionTable() {
+        for (String statement : DatabaseSessionStore.schemaStatements()) {
+            Panache.getEntityManager().createNativeQuery(statement).executeUpdate();
+        }
+    }
+
+    @Transactional
+    Long storedLastActivity(long userId) {
+        List<?> rows = Panache.getEntityManager()
+                .createNativeQuery("select last_activity_at from auth_sessions where user_id = ?1")
+                .setParameter(1, userId).getResultList();
+        return rows.isEmpty() ? null : ((Number) rows.get(0)).longValue();
+    }
+
+    @Test
+    void cachedPrincipalFollowsUserAndMembershipChanges() {
+        ensureUser("principal-tam", "principal-tam@mnemosyne-systems.ai", User.TYPE_TAM, "principal-tam");
+        Long companyId = ensureCompany("Principal Cache Co");
+        Long userId = userIdByEmail("principal-tam@mnemosyne-systems.ai");
+        AuthPrincipal principal = PrincipalCache.get(userId);
+        Assertions.assertTrue(principal.isTam());
+        Assertions.assertFalse(principal.memberOf(companyId));
+        Assertions.assertSame(principal, PrincipalCache.get(userId));
+
+        addCompanyMember(companyId, userId);
+        Assertions.assertTrue(PrincipalCache.get(userId).memberOf(companyId));
+
+        ensureUser("principal-tam", "principal-tam@mnemosyne-systems.ai", User.TYPE_SUPERUSER, "principal-tam");
+        Assertions.assertTrue(PrincipalCache.get(userId).isSuperuser());
+    }
+
+    @Transactional
+    Long userIdByEmail(String email) {
+        return User.<User> find("email", email).firstResult().id;
+    }
+
+    @Transactional
+    void addCompanyMember(Long companyId, Long userId) {
+        Company company = Company.findById(companyId);
+        company.users.add(User.findById(userId));
+    }
+
     @Test
     void reactLoginRedirectsSupportToSupportTickets() {
         ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
@@ -890,6 +1211,66 @@ class SupportAccessTest extends AccessTestSupport {
         Assertions.assertEquals("text/plain", attachments.get(0).mimeType);
     }
 
+    @Test
+    void largeMailboxMessageIsSpooledToDiskAndKeptWithinTheMailLimits() throws Exception {
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        Long companyId = ensureCompany("Mailbox Limits Co");
+        ensureCompanyUsers(companyId, "user@mnemosyne-systems.ai");
+        ensureTicket(companyId);
+        String marker = "Spooled mailbox " + System.nanoTime();
+
+        MimeMessage source = new MimeMessage(Session.getInstance(new Properties()));
+        source.setFrom(new InternetAddress("user@mnemosyne-systems.ai"));
+        source.setSubject("Log bundle attached");
+        MimeBodyPart text = new MimeBodyPart();
+        text.setText(marker + "\n" + "x".repeat(100 * 1024), StandardCharsets.UTF_8.name());
+        MimeBodyPart notes = new MimeBodyPart();
+        notes.setFileName("notes.txt");
+        notes.setDisposition(MimeBodyPart.ATTACHMENT);
+        notes.setContent("small attachment", "text/plain; charset=UTF-8");
+        MimeBodyPart bundle = new MimeBodyPart();
+        bundle.setFileName("bundle.log");
+        bundle.setDisposition(MimeBodyPart.ATTACHMENT);
+        bundle.setDataHandler(
+                new DataHandler(new ByteArrayDataSource(new byte[2 * 1024 * 1024], "application/octet-stream")));
+        MimeMultipart multipart = new MimeMultipart();
+        multipart.addBodyPart(text);
+        multipart.addBodyPart(notes);
+        multipart.addBodyPart(bundle);
+        source.setContent(multipart);
+        source.saveChanges();
+
+        List<Path> before = spooledMailFiles();
+        MimeMessage copy = SpooledMimeMessage.copy(source, 1024);
+        Assertions.assertInstanceOf(SpooledMimeMessage.class, copy);
+        List<Path> spooled = spooledMailFiles().stream().filter(path -> !before.contains(path)).toList();
+        Assertions.assertEquals(1, spooled.size());
+        try {
+            mailboxPollingService.processMailboxMessage(copy);
+        } finally {
+            SpooledMimeMessage.release(List.of(copy));
+        }
+
+        Message saved = findMessageStartingWith(marker);
+        Assertions.assertNotNull(saved);
+        Assertions.assertTrue(saved.body.contains("[Message text truncated at 65536 bytes]"));
+        Assertions.assertTrue(saved.body.endsWith("limited to 1 MB: bundle.log]"));
+        List<Attachment> attachments = Attachment.find("message = ?1", saved).list();
+        Assertions.assertEquals(List.of("notes.txt"), attachments.stream().map(attachment -> attachment.name).toList());
+        Assertions.assertTrue(spooled.stream().noneMatch(Files::exists));
+    }
+
+    private List<Path> spooledMailFiles() throws Exception {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(path -> path.getFileName().toString().startsWith("billetsys-mail-")).toList();
+        }
+    }
+
+    private Message findMessageStartingWith(String prefix) {
+        Panache.getEntityManager().clear();
+        return Message.find("body like ?1", prefix + "%").firstResult();
+    }
+
     @Test
     void computeEffectiveStatusUsesSupportAssignmentsAndOpenFallback() {
         Ticket ticket = new Ticket();
@@ -940,4 +1321,230 @@ class SupportAccessTest extends AccessTestSupport {
                 .body("redirectTo", Matchers.equalTo("/support/tickets/" + createdTicket.id));
     }
 
+    @Test
+    void crossReferencesAreResolvedFromPreloadedTargets() {
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        ensureUser("tam1", "tam1@mnemosyne-systems.ai", User.TYPE_TAM, "tam1");
+        Long companyId = ensureCompany("Cross Reference Co");
+        Ticket ticket = ensureTicket(companyId);
+        Ticket target = ensureTicket(companyId);
+        Article article = ensureArticle("Cross reference guide", "guide", "Guide body");
+        String cookie = login("support1", "support1");
+        String body = "See #[" + target.id + "], #[" + target.id + "], #[" + ticket.id + "], #[999999] and $["
+                + article.id + "] " + System.nanoTime();
+
+        RestAssured.given().redirects().follow(false).cookie(AuthHelper.AUTH_COOKIE, cookie).multiPart("body", body)
+                .post("/support/tickets/" + ticket.id + "/messages").then().statusCode(303);
+
+        Message message = Message.find("ticket = ?1 and body = ?2", ticket, body).firstResult();
+        Assertions.assertEquals(List.of("article:" + article.id, "ticket:" + target.id), referenceKeys(message.id));
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/support/tickets/" + ticket.id).then()
+                .statusCode(200).body("messages.body",
+                        Matchers.hasItem(Matchers.allOf(
+                                Matchers.containsString("[#" + target.name + "](/support/tickets/" + target.id + ")"),
+                                Matchers.containsString("[Cross reference guide](/articles/" + article.id + ")"),
+                                Matchers.containsString("#[999999]"))));
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie)
+                .get("/api/support/tickets/" + ticket.id + "/references").then().statusCode(200)
+                .body("references.ticketId", Matchers.contains(target.id.intValue()))
+                .body("articles.articleId", Matchers.contains(article.id.intValue()));
+
+        editMessageBody(message.id, "Only $[" + article.id + "] now");
+        Assertions.assertEquals(List.of("article:" + article.id), referenceKeys(message.id));
+    }
+
+    @Test
+    void renderedBodiesFollowReferencedTitleChanges() {
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        ensureUser("tam1", "tam1@mnemosyne-systems.ai", User.TYPE_TAM, "tam1");
+        Long companyId = ensureCompany("Rendered Body Co");
+        Ticket ticket = ensureTicket(companyId);
+        Article article = ensureArticle("Rendered body guide", "guide", "Guide body");
+        String cookie = login("support1", "support1");
+        String body = "Read $[" + article.id + "] " + System.nanoTime();
+        RestAssured.given().redirects().follow(false).cookie(AuthHelper.AUTH_COOKIE, cookie).multiPart("body", body)
+                .post("/support/tickets/" + ticket.id + "/messages").then().statusCode(303);
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/support/tickets/" + ticket.id).then()
+                .statusCode(200).body("messages.body", Matchers
+                        .hasItem(Matchers.containsString("[Rendered body guide](/articles/" + article.id + ")")));
+
+        renameArticle(article.id, "Rendered body handbook");
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/support/tickets/" + ticket.id).then()
+                .statusCode(200)
+                .body("messages.body",
+                        Matchers.hasItem(
+                                Matchers.containsString("[Rendered body handbook](/articles/" + article.id + ")")))
+                .body("messages.body", Matchers.not(Matchers.hasItem(Matchers.containsString("Rendered body guide"))));
+    }
+
+    @Test
+    void slaDeadlineFollowsLevelBusinessHoursAndBreachesOnTime() throws Exception {
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        ensureUser("tam1", "tam1@mnemosyne-systems.ai", User.TYPE_TAM, "tam1");
+        Long companyId = ensureCompany("SLA Calendar Co");
+        ensureCompanyUsers(companyId, "user@mnemosyne-systems.ai", "tam1@mnemosyne-systems.ai");
+
+        Level businessHours = ensureBusinessHoursLevel("Business Hours SLA", 120, "America/New_York");
+        Ticket calendarTicket = ensureTicket(companyId);
+        setTicketSupportLevel(calendarTicket.id, businessHours.id);
+        ZoneId levelZone = ZoneId.of("America/New_York");
+        ZonedDateTime fridayAfternoon = ZonedDateTime.now(levelZone).minusWeeks(1)
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.FRIDAY)).withHour(16).withMinute(30)
+                .truncatedTo(ChronoUnit.MINUTES);
+        ensureTimedMessage(calendarTicket, "Late Friday request", "user@mnemosyne-systems.ai",
+                fridayAfternoon.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime());
+
+        Ticket scheduled = refreshedTicket(calendarTicket.id);
+        ZonedDateTime mondayMorning = fridayAfternoon.plusDays(3).withHour(10).withMinute(30);
+        Assertions.assertEquals(mondayMorning.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime(),
+                scheduled.slaDeadline);
+        Assertions.assertTrue(scheduled.slaBreached);
+
+        setTicketStatus(calendarTicket.id, "Waiting for External Feedback");
+        Assertions.assertNull(refreshedTicket(calendarTicket.id).slaDeadline);
+
+        Level oneMinute = ensureLevel("One Minute SLA", "Immediate response", 1, "Red");
+        Ticket timedTicket = ensureTicket(companyId);
+        setTicketSupportLevel(timedTicket.id, oneMinute.id);
+        ensureTimedMessage(timedTicket, "Request close to its deadline", "user@mnemosyne-systems.ai",
+                LocalDateTime.now().minusSeconds(55));
+        Assertions.assertFalse(refreshedTicket(timedTicket.id).slaBreached);
+
+        boolean breached = false;
+        for (int attempt = 0; attempt < 150 && !breached; attempt++) {
+            Thread.sleep(100);
+            breached = refreshedTicket(timedTicket.id).slaBreached;
+        }
+        Assertions.assertTrue(breached);
+        Assertions.assertFalse(refreshedTicket(timedTicket.id).slaDeadline.isAfter(LocalDateTime.now()));
+        Assertions.assertTrue(mailbox.getMailsSentTo("support1@mnemosyne-systems.ai").stream()
+                .anyMatch(mail -> mail.getSubject().contains("[" + timedTicket.name + "]")
+                        && mail.getText().contains("Type: SLA breach")));
+        Assertions.assertTrue(mailbox.getMailsSentTo("user@mnemosyne-systems.ai").stream()
+                .noneMatch(mail -> mail.getText().contains("Type: SLA breach")));
+
+        String cookie = login("support1", "support1");
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("sort", "sla").queryParam("pageSize", 100)
+                .get("/api/support/tickets").then().statusCode(200)
+                .body("items.find { it.id == " + timedTicket.id + " }.slaColor", Matchers.equalTo("Red"));
+    }
+
+    @Test
+    void ticketCountsFollowTicketAndAssignmentWrites() {
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        ensureUser("tam1", "tam1@mnemosyne-systems.ai", User.TYPE_TAM, "tam1");
+        ensureUser("support-counts", "support-counts@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support-counts");
+        Long companyId = ensureCompany("Ticket Counts Co");
+        ensureCompanyUsers(companyId, "user@mnemosyne-systems.ai", "tam1@mnemosyne-systems.ai");
+        String cookie = login("support1", "support1");
+        String countsCookie = login("support-counts", "support-counts");
+
+        int assignedCount = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/support/tickets")
+                .then().statusCode(200).extract().path("assignedCount");
+        int otherAssignedCount = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, countsCookie)
+                .get("/api/support/tickets").then().statusCode(200).extract().path("assignedCount");
+
+        Ticket ticket = ensureTicket(companyId);
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/support/tickets").then().statusCode(200)
+                .body("assignedCount", Matchers.equalTo(assignedCount + 1));
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, countsCookie).header("X-Billetsys-Client", "react")
+                .post("/support/tickets/" + ticket.id + "/assign").then().statusCode(200);
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, countsCookie).get("/api/support/tickets").then()
+                .statusCode(200).body("assignedCount", Matchers.equalTo(otherAssignedCount + 1));
+
+        setTicketStatus(ticket.id, "Closed");
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/support/tickets").then().statusCode(200)
+                .body("assignedCount", Matchers.equalTo(assignedCount));
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, countsCookie).get("/api/support/tickets").then()
+                .statusCode(200).body("assignedCount", Matchers.equalTo(otherAssignedCount));
+    }
+
+    @Test
+    void concurrentTicketCreationsGetDistinctConsecutiveNumbers() throws Exception {
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        ensureUser("tam1", "tam1@mnemosyne-systems.ai", User.TYPE_TAM, "tam1");
+        ensureDefaultCategories();
+        Long companyId = ensureCompany("Numbering Co");
+        ensureCompanyUsers(companyId, "user@mnemosyne-systems.ai", "tam1@mnemosyne-systems.ai");
+        Ticket first = ensureTicket(companyId);
+        long firstNumber = Long.parseLong(first.name.substring(first.name.lastIndexOf('-') + 1));
+
+        int threads = 8;
+        int ticketsPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<String> names = new ArrayList<>();
+                for (int index = 0; index < ticketsPerThread; index++) {
+                    names.add(QuarkusTransaction.requiringNew().call(() -> {
+                        Ticket existing = Ticket.findById(first.id);
+                        return ticketCreationService.createTicketWithInitialMessage(
+                                new TicketCreationService.TicketCreationRequest("Concurrent numbering", "Open",
+                                        existing.company, existing.companyEntitlement, null, existing.requester,
+                                        "Concurrent numbering request", null, null, true)).name;
+                    }));
+                }
+                return names;
+            }));
+        }
+        start.countDown();
+        List<String> names = new ArrayList<>();
+        try {
+            for (Future<List<String>> future : futures) {
+                names.addAll(future.get(2, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Company company = Company.findById(companyId);
+        Set<String> expected = new HashSet<>();
+        for (long number = firstNumber + 1; number <= firstNumber + threads * ticketsPerThread; number++) {
+            expected.add(Ticket.formatName(company, number));
+        }
+        Assertions.assertEquals(threads * ticketsPerThread, new HashSet<>(names).size());
+        Assertions.assertEquals(expected, new HashSet<>(names));
+        Assertions.assertNull(company.ticketSequence);
+    }
+
+    @Transactional
+    Level ensureBusinessHoursLevel(String name, int levelValue, String timezone) {
+        Level level = ensureLevel(name, "Business hours response", levelValue, "Yellow");
+        level.fromDay = Level.DayOption.MONDAY.getCode();
+        level.toDay = Level.DayOption.FRIDAY.getCode();
+        level.fromTime = Level.HourOption.H09.getCode();
+        level.toTime = Level.HourOption.H17.getCode();
+        level.timezone = Timezone.find("name", timezone).firstResult();
+        return level;
+    }
+
+    @Transactional
+    void renameArticle(Long articleId, String title) {
+        Article article = Article.findById(articleId);
+        article.title = title;
+    }
+
+    @Transactional
+    void editMessageBody(Long messageId, String body) {
+        Message message = Message.findById(messageId);
+        message.body = body;
+        crossReferenceService.updateReferences(message, null);
+    }
+
+    @Transactional
+    List<String> referenceKeys(Long messageId) {
+        return CrossReference.<CrossReference> list("sourceMessage.id = ?1", messageId).stream()
+                .map(ref -> ref.targetType + ":" + ref.targetId).sorted().toList();
+    }
 }
@@ -8,6 +8,7 @@
 
 package ai.mnemosyne_systems.resource;
 
+import ai.mnemosyne_systems.model.Attachment;
 import ai.mnemosyne_systems.model.Category;
 import ai.mnemosyne_systems.model.Company;
 import ai.mnemosyne_systems.model.CompanyEntitlement;
@@ -21,6 +22,8 @@ import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.RestAssured;
 import jakarta.transaction.Transactional;
 import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -99,6 +102,170 @@ class TicketImportResourceTest extends AccessTestSupport {
         Assertions.assertEquals(2, importRecordCountBySourceKey(sourceKey));
     }
 
+    @Test
+    void backgroundImportReportsChunkProgressUntilCompleted() throws InterruptedException {
+        ImportFixture fixture = fixture("import-background");
+        String cookie = login("import-support", "pass");
+        String prefix = "csv-background-" + System.nanoTime() + "-";
+        StringBuilder csv = new StringBuilder("source_key,title,company,entitlement,status,initial_message\n");
+        for (int row = 1; row <= 4; row++) {
+            csv.append(prefix).append(row).append(",Background ").append(row).append(',').append(fixture.companyName())
+                    .append(',').append(fixture.entitlementName()).append(",Open,Background message ").append(row)
+                    .append('\n');
+        }
+        csv.append(prefix).append(1).append(",Background again,").append(fixture.companyName()).append(',')
+                .append(fixture.entitlementName()).append(",Open,Background duplicate\n");
+
+        Integer batchId = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType("multipart/form-data")
+                .multiPart("file", "tickets.csv", csv.toString().getBytes(StandardCharsets.UTF_8), "text/csv")
+                .multiPart("background", "true").post("/api/ticket-imports/csv").then().statusCode(202)
+                .body("bytesTotal", Matchers.greaterThan(0)).extract().path("batchId");
+
+        String status = "Running";
+        for (int attempt = 0; attempt < 100 && "Running".equals(status); attempt++) {
+            Thread.sleep(100);
+            status = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/ticket-imports/" + batchId)
+                    .then().statusCode(200).extract().path("status");
+        }
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/api/ticket-imports/" + batchId).then()
+                .statusCode(200).body("status", Matchers.equalTo("Completed")).body("rowCount", Matchers.equalTo(5))
+                .body("createdCount", Matchers.equalTo(4)).body("skippedCount", Matchers.equalTo(1))
+                .body("results[4].result", Matchers.equalTo("skipped"))
+                .body("bytesRead", Matchers.equalTo(csv.toString().getBytes(StandardCharsets.UTF_8).length));
+        Assertions.assertEquals(1, ticketCountBySourceKey(prefix + 1));
+    }
+
+    @Test
+    void ndjsonImportCreatesTicketsWithMessageThreadsAndAttachments() {
+        ImportFixture fixture = fixture("import-ndjson");
+        String cookie = login("import-support", "pass");
+        String sourceKey = "ndjson-" + System.nanoTime();
+        String attachment = Base64.getEncoder().encodeToString("trace".getBytes(StandardCharsets.UTF_8));
+        String ndjson = """
+                {"source_key":"%1$s","title":"Imported thread","company":"%2$s","entitlement":"%3$s","messages":[{"author_email":"import-user@mnemosyne-systems.ai","body":"Opening message","created_at":"2025-01-02T09:00:00","attachments":[{"name":"trace.txt","mime_type":"text/plain","data":"%4$s"}]},{"author_email":"import-support@mnemosyne-systems.ai","body":"Support reply","created_at":"2025-01-02T10:00:00"},{"author_email":"import-support@mnemosyne-systems.ai","body":"Internal note","created_at":"2025-01-02T11:00:00","public":false}]}
+
+                {"source_key":"%1$s-missing","company":"%2$s","entitlement":"%3$s","initial_message":"No title"}
+                """
+                .formatted(sourceKey, fixture.companyName(), fixture.entitlementName(), attachment);
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType("multipart/form-data")
+                .multiPart("file", "tickets.ndjson", ndjson.getBytes(StandardCharsets.UTF_8), "application/x-ndjson")
+                .post("/api/ticket-imports/ndjson").then().statusCode(200)
+                .body("sourceType", Matchers.equalTo("ndjson")).body("rowCount", Matchers.equalTo(2))
+                .body("createdCount", Matchers.equalTo(1)).body("failedCount", Matchers.equalTo(1))
+                .body("results[0].rowNumber", Matchers.equalTo(1)).body("results[1].rowNumber", Matchers.equalTo(3))
+                .body("results[1].errorMessage", Matchers.containsString("Title is required"));
+
+        Ticket ticket = importedTicket("ndjson", sourceKey);
+        Assertions.assertNotNull(ticket);
+        Assertions.assertEquals(List.of("Opening message", "Support reply", "Internal note"), messageBodies(ticket));
+        Assertions.assertEquals(List.of("trace.txt"), attachmentNames(ticket));
+    }
+
+    @Test
+    void ndjsonRowsThatFailLeaveNothingBehindAndDoNotStopTheBatch() {
+        ImportFixture fixture = fixture("import-ndjson-failures");
+        String cookie = login("import-support", "pass");
+        String sourceKey = "ndjson-failure-" + System.nanoTime();
+        String title = "Half imported thread " + sourceKey;
+        String ndjson = """
+                {"source_key":"%1$s-ok","title":"Imported","company":"%2$s","entitlement":"%3$s","initial_message":"Fine"}
+                this line is not json
+                {"source_key":"%1$s-author","title":"%4$s","company":"%2$s","entitlement":"%3$s","initial_message":"Opening","messages":[{"author_email":"nobody-%1$s@mnemosyne-systems.ai","body":"Reply"}]}
+                {"source_key":"%1$s-body","title":"%4$s","company":"%2$s","entitlement":"%3$s","initial_message":"Opening","messages":[{"body":" "}]}
+                """
+                .formatted(sourceKey, fixture.companyName(), fixture.entitlementName(), title);
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType("multipart/form-data")
+                .multiPart("file", "tickets.ndjson", ndjson.getBytes(StandardCharsets.UTF_8), "application/x-ndjson")
+                .post("/api/ticket-imports/ndjson").then().statusCode(200).body("rowCount", Matchers.equalTo(4))
+                .body("createdCount", Matchers.equalTo(1)).body("failedCount", Matchers.equalTo(3))
+                .body("results[1].errorMessage", Matchers.containsString("NDJSON line 2"))
+                .body("results[2].errorMessage", Matchers.containsString("Requester not found"))
+                .body("results[3].errorMessage", Matchers.containsString("Message body is required"));
+
+        Assertions.assertNotNull(importedTicket("ndjson", sourceKey + "-ok"));
+        Assertions.assertNull(importedTicket("ndjson", sourceKey + "-author"));
+        Assertions.assertEquals(0, ticketCountByTitle(title));
+    }
+
+    @Test
+    void mboxImportThreadsRepliesIntoTheTicketOfTheirThread() {
+        ImportFixture fixture = fixture("import-mbox");
+        String senderEmail = "import-mbox-" + System.nanoTime() + "@mnemosyne-systems.ai";
+        ensureUser("import-mbox-sender-" + System.nanoTime(), senderEmail, User.TYPE_USER, "pass");
+        ensureCompanyUsers(fixture.companyId(), senderEmail);
+        String cookie = login("import-support", "pass");
+        String thread = "thread-" + System.nanoTime();
+        String mbox = """
+                From sender@example.test Mon Jan  6 09:00:00 2025
+                Message-ID: <%1$s@example.test>
+                From: Sender <%2$s>
+                To: support@example.test
+                Subject: Printer is on fire
+                Date: Mon, 06 Jan 2025 09:00:00 +0000
+                Content-Type: text/plain; charset=UTF-8
+
+                The printer is burning.
+                >From the basement, smoke is rising.
+
+                From support@example.test Mon Jan  6 10:00:00 2025
+                Message-ID: <%1$s-reply@example.test>
+                In-Reply-To: <%1$s@example.test>
+                References: <%1$s@example.test>
+                From: import-support@mnemosyne-systems.ai
+                Subject: Re: Printer is on fire
+                Date: Mon, 06 Jan 2025 10:00:00 +0000
+                MIME-Version: 1.0
+                Content-Type: multipart/mixed; boundary="part"
+
+                --part
+                Content-Type: text/plain; charset=UTF-8
+
+                Please unplug it.
+                --part
+                Content-Type: text/plain; name="checklist.txt"
+                Content-Disposition: attachment; filename="checklist.txt"
+
+                Unplug, then call facilities.
+                --part--
+                """.formatted(thread, senderEmail);
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType("multipart/form-data")
+                .multiPart("file", "archive.mbox", mbox.getBytes(StandardCharsets.UTF_8), "application/mbox")
+                .post("/api/ticket-imports/mbox").then().statusCode(200).body("rowCount", Matchers.equalTo(2))
+                .body("createdCount", Matchers.equalTo(1)).body("appendedCount", Matchers.equalTo(1))
+                .body("results[1].result", Matchers.equalTo("appended"));
+
+        Ticket ticket = importedTicket("mbox", thread + "@example.test");
+        Assertions.assertNotNull(ticket);
+        Assertions.assertEquals("Printer is on fire", ticket.title);
+        Assertions.assertEquals(fixture.companyName(), ticket.company.name);
+        Assertions.assertEquals(ticket.id, importedTicket("mbox", thread + "-reply@example.test").id);
+        List<String> bodies = messageBodies(ticket);
+        Assertions.assertEquals(2, bodies.size());
+        Assertions.assertTrue(bodies.get(0).contains("\nFrom the basement"));
+        Assertions.assertEquals("Please unplug it.", bodies.get(1).trim());
+        Assertions.assertEquals(List.of("checklist.txt"), attachmentNames(ticket));
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType("multipart/form-data")
+                .multiPart("file", "archive.mbox", mbox.getBytes(StandardCharsets.UTF_8), "application/mbox")
+                .post("/api/ticket-imports/mbox").then().statusCode(200).body("skippedCount", Matchers.equalTo(2));
+        Assertions.assertEquals(2, messageBodies(ticket).size());
+    }
+
+    @Test
+    void mboxWithoutFromSeparatorIsRejected() {
+        ensureUser("import-support", "import-support@mnemosyne-systems.ai", User.TYPE_SUPPORT, "pass");
+        String cookie = login("import-support", "pass");
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).contentType("multipart/form-data")
+                .multiPart("file", "archive.mbox", "Subject: hi\n\nbody\n".getBytes(StandardCharsets.UTF_8),
+                        "application/mbox")
+                .post("/api/ticket-imports/mbox").then().statusCode(400).body(Matchers.containsString("From line"));
+    }
+
     @Test
     void invalidRowsReturnRowLevelErrors() {
         fixture("import-invalid");
@@ -173,16 +340,38 @@ class TicketImportResourceTest extends AccessTestSupport {
         CompanyEntitlement companyEntitlement = ensureCompanyEntitlement(company, entitlement,
                 ensureLevel("Normal Import " + suffix, "Normal import level", 60, "White"));
         Assertions.assertNotNull(companyEntitlement);
-        return new ImportFixture(company.name, entitlement.name);
+        return new ImportFixture(company.id, company.name, entitlement.name);
     }
 
     @Transactional
     Ticket importedTicket(String sourceKey) {
-        TicketImportRecord record = TicketImportRecord.find("sourceSystem = ?1 and sourceKey = ?2", "csv", sourceKey)
-                .firstResult();
+        return importedTicket("csv", sourceKey);
+    }
+
+    @Transactional
+    Ticket importedTicket(String sourceSystem, String sourceKey) {
+        TicketImportRecord record = TicketImportRecord
+                .find("sourceSystem = ?1 and sourceKey = ?2 order by id", sourceSystem, sourceKey).firstResult();
         return record == null ? null : record.ticket;
     }
 
+    @Transactional
+    List<String> messageBodies(Ticket ticket) {
+        return Message.<Message> find("ticket = ?1 order by date, id", ticket).list().stream()
+                .map(message -> message.body).toList();
+    }
+
+    @Transactional
+    List<String> attachmentNames(Ticket ticket) {
+        return Attachment.<Attachment> find("message.ticket = ?1 order by id", ticket).list().stream()
+                .map(attachment -> attachment.name).toList();
+    }
+
+    @Transactional
+    long ticketCountByTitle(String title) {
+        return Ticket.count("title", title);
+    }
+
     @Transactional
     long ticketCountBySourceKey(String sourceKey) {
         return TicketImportRecord.count("sourceSystem = ?1 and sourceKey = ?2 and result = ?3", "csv", sourceKey,
@@ -194,6 +383,6 @@ class TicketImportResourceTest extends AccessTestSupport {
         return TicketImportRecord.count("sourceSystem = ?1 and sourceKey = ?2", "csv", sourceKey);
     }
 
-    record ImportFixture(String companyName, String entitlementName) {
+    record ImportFixture(Long companyId, String companyName, String entitlementName) {
     }
 }
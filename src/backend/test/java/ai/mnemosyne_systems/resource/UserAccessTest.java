@@ -205,6 +205,28 @@ class UserAccessTest extends AccessTestSupport {
                 .get("/api/user/tickets").then().statusCode(200).body("items.size()", Matchers.equalTo(0));
     }
 
+    @Test
+    void tamTicketSearchIsScopedToTheViewersTickets() {
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        ensureUser("support1", "support1@mnemosyne-systems.ai", User.TYPE_SUPPORT, "support1");
+        ensureUser("tam1", "tam1@mnemosyne-systems.ai", User.TYPE_TAM, "tam1");
+        ensureUser("search-tam", "search-tam@mnemosyne-systems.ai", User.TYPE_TAM, "search-tam");
+        Long companyId = ensureCompany("Scoped Search Co");
+        Long otherCompanyId = ensureCompany("Other Scoped Search Co");
+        ensureCompanyUsers(companyId, "search-tam@mnemosyne-systems.ai");
+        String body = "scoped-search-" + System.nanoTime();
+        Ticket ticket = ensureTicket(companyId);
+        ensureMessageWithBody(ticket, body);
+        for (int index = 0; index < 3; index++) {
+            ensureMessageWithBody(ensureTicket(otherCompanyId), body);
+        }
+        String cookie = login("search-tam", "search-tam");
+
+        RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).queryParam("q", body).queryParam("sort", "name")
+                .get("/api/user/tickets").then().statusCode(200).body("totalItems", Matchers.equalTo(1))
+                .body("items.name", Matchers.contains(ticket.name));
+    }
+
     @Test
     void reactLoginRedirectsUsersToUserTickets() {
         ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
@@ -247,6 +269,34 @@ class UserAccessTest extends AccessTestSupport {
         }
     }
 
+    @Test
+    void userTicketPdfExportCapsEmbeddedPages() throws Exception {
+        ensureUser("user", "user@mnemosyne-systems.ai", User.TYPE_USER, "user");
+        ensureDefaultCategories();
+        Long companyId = ensureCompany("PDF Limits Co");
+        ensureCompanyUsers(companyId, "user@mnemosyne-systems.ai");
+        Ticket ticket = ensureTicket(companyId);
+        Message message = ensureMessageWithBody(ticket, "Export with a long attachment");
+        ensureAttachment(message, "manual.pdf", "application/pdf", multiPagePdfBytes(60));
+        ensureAttachment(message, "photo.png", "image/png", largePngBytes(2400));
+
+        String cookie = login("user", "user");
+        byte[] pdfBytes = RestAssured.given().cookie(AuthHelper.AUTH_COOKIE, cookie).get("/tickets/export/" + ticket.id)
+                .then().statusCode(200).contentType("application/pdf").extract().asByteArray();
+
+        try (PdfReader reader = new PdfReader(pdfBytes)) {
+            PdfTextExtractor extractor = new PdfTextExtractor(reader);
+            StringBuilder allText = new StringBuilder();
+            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                allText.append(extractor.getTextFromPage(page));
+            }
+            String exportText = allText.toString();
+            Assertions.assertTrue(exportText.contains("manual.pdf"));
+            Assertions.assertTrue(exportText.contains("10 more page(s) not included in this export."));
+            Assertions.assertTrue(exportText.contains("photo.png"));
+        }
+    }
+
     @Test
     void reactArticlesApiRequiresLogin() {
         RestAssured.given().get("/api/articles").then().statusCode(401);
@@ -263,6 +313,30 @@ class UserAccessTest extends AccessTestSupport {
         }
     }
 
+    private byte[] multiPagePdfBytes(int pages) throws Exception {
+        try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            Document document = new Document();
+            PdfWriter.getInstance(document, output);
+            document.open();
+            for (int page = 1; page <= pages; page++) {
+                if (page > 1) {
+                    document.newPage();
+                }
+                document.add(new Paragraph("Manual page " + page));
+            }
+            document.close();
+            return output.toByteArray();
+        }
+    }
+
+    private byte[] largePngBytes(int size) throws IOException {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "png", output);
+            return output.toByteArray();
+        }
+    }
+
     private byte[] smallPngBytes() throws IOException {
         BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB);
         image.setRGB(0, 0, 0xCC0000);
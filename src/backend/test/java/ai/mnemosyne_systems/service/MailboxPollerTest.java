@@ -0,0 +1,344 @@
+/*
+ * Eclipse Public License - v 2.0
+ *
+ *   THE ACCOMPANYING PROGRAM IS PROVIDED UNDER THE TERMS OF THIS ECLIPSE
+ *   PUBLIC LICENSE ("AGREEMENT"). ANY USE, REPRODUCTION OR DISTRIBUTION
+ *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
+ */
+
+package ai.mnemosyne_systems.service;
+
+import ai.mnemosyne_systems.model.MailboxCheckpoint;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.mail.Flags;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.UIDFolder;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+class MailboxPollerTest {
+
+    @Test
+    void messagesAreProcessedOnWorkersInSenderOrder() throws Exception {
+        Map<String, List<String>> handled = new ConcurrentHashMap<>();
+        MailboxPoller poller = new MailboxPoller(settings("workers-" + System.nanoTime(), 2),
+                (message, routing) -> handled
+                        .computeIfAbsent(message.getFrom()[0].toString(), key -> new CopyOnWriteArrayList<>())
+                        .add(message.getSubject()));
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            messages.add(text("worker-a@mnemosyne-systems.ai", "A " + i));
+            messages.add(text("worker-b@mnemosyne-systems.ai", "B " + i));
+        }
+        messages.add(null);
+
+        boolean[] results;
+        try {
+            results = poller.processMessages(messages);
+        } finally {
+            poller.close();
+        }
+
+        Assertions.assertArrayEquals(new boolean[] { true, true, true, true, true, true, false }, results);
+        Assertions.assertEquals(List.of("A 0", "A 1", "A 2"), handled.get("worker-a@mnemosyne-systems.ai"));
+        Assertions.assertEquals(List.of("B 0", "B 1", "B 2"), handled.get("worker-b@mnemosyne-systems.ai"));
+    }
+
+    @Test
+    void uidCheckpointOnlyPicksUpNewMessages() throws Exception {
+        List<String> handled = new CopyOnWriteArrayList<>();
+        MailboxPoller.Settings settings = settings("uid-checkpoint-" + System.nanoTime(), 1);
+        MailboxPoller poller = new MailboxPoller(settings, (message, routing) -> handled.add(message.getSubject()));
+        FakeUidFolder folder = new FakeUidFolder(7);
+        folder.add(1, text("uid@mnemosyne-systems.ai", "First"));
+        folder.add(2, text("uid@mnemosyne-systems.ai", "Second"));
+
+        try {
+            Assertions.assertEquals(2, poller.pollByUid(folder, folder, false).processed());
+            folder.add(3, text("uid@mnemosyne-systems.ai", "Third"));
+            Assertions.assertEquals(1, poller.pollByUid(folder, folder, false).processed());
+            // The range after the last UID still returns the last message, which must not be processed again.
+            Assertions.assertEquals(0, poller.pollByUid(folder, folder, false).processed());
+        } finally {
+            poller.close();
+        }
+
+        Assertions.assertEquals(List.of("First", "Second", "Third"), handled);
+        MailboxCheckpoint checkpoint = checkpoint(settings);
+        Assertions.assertEquals(7, checkpoint.uidValidity);
+        Assertions.assertEquals(3, checkpoint.lastUid);
+        Assertions.assertTrue(checkpoint.retries().isEmpty());
+    }
+
+    @Test
+    void uidValidityChangeFallsBackToUnreadMessages() throws Exception {
+        List<String> handled = new CopyOnWriteArrayList<>();
+        MailboxPoller.Settings settings = settings("uid-validity-" + System.nanoTime(), 1);
+        MailboxPoller poller = new MailboxPoller(settings, (message, routing) -> handled.add(message.getSubject()));
+        FakeUidFolder folder = new FakeUidFolder(7);
+        folder.add(5, text("validity@mnemosyne-systems.ai", "Before reset"));
+
+        try {
+            Assertions.assertEquals(1, poller.pollByUid(folder, folder, false).processed());
+            // The mailbox was recreated: UIDs restart, and the already seen message keeps its flag.
+            folder.renumber(8);
+            folder.add(2, text("validity@mnemosyne-systems.ai", "After reset"));
+            Assertions.assertEquals(1, poller.pollByUid(folder, folder, false).processed());
+        } finally {
+            poller.close();
+        }
+
+        Assertions.assertEquals(List.of("Before reset", "After reset"), handled);
+        MailboxCheckpoint checkpoint = checkpoint(settings);
+        Assertions.assertEquals(8, checkpoint.uidValidity);
+        Assertions.assertEquals(2, checkpoint.lastUid);
+    }
+
+    @Test
+    void failedMessageIsRetriedUntilGivingUp() throws Exception {
+        List<String> attempts = new CopyOnWriteArrayList<>();
+        MailboxPoller.Settings settings = settings("uid-retries-" + System.nanoTime(), 1);
+        MailboxPoller poller = new MailboxPoller(settings, (message, routing) -> {
+            attempts.add(message.getSubject());
+            if ("Broken".equals(message.getSubject())) {
+                throw new MessagingException("Unreadable message");
+            }
+        });
+        FakeUidFolder folder = new FakeUidFolder(3);
+        folder.add(1, text("retry@mnemosyne-systems.ai", "Broken"));
+
+        try {
+            Assertions.assertEquals(0, poller.pollByUid(folder, folder, false).processed());
+            Assertions.assertEquals(Map.of(1L, 1), checkpoint(settings).retries());
+            folder.add(2, text("retry@mnemosyne-systems.ai", "Working"));
+            Assertions.assertEquals(1, poller.pollByUid(folder, folder, false).processed());
+            for (int poll = 0; poll < 5; poll++) {
+                poller.pollByUid(folder, folder, false);
+            }
+        } finally {
+            poller.close();
+        }
+
+        Assertions.assertEquals(5, attempts.stream().filter("Broken"::equals).count());
+        Assertions.assertEquals(1, attempts.stream().filter("Working"::equals).count());
+        Assertions.assertFalse(folder.message(1).isSet(Flags.Flag.SEEN));
+        MailboxCheckpoint checkpoint = checkpoint(settings);
+        Assertions.assertEquals(2, checkpoint.lastUid);
+        Assertions.assertTrue(checkpoint.retries().isEmpty());
+    }
+
+    static MailboxPoller.Settings settings(String name, int workers) {
+        return new MailboxPoller.Settings(name, "imap", "imap.example.com", 993, name + "@example.com", "secret",
+                "INBOX", true, false, true, false, Duration.ofMinutes(1), workers, 0, false, Duration.ofMinutes(5),
+                1024 * 1024, IncomingEmailService.Routing.NONE);
+    }
+
+    static MimeMessage text(String from, String subject) throws Exception {
+        MimeMessage message = new MimeMessage(Session.getInstance(new Properties()));
+        message.setFrom(new InternetAddress(from));
+        message.setSubject(subject);
+        message.setText(subject, StandardCharsets.UTF_8.name());
+        message.saveChanges();
+        return message;
+    }
+
+    private MailboxCheckpoint checkpoint(MailboxPoller.Settings settings) {
+        return QuarkusTransaction.requiringNew().call(() -> MailboxCheckpoint.findByMailbox(settings.mailboxKey()));
+    }
+
+    /**
+     * In-memory IMAP folder. Like an IMAP server, a UID range starting past the last message returns the last message.
+     */
+    static final class FakeUidFolder extends Folder implements UIDFolder {
+
+        private final TreeMap<Long, Message> messages = new TreeMap<>();
+        private final Map<Message, Long> uids = new IdentityHashMap<>();
+        private long uidValidity;
+
+        FakeUidFolder(long uidValidity) throws MessagingException {
+            super(Session.getInstance(new Properties()).getStore("imap"));
+            this.uidValidity = uidValidity;
+        }
+
+        void add(long uid, Message message) {
+            messages.put(uid, message);
+            uids.put(message, uid);
+        }
+
+        Message message(long uid) {
+            return messages.get(uid);
+        }
+
+        /**
+         * Gives the current messages new UIDs from 1 under a new UID validity.
+         */
+        void renumber(long newUidValidity) {
+            List<Message> current = new ArrayList<>(messages.values());
+            messages.clear();
+            uids.clear();
+            uidValidity = newUidValidity;
+            long uid = 0;
+            for (Message message : current) {
+                add(++uid, message);
+            }
+        }
+
+        @Override
+        public long getUIDValidity() {
+            return uidValidity;
+        }
+
+        @Override
+        public Message getMessageByUID(long uid) {
+            return messages.get(uid);
+        }
+
+        @Override
+        public Message[] getMessagesByUID(long start, long end) {
+            List<Message> range = new ArrayList<>(
+                    messages.subMap(start, true, end == LASTUID ? Long.MAX_VALUE : end, true).values());
+            if (range.isEmpty() && end == LASTUID && !messages.isEmpty()) {
+                range.add(messages.lastEntry().getValue());
+            }
+            return range.toArray(Message[]::new);
+        }
+
+        @Override
+        public Message[] getMessagesByUID(long[] requested) {
+            Message[] found = new Message[requested.length];
+            for (int index = 0; index < requested.length; index++) {
+                found[index] = messages.get(requested[index]);
+            }
+            return found;
+        }
+
+        @Override
+        public long getUID(Message message) throws MessagingException {
+            Long uid = uids.get(message);
+            if (uid == null) {
+                throw new MessagingException("Message is not in this folder");
+            }
+            return uid;
+        }
+
+        @Override
+        public long getUIDNext() {
+            return messages.isEmpty() ? 1 : messages.lastKey() + 1;
+        }
+
+        @Override
+        public String getName() {
+            return "INBOX";
+        }
+
+        @Override
+        public String getFullName() {
+            return "INBOX";
+        }
+
+        @Override
+        public Folder getParent() {
+            return null;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public Folder[] list(String pattern) {
+            return new Folder[0];
+        }
+
+        @Override
+        public char getSeparator() {
+            return '/';
+        }
+
+        @Override
+        public int getType() {
+            return HOLDS_MESSAGES;
+        }
+
+        @Override
+        public boolean create(int type) {
+            return false;
+        }
+
+        @Override
+        public boolean hasNewMessages() {
+            return false;
+        }
+
+        @Override
+        public Folder getFolder(String name) {
+            return this;
+        }
+
+        @Override
+        public boolean delete(boolean recurse) {
+            return false;
+        }
+
+        @Override
+        public boolean renameTo(Folder folder) {
+            return false;
+        }
+
+        @Override
+        public void open(int mode) {
+        }
+
+        @Override
+        public void close(boolean expunge) {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public Flags getPermanentFlags() {
+            return new Flags();
+        }
+
+        @Override
+        public int getMessageCount() {
+            return messages.size();
+        }
+
+        @Override
+        public Message getMessage(int number) {
+            return new ArrayList<>(messages.values()).get(number - 1);
+        }
+
+        @Override
+        public void appendMessages(Message[] appended) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Message[] expunge() {
+            return new Message[0];
+        }
+    }
+}
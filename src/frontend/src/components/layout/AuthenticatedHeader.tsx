@@ -254,7 +254,9 @@ export default function AuthenticatedHeader({
         >
           {session?.installationLogoBase64 ? (
             <img
-              src={session.installationLogoBase64}
+              src={
+                session.installationLogoUrl || session.installationLogoBase64
+              }
               alt={`${installationCompanyName(session.installationCompanyName)} logo`}
               className="h-7 w-7 shrink-0 object-contain"
             />
@@ -479,15 +479,11 @@ export function OwnerPage(props: SessionPageProps) {
                   Logo
                 </FieldLabel>
                 <div className="flex items-center gap-4">
-                  {owner.logoBase64 ? (
-                    <img
-                      src={owner.logoBase64}
-                      alt={`${owner.name || "Installation"} logo`}
-                      className="h-12 w-12 rounded-md object-contain"
-                    />
-                  ) : (
-                    <span className="text-sm text-muted-foreground">None</span>
-                  )}
+                  <img
+                    src={owner.logoBase64 || "/api/app/branding/logo"}
+                    alt={`${owner.name || "Installation"} logo`}
+                    className="h-12 w-12 rounded-md object-contain"
+                  />
                 </div>
               </Field>
               <Field className="md:col-span-2">
@@ -724,6 +720,14 @@ export function OwnerEditPage(props: SessionPageProps) {
         headers: { "Content-Type": "application/json" },
         body: JSON.stringify({
           ...formState,
+          logoBase64:
+            formState.logoBase64 !== (owner?.logoBase64 || "")
+              ? formState.logoBase64
+              : undefined,
+          backgroundBase64:
+            formState.backgroundBase64 !== (owner?.backgroundBase64 || "")
+              ? formState.backgroundBase64
+              : undefined,
           use24HourClock: formState.use24HourClock,
           ticketAutoCloseDays: formState.ticketAutoCloseDays,
           adminRoleIcon: formState.adminRoleIcon,
@@ -945,7 +949,9 @@ export function OwnerEditPage(props: SessionPageProps) {
                 </FieldLabel>
                 <div className="flex items-center gap-6">
                   <UserLogoPreview
-                    logoBase64={formState.logoBase64}
+                    logoBase64={
+                      formState.logoBase64 || "/api/app/branding/logo"
+                    }
                     fullName={formState.name}
                     username={formState.name}
                     email={formState.name}
@@ -954,7 +960,7 @@ export function OwnerEditPage(props: SessionPageProps) {
                     <input
                       ref={logoInputRef}
                       type="file"
-                      accept="image/*"
+                      accept="image/png,image/jpeg,image/gif,image/webp"
                       className="hidden"
                       onChange={uploadLogo}
                     />
@@ -989,7 +995,7 @@ export function OwnerEditPage(props: SessionPageProps) {
                     <input
                       ref={backgroundInputRef}
                       type="file"
-                      accept="image/*"
+                      accept="image/png,image/jpeg,image/gif,image/webp"
                       className="hidden"
                       onChange={uploadBackground}
                     />
@@ -13,6 +13,7 @@ import useExternalScript from "../hooks/useExternalScript";
 import DataState from "../components/common/DataState";
 import PageHeader from "../components/layout/PageHeader";
 import { toQueryString } from "../utils/formatting";
+import { postForm } from "../utils/api";
 import {
   Card,
   CardContent,
@@ -70,7 +71,6 @@ const REPORT_DEFAULT_COLORS = [
 
 interface ChartInstance {
   destroy: () => void;
-  toBase64Image: () => string;
 }
 
 interface ChartConstructor {
@@ -101,12 +101,10 @@ interface ChartWindow extends Window {
 }
 
 interface ReportChartCanvasProps {
-  chartKey: string;
   type: ReportChartType;
   items?: ReportChartPoint[];
   scriptReady: boolean;
   scriptError: string;
-  onChartReady?: (name: string, instance: ChartInstance | null) => void;
   colorMap?: Record<string, string>;
   integerScale?: boolean;
   fill?: boolean;
@@ -129,12 +127,10 @@ function reportColorsForLabels(
 }
 
 function ReportChartCanvas({
-  chartKey,
   type,
   items,
   scriptReady,
   scriptError,
-  onChartReady,
   colorMap,
   integerScale = false,
   fill = false,
@@ -158,7 +154,6 @@ function ReportChartCanvas({
         chartRef.current.destroy();
         chartRef.current = null;
       }
-      onChartReady?.(chartKey, null);
       return undefined;
     }
 
@@ -208,23 +203,19 @@ function ReportChartCanvas({
       },
       options,
     });
-    onChartReady?.(chartKey, chartRef.current);
 
     return () => {
       if (chartRef.current) {
         chartRef.current.destroy();
         chartRef.current = null;
       }
-      onChartReady?.(chartKey, null);
     };
   }, [
     ChartCtor,
-    chartKey,
     colorMap,
     fill,
     integerScale,
     normalizedItems,
-    onChartReady,
     scriptReady,
     type,
   ]);
@@ -258,7 +249,6 @@ function ReportChartCanvas({
 }
 
 function ReportChartCard({
-  chartKey,
   title,
   children,
   ...chartProps
@@ -272,7 +262,7 @@ function ReportChartCard({
         )}
       </CardHeader>
       <CardContent className="flex-1 p-4 bg-background">
-        <ReportChartCanvas chartKey={chartKey} {...chartProps} />
+        <ReportChartCanvas {...chartProps} />
       </CardContent>
     </Card>
   );
@@ -283,12 +273,14 @@ export default function ReportsPage({ sessionState }: SessionPageProps) {
   const role = session?.role;
   const supportsReports = ["admin", "tam", "superuser"].includes(role || "");
   const [filters, setFilters] = useState({ companyId: "", period: "all" });
+  const [refreshCount, setRefreshCount] = useState(0);
+  const [refreshing, setRefreshing] = useState(false);
+  const [refreshError, setRefreshError] = useState("");
   const chartScriptState = useExternalScript(
     "/webjars/chart.js/4.5.1/dist/chart.umd.js",
   );
-  const chartInstancesRef = useRef<Record<string, ChartInstance>>({});
   const reportUrl = supportsReports
-    ? `/api/reports${toQueryString({ companyId: filters.companyId || undefined, period: filters.period || undefined })}`
+    ? `/api/reports${toQueryString({ companyId: filters.companyId || undefined, period: filters.period || undefined, refresh: refreshCount || undefined })}`
     : null;
   const reportsState = useJson<ReportData>(reportUrl);
   const reports = reportsState.data;
@@ -296,43 +288,39 @@ export default function ReportsPage({ sessionState }: SessionPageProps) {
     filters.companyId ||
     (reports?.selectedCompanyId ? String(reports.selectedCompanyId) : "");
 
-  const onChartReady = (name: string, instance: ChartInstance | null) => {
-    if (instance) {
-      chartInstancesRef.current[name] = instance;
-      return;
-    }
-    delete chartInstancesRef.current[name];
-  };
-
   const exportReport = () => {
     if (!reports?.exportPath) {
       return;
     }
-    const form = document.createElement("form");
-    form.method = "POST";
-    form.action = `${reports.exportPath}${toQueryString({ companyId: filters.companyId || undefined, period: filters.period || undefined })}`;
-
-    const imageFields = {
-      statusChart: chartInstancesRef.current.statusChart,
-      categoryChart: chartInstancesRef.current.categoryChart,
-      companyChart: chartInstancesRef.current.companyChart,
-      timeChart: chartInstancesRef.current.timeChart,
-      responseTimeChart: chartInstancesRef.current.responseTimeChart,
-      resolutionTimeChart: chartInstancesRef.current.resolutionTimeChart,
-      histogramChart: chartInstancesRef.current.histogramChart,
-    };
+    window.location.assign(
+      `${reports.exportPath}${toQueryString({ companyId: filters.companyId || undefined, period: filters.period || undefined })}`,
+    );
+  };
 
-    Object.entries(imageFields).forEach(([name, chart]) => {
-      const input = document.createElement("input");
-      input.type = "hidden";
-      input.name = name;
-      input.value = chart ? chart.toBase64Image() : "";
-      form.appendChild(input);
-    });
+  useEffect(() => {
+    if (!refreshing) {
+      return undefined;
+    }
+    const timer = window.setTimeout(() => {
+      setRefreshing(false);
+      setRefreshCount((count) => count + 1);
+    }, 2000);
+    return () => window.clearTimeout(timer);
+  }, [refreshing]);
 
-    document.body.appendChild(form);
-    form.submit();
-    document.body.removeChild(form);
+  const refreshReport = async () => {
+    setRefreshError("");
+    try {
+      await postForm("/api/reports/refresh", [
+        ["companyId", filters.companyId || undefined],
+        ["period", filters.period || undefined],
+      ]);
+      setRefreshing(true);
+    } catch (error) {
+      setRefreshError(
+        error instanceof Error ? error.message : "Unable to refresh.",
+      );
+    }
   };
 
   if (!supportsReports) {
@@ -395,39 +383,32 @@ export default function ReportsPage({ sessionState }: SessionPageProps) {
 
             <div className="grid gap-6 md:grid-cols-2 lg:grid-cols-2">
               <ReportChartCard
-                chartKey="statusChart"
                 title="Tickets by Status"
                 type="pie"
                 items={reports.status}
                 scriptReady={chartScriptState.loaded}
                 scriptError={chartScriptState.error}
                 colorMap={REPORT_STATUS_COLORS}
-                onChartReady={onChartReady}
               />
               <ReportChartCard
-                chartKey="categoryChart"
                 title="Tickets by Category"
                 type="bar"
                 items={reports.category}
                 scriptReady={chartScriptState.loaded}
                 scriptError={chartScriptState.error}
                 integerScale
-                onChartReady={onChartReady}
               />
               {reports.showCompanyChart && (
                 <ReportChartCard
-                  chartKey="companyChart"
                   title="Tickets by Company"
                   type="bar"
                   items={reports.company}
                   scriptReady={chartScriptState.loaded}
                   scriptError={chartScriptState.error}
                   integerScale
-                  onChartReady={onChartReady}
-                />
+                  />
               )}
               <ReportChartCard
-                chartKey="timeChart"
                 title="Ticket Volume Over Time"
                 type="line"
                 items={reports.timeline}
@@ -435,7 +416,6 @@ export default function ReportsPage({ sessionState }: SessionPageProps) {
                 scriptError={chartScriptState.error}
                 integerScale
                 fill
-                onChartReady={onChartReady}
               >
                 <div className="flex items-center space-x-2 text-sm font-normal">
                   <span className="text-muted-foreground">Period</span>
@@ -460,22 +440,18 @@ export default function ReportsPage({ sessionState }: SessionPageProps) {
                 </div>
               </ReportChartCard>
               <ReportChartCard
-                chartKey="responseTimeChart"
                 title="Avg. First Response Time (hours)"
                 type="bar"
                 items={reports.firstResponse}
                 scriptReady={chartScriptState.loaded}
                 scriptError={chartScriptState.error}
-                onChartReady={onChartReady}
               />
               <ReportChartCard
-                chartKey="resolutionTimeChart"
                 title="Avg. Resolution Time (hours)"
                 type="bar"
                 items={reports.resolutionTime}
                 scriptReady={chartScriptState.loaded}
                 scriptError={chartScriptState.error}
-                onChartReady={onChartReady}
               />
             </div>
 
@@ -488,7 +464,6 @@ export default function ReportsPage({ sessionState }: SessionPageProps) {
               <CardContent className="p-4 grid gap-8 lg:grid-cols-2">
                 <div>
                   <ReportChartCanvas
-                    chartKey="histogramChart"
                     type="bar"
                     items={(reports.histogram || []).map(
                       (bucket: ReportHistogramBucket) => ({
@@ -499,8 +474,7 @@ export default function ReportsPage({ sessionState }: SessionPageProps) {
                     scriptReady={chartScriptState.loaded}
                     scriptError={chartScriptState.error}
                     integerScale
-                    onChartReady={onChartReady}
-                  />
+                      />
                 </div>
                 <div className="overflow-x-auto">
                   <Table className="text-sm">
@@ -550,11 +524,22 @@ export default function ReportsPage({ sessionState }: SessionPageProps) {
             </Card>
 
             <div className="flex items-center justify-end space-x-3 pt-4">
+              {refreshError && (
+                <p className="text-sm text-destructive">{refreshError}</p>
+              )}
+              {reports.generatedAt && (
+                <p className="text-sm text-muted-foreground">
+                  Generated {new Date(reports.generatedAt).toLocaleString()}
+                </p>
+              )}
               <Button
                 variant="outline"
-                onClick={exportReport}
-                disabled={!chartScriptState.loaded}
+                onClick={refreshReport}
+                disabled={refreshing}
               >
+                {refreshing ? "Refreshing..." : "Refresh now"}
+              </Button>
+              <Button variant="outline" onClick={exportReport}>
                 Export
               </Button>
             </div>
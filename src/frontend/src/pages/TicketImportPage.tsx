@@ -6,7 +6,7 @@
  *   OF THE PROGRAM CONSTITUTES RECIPIENT'S ACCEPTANCE OF THIS AGREEMENT.
  */
 
-import { FormEvent, useState } from "react";
+import { FormEvent, useEffect, useState } from "react";
 import { toast } from "sonner";
 import { FileSpreadsheet } from "lucide-react";
 import { useNavigate } from "react-router-dom";
@@ -21,6 +21,13 @@ import {
   CardTitle,
 } from "../components/ui/card";
 import { Input } from "../components/ui/input";
+import {
+  Select,
+  SelectContent,
+  SelectItem,
+  SelectTrigger,
+  SelectValue,
+} from "../components/ui/select";
 import {
   Table,
   TableBody,
@@ -30,7 +37,7 @@ import {
   TableRow,
 } from "../components/ui/table";
 import useJson from "../hooks/useJson";
-import { postMultipart } from "../utils/api";
+import { fetchJson, postMultipart } from "../utils/api";
 import { resolvePostRedirectPath, SmartLink } from "../utils/routing";
 import { PATHS } from "../routes/paths";
 
@@ -39,6 +46,7 @@ interface TicketImportFormat {
   label: string;
   requiredColumns: string[];
   optionalColumns: string[];
+  submitPath: string;
 }
 
 interface TicketImportBootstrap {
@@ -50,7 +58,7 @@ interface TicketImportResult {
   rowNumber: number;
   sourceSystem: string;
   sourceKey: string;
-  result: "created" | "skipped" | "failed";
+  result: "created" | "appended" | "skipped" | "failed";
   ticketId?: number | null;
   ticketName?: string | null;
   errorMessage?: string | null;
@@ -63,33 +71,92 @@ interface TicketImportSummary {
   status: string;
   rowCount: number;
   createdCount: number;
+  appendedCount: number;
   skippedCount: number;
   failedCount: number;
   results: TicketImportResult[];
+  bytesRead: number;
+  bytesTotal: number;
+  errorMessage?: string | null;
 }
 
+const RUNNING_STATUS = "Running";
+const FORMAT_DETAILS: Record<string, { accept: string; description: string }> =
+  {
+    csv: {
+      accept: ".csv,text/csv",
+      description: "Each row create one ticket and one initial message",
+    },
+    ndjson: {
+      accept: ".ndjson,.jsonl,application/x-ndjson",
+      description:
+        "Each line holds one ticket with its messages and base64 attachments",
+    },
+    mbox: {
+      accept: ".mbox,application/mbox",
+      description:
+        "Each email becomes a ticket, replies are added to the ticket of their thread",
+    },
+  };
+const POLL_INTERVAL_MS = 1000;
+
 export default function TicketImportPage() {
   const navigate = useNavigate();
   const bootstrapState = useJson<TicketImportBootstrap>(
     "/api/ticket-imports/bootstrap",
   );
+  const [formatId, setFormatId] = useState("csv");
   const [file, setFile] = useState<File | null>(null);
   const [summary, setSummary] = useState<TicketImportSummary | null>(null);
   const [submitting, setSubmitting] = useState(false);
-  const csvFormat = bootstrapState.data?.formats?.find(
-    (format) => format.id === "csv",
-  );
+  const formats = bootstrapState.data?.formats || [];
+  const selectedFormat = formats.find((format) => format.id === formatId);
+  const formatDetails = FORMAT_DETAILS[formatId] || FORMAT_DETAILS.csv;
+  const running = summary?.status === RUNNING_STATUS;
+
+  useEffect(() => {
+    if (!summary || summary.status !== RUNNING_STATUS) {
+      return undefined;
+    }
+    const timer = window.setTimeout(async () => {
+      try {
+        const nextSummary = await fetchJson<TicketImportSummary>(
+          `/api/ticket-imports/${summary.batchId}`,
+        );
+        setSummary(nextSummary);
+        if (nextSummary.status !== RUNNING_STATUS) {
+          if (nextSummary.errorMessage) {
+            toast.error(nextSummary.errorMessage);
+          } else {
+            toast.success("Ticket import completed.");
+          }
+        }
+      } catch (error) {
+        toast.error(
+          error instanceof Error
+            ? error.message
+            : "Unable to load import progress.",
+        );
+      }
+    }, POLL_INTERVAL_MS);
+    return () => window.clearTimeout(timer);
+  }, [summary]);
 
   const submitImport = async (event: FormEvent<HTMLFormElement>) => {
     event.preventDefault();
-    if (!file || submitting) {
+    if (!file || submitting || running) {
       return;
     }
     setSubmitting(true);
     try {
       const response = await postMultipart(
-        bootstrapState.data?.submitPath || "/api/ticket-imports/csv",
-        [["file", file]],
+        selectedFormat?.submitPath ||
+          bootstrapState.data?.submitPath ||
+          "/api/ticket-imports/csv",
+        [
+          ["file", file],
+          ["background", "true"],
+        ],
       );
       if (
         response.type === "opaqueredirect" ||
@@ -106,7 +173,9 @@ export default function TicketImportPage() {
       }
       const nextSummary = (await response.json()) as TicketImportSummary;
       setSummary(nextSummary);
-      toast.success("Ticket import completed.");
+      if (nextSummary.status !== RUNNING_STATUS) {
+        toast.success("Ticket import completed.");
+      }
     } catch (error) {
       toast.error(
         error instanceof Error ? error.message : "Unable to import tickets.",
@@ -125,9 +194,31 @@ export default function TicketImportPage() {
           <div className="grid gap-6 lg:grid-cols-[minmax(0,1fr)_360px]">
             <Card>
               <CardHeader>
-                <CardTitle>CSV</CardTitle>
+                <CardTitle>{selectedFormat?.label || "CSV"}</CardTitle>
               </CardHeader>
               <CardContent className="space-y-4">
+                <div className="space-y-2">
+                  <p className="text-sm font-medium text-foreground">Format</p>
+                  <Select
+                    value={formatId}
+                    onValueChange={(value) => {
+                      setFormatId(value);
+                      setFile(null);
+                    }}
+                  >
+                    <SelectTrigger className="w-full">
+                      <SelectValue placeholder="Select format" />
+                    </SelectTrigger>
+                    <SelectContent>
+                      {formats.map((format) => (
+                        <SelectItem key={format.id} value={format.id}>
+                          {format.label}
+                        </SelectItem>
+                      ))}
+                    </SelectContent>
+                  </Select>
+                </div>
+
                 <div className="flex items-start gap-4 rounded-sm border bg-muted/20 p-4">
                   <span className="inline-flex h-11 w-11 shrink-0 items-center justify-center rounded-sm bg-sky-50 text-sky-700 ring-1 ring-sky-100">
                     <FileSpreadsheet className="h-5 w-5" />
@@ -135,7 +226,7 @@ export default function TicketImportPage() {
                   <div className="space-y-1 text-sm">
                     <p className="font-medium text-foreground">Upload</p>
                     <p className="leading-6 text-muted-foreground">
-                      Each row create one ticket and one initial message
+                      {formatDetails.description}
                     </p>
                   </div>
                 </div>
@@ -143,8 +234,9 @@ export default function TicketImportPage() {
                 <div className="space-y-2">
                   <p className="text-sm font-medium text-foreground">File</p>
                   <Input
+                    key={formatId}
                     type="file"
-                    accept=".csv,text/csv"
+                    accept={formatDetails.accept}
                     onChange={(event) =>
                       setFile(event.target.files?.item(0) || null)
                     }
@@ -156,16 +248,18 @@ export default function TicketImportPage() {
               </CardContent>
             </Card>
 
-            {csvFormat && (
+            {selectedFormat && selectedFormat.requiredColumns.length > 0 && (
               <Card>
                 <CardHeader>
-                  <CardTitle>Columns</CardTitle>
+                  <CardTitle>
+                    {formatId === "csv" ? "Columns" : "Fields"}
+                  </CardTitle>
                 </CardHeader>
                 <CardContent className="space-y-4 text-sm">
                   <div>
                     <p className="mb-2 font-medium">Required</p>
                     <div className="flex flex-wrap gap-2">
-                      {csvFormat.requiredColumns.map((column) => (
+                      {selectedFormat.requiredColumns.map((column) => (
                         <Badge key={column} variant="secondary">
                           {column}
                         </Badge>
@@ -175,7 +269,7 @@ export default function TicketImportPage() {
                   <div>
                     <p className="mb-2 font-medium">Optional</p>
                     <div className="flex flex-wrap gap-2">
-                      {csvFormat.optionalColumns.map((column) => (
+                      {selectedFormat.optionalColumns.map((column) => (
                         <Badge key={column} variant="outline">
                           {column}
                         </Badge>
@@ -188,19 +282,37 @@ export default function TicketImportPage() {
           </div>
 
           <div className="flex justify-end">
-            <Button type="submit" disabled={!file || submitting}>
-              {submitting ? "Importing" : "Import"}
+            <Button type="submit" disabled={!file || submitting || running}>
+              {submitting || running ? "Importing" : "Import"}
             </Button>
           </div>
 
           {summary && (
             <div className="space-y-4">
-              <div className="grid gap-3 sm:grid-cols-4">
+              <div className="grid gap-3 sm:grid-cols-5">
                 <Metric label="Rows" value={summary.rowCount} />
                 <Metric label="Created" value={summary.createdCount} />
+                <Metric label="Appended" value={summary.appendedCount} />
                 <Metric label="Skipped" value={summary.skippedCount} />
                 <Metric label="Failed" value={summary.failedCount} />
               </div>
+              {running && (
+                <p className="text-sm text-muted-foreground">
+                  {summary.bytesTotal > 0
+                    ? `${Math.min(
+                        100,
+                        Math.floor(
+                          (summary.bytesRead * 100) / summary.bytesTotal,
+                        ),
+                      )}% read`
+                    : "Importing"}
+                </p>
+              )}
+              {summary.errorMessage && (
+                <p className="text-sm text-destructive">
+                  {summary.errorMessage}
+                </p>
+              )}
               <div className="overflow-x-auto rounded-md border">
                 <Table>
                   <TableHeader>
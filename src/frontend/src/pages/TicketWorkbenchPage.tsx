@@ -10,8 +10,7 @@ import DataState from "../components/common/DataState";
 import PaginationControls from "../components/common/PaginationControls";
 import SortDropdown from "../components/common/SortDropdown";
 import PageHeader from "../components/layout/PageHeader";
-import useJson from "../hooks/useJson";
-import useClientPagination from "../hooks/useClientPagination";
+import usePaginatedList from "../hooks/usePaginatedList";
 import { SmartLink } from "../utils/routing";
 import type { SessionPageProps } from "../types/app";
 import type {
@@ -29,49 +28,15 @@ const SORT_OPTIONS = [
   { key: "category", label: "Category" },
 ];
 
-const SORT_CONFIGS = [
-  {
-    key: "name",
-    comparator: (a: TicketWorkbenchListItem, b: TicketWorkbenchListItem) =>
-      (a.name || "").localeCompare(b.name || "", undefined, {
-        sensitivity: "base",
-      }),
-  },
-  {
-    key: "status",
-    comparator: (a: TicketWorkbenchListItem, b: TicketWorkbenchListItem) =>
-      (a.status || "").localeCompare(b.status || "", undefined, {
-        sensitivity: "base",
-      }),
-  },
-  {
-    key: "company",
-    comparator: (a: TicketWorkbenchListItem, b: TicketWorkbenchListItem) =>
-      (a.companyName || "").localeCompare(b.companyName || "", undefined, {
-        sensitivity: "base",
-      }),
-  },
-  {
-    key: "category",
-    comparator: (a: TicketWorkbenchListItem, b: TicketWorkbenchListItem) =>
-      (a.categoryName || "").localeCompare(b.categoryName || "", undefined, {
-        sensitivity: "base",
-      }),
-  },
-];
+const SORT_KEYS = ["name", "status", "company", "category"] as const;
 
 export default function TicketWorkbenchPage({
   sessionState,
 }: SessionPageProps) {
-  const ticketState = useJson<CollectionResponse<TicketWorkbenchListItem>>(
-    "/api/ticket-workbench",
-  );
-  const tickets = ticketState.data;
-
   const defaultPageSize = sessionState.data?.defaultPageSize ?? undefined;
 
   const {
-    pageItems,
+    state: ticketState,
     page,
     pageSize,
     totalItems,
@@ -82,12 +47,14 @@ export default function TicketWorkbenchPage({
     setPageSize,
     setSort,
     pageSizeOptions,
-  } = useClientPagination<TicketWorkbenchListItem>({
-    items: tickets?.items || [],
+  } = usePaginatedList<CollectionResponse<TicketWorkbenchListItem>>({
+    apiUrl: "/api/ticket-workbench",
     defaultPageSize,
-    sortConfigs: SORT_CONFIGS,
     defaultSort: "name",
+    sortKeys: SORT_KEYS,
   });
+  const tickets = ticketState.data;
+  const pageItems = tickets?.items || [];
 
   return (
     <section className="w-full mt-4">
@@ -32,6 +32,8 @@ export interface Session {
   installationCompanyName?: string;
   installationLogoBase64?: string;
   installationBackgroundBase64?: string;
+  installationLogoUrl?: string;
+  installationBackgroundUrl?: string;
   installationHeaderFooterColor?: string;
   installationHeadersColor?: string;
   installationButtonsColor?: string;
@@ -36,4 +36,5 @@ export interface ReportData {
   firstResponse?: ReportChartPoint[];
   resolutionTime?: ReportChartPoint[];
   histogram?: ReportHistogramBucket[];
+  generatedAt?: string;
 }
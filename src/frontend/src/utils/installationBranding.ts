@@ -64,9 +64,11 @@ export function pickInstallationBranding(
   if (session.installationCompanyName !== undefined)
     result.installationCompanyName = session.installationCompanyName;
   if (session.installationLogoBase64 !== undefined)
-    result.installationLogoBase64 = session.installationLogoBase64;
+    result.installationLogoBase64 =
+      session.installationLogoUrl || session.installationLogoBase64;
   if (session.installationBackgroundBase64 !== undefined)
-    result.installationBackgroundBase64 = session.installationBackgroundBase64;
+    result.installationBackgroundBase64 =
+      session.installationBackgroundUrl || session.installationBackgroundBase64;
   if (session.installationHeaderFooterColor !== undefined)
     result.installationHeaderFooterColor =
       session.installationHeaderFooterColor;